@@ -0,0 +1,178 @@
+package com.hospital.management.adapters;
+
+import android.util.Log;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.model.Patient;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Удаление 1000 пациентов по ID из адаптера со 100k строк: по одному (removePatient)
+ * и пакетом (removePatients). Считаются и уведомления адаптера: пакет сообщает
+ * подряд идущие строки одним диапазоном.
+ * Адаптер не подключён к RecyclerView - замеряется поиск позиций и правка списка.
+ * Удаление по одному не должно перестраивать индекс позиций после каждой правки:
+ * число строк, записанных в индекс, ограничено несколькими размерами списка, а не
+ * произведением числа удалений на размер
+ */
+@RunWith(AndroidJUnit4.class)
+public class AdapterBatchRemoveBenchmark {
+    private static final String TAG = "AdapterBatchRemoveBenchmark";
+    private static final int DATASET_SIZE = 100_000;
+    private static final int REMOVED = 1_000;
+    // Половина удаляемых строк идёт подряд, остальные разбросаны по списку
+    private static final int CONTIGUOUS = REMOVED / 2;
+    // Допустимое число строк, записанных в индекс за REMOVED удалений, в размерах списка
+    private static final int MAX_INDEX_PASSES = 10;
+
+    @Test
+    public void removeThousandIds() {
+        final List<Integer> ids = pickIds();
+        final long[] elapsedNs = new long[2];
+        final int[] notifications = new int[2];
+        final int[] remaining = new int[2];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                PatientAdapter single = filledAdapter();
+                CountingObserver singleObserver = new CountingObserver();
+                single.registerAdapterDataObserver(singleObserver);
+                long start = System.nanoTime();
+                for (Integer id : ids) {
+                    single.removePatient(id);
+                }
+                elapsedNs[0] = System.nanoTime() - start;
+                notifications[0] = singleObserver.removals;
+                remaining[0] = single.getItemCount();
+
+                PatientAdapter batch = filledAdapter();
+                CountingObserver batchObserver = new CountingObserver();
+                batch.registerAdapterDataObserver(batchObserver);
+                start = System.nanoTime();
+                int removed = batch.removePatients(ids);
+                elapsedNs[1] = System.nanoTime() - start;
+                notifications[1] = batchObserver.removals;
+                remaining[1] = batch.getItemCount();
+                assertEquals(REMOVED, removed);
+                assertEquals(REMOVED, batchObserver.removedRows);
+            }
+        });
+
+        assertEquals(DATASET_SIZE - REMOVED, remaining[0]);
+        assertEquals(DATASET_SIZE - REMOVED, remaining[1]);
+        assertEquals(REMOVED, notifications[0]);
+        assertTrue(notifications[1] <= REMOVED - CONTIGUOUS + 1);
+
+        Log.i(TAG, String.format("remove %d of %d ids: one by one %.1f ms (%d notifications), " +
+                        "batch %.1f ms (%d notifications)",
+                REMOVED, DATASET_SIZE, elapsedNs[0] / 1_000_000.0, notifications[0],
+                elapsedNs[1] / 1_000_000.0, notifications[1]));
+    }
+
+    @Test
+    public void singleRemovalsKeepIndex() {
+        final List<Integer> ids = pickIds();
+        final long[] indexedRows = new long[1];
+        final long[] elapsedNs = new long[1];
+        final int[] remaining = new int[1];
+
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                // Тот же список, что у PatientAdapter, со счётчиком работы индекса
+                AsyncItemList<PatientRow> rows = new AsyncItemList<>(new PatientAdapter(),
+                        new AsyncItemList.ItemCallback<PatientRow>() {
+                            @Override
+                            int idOf(PatientRow item) {
+                                return item.getPatientId();
+                            }
+
+                            @Override
+                            public boolean areContentsTheSame(PatientRow oldItem, PatientRow newItem) {
+                                return oldItem.looksSame(newItem);
+                            }
+                        });
+                rows.submit(PatientRow.of(patients()));
+                long start = System.nanoTime();
+                for (Integer id : ids) {
+                    int position = rows.positionOf(id);
+                    if (position >= 0) {
+                        rows.remove(position);
+                    }
+                }
+                elapsedNs[0] = System.nanoTime() - start;
+                indexedRows[0] = rows.getIndexedRows();
+                remaining[0] = rows.size();
+            }
+        });
+
+        Log.i(TAG, String.format("remove %d of %d ids one by one: %.1f ms, %d rows indexed",
+                REMOVED, DATASET_SIZE, elapsedNs[0] / 1_000_000.0, indexedRows[0]));
+        assertEquals(DATASET_SIZE - REMOVED, remaining[0]);
+        assertTrue("Index rebuilt per removal: " + indexedRows[0] + " rows",
+                indexedRows[0] <= (long) MAX_INDEX_PASSES * DATASET_SIZE);
+    }
+
+    private static PatientAdapter filledAdapter() {
+        PatientAdapter adapter = new PatientAdapter();
+        // Первый показ списка не сравнивается: строки появляются сразу
+        adapter.setPatients(patients());
+        assertEquals(DATASET_SIZE, adapter.getItemCount());
+        return adapter;
+    }
+
+    private static List<Patient> patients() {
+        List<Patient> patients = new ArrayList<>(DATASET_SIZE);
+        for (int i = 0; i < DATASET_SIZE; i++) {
+            Patient patient = new Patient("Имя" + i, "Фамилия" + i, "1980-01-01", null,
+                    "adapter" + i + "@example.com", null, null, null, 1 + i % 20);
+            patient.setPatientId(i + 1);
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    private static List<Integer> pickIds() {
+        List<Integer> ids = new ArrayList<>(REMOVED);
+        int first = DATASET_SIZE / 3;
+        for (int i = 0; i < CONTIGUOUS; i++) {
+            ids.add(first + i);
+        }
+        Random random = new Random(42);
+        boolean[] taken = new boolean[DATASET_SIZE + 1];
+        for (Integer id : ids) {
+            taken[id] = true;
+        }
+        while (ids.size() < REMOVED) {
+            int id = 1 + random.nextInt(DATASET_SIZE);
+            if (!taken[id]) {
+                taken[id] = true;
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static final class CountingObserver extends RecyclerView.AdapterDataObserver {
+        int removals;
+        int removedRows;
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            removals++;
+            removedRows += itemCount;
+        }
+    }
+}
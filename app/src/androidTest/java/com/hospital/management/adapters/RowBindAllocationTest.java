@@ -0,0 +1,118 @@
+package com.hospital.management.adapters;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.view.ContextThemeWrapper;
+import android.widget.FrameLayout;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.R;
+import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Patient;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Привязка строк при прокрутке не выделяет память: подписи собраны в PatientRow/DoctorRow
+ * заранее, обработчики кликов назначены при создании представлений.
+ * Одно представление перепривязывается ко всем строкам по кругу, как при быстрой прокрутке.
+ * Выделения считаются по счётчику ART "art.gc.bytes-allocated" (API 23+): он общий для процесса,
+ * поэтому берётся лучший из нескольких замеров, а допуск - меньше одного объекта на привязку
+ */
+@RunWith(AndroidJUnit4.class)
+public class RowBindAllocationTest {
+    private static final int ROWS = 200;
+    private static final int WARMUP_BINDS = ROWS * 2;
+    private static final int MEASURED_BINDS = 20_000;
+    private static final int ROUNDS = 5;
+    // Самый маленький объект ART - 8-16 байт: выделение при каждой привязке превысит допуск
+    private static final long MAX_BYTES_PER_BIND = 1;
+    private static final String BYTES_ALLOCATED = "art.gc.bytes-allocated";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("Allocation counter requires ART stats (API 23+)",
+                Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && Debug.getRuntimeStat(BYTES_ALLOCATED) != null);
+        context = new ContextThemeWrapper(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                R.style.Theme_HospitalManagement);
+    }
+
+    @Test
+    public void patientBindDoesNotAllocate() {
+        final long[] allocated = new long[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                List<Patient> patients = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    Patient patient = new Patient("Имя" + i, "Фамилия" + i, "1980-01-01",
+                            i % 2 == 0 ? "+7 900 000-00-" + i : null, "bind" + i + "@example.com",
+                            "ул. Тестовая, д. " + i, i % 3 == 0 ? null : "1234567890123456",
+                            "123-456-789 " + (10 + i % 90), i % 20);
+                    patient.setPatientId(i + 1);
+                    patients.add(patient);
+                }
+                PatientAdapter adapter = new PatientAdapter();
+                adapter.setItems(PatientRow.of(patients));
+                allocated[0] = allocatedByBinds(adapter, adapter.onCreateViewHolder(new FrameLayout(context), 0));
+            }
+        });
+        assertTrue("Patient bind allocates: " + allocated[0] + " bytes per " + MEASURED_BINDS + " binds",
+                allocated[0] <= MAX_BYTES_PER_BIND * MEASURED_BINDS);
+    }
+
+    @Test
+    public void doctorBindDoesNotAllocate() {
+        final long[] allocated = new long[1];
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                List<Doctor> doctors = new ArrayList<>(ROWS);
+                for (int i = 0; i < ROWS; i++) {
+                    doctors.add(new Doctor(i + 1, "Имя" + i, "Фамилия" + i, "Терапевт",
+                            String.valueOf(100 + i), "Пн-Пт 9:00-18:00", "doctor" + i + "@example.com"));
+                }
+                DoctorAdapter adapter = new DoctorAdapter();
+                adapter.setItems(DoctorRow.of(doctors));
+                allocated[0] = allocatedByBinds(adapter, adapter.onCreateViewHolder(new FrameLayout(context), 0));
+            }
+        });
+        assertTrue("Doctor bind allocates: " + allocated[0] + " bytes per " + MEASURED_BINDS + " binds",
+                allocated[0] <= MAX_BYTES_PER_BIND * MEASURED_BINDS);
+    }
+
+    // Байты, выделенные за MEASURED_BINDS привязок: минимум по ROUNDS замерам после прогрева
+    private static <VH extends RecyclerView.ViewHolder> long allocatedByBinds(RecyclerView.Adapter<VH> adapter,
+                                                                               VH holder) {
+        for (int i = 0; i < WARMUP_BINDS; i++) {
+            adapter.onBindViewHolder(holder, i % ROWS);
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = bytesAllocated();
+            for (int i = 0; i < MEASURED_BINDS; i++) {
+                adapter.onBindViewHolder(holder, i % ROWS);
+            }
+            best = Math.min(best, bytesAllocated() - before);
+        }
+        return best;
+    }
+
+    private static long bytesAllocated() {
+        return Long.parseLong(Debug.getRuntimeStat(BYTES_ALLOCATED));
+    }
+}
@@ -0,0 +1,150 @@
+package com.hospital.management.concurrent;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.dao.BulkWriteResult;
+import com.hospital.management.dao.DatabaseManager;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.TestPatients;
+import com.hospital.management.exporter.DirectoryExporter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Задержка интерактивных чтений (первая страница списка пациентов, от отправки до результата)
+ * без фоновой работы и во время экспорта 100k пациентов в фоновой очереди.
+ * Тестовые строки помечаются фамилией MARKER.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LanePriorityBenchmark {
+    private static final String TAG = "LanePriorityBenchmark";
+    private static final String MARKER = "LaneBenchmark";
+    private static final int DATASET_SIZE = 100_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int READS = 200;
+    private static final long READ_INTERVAL_MS = 10;
+
+    private Context context;
+    private DatabaseManager manager;
+    private PatientDao patientDao;
+    private final DatabaseExecutor executor = DatabaseExecutor.getInstance();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        patientDao = new PatientDao(context);
+        patientDao.open();
+        TestPatients.deleteMarked(manager, MARKER);
+        for (int start = 0; start < DATASET_SIZE; start += INSERT_BATCH) {
+            BulkWriteResult result = patientDao.addPatients(TestPatients.generate(MARKER, start, INSERT_BATCH));
+            assertEquals(INSERT_BATCH, result.getSuccessCount());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestPatients.deleteMarked(manager, MARKER);
+        patientDao.close();
+    }
+
+    @Test
+    public void interactiveLatencyUnderExport() throws Exception {
+        double[] idle = measureReads();
+
+        final AtomicLong exported = new AtomicLong(-1);
+        final CountDownLatch exportDone = new CountDownLatch(1);
+        executor.execute(DatabaseExecutor.Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    exported.set(new DirectoryExporter(context)
+                            .exportPatients(new NullChannel(), DirectoryExporter.Format.NDJSON, true));
+                } catch (Exception e) {
+                    Log.e(TAG, "Export failed: " + e.getMessage(), e);
+                } finally {
+                    exportDone.countDown();
+                }
+            }
+        });
+        double[] underExport = measureReads();
+        boolean exportOverlapped = exportDone.getCount() > 0;
+
+        assertTrue(exportDone.await(10, TimeUnit.MINUTES));
+        assertTrue(exported.get() >= DATASET_SIZE);
+
+        Log.i(TAG, String.format("first page latency, idle: p50 %.2f ms, p95 %.2f ms; " +
+                        "during %d-row export: p50 %.2f ms, p95 %.2f ms (export still running at the end: %b)",
+                percentile(idle, 0.5), percentile(idle, 0.95), exported.get(),
+                percentile(underExport, 0.5), percentile(underExport, 0.95), exportOverlapped));
+        Log.i(TAG, executor.toString());
+    }
+
+    /**
+     * READS чтений первой страницы через интерактивную очередь, по одному каждые READ_INTERVAL_MS
+     */
+    private double[] measureReads() throws InterruptedException {
+        double[] latencies = new double[READS];
+        for (int i = 0; i < READS; i++) {
+            final CountDownLatch done = new CountDownLatch(1);
+            long start = System.nanoTime();
+            executor.execute(DatabaseExecutor.Priority.INTERACTIVE, new Runnable() {
+                @Override
+                public void run() {
+                    patientDao.getPatientsPageAfter(null, 50);
+                    done.countDown();
+                }
+            });
+            assertTrue(done.await(30, TimeUnit.SECONDS));
+            latencies[i] = (System.nanoTime() - start) / 1_000_000.0;
+            Thread.sleep(READ_INTERVAL_MS);
+        }
+        return latencies;
+    }
+
+    private static double percentile(double[] values, double rank) {
+        double[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * rank) - 1)];
+    }
+
+    /**
+     * Канал, отбрасывающий данные: замеряется чтение из базы и сериализация, а не запись в файл
+     */
+    private static final class NullChannel implements WritableByteChannel {
+        private boolean open = true;
+
+        @Override
+        public int write(ByteBuffer source) {
+            int length = source.remaining();
+            source.position(source.limit());
+            return length;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() {
+            open = false;
+        }
+    }
+}
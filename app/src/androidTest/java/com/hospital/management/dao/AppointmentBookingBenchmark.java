@@ -0,0 +1,122 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.model.Appointment;
+import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Patient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Время записи на приём по мере заполнения календаря врача: 20k слотов по 15 минут,
+ * задержка считается по блокам из BLOCK записей и должна оставаться ровной.
+ * Тестовые пациент и врач помечаются фамилией MARKER.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AppointmentBookingBenchmark {
+    private static final String TAG = "AppointmentBookingBench";
+    private static final String MARKER = "BookingBenchmark";
+    private static final int SLOTS = 20_000;
+    private static final int BLOCK = 1_000;
+    private static final long SLOT_MS = 15 * 60 * 1000;
+
+    private DatabaseManager manager;
+    private AppointmentDao appointmentDao;
+    private int patientId;
+    private int doctorId;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        appointmentDao = new AppointmentDao(context);
+        appointmentDao.open();
+        deleteMarked();
+
+        PatientDao patientDao = new PatientDao(context);
+        DoctorDao doctorDao = new DoctorDao(context);
+        try {
+            patientId = (int) patientDao.addPatient(new Patient("Имя", MARKER, "1980-01-01", null,
+                    "booking@example.com", null, null, null, 1));
+            doctorId = (int) doctorDao.addDoctor(new Doctor("Имя", MARKER, "Терапевт", "101",
+                    "Пн-Пт 9-18", "booking-benchmark@example.com"));
+        } finally {
+            patientDao.close();
+            doctorDao.close();
+        }
+        assertTrue(patientId > 0);
+        assertTrue(doctorId > 0);
+    }
+
+    @After
+    public void tearDown() {
+        deleteMarked();
+        appointmentDao.close();
+    }
+
+    @Test
+    public void bookingLatencyStaysFlat() {
+        long base = System.currentTimeMillis() + SLOT_MS;
+        double[] blockUs = new double[SLOTS / BLOCK];
+
+        for (int block = 0; block < blockUs.length; block++) {
+            long start = System.nanoTime();
+            for (int i = block * BLOCK; i < (block + 1) * BLOCK; i++) {
+                long slotStart = base + i * SLOT_MS;
+                long id = appointmentDao.bookAppointment(
+                        new Appointment(patientId, doctorId, slotStart, slotStart + SLOT_MS, null));
+                assertTrue(id > 0);
+            }
+            blockUs[block] = (System.nanoTime() - start) / 1000.0 / BLOCK;
+        }
+
+        // Пересекающиеся интервалы отклоняются, стык встык - нет
+        long conflictStart = System.nanoTime();
+        for (int i = 0; i < BLOCK; i++) {
+            long slotStart = base + i * SLOT_MS + SLOT_MS / 2;
+            assertEquals(AppointmentDao.CONFLICT, appointmentDao.bookAppointment(
+                    new Appointment(patientId, doctorId, slotStart, slotStart + SLOT_MS, null)));
+        }
+        double conflictUs = (System.nanoTime() - conflictStart) / 1000.0 / BLOCK;
+        long end = base + SLOTS * SLOT_MS;
+        assertTrue(appointmentDao.bookAppointment(
+                new Appointment(patientId, doctorId, end, end + SLOT_MS, null)) > 0);
+
+        StringBuilder blocks = new StringBuilder();
+        for (double us : blockUs) {
+            blocks.append(String.format(" %.0f", us));
+        }
+        Log.i(TAG, String.format("booking, us per call by block of %d:%s; rejected conflict %.0f us; %s",
+                BLOCK, blocks, conflictUs, manager.getAppointmentIntervals()));
+    }
+
+    private void deleteMarked() {
+        SQLiteDatabase db = manager.acquire();
+        try {
+            // Приёмы ссылаются на тестовых врача и пациента с политикой RESTRICT: удаляются первыми
+            db.execSQL("DELETE FROM " + AppointmentDao.TABLE_APPOINTMENTS + " WHERE " +
+                    AppointmentDao.COLUMN_DOCTOR_ID + " IN (SELECT " + DoctorDao.COLUMN_DOCTOR_ID +
+                    " FROM " + DoctorDao.TABLE_DOCTORS + " WHERE " + DoctorDao.COLUMN_LAST_NAME + " = ?)",
+                    new Object[]{MARKER});
+            db.delete(DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_LAST_NAME + " = ?", new String[]{MARKER});
+        } finally {
+            manager.release();
+        }
+        // Строки удалены мимо DAO; пациентов удаляет TestPatients вместе со своими кэшами
+        manager.getDoctorCache().clear();
+        manager.getDoctorEmailFilter().clear();
+        manager.getAppointmentIntervals().clear();
+        TestPatients.deleteMarked(manager, MARKER);
+    }
+}
@@ -0,0 +1,123 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.model.Patient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Пропускная способность записи пациентов: построчный addPatient() против
+ * пакетного addPatients() на 1k/10k/100k строк. Тестовые строки помечаются
+ * фамилией MARKER и удаляются после каждого прогона.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BulkWriteBenchmark {
+    private static final String TAG = "BulkWriteBenchmark";
+    private static final String MARKER = "BulkBenchmark";
+    private static final int[] SIZES = {1_000, 10_000, 100_000};
+
+    private DatabaseManager manager;
+    private PatientDao patientDao;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        patientDao = new PatientDao(context);
+        patientDao.open();
+        TestPatients.deleteMarked(manager, MARKER);
+    }
+
+    @After
+    public void tearDown() {
+        TestPatients.deleteMarked(manager, MARKER);
+        patientDao.close();
+    }
+
+    @Test
+    public void insertThroughput() {
+        for (int size : SIZES) {
+            List<Patient> patients = generate(size);
+
+            long start = System.nanoTime();
+            for (Patient patient : patients) {
+                assertTrue(patientDao.addPatient(patient) > 0);
+            }
+            double perRow = size * 1_000_000_000.0 / (System.nanoTime() - start);
+            TestPatients.deleteMarked(manager, MARKER);
+
+            BulkWriteResult result = patientDao.addPatients(patients);
+            assertEquals(size, result.getSuccessCount());
+            TestPatients.deleteMarked(manager, MARKER);
+
+            Log.i(TAG, String.format("insert %d rows: per-row %.0f rows/s, bulk %.0f rows/s",
+                    size, perRow, result.getRowsPerSecond()));
+        }
+    }
+
+    @Test
+    public void updateThroughput() {
+        for (int size : SIZES) {
+            List<Patient> patients = generate(size);
+            BulkWriteResult inserted = patientDao.addPatients(patients);
+            assertEquals(size, inserted.getSuccessCount());
+            for (int i = 0; i < size; i++) {
+                patients.get(i).setPatientId((int) inserted.getRowId(i));
+                patients.get(i).setAddress("Updated " + i);
+            }
+
+            long start = System.nanoTime();
+            for (Patient patient : patients) {
+                assertTrue(patientDao.updatePatient(patient));
+            }
+            double perRow = size * 1_000_000_000.0 / (System.nanoTime() - start);
+
+            BulkWriteResult result = patientDao.updatePatients(patients);
+            assertEquals(size, result.getSuccessCount());
+            TestPatients.deleteMarked(manager, MARKER);
+
+            Log.i(TAG, String.format("update %d rows: per-row %.0f rows/s, bulk %.0f rows/s",
+                    size, perRow, result.getRowsPerSecond()));
+        }
+    }
+
+    @Test
+    public void failedRowDoesNotAbortBatch() {
+        List<Patient> patients = generate(3);
+        BulkWriteResult inserted = patientDao.addPatients(patients);
+        for (int i = 0; i < patients.size(); i++) {
+            patients.get(i).setPatientId((int) inserted.getRowId(i));
+        }
+        patients.get(1).setPatientId(Integer.MAX_VALUE);
+
+        BulkWriteResult result = patientDao.updatePatients(patients);
+
+        assertEquals(2, result.getSuccessCount());
+        assertTrue(result.isSuccess(0));
+        assertTrue(result.isSuccess(2));
+        assertFalse(result.isSuccess(1));
+        assertNotNull(result.getError(1));
+        assertEquals(-1, result.getRowId(1));
+    }
+
+    // С полисами: вставка проверяет уникальный индекс
+    private static List<Patient> generate(int count) {
+        List<Patient> patients = TestPatients.generate(MARKER, 0, count);
+        for (int i = 0; i < count; i++) {
+            patients.get(i).setPolicyOMS(TestPatients.policy(i));
+        }
+        return patients;
+    }
+}
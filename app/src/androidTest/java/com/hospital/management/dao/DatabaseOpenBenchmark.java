@@ -0,0 +1,81 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Сравнение задержки "открытие + первый запрос" для трёх DAO:
+ * старый путь (свой DatabaseHelper на каждый DAO) против общего движка с арендой.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseOpenBenchmark {
+    private static final String TAG = "DatabaseOpenBenchmark";
+    private static final int ITERATIONS = 30;
+    private static final String[] TABLES = {
+            UserDao.TABLE_USERS, PatientDao.TABLE_PATIENTS, DoctorDao.TABLE_DOCTORS
+    };
+
+    @Test
+    public void openAndFirstQueryLatency() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        DatabaseManager manager = DatabaseManager.getInstance(context);
+
+        long[] legacy = new long[ITERATIONS];
+        long[] shared = new long[ITERATIONS];
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            // Старый путь: каждый DAO открывает и закрывает собственный helper
+            long start = System.nanoTime();
+            for (String table : TABLES) {
+                DatabaseHelper helper = new DatabaseHelper(context);
+                SQLiteDatabase db = helper.getWritableDatabase();
+                assertTrue(countRows(db, table) >= 0);
+                helper.close();
+            }
+            legacy[i] = System.nanoTime() - start;
+
+            // Новый путь: три аренды одного соединения
+            start = System.nanoTime();
+            for (String table : TABLES) {
+                SQLiteDatabase db = manager.acquire();
+                assertTrue(countRows(db, table) >= 0);
+            }
+            for (int j = 0; j < TABLES.length; j++) {
+                manager.release();
+            }
+            shared[i] = System.nanoTime() - start;
+        }
+
+        assertEquals(0, manager.getLeaseCount());
+
+        Log.i(TAG, "legacy open+query median: " + median(legacy) / 1000 + " us");
+        Log.i(TAG, "shared open+query median: " + median(shared) / 1000 + " us");
+    }
+
+    private static long countRows(SQLiteDatabase db, String table) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
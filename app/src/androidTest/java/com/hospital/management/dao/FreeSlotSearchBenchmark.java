@@ -0,0 +1,206 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Patient;
+import com.hospital.management.schedule.FreeSlot;
+import com.hospital.management.schedule.WeeklyAvailability;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Поиск ближайших свободных слотов по специализации: 200 врачей с разными графиками,
+ * календари заняты на 1-3 недели вперёд с редкими окнами, горизонт поиска - 90 дней.
+ * Тестовые врачи и пациент помечаются фамилией MARKER, специализация - SPECIALIZATION
+ */
+@RunWith(AndroidJUnit4.class)
+public class FreeSlotSearchBenchmark {
+    private static final String TAG = "FreeSlotSearchBench";
+    private static final String MARKER = "SlotBenchmark";
+    private static final String SPECIALIZATION = "Кардиолог (benchmark)";
+    private static final int DOCTORS = 200;
+    private static final int DURATION_MINUTES = 30;
+    private static final int RESULTS = 10;
+    private static final int RUNS = 50;
+    private static final long MINUTE_MS = 60 * 1000;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+
+    private static final String[] SCHEDULES = {
+            "Пн-Пт 9:00-18:00, обед 13-14",
+            "Пн-Сб 8-14",
+            "Вт-Сб 12:00-20:00, перерыв 15:00-15:30",
+            "Пн, Ср, Пт 9-21",
+            "Сб-Вс 10-16"
+    };
+
+    private DatabaseManager manager;
+    private ScheduleDao scheduleDao;
+    private List<Integer> doctorIds;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        scheduleDao = new ScheduleDao(context);
+        scheduleDao.open();
+        deleteMarked();
+
+        List<Doctor> doctors = new ArrayList<>(DOCTORS);
+        for (int i = 0; i < DOCTORS; i++) {
+            doctors.add(new Doctor("Врач" + i, MARKER, SPECIALIZATION, String.valueOf(100 + i),
+                    SCHEDULES[i % SCHEDULES.length], "slot-benchmark-" + i + "@example.com"));
+        }
+        PatientDao patientDao = new PatientDao(context);
+        DoctorDao doctorDao = new DoctorDao(context);
+        int patientId;
+        try {
+            patientId = (int) patientDao.addPatient(new Patient("Имя", MARKER, "1980-01-01", null,
+                    "slot-benchmark@example.com", null, null, null, 1));
+            BulkWriteResult result = doctorDao.addDoctors(doctors);
+            assertEquals(DOCTORS, result.getSuccessCount());
+            doctorIds = new ArrayList<>(DOCTORS);
+            for (int i = 0; i < DOCTORS; i++) {
+                doctorIds.add((int) result.getRowId(i));
+            }
+        } finally {
+            patientDao.close();
+            doctorDao.close();
+        }
+        assertTrue(patientId > 0);
+        fillCalendars(patientId);
+    }
+
+    @After
+    public void tearDown() {
+        deleteMarked();
+        scheduleDao.close();
+    }
+
+    @Test
+    public void earliestSlotsAcrossSpecialization() {
+        long from = System.currentTimeMillis();
+
+        long coldStart = System.nanoTime();
+        List<FreeSlot> first = scheduleDao.findFreeSlots(SPECIALIZATION, from, DURATION_MINUTES, RESULTS);
+        double coldMs = (System.nanoTime() - coldStart) / 1e6;
+        assertEquals(RESULTS, first.size());
+        checkSlots(first, from);
+
+        double[] warmMs = new double[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            List<FreeSlot> slots = scheduleDao.findFreeSlots(SPECIALIZATION, from, DURATION_MINUTES, RESULTS);
+            warmMs[run] = (System.nanoTime() - start) / 1e6;
+            assertEquals(first.size(), slots.size());
+        }
+        Arrays.sort(warmMs);
+
+        Log.i(TAG, String.format("%d doctors, %d days: first %d slots cold %.1f ms, warm median %.2f ms, " +
+                        "p90 %.2f ms; earliest %s", DOCTORS, ScheduleDao.SEARCH_HORIZON_DAYS, RESULTS, coldMs,
+                warmMs[RUNS / 2], warmMs[RUNS * 9 / 10], first.get(0)));
+    }
+
+    /**
+     * Слоты идут по времени, попадают в график врача и не пересекаются с его приёмами
+     */
+    private void checkSlots(List<FreeSlot> slots, long from) {
+        AppointmentDao appointmentDao = new AppointmentDao(InstrumentationRegistry.getInstrumentation().getTargetContext());
+        try {
+            long previous = from - 1;
+            for (FreeSlot slot : slots) {
+                assertTrue(slot.getStartTime() >= previous);
+                previous = slot.getStartTime();
+                assertTrue(doctorIds.contains(slot.getDoctorId()));
+                WeeklyAvailability availability = scheduleDao.getAvailability(slot.getDoctorId());
+                assertTrue(availability.isAvailable(
+                        WeeklyAvailability.slotOf(slot.getStartTime(), TimeZone.getDefault()),
+                        DURATION_MINUTES / WeeklyAvailability.SLOT_MINUTES));
+                assertEquals(-1, appointmentDao.findConflictingAppointment(slot.getDoctorId(),
+                        slot.getStartTime(), slot.getEndTime(), 0));
+            }
+        } finally {
+            appointmentDao.close();
+        }
+    }
+
+    /**
+     * Занимает рабочее время каждого врача на 7-21 день вперёд приёмами по 30 минут,
+     * оставляя около 2% окон. Строки пишутся одной транзакцией мимо DAO приёмов
+     */
+    private void fillCalendars(int patientId) {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        long slotMs = DURATION_MINUTES * MINUTE_MS;
+        long base = (now / slotMs + 1) * slotMs;
+        int rows = 0;
+
+        SQLiteDatabase db = manager.acquire();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + AppointmentDao.TABLE_APPOINTMENTS + " (" +
+                AppointmentDao.COLUMN_PATIENT_ID + ", " + AppointmentDao.COLUMN_DOCTOR_ID + ", " +
+                AppointmentDao.COLUMN_START_TIME + ", " + AppointmentDao.COLUMN_END_TIME + ", " +
+                AppointmentDao.COLUMN_STATUS + ") VALUES (?, ?, ?, ?, 'SCHEDULED')");
+        db.beginTransactionNonExclusive();
+        try {
+            for (int doctorId : doctorIds) {
+                WeeklyAvailability availability = scheduleDao.getAvailability(doctorId);
+                long end = base + (7 + random.nextInt(15)) * DAY_MS;
+                for (long start = base; start < end; start += slotMs) {
+                    if (!availability.isAvailableAt(start, TimeZone.getDefault()) || random.nextInt(50) == 0) {
+                        continue;
+                    }
+                    insert.bindLong(1, patientId);
+                    insert.bindLong(2, doctorId);
+                    insert.bindLong(3, start);
+                    insert.bindLong(4, start + slotMs);
+                    insert.executeInsert();
+                    rows++;
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            manager.release();
+        }
+        manager.getAppointmentIntervals().clear();
+        Log.i(TAG, "Calendars filled with " + rows + " appointments");
+    }
+
+    private void deleteMarked() {
+        SQLiteDatabase db = manager.acquire();
+        try {
+            // Приёмы ссылаются на врачей и пациента с политикой RESTRICT, графики удаляются каскадом
+            db.execSQL("DELETE FROM " + AppointmentDao.TABLE_APPOINTMENTS + " WHERE " +
+                            AppointmentDao.COLUMN_DOCTOR_ID + " IN (SELECT " + DoctorDao.COLUMN_DOCTOR_ID +
+                            " FROM " + DoctorDao.TABLE_DOCTORS + " WHERE " + DoctorDao.COLUMN_LAST_NAME + " = ?)",
+                    new Object[]{MARKER});
+            db.delete(DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_LAST_NAME + " = ?", new String[]{MARKER});
+        } finally {
+            manager.release();
+        }
+        // Строки удалены мимо DAO; пациентов удаляет TestPatients вместе со своими кэшами
+        manager.getDoctorCache().clear();
+        manager.getDoctorEmailFilter().clear();
+        manager.getAppointmentIntervals().clear();
+        manager.getDoctorAvailabilities().clear();
+        TestPatients.deleteMarked(manager, MARKER);
+    }
+}
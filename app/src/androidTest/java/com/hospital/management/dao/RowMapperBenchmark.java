@@ -0,0 +1,140 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.hospital.management.model.Patient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Стоимость преобразования строки курсора в Patient на настоящем SQLiteCursor:
+ * прежний способ (getColumnIndexOrThrow на каждое поле каждой строки) против
+ * PatientRowMapper (позиции колонок один раз на курсор).
+ * Таблица создаётся во временной базе в памяти
+ */
+@RunWith(AndroidJUnit4.class)
+public class RowMapperBenchmark {
+    private static final String TAG = "RowMapperBenchmark";
+    private static final int ROWS = 10_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private SQLiteDatabase db;
+    // Чтобы JIT не выбросил результат
+    private long sink;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE " + PatientDao.TABLE_PATIENTS + " (" +
+                PatientDao.COLUMN_PATIENT_ID + " INTEGER PRIMARY KEY," +
+                PatientDao.COLUMN_FIRST_NAME + " TEXT," +
+                PatientDao.COLUMN_LAST_NAME + " TEXT," +
+                PatientDao.COLUMN_BIRTH_DATE + " TEXT," +
+                PatientDao.COLUMN_PHONE_NUMBER + " TEXT," +
+                PatientDao.COLUMN_EMAIL + " TEXT," +
+                PatientDao.COLUMN_ADDRESS + " TEXT," +
+                PatientDao.COLUMN_POLICY_OMS + " TEXT," +
+                PatientDao.COLUMN_SNILS + " TEXT," +
+                PatientDao.COLUMN_DISTRICT + " INTEGER)");
+
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + PatientDao.TABLE_PATIENTS +
+                " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                insert.bindLong(1, i + 1);
+                insert.bindString(2, "Имя" + i);
+                insert.bindString(3, "Фамилия" + i);
+                insert.bindString(4, "1980-01-01");
+                insert.bindString(5, "+79000000000");
+                insert.bindString(6, "patient" + i + "@example.com");
+                insert.bindString(7, "Адрес " + i);
+                insert.bindString(8, String.format("%016d", i));
+                insert.bindString(9, "123-456-789 00");
+                insert.bindLong(10, i % 10);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void perRowMappingCost() {
+        Cursor cursor = db.rawQuery("SELECT * FROM " + PatientDao.TABLE_PATIENTS, null);
+        try {
+            assertEquals(ROWS, cursor.getCount());
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                mapLegacy(cursor);
+                mapWithMapper(cursor);
+            }
+
+            long legacy = Long.MAX_VALUE;
+            long mapper = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                legacy = Math.min(legacy, mapLegacy(cursor));
+                mapper = Math.min(mapper, mapWithMapper(cursor));
+            }
+
+            Log.i(TAG, String.format("Row mapping, %d rows: getColumnIndexOrThrow per field %.1f ns/row, " +
+                    "PatientRowMapper %.1f ns/row (sink %d)", ROWS, (double) legacy / ROWS, (double) mapper / ROWS, sink));
+            // Тот же курсор и те же поля, но без поиска колонок на каждой строке
+            assertTrue(mapper <= legacy);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long mapLegacy(Cursor cursor) {
+        cursor.moveToPosition(-1);
+        long start = System.nanoTime();
+        while (cursor.moveToNext()) {
+            sink += legacyCursorToPatient(cursor).getPatientId();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long mapWithMapper(Cursor cursor) {
+        cursor.moveToPosition(-1);
+        long start = System.nanoTime();
+        PatientRowMapper mapper = new PatientRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            sink += mapper.map(cursor).getPatientId();
+        }
+        return System.nanoTime() - start;
+    }
+
+    // Прежний PatientDao.cursorToPatient - для сравнения
+    private static Patient legacyCursorToPatient(Cursor cursor) {
+        Patient patient = new Patient();
+        patient.setPatientId(cursor.getInt(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_PATIENT_ID)));
+        patient.setFirstName(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_FIRST_NAME)));
+        patient.setLastName(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_LAST_NAME)));
+        patient.setBirthDate(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_BIRTH_DATE)));
+        patient.setPhoneNumber(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_PHONE_NUMBER)));
+        patient.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_EMAIL)));
+        patient.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_ADDRESS)));
+        patient.setPolicyOMS(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_POLICY_OMS)));
+        patient.setSnils(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_SNILS)));
+        patient.setDistrict(cursor.getInt(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_DISTRICT)));
+        return patient;
+    }
+}
@@ -0,0 +1,202 @@
+package com.hospital.management.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Обновление базы версии 11 (до справочника специализаций) до текущей схемы:
+ * у врачей появляется SpecializationID, справочник и индекс по ссылке, фоновый шаг
+ * сводит разные написания одной специализации к одной записи справочника, а счётчики
+ * врачей по специализациям переходят с текста на ссылку.
+ * База создаётся в отдельном файле, рабочая база приложения не затрагивается
+ */
+@RunWith(AndroidJUnit4.class)
+public class SchemaUpgradeTest {
+    private static final String DATABASE_NAME = "SchemaUpgradeTest.db";
+
+    // Схема таблиц версии 11, которых коснулась версия 12
+    private static final String[] SQL_CREATE_V11 = {
+            "CREATE TABLE " + UserDao.TABLE_USERS + " (" +
+                    UserDao.COLUMN_USER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    UserDao.COLUMN_USERNAME + " TEXT NOT NULL UNIQUE," +
+                    UserDao.COLUMN_PASSWORD + " TEXT NOT NULL," +
+                    UserDao.COLUMN_ROLE + " TEXT NOT NULL," +
+                    UserDao.COLUMN_ROLE_ID + " INTEGER DEFAULT 0)",
+            "CREATE TABLE " + PatientDao.TABLE_PATIENTS + " (" +
+                    PatientDao.COLUMN_PATIENT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    PatientDao.COLUMN_FIRST_NAME + " TEXT NOT NULL," +
+                    PatientDao.COLUMN_LAST_NAME + " TEXT NOT NULL," +
+                    PatientDao.COLUMN_BIRTH_DATE + " TEXT," +
+                    PatientDao.COLUMN_PHONE_NUMBER + " TEXT," +
+                    PatientDao.COLUMN_EMAIL + " TEXT," +
+                    PatientDao.COLUMN_ADDRESS + " TEXT," +
+                    PatientDao.COLUMN_POLICY_OMS + " TEXT," +
+                    PatientDao.COLUMN_SNILS + " TEXT," +
+                    PatientDao.COLUMN_DISTRICT + " INTEGER DEFAULT 0)",
+            "CREATE TABLE " + DoctorDao.TABLE_DOCTORS + " (" +
+                    DoctorDao.COLUMN_DOCTOR_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    DoctorDao.COLUMN_FIRST_NAME + " TEXT NOT NULL," +
+                    DoctorDao.COLUMN_LAST_NAME + " TEXT NOT NULL," +
+                    DoctorDao.COLUMN_SPECIALIZATION + " TEXT," +
+                    DoctorDao.COLUMN_ROOM_NUMBER + " TEXT," +
+                    DoctorDao.COLUMN_SCHEDULE + " TEXT," +
+                    DoctorDao.COLUMN_EMAIL + " TEXT)",
+            "CREATE TABLE " + StatisticsDao.TABLE_STATISTICS + " (" +
+                    StatisticsDao.COLUMN_CATEGORY + " TEXT NOT NULL," +
+                    StatisticsDao.COLUMN_ITEM + " TEXT NOT NULL," +
+                    StatisticsDao.COLUMN_TOTAL + " INTEGER NOT NULL DEFAULT 0," +
+                    "PRIMARY KEY (" + StatisticsDao.COLUMN_CATEGORY + ", " + StatisticsDao.COLUMN_ITEM + "))"
+    };
+
+    private Context context;
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_NAME);
+
+        SQLiteDatabase db = context.openOrCreateDatabase(DATABASE_NAME, Context.MODE_PRIVATE, null);
+        try {
+            for (String statement : SQL_CREATE_V11) {
+                db.execSQL(statement);
+            }
+            for (String statement : RelatedRecords.createStatements()) {
+                db.execSQL(statement);
+            }
+            insertDoctor(db, "Анна", "Иванова", "Кардиолог");
+            insertDoctor(db, "Олег", "Смирнов", "  кардиолог ");
+            insertDoctor(db, "Пётр", "Кузнецов", "Хирург");
+            // Счётчики версии 11 - по тексту специализации
+            insertCounter(db, StatisticsDao.CATEGORY_DOCTORS, StatisticsDao.ITEM_ALL, 3);
+            insertCounter(db, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION, "Кардиолог", 1);
+            insertCounter(db, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION, "  кардиолог ", 1);
+            insertCounter(db, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION, "Хирург", 1);
+            db.setVersion(11);
+        } finally {
+            db.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (helper != null) {
+            helper.close();
+        }
+        context.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void upgradeFromVersion11AddsSpecializationDictionary() {
+        helper = new DatabaseHelper(context, DATABASE_NAME);
+        SQLiteDatabase db = helper.getWritableDatabase();
+
+        assertEquals(12, db.getVersion());
+        assertTrue(hasColumn(db, DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_SPECIALIZATION_ID));
+        assertTrue(hasObject(db, "table", SpecializationDao.TABLE_SPECIALIZATIONS));
+        assertTrue(hasObject(db, "table", SpecializationDao.TABLE_SPECIALIZATION_ALIASES));
+
+        // Индекс и перенос значений - фоновые шаги миграции
+        helper.getMigrationRunner().runPendingSteps(db);
+        assertFalse(helper.getMigrationRunner().hasPendingSteps(db));
+        assertTrue(hasObject(db, "index", "idx_doctors_specialization"));
+
+        long cardiology = specializationIdOf(db, "Иванова");
+        assertTrue(cardiology > 0);
+        assertEquals(cardiology, specializationIdOf(db, "Смирнов"));
+        long surgery = specializationIdOf(db, "Кузнецов");
+        assertTrue(surgery > 0);
+        assertNotEquals(cardiology, surgery);
+
+        // Счётчики пересчитаны по ссылке: написания одной специализации - одна группа
+        assertEquals(2, counter(db, String.valueOf(cardiology)));
+        assertEquals(1, counter(db, String.valueOf(surgery)));
+        assertEquals(-1, counter(db, "Кардиолог"));
+        assertEquals(0, StatisticsDao.reconcile(db));
+
+        // Запись врача с колонкой ссылки работает на обновлённой схеме, триггер ведёт счётчик
+        ContentValues values = new ContentValues();
+        values.put(DoctorDao.COLUMN_FIRST_NAME, "Ирина");
+        values.put(DoctorDao.COLUMN_LAST_NAME, "Орлова");
+        values.put(DoctorDao.COLUMN_SPECIALIZATION, "Кардиолог");
+        values.put(DoctorDao.COLUMN_SPECIALIZATION_ID, cardiology);
+        assertTrue(db.insert(DoctorDao.TABLE_DOCTORS, null, values) > 0);
+        assertEquals(3, counter(db, String.valueOf(cardiology)));
+        assertEquals(0, StatisticsDao.reconcile(db));
+    }
+
+    private static void insertCounter(SQLiteDatabase db, String category, String item, long total) {
+        ContentValues values = new ContentValues();
+        values.put(StatisticsDao.COLUMN_CATEGORY, category);
+        values.put(StatisticsDao.COLUMN_ITEM, item);
+        values.put(StatisticsDao.COLUMN_TOTAL, total);
+        assertTrue(db.insert(StatisticsDao.TABLE_STATISTICS, null, values) != -1);
+    }
+
+    // Счётчик врачей специализации или -1, если строки нет
+    private static long counter(SQLiteDatabase db, String item) {
+        Cursor cursor = db.rawQuery("SELECT " + StatisticsDao.COLUMN_TOTAL + " FROM " + StatisticsDao.TABLE_STATISTICS +
+                        " WHERE " + StatisticsDao.COLUMN_CATEGORY + " = ? AND " + StatisticsDao.COLUMN_ITEM + " = ?",
+                new String[]{StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION, item});
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void insertDoctor(SQLiteDatabase db, String firstName, String lastName, String specialization) {
+        ContentValues values = new ContentValues();
+        values.put(DoctorDao.COLUMN_FIRST_NAME, firstName);
+        values.put(DoctorDao.COLUMN_LAST_NAME, lastName);
+        values.put(DoctorDao.COLUMN_SPECIALIZATION, specialization);
+        assertTrue(db.insert(DoctorDao.TABLE_DOCTORS, null, values) > 0);
+    }
+
+    private static long specializationIdOf(SQLiteDatabase db, String lastName) {
+        Cursor cursor = db.rawQuery("SELECT " + DoctorDao.COLUMN_SPECIALIZATION_ID + " FROM " +
+                DoctorDao.TABLE_DOCTORS + " WHERE " + DoctorDao.COLUMN_LAST_NAME + " = ?", new String[]{lastName});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.isNull(0) ? -1 : cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static boolean hasColumn(SQLiteDatabase db, String table, String column) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                if (column.equalsIgnoreCase(cursor.getString(cursor.getColumnIndexOrThrow("name")))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static boolean hasObject(SQLiteDatabase db, String type, String name) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = ? AND name = ?",
+                new String[]{type, name});
+        try {
+            return cursor.moveToFirst();
+        } finally {
+            cursor.close();
+        }
+    }
+}
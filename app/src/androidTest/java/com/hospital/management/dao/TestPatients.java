@@ -0,0 +1,55 @@
+package com.hospital.management.dao;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.hospital.management.model.Patient;
+import com.hospital.management.repository.PatientRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Тестовые пациенты бенчмарков: строки помечаются фамилией-маркером и удаляются по ней.
+ * Удаление идёт одним запросом мимо DAO, поэтому затем сбрасываются кэш пациентов,
+ * фильтр полисов и подписчики репозитория, а счётчики Statistics сверяются с таблицей
+ */
+public final class TestPatients {
+
+    private TestPatients() {
+    }
+
+    /**
+     * count пациентов с номерами от from: "Имя{i}", фамилия marker, email {marker}{i}@example.com
+     */
+    public static List<Patient> generate(String marker, int from, int count) {
+        String prefix = marker.toLowerCase(Locale.ROOT);
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            patients.add(new Patient(
+                    "Имя" + i, marker, "1980-01-01", null, prefix + i + "@example.com",
+                    "ул. Тестовая, д. " + i, null, null, 1 + i % 20));
+        }
+        return patients;
+    }
+
+    /**
+     * Полис ОМС пациента номер i: 16 цифр, начиная с 9
+     */
+    public static String policy(int i) {
+        return String.format(Locale.ROOT, "9%015d", i);
+    }
+
+    public static void deleteMarked(DatabaseManager manager, String marker) {
+        SQLiteDatabase db = manager.acquire();
+        try {
+            db.delete(PatientDao.TABLE_PATIENTS, PatientDao.COLUMN_LAST_NAME + " = ?", new String[]{marker});
+            StatisticsDao.reconcile(db);
+        } finally {
+            manager.release();
+        }
+        manager.getPatientCache().clear();
+        manager.getPolicyFilter().clear();
+        PatientRepository.invalidate();
+    }
+}
@@ -0,0 +1,94 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.model.Patient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Проверка уникальности полиса ОМС на 500k пациентов: запрос к базе на каждую проверку
+ * против фильтра Блума перед запросом. Почти все проверки при регистрации отрицательные,
+ * поэтому замеряются отсутствующие полисы. Тестовые строки помечаются фамилией MARKER.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UniqueKeyFilterBenchmark {
+    private static final String TAG = "UniqueKeyFilterBench";
+    private static final String MARKER = "FilterBenchmark";
+    private static final int DATASET_SIZE = 500_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int CHECKS = 20_000;
+    private static final long BUILD_TIMEOUT_MS = 60_000;
+
+    private DatabaseManager manager;
+    private PatientDao patientDao;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        patientDao = new PatientDao(context);
+        patientDao.open();
+        TestPatients.deleteMarked(manager, MARKER);
+    }
+
+    @After
+    public void tearDown() {
+        TestPatients.deleteMarked(manager, MARKER);
+        patientDao.close();
+    }
+
+    @Test
+    public void absentPolicyChecks() throws InterruptedException {
+        for (int start = 0; start < DATASET_SIZE; start += INSERT_BATCH) {
+            BulkWriteResult result = patientDao.addPatients(generate(start, INSERT_BATCH));
+            assertEquals(INSERT_BATCH, result.getSuccessCount());
+        }
+
+        // Первая проверка идёт в базу и ставит построение (или перестроение) фильтра в фоновую очередь
+        long buildStart = System.nanoTime();
+        assertTrue(patientDao.isPolicyOMSExists(TestPatients.policy(0)));
+        assertTrue(manager.getPolicyFilter().awaitBuild(BUILD_TIMEOUT_MS));
+        long buildMs = (System.nanoTime() - buildStart) / 1_000_000;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < CHECKS; i++) {
+            long id = manager.queryForLong(PatientDao.SQL_FIND_ID_BY_POLICY, -1, TestPatients.policy(DATASET_SIZE + i));
+            assertEquals(-1, id);
+        }
+        double queryNs = (double) (System.nanoTime() - start) / CHECKS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < CHECKS; i++) {
+            assertFalse(patientDao.isPolicyOMSExists(TestPatients.policy(DATASET_SIZE + i)));
+        }
+        double filterNs = (double) (System.nanoTime() - start) / CHECKS;
+
+        // Существующие полисы по-прежнему находятся
+        for (int i = 0; i < DATASET_SIZE; i += DATASET_SIZE / 100) {
+            assertTrue(patientDao.isPolicyOMSExists(TestPatients.policy(i)));
+        }
+
+        Log.i(TAG, String.format("%d absent checks on %d rows: query %.0f ns/check, filter %.0f ns/check, " +
+                "filter build %d ms; %s", CHECKS, DATASET_SIZE, queryNs, filterNs, buildMs, manager.getPolicyFilter()));
+    }
+
+    private static List<Patient> generate(int from, int count) {
+        List<Patient> patients = TestPatients.generate(MARKER, from, count);
+        for (int i = 0; i < count; i++) {
+            patients.get(i).setPolicyOMS(TestPatients.policy(from + i));
+        }
+        return patients;
+    }
+}
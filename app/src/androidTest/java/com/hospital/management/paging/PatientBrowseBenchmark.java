@@ -0,0 +1,116 @@
+package com.hospital.management.paging;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.adapters.PatientRow;
+import com.hospital.management.dao.BulkWriteResult;
+import com.hospital.management.dao.DatabaseManager;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.TestPatients;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Просмотр 100k пациентов от начала до конца так же, как Pager: страницы строк списка
+ * читаются прямо из курсора, в памяти держится окно не больше maxSize строк.
+ * Замеряются время до первой страницы и занятая куча после каждых SAMPLE_EVERY страниц:
+ * она не должна расти с числом просмотренных строк.
+ * Тестовые строки помечаются фамилией MARKER.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PatientBrowseBenchmark {
+    private static final String TAG = "PatientBrowseBenchmark";
+    private static final String MARKER = "BrowseBenchmark";
+    private static final int DATASET_SIZE = 100_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int PAGE_SIZE = Pager.DEFAULT_PAGE_SIZE;
+    private static final int MAX_SIZE = Pager.DEFAULT_PAGE_SIZE * Pager.DEFAULT_MAX_PAGES;
+    private static final int SAMPLE_EVERY = 100;
+    // Допустимый разброс занятой кучи между замерами
+    private static final long MAX_HEAP_SPREAD_BYTES = 4L * 1024 * 1024;
+
+    private DatabaseManager manager;
+    private PatientDao patientDao;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        patientDao = new PatientDao(context);
+        patientDao.open();
+        TestPatients.deleteMarked(manager, MARKER);
+        for (int start = 0; start < DATASET_SIZE; start += INSERT_BATCH) {
+            BulkWriteResult result = patientDao.addPatients(TestPatients.generate(MARKER, start, INSERT_BATCH));
+            assertEquals(INSERT_BATCH, result.getSuccessCount());
+        }
+    }
+
+    @After
+    public void tearDown() {
+        TestPatients.deleteMarked(manager, MARKER);
+        patientDao.close();
+    }
+
+    @Test
+    public void heapStaysFlatWhileBrowsing() {
+        PatientPagingSource source = new PatientPagingSource(patientDao);
+
+        long start = System.nanoTime();
+        List<PatientRow> page = source.loadAfter(null, PAGE_SIZE);
+        double firstPageMs = (System.nanoTime() - start) / 1_000_000.0;
+        assertEquals(PAGE_SIZE, page.size());
+
+        List<PatientRow> window = new ArrayList<>(MAX_SIZE + PAGE_SIZE);
+        window.addAll(page);
+        List<Long> samples = new ArrayList<>();
+        int pages = 1;
+        long rows = page.size();
+        start = System.nanoTime();
+        while (page.size() == PAGE_SIZE) {
+            page = source.loadAfter(source.keyOf(window.get(window.size() - 1)), PAGE_SIZE);
+            window.addAll(page);
+            int overflow = window.size() - MAX_SIZE;
+            if (overflow > 0) {
+                window.subList(0, overflow).clear();
+            }
+            rows += page.size();
+            if (++pages % SAMPLE_EVERY == 0) {
+                samples.add(usedHeap());
+            }
+        }
+        double browseMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        assertTrue(rows >= DATASET_SIZE);
+        assertTrue(window.size() <= MAX_SIZE);
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (long sample : samples) {
+            min = Math.min(min, sample);
+            max = Math.max(max, sample);
+        }
+        Log.i(TAG, String.format("first page %.2f ms; %d rows in %d pages in %.0f ms; " +
+                        "used heap %d..%d KB over %d samples",
+                firstPageMs, rows, pages, browseMs, min / 1024, max / 1024, samples.size()));
+        assertTrue("Heap grew while browsing: " + (max - min) + " bytes", max - min <= MAX_HEAP_SPREAD_BYTES);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.runFinalization();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,75 @@
+package com.hospital.management.schedule;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Разбор графиков на устройстве: java.util.regex Android отличается от JVM
+ * (именованные группы, например, есть только с API 26), поэтому случаи ScheduleParserTest,
+ * касающиеся разбора, повторяются здесь. Запускать на эмуляторе с minSdk
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScheduleParserDeviceTest {
+    private static final int SATURDAY = 5;
+    private static final int SUNDAY = 6;
+
+
+    @Test
+    public void parsesWeekdayRange() {
+        assertEquals(Collections.singletonList(new ScheduleRule(0x1F, 9 * 60, 18 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("Пн-Пт 9:00-18:00"));
+    }
+
+    @Test
+    public void parsesSeveralGroups() {
+        List<ScheduleRule> rules = ScheduleParser.parse("Пн, Ср 8-14; Сб с 10.30 до 15");
+        assertEquals(Arrays.asList(
+                new ScheduleRule(0x05, 8 * 60, 14 * 60, ScheduleRule.KIND_WORK),
+                new ScheduleRule(1 << SATURDAY, 10 * 60 + 30, 15 * 60, ScheduleRule.KIND_WORK)), rules);
+    }
+
+    @Test
+    public void parsesFullDayNamesAndKeywords() {
+        assertEquals(Collections.singletonList(new ScheduleRule(0x1E, 12 * 60, 20 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("вторник - пятница 12:00 - 20:00"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 0, 24 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Круглосуточно"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 8 * 60, 20 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Ежедневно 8-20"));
+        assertEquals(Collections.singletonList(new ScheduleRule(0x60, 10 * 60, 16 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("выходные 10-16"));
+    }
+
+    @Test
+    public void parsesExceptionsAndBreaks() {
+        assertEquals(Arrays.asList(
+                new ScheduleRule(0x1B, 9 * 60, 18 * 60, ScheduleRule.KIND_WORK),
+                new ScheduleRule(0x1B, 13 * 60, 14 * 60, ScheduleRule.KIND_BREAK)),
+                ScheduleParser.parse("Пн-Пт кроме Ср 9:00-18:00, обед 13-14"));
+        assertEquals(Collections.singletonList(new ScheduleRule(0x3F, 9 * 60, 15 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("Пн-Сб 9-15, Вс - выходной"));
+    }
+
+    @Test
+    public void parsesOvernightRange() {
+        assertEquals(Collections.singletonList(new ScheduleRule(1 << SUNDAY, 20 * 60, 8 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Вс 20:00-08:00"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 22 * 60, 24 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("22-0"));
+    }
+
+    @Test
+    public void skipsUnrecognizedText() {
+        assertTrue(ScheduleParser.parse(null).isEmpty());
+        assertTrue(ScheduleParser.parse("по записи").isEmpty());
+        assertTrue(ScheduleParser.parse("Пн 25:00-26:00").isEmpty());
+    }
+}
@@ -0,0 +1,197 @@
+package com.hospital.management.search;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.hospital.management.dao.BulkWriteResult;
+import com.hospital.management.dao.DatabaseManager;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.TestPatients;
+import com.hospital.management.model.Patient;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Набор текста в поиске по 100k пациентов: символы вводятся с паузами короче и длиннее
+ * задержки поиска, затем стираются. Запросы выполняются в пуле из нескольких потоков,
+ * но одновременно в работе не должно быть больше одного; стирание до уже найденного
+ * текста показывает результат сразу, без запроса.
+ * Тестовые строки помечаются фамилией MARKER
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchPipelineBenchmark {
+    private static final String TAG = "SearchPipelineBenchmark";
+    private static final String MARKER = "SearchBenchmark";
+    private static final int DATASET_SIZE = 100_000;
+    private static final int INSERT_BATCH = 10_000;
+    private static final int LIMIT = 100;
+    private static final String TYPED = "searchbenchmark имя12";
+
+    private DatabaseManager manager;
+    private PatientDao patientDao;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        manager = DatabaseManager.getInstance(context);
+        patientDao = new PatientDao(context);
+        patientDao.open();
+        TestPatients.deleteMarked(manager, MARKER);
+        for (int start = 0; start < DATASET_SIZE; start += INSERT_BATCH) {
+            BulkWriteResult result = patientDao.addPatients(TestPatients.generate(MARKER, start, INSERT_BATCH));
+            assertEquals(INSERT_BATCH, result.getSuccessCount());
+        }
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        TestPatients.deleteMarked(manager, MARKER);
+        patientDao.close();
+    }
+
+    @Test
+    public void typingKeepsOneQueryInFlight() throws InterruptedException {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger started = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final List<String> published = new ArrayList<>();
+        final CountDownLatch settled = new CountDownLatch(1);
+
+        final SearchPipeline.Source<List<Patient>> source = new SearchPipeline.Source<List<Patient>>() {
+            @Override
+            public List<Patient> search(String query, CancellationSignal signal) {
+                int running = inFlight.incrementAndGet();
+                started.incrementAndGet();
+                int max;
+                while (running > (max = maxInFlight.get()) && !maxInFlight.compareAndSet(max, running)) {
+                    // Повтор при гонке обновления максимума
+                }
+                try {
+                    return patientDao.searchPatients(query, LIMIT, signal);
+                } catch (RuntimeException e) {
+                    cancelled.incrementAndGet();
+                    throw e;
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        };
+        final SearchPipeline.Listener<List<Patient>> listener = new SearchPipeline.Listener<List<Patient>>() {
+            @Override
+            public void onResults(String query, List<Patient> results) {
+                published.add(query);
+                if (query.equals(TYPED)) {
+                    settled.countDown();
+                }
+            }
+
+            @Override
+            public void onCleared() {
+                published.add("");
+            }
+        };
+        final AtomicReference<SearchPipeline<List<Patient>>> pipeline = new AtomicReference<>();
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.set(new SearchPipeline<>(source, listener, executor));
+            }
+        });
+
+        // Набор: паузы от 30 до 400 мс, часть из них длиннее задержки поиска
+        Random random = new Random(42);
+        long start = SystemClock.elapsedRealtime();
+        for (int i = 1; i <= TYPED.length(); i++) {
+            type(pipeline.get(), TYPED.substring(0, i));
+            SystemClock.sleep(30 + random.nextInt(370));
+        }
+        assertTrue("Search did not settle", settled.await(30, TimeUnit.SECONDS));
+        long typingMs = SystemClock.elapsedRealtime() - start;
+        int queries = started.get();
+
+        // Стирание до уже показанного текста: результат из кэша, без запроса
+        final String shorter = lastPublishedPrefix(published, TYPED);
+        assertNotNull("No intermediate results published", shorter);
+        final String[] shown = new String[1];
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                int before = published.size();
+                pipeline.get().setQuery(shorter);
+                // Результат из кэша публикуется тут же, внутри setQuery
+                shown[0] = published.size() == before + 1 ? published.get(before) : null;
+            }
+        });
+        assertEquals(shorter, shown[0]);
+        SystemClock.sleep(SearchPipeline.DEBOUNCE_MS * 2);
+        assertEquals(queries, started.get());
+
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.get().close();
+            }
+        });
+
+        Log.i(TAG, String.format("typed %d chars in %d ms: %d queries started, %d cancelled, " +
+                        "max in flight %d, published %s",
+                TYPED.length(), typingMs, queries, cancelled.get(), maxInFlight.get(), published));
+        assertEquals(1, maxInFlight.get());
+        assertTrue(queries < TYPED.length());
+    }
+
+    private static void type(final SearchPipeline<?> pipeline, final String text) {
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                pipeline.setQuery(text);
+            }
+        });
+    }
+
+    private static void runOnMain(Runnable runnable) {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(runnable);
+    }
+
+    // Самый длинный опубликованный текст короче полного
+    private static String lastPublishedPrefix(final List<String> published, String full) {
+        final String[] found = {null};
+        runOnMain(new Runnable() {
+            @Override
+            public void run() {
+                for (String query : published) {
+                    if (!query.isEmpty() && query.length() < full.length() && full.startsWith(query) &&
+                            (found[0] == null || query.length() > found[0].length())) {
+                        found[0] = query;
+                    }
+                }
+            }
+        });
+        return found[0];
+    }
+}
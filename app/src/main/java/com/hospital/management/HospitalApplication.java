@@ -0,0 +1,19 @@
+package com.hospital.management;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.hospital.management.dao.DatabaseManager;
+
+public class HospitalApplication extends Application {
+    private static final String TAG = "HospitalApplication";
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Движок базы данных общий для всего процесса
+        DatabaseManager.init(this);
+        Log.d(TAG, "Application created");
+    }
+}
@@ -12,15 +12,25 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
 import com.hospital.management.R;
+import com.hospital.management.concurrent.TaskScope;
 import com.hospital.management.dao.DoctorDao;
 import com.hospital.management.model.Doctor;
+import com.hospital.management.repository.DoctorRepository;
 
 public class DoctorManagementActivity extends AppCompatActivity {
+    // Результаты сохранения
+    private static final int SAVE_OK = 0;
+    private static final int SAVE_FAILED = 1;
+    private static final int SAVE_DUPLICATE = 2;
+
     private EditText etFirstName, etLastName, etSpecialization,
             etRoomNumber, etSchedule, etEmail;
     private Button btnSave, btnDelete, btnCancel;
 
     private DoctorDao doctorDao;
+    // Записи через репозиторий: главный экран получает изменения без перечитывания списка
+    private DoctorRepository doctorRepository;
+    private TaskScope tasks;
     private Doctor currentDoctor;
     private boolean isEditMode = false;
     private boolean canEdit = true;
@@ -28,6 +38,7 @@ public class DoctorManagementActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        tasks = new TaskScope(this);
         setContentView(R.layout.activity_doctor_management);
 
         initializeViews();
@@ -60,6 +71,7 @@ public class DoctorManagementActivity extends AppCompatActivity {
     private void initializeDAO() {
         doctorDao = new DoctorDao(this);
         doctorDao.open();
+        doctorRepository = new DoctorRepository(doctorDao);
     }
 
     private void checkEditMode() {
@@ -145,46 +157,47 @@ public class DoctorManagementActivity extends AppCompatActivity {
 
             showProgress(true);
 
-            new Thread(() -> {
-                try {
-                    boolean success;
+            // Проверка уникальности и запись в одной очереди записи: между ними
+            // не вклинится другая запись этого приложения
+            tasks.write(() -> {
+                // Уникальность email: проба индекса, до записи
+                int ownerId = doctorDao.findDoctorIdByEmail(doctor.getEmail());
+                if (ownerId != -1 && (!isEditMode || ownerId != doctor.getDoctorId())) {
+                    return SAVE_DUPLICATE;
+                }
+                if (isEditMode) {
+                    return doctorRepository.updateDoctor(doctor) ? SAVE_OK : SAVE_FAILED;
+                }
+                return doctorRepository.addDoctor(doctor) != -1 ? SAVE_OK : SAVE_FAILED;
+            }, outcome -> {
+                showProgress(false);
+
+                if (outcome == SAVE_DUPLICATE) {
+                    etEmail.setError("Врач с таким email уже зарегистрирован");
+                    etEmail.requestFocus();
+                } else if (outcome == SAVE_OK) {
+                    String message = isEditMode ?
+                            "Данные врача обновлены" : "Врач добавлен";
+                    Toast.makeText(DoctorManagementActivity.this,
+                            message, Toast.LENGTH_LONG).show();
+
+                    // Возвращаем результат с информацией об операции
+                    Intent resultIntent = new Intent();
+                    resultIntent.putExtra("OPERATION", isEditMode ? "UPDATED" : "ADDED");
                     if (isEditMode) {
-                        success = doctorDao.updateDoctor(doctor);
-                    } else {
-                        long result = doctorDao.addDoctor(doctor);
-                        success = result != -1;
+                        resultIntent.putExtra("DOCTOR", doctor);
                     }
-
-                    runOnUiThread(() -> {
-                        showProgress(false);
-
-                        if (success) {
-                            String message = isEditMode ?
-                                    "Данные врача обновлены" : "Врач добавлен";
-                            Toast.makeText(DoctorManagementActivity.this,
-                                    message, Toast.LENGTH_LONG).show();
-
-                            // Возвращаем результат с информацией об операции
-                            Intent resultIntent = new Intent();
-                            resultIntent.putExtra("OPERATION", isEditMode ? "UPDATED" : "ADDED");
-                            if (isEditMode) {
-                                resultIntent.putExtra("DOCTOR", doctor);
-                            }
-                            setResult(RESULT_OK, resultIntent);
-                            finish();
-                        } else {
-                            Toast.makeText(DoctorManagementActivity.this,
-                                    "Ошибка сохранения", Toast.LENGTH_LONG).show();
-                        }
-                    });
-                } catch (Exception e) {
-                    runOnUiThread(() -> {
-                        showProgress(false);
-                        Toast.makeText(DoctorManagementActivity.this,
-                                "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                    });
+                    setResult(RESULT_OK, resultIntent);
+                    finish();
+                } else {
+                    Toast.makeText(DoctorManagementActivity.this,
+                            "Ошибка сохранения", Toast.LENGTH_LONG).show();
                 }
-            }).start();
+            }, e -> {
+                showProgress(false);
+                Toast.makeText(DoctorManagementActivity.this,
+                        "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            });
 
         } catch (IllegalArgumentException e) {
             Toast.makeText(this, "Ошибка валидации: " + e.getMessage(),
@@ -201,30 +214,20 @@ public class DoctorManagementActivity extends AppCompatActivity {
         if (currentDoctor == null) return;
 
         // Проверяем наличие связанных записей перед удалением
-        new Thread(() -> {
-            try {
-                boolean hasRelatedRecords = doctorDao.hasRelatedRecords(currentDoctor.getDoctorId());
-
-                runOnUiThread(() -> {
-                    if (hasRelatedRecords) {
-                        new android.app.AlertDialog.Builder(this)
-                                .setTitle("Невозможно удалить")
-                                .setMessage("Невозможно удалить врача " + currentDoctor.getFullName() +
-                                        ", так как есть связанные записи (приемы, назначения и т.д.).")
-                                .setPositiveButton("OK", null)
-                                .show();
-                    } else {
-                        showDeleteConfirmationDialog();
-                    }
-                });
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(DoctorManagementActivity.this,
-                            "Ошибка проверки связанных записей: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                });
+        tasks.read("related_records", () -> doctorDao.hasRelatedRecords(currentDoctor.getDoctorId()), hasRelatedRecords -> {
+            if (hasRelatedRecords) {
+                new android.app.AlertDialog.Builder(this)
+                        .setTitle("Невозможно удалить")
+                        .setMessage("Невозможно удалить врача " + currentDoctor.getFullName() +
+                                ", так как есть связанные записи (приемы, назначения и т.д.).")
+                        .setPositiveButton("OK", null)
+                        .show();
+            } else {
+                showDeleteConfirmationDialog();
             }
-        }).start();
+        }, e -> Toast.makeText(DoctorManagementActivity.this,
+                "Ошибка проверки связанных записей: " + e.getMessage(),
+                Toast.LENGTH_LONG).show());
     }
 
     private void showDeleteConfirmationDialog() {
@@ -240,36 +243,28 @@ public class DoctorManagementActivity extends AppCompatActivity {
     private void deleteDoctor() {
         showProgress(true);
 
-        new Thread(() -> {
-            try {
-                boolean success = doctorDao.deleteDoctor(currentDoctor.getDoctorId());
-
-                runOnUiThread(() -> {
-                    showProgress(false);
-
-                    if (success) {
-                        Toast.makeText(DoctorManagementActivity.this,
-                                "Врач удален", Toast.LENGTH_LONG).show();
-
-                        // Возвращаем результат с информацией об удалении
-                        Intent resultIntent = new Intent();
-                        resultIntent.putExtra("OPERATION", "DELETED");
-                        resultIntent.putExtra("DELETED_DOCTOR_ID", currentDoctor.getDoctorId());
-                        setResult(RESULT_OK, resultIntent);
-                        finish();
-                    } else {
-                        Toast.makeText(DoctorManagementActivity.this,
-                                "Ошибка удаления", Toast.LENGTH_LONG).show();
-                    }
-                });
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    showProgress(false);
-                    Toast.makeText(DoctorManagementActivity.this,
-                            "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        tasks.write(() -> doctorRepository.deleteDoctor(currentDoctor.getDoctorId()), success -> {
+            showProgress(false);
+
+            if (success) {
+                Toast.makeText(DoctorManagementActivity.this,
+                        "Врач удален", Toast.LENGTH_LONG).show();
+
+                // Возвращаем результат с информацией об удалении
+                Intent resultIntent = new Intent();
+                resultIntent.putExtra("OPERATION", "DELETED");
+                resultIntent.putExtra("DELETED_DOCTOR_ID", currentDoctor.getDoctorId());
+                setResult(RESULT_OK, resultIntent);
+                finish();
+            } else {
+                Toast.makeText(DoctorManagementActivity.this,
+                        "Ошибка удаления", Toast.LENGTH_LONG).show();
             }
-        }).start();
+        }, e -> {
+            showProgress(false);
+            Toast.makeText(DoctorManagementActivity.this,
+                    "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
     }
 
     private boolean validateForm() {
@@ -11,7 +11,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.hospital.management.R;
-import com.hospital.management.dao.DatabaseHelper;
+import com.hospital.management.concurrent.TaskScope;
 import com.hospital.management.dao.UserDao;
 import com.hospital.management.model.User;
 
@@ -21,12 +21,13 @@ public class LoginActivity extends AppCompatActivity {
     private EditText etUsername, etPassword;
     private Button btnLogin, btnRegister;
     private UserDao userDao;
-    private DatabaseHelper databaseHelper;
+    private TaskScope tasks;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         Log.d(TAG, "onCreate started");
+        tasks = new TaskScope(this);
 
         try {
             setContentView(R.layout.activity_login);
@@ -72,8 +73,8 @@ public class LoginActivity extends AppCompatActivity {
     private void initializeDatabase() {
         Log.d(TAG, "Initializing database");
         try {
-            databaseHelper = new DatabaseHelper(this);
             userDao = new UserDao(this);
+            userDao.open();
 
             // Проверяем доступность базы данных и наличие пользователей
             int userCount = userDao.getUsersCount();
@@ -136,46 +137,41 @@ public class LoginActivity extends AppCompatActivity {
         showProgress(true);
         Log.d(TAG, "Starting authentication process");
 
-        new Thread(() -> {
-            try {
-                Log.d(TAG, "Authentication thread started");
-                User user = userDao.authenticate(username, password);
-                Log.d(TAG, "Authentication result: " + (user != null ? "SUCCESS" : "FAILED"));
-
-                runOnUiThread(() -> {
-                    showProgress(false);
-
-                    if (user != null) {
-                        Log.d(TAG, "User authenticated: " + user.getUsername() + ", role: " + user.getRole());
-                        // Успешная аутентификация
-                        try {
-                            Intent intent = new Intent(LoginActivity.this, MainActivity.class);
-                            intent.putExtra("USER", user);
-                            Log.d(TAG, "Starting MainActivity");
-                            startActivity(intent);
-                            finish();
-                            Log.d(TAG, "LoginActivity finished");
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error starting MainActivity: " + e.getMessage(), e);
-                            Toast.makeText(LoginActivity.this,
-                                    "Ошибка запуска приложения", Toast.LENGTH_LONG).show();
-                        }
-                    } else {
-                        Log.w(TAG, "Authentication failed for user: " + username);
-                        Toast.makeText(LoginActivity.this,
-                                "Неверный логин или пароль", Toast.LENGTH_LONG).show();
-                    }
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Error during authentication: " + e.getMessage(), e);
-                runOnUiThread(() -> {
-                    showProgress(false);
+        // Повторное нажатие заменяет предыдущую проверку
+        tasks.read("login", () -> {
+            Log.d(TAG, "Authentication task started");
+            return userDao.authenticate(username, password);
+        }, user -> {
+            Log.d(TAG, "Authentication result: " + (user != null ? "SUCCESS" : "FAILED"));
+            showProgress(false);
+
+            if (user != null) {
+                Log.d(TAG, "User authenticated: " + user.getUsername() + ", role: " + user.getRole());
+                // Успешная аутентификация
+                try {
+                    Intent intent = new Intent(LoginActivity.this, MainActivity.class);
+                    intent.putExtra("USER", user);
+                    Log.d(TAG, "Starting MainActivity");
+                    startActivity(intent);
+                    finish();
+                    Log.d(TAG, "LoginActivity finished");
+                } catch (Exception e) {
+                    Log.e(TAG, "Error starting MainActivity: " + e.getMessage(), e);
                     Toast.makeText(LoginActivity.this,
-                            "Ошибка при аутентификации: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                });
+                            "Ошибка запуска приложения", Toast.LENGTH_LONG).show();
+                }
+            } else {
+                Log.w(TAG, "Authentication failed for user: " + username);
+                Toast.makeText(LoginActivity.this,
+                        "Неверный логин или пароль", Toast.LENGTH_LONG).show();
             }
-        }).start();
+        }, e -> {
+            Log.e(TAG, "Error during authentication: " + e.getMessage(), e);
+            showProgress(false);
+            Toast.makeText(LoginActivity.this,
+                    "Ошибка при аутентификации: " + e.getMessage(),
+                    Toast.LENGTH_LONG).show();
+        });
     }
 
     private void handleRegister() {
@@ -239,9 +235,6 @@ public class LoginActivity extends AppCompatActivity {
             if (userDao != null) {
                 userDao.close();
             }
-            if (databaseHelper != null) {
-                databaseHelper.close();
-            }
             Log.d(TAG, "Resources cleaned up");
         } catch (Exception e) {
             Log.e(TAG, "Error in onDestroy: " + e.getMessage(), e);
@@ -1,11 +1,19 @@
 package com.hospital.management.activities;
 
 import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Bundle;
+import android.os.CancellationSignal;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.ImageButton;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -18,35 +26,77 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.hospital.management.R;
 import com.hospital.management.adapters.DoctorAdapter;
+import com.hospital.management.adapters.DoctorRow;
 import com.hospital.management.adapters.PatientAdapter;
+import com.hospital.management.adapters.PatientRow;
+import com.hospital.management.concurrent.TaskScope;
 import com.hospital.management.dao.DoctorDao;
 import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.UserDao;
+import com.hospital.management.exporter.DirectoryExporter;
+import com.hospital.management.importer.ImportResult;
+import com.hospital.management.importer.PatientCsvImporter;
 import com.hospital.management.model.Doctor;
 import com.hospital.management.model.Patient;
 import com.hospital.management.model.User;
-
+import com.hospital.management.paging.DoctorPagingSource;
+import com.hospital.management.paging.Pager;
+import com.hospital.management.paging.PatientPagingSource;
+import com.hospital.management.repository.ChangeEvent;
+import com.hospital.management.repository.DoctorRepository;
+import com.hospital.management.repository.PatientRepository;
+import com.hospital.management.search.SearchPipeline;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class MainActivity extends AppCompatActivity {
     private static final String TAG = "MainActivity";
     private static final int REQUEST_CODE_DOCTOR = 1;
     private static final int REQUEST_CODE_PATIENT = 2;
+    private static final int REQUEST_CODE_IMPORT = 3;
+    private static final int REQUEST_CODE_EXPORT = 4;
+    private static final int SEARCH_LIMIT = 100;
 
     private User currentUser;
     private RecyclerView rvDoctors, rvPatients;
     private TextView tvWelcome, tvEmptyDoctors, tvEmptyPatients;
+    private EditText etSearch;
+    private TextView tvDoctorsCount, tvPatientsCount, tvPatientsByDistrict,
+            tvDoctorsBySpecialization, tvUsersByRole;
     private ImageButton btnAddDoctor, btnAddPatient;
 
     private DoctorAdapter doctorAdapter;
     private PatientAdapter patientAdapter;
     private DoctorDao doctorDao;
     private PatientDao patientDao;
+    private UserDao userDao;
+
+    // Чтения и записи экрана; отменяются при закрытии экрана
+    private TaskScope tasks;
+
+    // Постраничная загрузка списков
+    private Pager<DoctorRow> doctorPager;
+    private Pager<PatientRow> patientPager;
+
+    // Поиск по мере ввода; пока он идёт, списки показывают результаты и отключены от Pager
+    private SearchPipeline<SearchResults> search;
+    private boolean searching;
+
+    // Импорт и экспорт: одна операция за раз, прерывается при закрытии экрана
+    private boolean transferRunning;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         Log.d(TAG, "onCreate started");
+        tasks = new TaskScope(this);
 
         try {
             setContentView(R.layout.activity_main);
@@ -65,6 +115,9 @@ public class MainActivity extends AppCompatActivity {
 
             initializeViews();
             initializeDAOs();
+            initializePagers();
+            initializeSearch();
+            observeChanges();
             loadData();
             updateUI();
             setupButtonClickListeners();
@@ -95,10 +148,16 @@ public class MainActivity extends AppCompatActivity {
             Log.d(TAG, "Toolbar initialized");
 
             tvWelcome = findViewById(R.id.tvWelcome);
+            etSearch = findViewById(R.id.etSearch);
             rvDoctors = findViewById(R.id.rvDoctors);
             rvPatients = findViewById(R.id.rvPatients);
             tvEmptyDoctors = findViewById(R.id.tvEmptyDoctors);
             tvEmptyPatients = findViewById(R.id.tvEmptyPatients);
+            tvDoctorsCount = findViewById(R.id.tvDoctorsCount);
+            tvPatientsCount = findViewById(R.id.tvPatientsCount);
+            tvPatientsByDistrict = findViewById(R.id.tvPatientsByDistrict);
+            tvDoctorsBySpecialization = findViewById(R.id.tvDoctorsBySpecialization);
+            tvUsersByRole = findViewById(R.id.tvUsersByRole);
 
             // Инициализация кнопок добавления
             btnAddDoctor = findViewById(R.id.add_doctor);
@@ -174,10 +233,12 @@ public class MainActivity extends AppCompatActivity {
         try {
             doctorDao = new DoctorDao(this);
             patientDao = new PatientDao(this);
+            userDao = new UserDao(this);
 
             // Открываем соединения с базой данных
             doctorDao.open();
             patientDao.open();
+            userDao.open();
 
             Log.d(TAG, "DAOs initialized and opened");
         } catch (Exception e) {
@@ -186,81 +247,222 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    private void initializePagers() {
+        if (doctorDao != null && doctorAdapter != null) {
+            doctorPager = new Pager<>(new DoctorPagingSource(doctorDao), doctorAdapter, tasks.readExecutor());
+            doctorAdapter.setPager(doctorPager);
+        }
+        if (patientDao != null && patientAdapter != null) {
+            patientPager = new Pager<>(new PatientPagingSource(patientDao), patientAdapter, tasks.readExecutor());
+            patientAdapter.setPager(patientPager);
+        }
+    }
+
+    /**
+     * Поиск врачей и пациентов по мере ввода: запрос уходит после паузы в наборе,
+     * устаревший запрос отменяется, результаты показываются через сравнение списков адаптеров
+     */
+    private void initializeSearch() {
+        if (etSearch == null || doctorPager == null || patientPager == null) {
+            return;
+        }
+        search = new SearchPipeline<>(this::searchAll, new SearchPipeline.Listener<SearchResults>() {
+            @Override
+            public void onResults(String query, SearchResults results) {
+                showSearchResults(query, results);
+            }
+
+            @Override
+            public void onCleared() {
+                closeSearch();
+            }
+        }, tasks.readExecutor());
+
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                search.setQuery(s);
+            }
+        });
+    }
+
+    // Фоновый поток: сначала врачи (их немного), затем пациенты по полнотекстовому индексу
+    private SearchResults searchAll(String query, CancellationSignal signal) {
+        SearchResults results = new SearchResults();
+        results.doctors = DoctorRow.of(doctorDao.searchDoctors(query, SEARCH_LIMIT, signal));
+        results.patients = PatientRow.of(patientDao.searchPatients(query, SEARCH_LIMIT, signal));
+        return results;
+    }
+
+    private static final class SearchResults {
+        List<DoctorRow> doctors;
+        List<PatientRow> patients;
+    }
+
+    private void showSearchResults(String query, SearchResults results) {
+        if (!searching) {
+            // Списки больше не подгружаются страницами до конца поиска
+            searching = true;
+            doctorAdapter.setPager(null);
+            patientAdapter.setPager(null);
+            doctorPager.cancel();
+            patientPager.cancel();
+        }
+        Log.d(TAG, "Search '" + query + "': " + results.doctors.size() + " doctors, " +
+                results.patients.size() + " patients");
+        doctorAdapter.setItems(results.doctors);
+        patientAdapter.setItems(results.patients);
+        updateEmptyStates(results.doctors, results.patients);
+    }
+
+    private void closeSearch() {
+        if (!searching) {
+            return;
+        }
+        searching = false;
+        doctorAdapter.setPager(doctorPager);
+        patientAdapter.setPager(patientPager);
+        loadDoctorsData();
+        loadPatientsData();
+    }
+
+    /**
+     * Изменения из репозиториев применяются к загруженным страницам построчно:
+     * правка одной записи не перечитывает список. Во время поиска результаты ищутся заново
+     */
+    private void observeChanges() {
+        if (doctorPager != null) {
+            DoctorRepository.observe(this, event -> {
+                if (searching) {
+                    search.invalidate();
+                    loadStatistics();
+                    return;
+                }
+                applyChange(doctorPager, event, DoctorRow::of, this::loadDoctorsData);
+                updateEmptyStates(doctorAdapter.getDoctors(),
+                        patientAdapter != null ? patientAdapter.getPatients() : new ArrayList<>());
+            });
+        }
+        if (patientPager != null) {
+            PatientRepository.observe(this, event -> {
+                if (searching) {
+                    search.invalidate();
+                    loadStatistics();
+                    return;
+                }
+                applyChange(patientPager, event, PatientRow::of, this::loadPatientsData);
+                updateEmptyStates(doctorAdapter != null ? doctorAdapter.getDoctors() : new ArrayList<>(),
+                        patientAdapter.getPatients());
+            });
+        }
+    }
+
+    /**
+     * Строка списка из записи репозитория
+     */
+    private interface RowFactory<T, R> {
+        R rowOf(T entity);
+    }
+
+    private <T, R> void applyChange(Pager<R> pager, ChangeEvent<T> event, RowFactory<T, R> rows, Runnable reload) {
+        switch (event.getType()) {
+            case INSERTED:
+                pager.onItemInserted(rows.rowOf(event.getEntity()));
+                break;
+            case UPDATED:
+                pager.onItemUpdated(rows.rowOf(event.getEntity()));
+                break;
+            case DELETED:
+                pager.onItemRemoved(event.getId());
+                break;
+            default:
+                reload.run();
+                break;
+        }
+        // Счётчики уже обновлены триггерами, перечитываем их
+        loadStatistics();
+    }
+
     private void loadData() {
         Log.d(TAG, "Starting data loading");
 
-        // Создаем финальные копии для использования в лямбда-выражениях
-        final DoctorDao finalDoctorDao = doctorDao;
-        final PatientDao finalPatientDao = patientDao;
-        final DoctorAdapter finalDoctorAdapter = doctorAdapter;
-        final PatientAdapter finalPatientAdapter = patientAdapter;
-
         // Проверяем инициализацию DAO
-        if (finalDoctorDao == null || finalPatientDao == null) {
+        if (doctorPager == null || patientPager == null) {
             Log.e(TAG, "DAOs are not initialized");
-            runOnUiThread(new Runnable() {
-                @Override
-                public void run() {
-                    Toast.makeText(MainActivity.this,
-                            "Ошибка: база данных не инициализирована",
-                            Toast.LENGTH_LONG).show();
-                }
-            });
+            Toast.makeText(MainActivity.this,
+                    "Ошибка: база данных не инициализирована",
+                    Toast.LENGTH_LONG).show();
             return;
         }
 
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    List<Doctor> doctors = new ArrayList<>();
-                    List<Patient> patients = new ArrayList<>();
-
-                    // Загружаем данные с проверкой на null
-                    if (finalDoctorDao != null) {
-                        doctors = finalDoctorDao.getAllDoctors();
-                    }
-                    if (finalPatientDao != null) {
-                        patients = finalPatientDao.getAllPatients();
-                    }
+        // Списки загружаются постранично: сначала первая страница, остальное - по мере прокрутки
+        loadDoctorsData();
+        loadPatientsData();
+        loadStatistics();
+    }
 
-                    Log.d(TAG, "Data loaded - Doctors: " + doctors.size() + ", Patients: " + patients.size());
-
-                    final List<Doctor> finalDoctors = doctors;
-                    final List<Patient> finalPatients = patients;
-
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            try {
-                                if (finalDoctorAdapter != null) {
-                                    finalDoctorAdapter.setDoctors(finalDoctors);
-                                }
-                                if (finalPatientAdapter != null) {
-                                    finalPatientAdapter.setPatients(finalPatients);
-                                }
-
-                                // Показать/скрыть сообщения о пустых списках
-                                updateEmptyStates(finalDoctors, finalPatients);
-                                Log.d(TAG, "Data displayed in UI");
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error updating UI: " + e.getMessage(), e);
-                            }
-                        }
-                    });
-                } catch (Exception e) {
-                    Log.e(TAG, "Error loading data: " + e.getMessage(), e);
-                    runOnUiThread(new Runnable() {
-                        @Override
-                        public void run() {
-                            Toast.makeText(MainActivity.this,
-                                    "Ошибка загрузки данных: " + e.getMessage(),
-                                    Toast.LENGTH_LONG).show();
-                        }
-                    });
-                }
+    /**
+     * Счётчики для администратора: читаются из таблицы статистики, поэтому
+     * обновляются после каждого изменения без подсчёта по таблицам
+     */
+    private void loadStatistics() {
+        if (!"ADMIN".equals(currentUser.getRole()) || userDao == null) {
+            return;
+        }
+        // Повторный запрос заменяет ещё не выполненный
+        tasks.read("statistics", () -> {
+            StatisticsSnapshot snapshot = new StatisticsSnapshot();
+            snapshot.doctorsCount = doctorDao.getDoctorsCount();
+            snapshot.patientsCount = patientDao.getPatientsCount();
+            snapshot.byDistrict = patientDao.getPatientsCountByDistrict();
+            snapshot.bySpecialization = doctorDao.getDoctorsCountBySpecialization();
+            snapshot.byRole = userDao.getUsersCountByRoles();
+            return snapshot;
+        }, snapshot -> {
+            if (tvDoctorsCount != null) tvDoctorsCount.setText("Врачи: " + snapshot.doctorsCount);
+            if (tvPatientsCount != null) tvPatientsCount.setText("Пациенты: " + snapshot.patientsCount);
+            if (tvPatientsByDistrict != null) {
+                tvPatientsByDistrict.setText(formatCounts("По участкам: ", snapshot.byDistrict));
             }
-        }).start();
+            if (tvDoctorsBySpecialization != null) {
+                tvDoctorsBySpecialization.setText(formatCounts("По специализациям: ", snapshot.bySpecialization));
+            }
+            if (tvUsersByRole != null) {
+                tvUsersByRole.setText(formatCounts("Пользователи: ", snapshot.byRole));
+            }
+        }, e -> Log.e(TAG, "Error loading statistics: " + e.getMessage(), e));
+    }
+
+    private static final class StatisticsSnapshot {
+        int doctorsCount;
+        int patientsCount;
+        Map<Integer, Integer> byDistrict;
+        Map<String, Integer> bySpecialization;
+        Map<String, Integer> byRole;
+    }
+
+    private static String formatCounts(String title, Map<?, Integer> counts) {
+        StringBuilder text = new StringBuilder(title);
+        if (counts.isEmpty()) {
+            return text.append("нет данных").toString();
+        }
+        boolean first = true;
+        for (Map.Entry<?, Integer> entry : counts.entrySet()) {
+            if (!first) {
+                text.append(", ");
+            }
+            text.append(entry.getKey()).append(" - ").append(entry.getValue());
+            first = false;
+        }
+        return text.toString();
     }
 
     private void updateUI() {
@@ -282,6 +484,8 @@ public class MainActivity extends AppCompatActivity {
                 if (layoutPatients != null) layoutPatients.setVisibility(View.VISIBLE);
                 if (btnAddDoctor != null) btnAddDoctor.setVisibility(View.VISIBLE);
                 if (btnAddPatient != null) btnAddPatient.setVisibility(View.VISIBLE);
+                View layoutStats = findViewById(R.id.layoutStats);
+                if (layoutStats != null) layoutStats.setVisibility(View.VISIBLE);
                 Log.d(TAG, "ADMIN view setup");
             } else if ("DOCTOR".equals(currentUser.getRole())) {
                 // Врач видит пациентов, но не может добавлять
@@ -366,7 +570,7 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void updateEmptyStates(List<Doctor> doctors, List<Patient> patients) {
+    private void updateEmptyStates(List<DoctorRow> doctors, List<PatientRow> patients) {
         try {
             if (tvEmptyDoctors != null && rvDoctors != null) {
                 if (doctors.isEmpty()) {
@@ -396,77 +600,171 @@ public class MainActivity extends AppCompatActivity {
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
 
+        if (requestCode == REQUEST_CODE_IMPORT) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                startPatientImport(data.getData());
+            }
+            return;
+        }
+        if (requestCode == REQUEST_CODE_EXPORT) {
+            if (resultCode == RESULT_OK && data != null && data.getData() != null) {
+                startDirectoryExport(data.getData());
+            }
+            return;
+        }
+
+        // Списки и счётчики обновляются по событиям репозиториев, здесь только сообщение
         if (resultCode == RESULT_OK && data != null) {
             String operation = data.getStringExtra("OPERATION");
+            String message = null;
 
             if (requestCode == REQUEST_CODE_DOCTOR) {
                 if ("DELETED".equals(operation)) {
-                    int deletedDoctorId = data.getIntExtra("DELETED_DOCTOR_ID", -1);
-                    if (deletedDoctorId != -1 && doctorAdapter != null) {
-                        doctorAdapter.removeDoctor(deletedDoctorId);
-                        updateEmptyStates(doctorAdapter.getDoctors(),
-                                patientAdapter != null ? patientAdapter.getPatients() : new ArrayList<>());
-                        Toast.makeText(this, "Врач удален", Toast.LENGTH_SHORT).show();
-                    }
+                    message = "Врач удален";
                 } else if ("UPDATED".equals(operation) || "ADDED".equals(operation)) {
-                    // Перезагружаем данные для врачей
-                    loadDoctorsData();
-                    String message = "UPDATED".equals(operation) ?
+                    message = "UPDATED".equals(operation) ?
                             "Данные врача обновлены" : "Врач добавлен";
-                    Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
                 }
             } else if (requestCode == REQUEST_CODE_PATIENT) {
                 if ("DELETED".equals(operation)) {
-                    int deletedPatientId = data.getIntExtra("DELETED_PATIENT_ID", -1);
-                    if (deletedPatientId != -1 && patientAdapter != null) {
-                        patientAdapter.removePatient(deletedPatientId);
-                        updateEmptyStates(doctorAdapter != null ? doctorAdapter.getDoctors() : new ArrayList<>(),
-                                patientAdapter.getPatients());
-                        Toast.makeText(this, "Пациент удален", Toast.LENGTH_SHORT).show();
-                    }
+                    message = "Пациент удален";
                 } else if ("UPDATED".equals(operation) || "ADDED".equals(operation)) {
-                    // Перезагружаем данные для пациентов
-                    loadPatientsData();
-                    String message = "UPDATED".equals(operation) ?
+                    message = "UPDATED".equals(operation) ?
                             "Данные пациента обновлены" : "Пациент добавлен";
-                    Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
                 }
             }
+            if (message != null) {
+                Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+            }
         }
     }
 
     private void loadDoctorsData() {
-        new Thread(() -> {
-            try {
-                List<Doctor> doctors = doctorDao.getAllDoctors();
-                runOnUiThread(() -> {
-                    if (doctorAdapter != null) {
-                        doctorAdapter.setDoctors(doctors);
-                        updateEmptyStates(doctors,
-                                patientAdapter != null ? patientAdapter.getPatients() : new ArrayList<>());
-                    }
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading doctors data: " + e.getMessage(), e);
-            }
-        }).start();
+        if (doctorPager == null) {
+            return;
+        }
+        doctorPager.refresh(() -> {
+            Log.d(TAG, "Doctors first page displayed: " + doctorAdapter.getItemCount());
+            updateEmptyStates(doctorAdapter.getDoctors(),
+                    patientAdapter != null ? patientAdapter.getPatients() : new ArrayList<>());
+        });
     }
 
     private void loadPatientsData() {
-        new Thread(() -> {
-            try {
-                List<Patient> patients = patientDao.getAllPatients();
-                runOnUiThread(() -> {
-                    if (patientAdapter != null) {
-                        patientAdapter.setPatients(patients);
-                        updateEmptyStates(doctorAdapter != null ? doctorAdapter.getDoctors() : new ArrayList<>(),
-                                patients);
-                    }
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Error loading patients data: " + e.getMessage(), e);
+        if (patientPager == null) {
+            return;
+        }
+        patientPager.refresh(() -> {
+            Log.d(TAG, "Patients first page displayed: " + patientAdapter.getItemCount());
+            updateEmptyStates(doctorAdapter != null ? doctorAdapter.getDoctors() : new ArrayList<>(),
+                    patientAdapter.getPatients());
+        });
+    }
+
+    private void pickImportFile() {
+        if (transferRunning) {
+            Toast.makeText(this, "Импорт или экспорт уже выполняется", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES, new String[]{
+                "text/csv", "text/comma-separated-values", "text/plain", "application/vnd.ms-excel"
+        });
+        startActivityForResult(intent, REQUEST_CODE_IMPORT);
+    }
+
+    /**
+     * Импорт выбранного файла в фоне. Повторный выбор того же файла после
+     * прерывания продолжает импорт с контрольной точки
+     */
+    private void startPatientImport(final Uri uri) {
+        transferRunning = true;
+        final String importId = uri + "#" + querySize(uri);
+        final File report = new File(getFilesDir(), "import_rejected_" +
+                Integer.toHexString(importId.hashCode()) + ".csv");
+        final PatientCsvImporter importer = new PatientCsvImporter(getApplicationContext());
+        setTransferStatus("Импорт пациентов...");
+
+        // Фоновая очередь: списки и счётчики экрана не ждут импорт
+        tasks.background(() -> {
+            try (InputStream input = getContentResolver().openInputStream(uri);
+                 Reader reader = new InputStreamReader(input, "UTF-8")) {
+                return importer.importPatients(reader, importId, report, progress ->
+                        runOnUiThread(() -> setTransferStatus("Импорт: " + progress.getRecordsDone() +
+                                " записей, добавлено " + progress.getImported())));
+            }
+        }, result -> {
+            transferRunning = false;
+            setTransferStatus(null);
+            String message = "Добавлено: " + result.getImported() +
+                    ", отклонено: " + result.getRejected();
+            if (result.getRejected() > 0) {
+                message += "\nОтчёт: " + report.getAbsolutePath();
+            }
+            Toast.makeText(this, message, Toast.LENGTH_LONG).show();
+        }, e -> {
+            Log.e(TAG, "Error importing patients: " + e.getMessage(), e);
+            transferRunning = false;
+            setTransferStatus(null);
+            Toast.makeText(this, "Ошибка импорта: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
+    }
+
+    private void pickExportFile() {
+        if (transferRunning) {
+            Toast.makeText(this, "Импорт или экспорт уже выполняется", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("application/gzip");
+        intent.putExtra(Intent.EXTRA_TITLE, "hospital-directory.ndjson.gz");
+        startActivityForResult(intent, REQUEST_CODE_EXPORT);
+    }
+
+    /**
+     * Выгрузка пациентов и врачей в NDJSON (FHIR Patient/Practitioner) со сжатием gzip
+     */
+    private void startDirectoryExport(final Uri uri) {
+        transferRunning = true;
+        final DirectoryExporter exporter = new DirectoryExporter(getApplicationContext());
+        setTransferStatus("Экспорт справочников...");
+
+        tasks.background(() -> {
+            try (ParcelFileDescriptor descriptor = getContentResolver().openFileDescriptor(uri, "wt");
+                 FileOutputStream output = new FileOutputStream(descriptor.getFileDescriptor())) {
+                return exporter.exportAll(output.getChannel(), DirectoryExporter.Format.NDJSON, true);
+            }
+        }, exported -> {
+            transferRunning = false;
+            setTransferStatus(null);
+            Toast.makeText(this, "Выгружено записей: " + exported, Toast.LENGTH_LONG).show();
+        }, e -> {
+            Log.e(TAG, "Error exporting directory: " + e.getMessage(), e);
+            transferRunning = false;
+            setTransferStatus(null);
+            Toast.makeText(this, "Ошибка экспорта: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
+    }
+
+    private long querySize(Uri uri) {
+        try (Cursor cursor = getContentResolver().query(uri, new String[]{OpenableColumns.SIZE},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
             }
-        }).start();
+        } catch (Exception e) {
+            Log.e(TAG, "Error querying file size: " + e.getMessage(), e);
+        }
+        return -1;
+    }
+
+    private void setTransferStatus(String status) {
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setSubtitle(status);
+        }
     }
 
     @Override
@@ -474,6 +772,9 @@ public class MainActivity extends AppCompatActivity {
         try {
             getMenuInflater().inflate(R.menu.main_menu, menu);
             menu.findItem(R.id.menu_refresh).setVisible(true);
+            boolean isAdmin = currentUser != null && "ADMIN".equals(currentUser.getRole());
+            menu.findItem(R.id.menu_import_patients).setVisible(isAdmin);
+            menu.findItem(R.id.menu_export_directory).setVisible(isAdmin);
         } catch (Exception e) {
             Log.e(TAG, "Error creating options menu: " + e.getMessage(), e);
         }
@@ -486,9 +787,20 @@ public class MainActivity extends AppCompatActivity {
             int id = item.getItemId();
 
             if (id == R.id.menu_refresh) {
-                loadData();
+                if (searching) {
+                    search.invalidate();
+                    loadStatistics();
+                } else {
+                    loadData();
+                }
                 Toast.makeText(this, "Данные обновлены", Toast.LENGTH_SHORT).show();
                 return true;
+            } else if (id == R.id.menu_import_patients) {
+                pickImportFile();
+                return true;
+            } else if (id == R.id.menu_export_directory) {
+                pickExportFile();
+                return true;
             } else if (id == R.id.menu_settings) {
                 Toast.makeText(this, "Настройки", Toast.LENGTH_SHORT).show();
                 return true;
@@ -517,12 +829,20 @@ public class MainActivity extends AppCompatActivity {
         super.onDestroy();
         Log.d(TAG, "onDestroy");
         try {
+            // Задачи экрана отменяет TaskScope; прерванный импорт продолжится
+            // с контрольной точки при следующем запуске
+            if (search != null) {
+                search.close();
+            }
             if (doctorDao != null) {
                 doctorDao.close();
             }
             if (patientDao != null) {
                 patientDao.close();
             }
+            if (userDao != null) {
+                userDao.close();
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error in onDestroy: " + e.getMessage(), e);
         }
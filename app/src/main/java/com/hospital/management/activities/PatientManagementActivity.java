@@ -12,15 +12,25 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
 import com.hospital.management.R;
+import com.hospital.management.concurrent.TaskScope;
 import com.hospital.management.dao.PatientDao;
 import com.hospital.management.model.Patient;
+import com.hospital.management.repository.PatientRepository;
 
 public class PatientManagementActivity extends AppCompatActivity {
+    // Результаты сохранения
+    private static final int SAVE_OK = 0;
+    private static final int SAVE_FAILED = 1;
+    private static final int SAVE_DUPLICATE = 2;
+
     private EditText etFirstName, etLastName, etBirthDate, etPhoneNumber,
             etEmail, etSnils, etPolicyOMS, etDistrict, etAddress;
     private Button btnSave, btnDelete, btnCancel;
 
     private PatientDao patientDao;
+    // Записи через репозиторий: главный экран получает изменения без перечитывания списка
+    private PatientRepository patientRepository;
+    private TaskScope tasks;
     private Patient currentPatient;
     private boolean isEditMode = false;
     private boolean canEdit = true;
@@ -28,6 +38,7 @@ public class PatientManagementActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        tasks = new TaskScope(this);
         setContentView(R.layout.activity_patient_management);
 
         initializeViews();
@@ -63,6 +74,7 @@ public class PatientManagementActivity extends AppCompatActivity {
     private void initializeDAO() {
         patientDao = new PatientDao(this);
         patientDao.open();
+        patientRepository = new PatientRepository(patientDao);
     }
 
     private void checkEditMode() {
@@ -161,46 +173,47 @@ public class PatientManagementActivity extends AppCompatActivity {
 
             showProgress(true);
 
-            new Thread(() -> {
-                try {
-                    boolean success;
+            // Проверка уникальности и запись в одной очереди записи: между ними
+            // не вклинится другая запись этого приложения
+            tasks.write(() -> {
+                // Уникальность полиса ОМС: проба индекса, до записи
+                int ownerId = patientDao.findPatientIdByPolicyOMS(patient.getPolicyOMS());
+                if (ownerId != -1 && (!isEditMode || ownerId != patient.getPatientId())) {
+                    return SAVE_DUPLICATE;
+                }
+                if (isEditMode) {
+                    return patientRepository.updatePatient(patient) ? SAVE_OK : SAVE_FAILED;
+                }
+                return patientRepository.addPatient(patient) != -1 ? SAVE_OK : SAVE_FAILED;
+            }, outcome -> {
+                showProgress(false);
+
+                if (outcome == SAVE_DUPLICATE) {
+                    etPolicyOMS.setError("Полис ОМС уже зарегистрирован");
+                    etPolicyOMS.requestFocus();
+                } else if (outcome == SAVE_OK) {
+                    String message = isEditMode ?
+                            "Данные пациента обновлены" : "Пациент добавлен";
+                    Toast.makeText(PatientManagementActivity.this,
+                            message, Toast.LENGTH_LONG).show();
+
+                    // Возвращаем результат с информацией об операции
+                    Intent resultIntent = new Intent();
+                    resultIntent.putExtra("OPERATION", isEditMode ? "UPDATED" : "ADDED");
                     if (isEditMode) {
-                        success = patientDao.updatePatient(patient);
-                    } else {
-                        long result = patientDao.addPatient(patient);
-                        success = result != -1;
+                        resultIntent.putExtra("PATIENT", patient);
                     }
-
-                    runOnUiThread(() -> {
-                        showProgress(false);
-
-                        if (success) {
-                            String message = isEditMode ?
-                                    "Данные пациента обновлены" : "Пациент добавлен";
-                            Toast.makeText(PatientManagementActivity.this,
-                                    message, Toast.LENGTH_LONG).show();
-
-                            // Возвращаем результат с информацией об операции
-                            Intent resultIntent = new Intent();
-                            resultIntent.putExtra("OPERATION", isEditMode ? "UPDATED" : "ADDED");
-                            if (isEditMode) {
-                                resultIntent.putExtra("PATIENT", patient);
-                            }
-                            setResult(RESULT_OK, resultIntent);
-                            finish();
-                        } else {
-                            Toast.makeText(PatientManagementActivity.this,
-                                    "Ошибка сохранения", Toast.LENGTH_LONG).show();
-                        }
-                    });
-                } catch (Exception e) {
-                    runOnUiThread(() -> {
-                        showProgress(false);
-                        Toast.makeText(PatientManagementActivity.this,
-                                "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                    });
+                    setResult(RESULT_OK, resultIntent);
+                    finish();
+                } else {
+                    Toast.makeText(PatientManagementActivity.this,
+                            "Ошибка сохранения", Toast.LENGTH_LONG).show();
                 }
-            }).start();
+            }, e -> {
+                showProgress(false);
+                Toast.makeText(PatientManagementActivity.this,
+                        "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
+            });
 
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Ошибка: участок должен быть числом",
@@ -220,30 +233,20 @@ public class PatientManagementActivity extends AppCompatActivity {
         if (currentPatient == null) return;
 
         // Проверяем наличие связанных записей перед удалением
-        new Thread(() -> {
-            try {
-                boolean hasRelatedRecords = patientDao.hasRelatedRecords(currentPatient.getPatientId());
-
-                runOnUiThread(() -> {
-                    if (hasRelatedRecords) {
-                        new android.app.AlertDialog.Builder(this)
-                                .setTitle("Невозможно удалить")
-                                .setMessage("Невозможно удалить пациента " + currentPatient.getFullName() +
-                                        ", так как есть связанные записи (приемы, назначения и т.д.).")
-                                .setPositiveButton("OK", null)
-                                .show();
-                    } else {
-                        showDeleteConfirmationDialog();
-                    }
-                });
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(PatientManagementActivity.this,
-                            "Ошибка проверки связанных записей: " + e.getMessage(),
-                            Toast.LENGTH_LONG).show();
-                });
+        tasks.read("related_records", () -> patientDao.hasRelatedRecords(currentPatient.getPatientId()), hasRelatedRecords -> {
+            if (hasRelatedRecords) {
+                new android.app.AlertDialog.Builder(this)
+                        .setTitle("Невозможно удалить")
+                        .setMessage("Невозможно удалить пациента " + currentPatient.getFullName() +
+                                ", так как есть связанные записи (приемы, назначения и т.д.).")
+                        .setPositiveButton("OK", null)
+                        .show();
+            } else {
+                showDeleteConfirmationDialog();
             }
-        }).start();
+        }, e -> Toast.makeText(PatientManagementActivity.this,
+                "Ошибка проверки связанных записей: " + e.getMessage(),
+                Toast.LENGTH_LONG).show());
     }
 
     private void showDeleteConfirmationDialog() {
@@ -259,36 +262,28 @@ public class PatientManagementActivity extends AppCompatActivity {
     private void deletePatient() {
         showProgress(true);
 
-        new Thread(() -> {
-            try {
-                boolean success = patientDao.deletePatient(currentPatient.getPatientId());
-
-                runOnUiThread(() -> {
-                    showProgress(false);
-
-                    if (success) {
-                        Toast.makeText(PatientManagementActivity.this,
-                                "Пациент удален", Toast.LENGTH_LONG).show();
-
-                        // Возвращаем результат с информацией об удалении
-                        Intent resultIntent = new Intent();
-                        resultIntent.putExtra("OPERATION", "DELETED");
-                        resultIntent.putExtra("DELETED_PATIENT_ID", currentPatient.getPatientId());
-                        setResult(RESULT_OK, resultIntent);
-                        finish();
-                    } else {
-                        Toast.makeText(PatientManagementActivity.this,
-                                "Ошибка удаления", Toast.LENGTH_LONG).show();
-                    }
-                });
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    showProgress(false);
-                    Toast.makeText(PatientManagementActivity.this,
-                            "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        tasks.write(() -> patientRepository.deletePatient(currentPatient.getPatientId()), success -> {
+            showProgress(false);
+
+            if (success) {
+                Toast.makeText(PatientManagementActivity.this,
+                        "Пациент удален", Toast.LENGTH_LONG).show();
+
+                // Возвращаем результат с информацией об удалении
+                Intent resultIntent = new Intent();
+                resultIntent.putExtra("OPERATION", "DELETED");
+                resultIntent.putExtra("DELETED_PATIENT_ID", currentPatient.getPatientId());
+                setResult(RESULT_OK, resultIntent);
+                finish();
+            } else {
+                Toast.makeText(PatientManagementActivity.this,
+                        "Ошибка удаления", Toast.LENGTH_LONG).show();
             }
-        }).start();
+        }, e -> {
+            showProgress(false);
+            Toast.makeText(PatientManagementActivity.this,
+                    "Ошибка: " + e.getMessage(), Toast.LENGTH_LONG).show();
+        });
     }
 
     private boolean validateForm() {
@@ -309,7 +304,7 @@ public class PatientManagementActivity extends AppCompatActivity {
             isValid = false;
         } else {
             String email = etEmail.getText().toString().trim();
-            if (!android.util.Patterns.EMAIL_ADDRESS.matcher(email).matches()) {
+            if (!Patient.isValidEmail(email)) {
                 etEmail.setError("Неверный формат email");
                 isValid = false;
             }
@@ -317,7 +312,7 @@ public class PatientManagementActivity extends AppCompatActivity {
 
         String phone = etPhoneNumber.getText().toString().trim();
         if (!TextUtils.isEmpty(phone)) {
-            if (!phone.matches("^\\+?[0-9\\-\\s()]{7,20}$")) {
+            if (!Patient.PHONE_PATTERN.matcher(phone).matches()) {
                 etPhoneNumber.setError("Неверный формат телефона");
                 isValid = false;
             }
@@ -325,7 +320,7 @@ public class PatientManagementActivity extends AppCompatActivity {
 
         String snils = etSnils.getText().toString().trim();
         if (!TextUtils.isEmpty(snils)) {
-            if (!snils.matches("^\\d{3}-\\d{3}-\\d{3} \\d{2}$")) {
+            if (!Patient.SNILS_PATTERN.matcher(snils).matches()) {
                 etSnils.setError("Формат: XXX-XXX-XXX XX");
                 isValid = false;
             }
@@ -333,7 +328,7 @@ public class PatientManagementActivity extends AppCompatActivity {
 
         String policy = etPolicyOMS.getText().toString().trim();
         if (!TextUtils.isEmpty(policy)) {
-            if (!policy.matches("^\\d{16}$")) {
+            if (!Patient.POLICY_OMS_PATTERN.matcher(policy).matches()) {
                 etPolicyOMS.setError("Должно быть 16 цифр");
                 isValid = false;
             }
@@ -341,7 +336,7 @@ public class PatientManagementActivity extends AppCompatActivity {
 
         String birthDate = etBirthDate.getText().toString().trim();
         if (!TextUtils.isEmpty(birthDate)) {
-            if (!birthDate.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+            if (!Patient.BIRTH_DATE_PATTERN.matcher(birthDate).matches()) {
                 etBirthDate.setError("Формат: ГГГГ-ММ-ДД");
                 isValid = false;
             }
@@ -0,0 +1,488 @@
+package com.hospital.management.adapters;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Элементы адаптера с фоновым сравнением списков.
+ * Замена всего списка (первая страница, перезагрузка) сравнивается со старым списком в фоне:
+ * строки сопоставляются по ID, содержимое - по полям, и адаптеру сообщаются только
+ * вставки, удаления, перемещения и изменения. Перезагрузка, изменившая две строки,
+ * перепривязывает две строки.
+ * Пока сравнение считается, адаптер показывает прежний список, а точечные изменения
+ * (страницы, вставки Pager) применяются к будущему списку; после показа результата
+ * накопленная разница сравнивается ещё раз.
+ * Позиция строки по ID ищется по индексу. Вставки и удаления не перестраивают его, а пишутся
+ * в журнал сдвигов: позиция найденной записи поправляется сдвигами, сделанными после неё.
+ * Журнал ограничен примерно корнем из размера списка, после чего индекс строится заново,
+ * так что поиск после точечной правки стоит O(√n) в среднем, а не O(n).
+ * Пакетные удаление и замена сообщают адаптеру диапазоны подряд идущих строк.
+ * Все методы вызываются из главного потока
+ */
+final class AsyncItemList<T> {
+    private static final String TAG = "AsyncItemList";
+
+    // Сравнения всех списков идут по очереди в одном фоновом потоке
+    private static final Executor DIFF_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "list-diff");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final ItemCallback<T> itemCallback;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Показанный список: не меняется, пока идёт сравнение
+    private List<T> displayed = new ArrayList<>();
+    // Список с учётом ещё не показанных изменений; без сравнения - тот же объект, что displayed
+    private List<T> latest = displayed;
+    // Поколение сравнения: результат, устаревший из-за новой замены, отбрасывается
+    private int generation;
+    private boolean diffing;
+    // Во время сравнения latest изменился точечно
+    private boolean changedWhileDiffing;
+
+    // ID строки -> позиция в latest на момент записи journal[version]. Запись может остаться
+    // от удалённой строки, поэтому найденная позиция сверяется с ID
+    private final Map<Integer, Slot> positions = new HashMap<>();
+    private boolean indexed;
+    // Журнал сдвигов после построения индекса: с позиции shiftAt[i] строки сдвинуты на shiftBy[i]
+    private int[] shiftAt = new int[MIN_SHIFTS];
+    private int[] shiftBy = new int[MIN_SHIFTS];
+    private int shiftCount;
+    // Строк записано в индекс за всё время (для замеров)
+    private long indexedRows;
+
+    private static final int MIN_SHIFTS = 16;
+
+    private static final class Slot {
+        int position;
+        int version;
+
+        Slot(int position, int version) {
+            this.position = position;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Сравнение строк: одна и та же строка - один и тот же ID
+     */
+    abstract static class ItemCallback<T> extends DiffUtil.ItemCallback<T> {
+        abstract int idOf(T item);
+
+        @Override
+        public boolean areItemsTheSame(T oldItem, T newItem) {
+            return idOf(oldItem) == idOf(newItem);
+        }
+    }
+
+    AsyncItemList(RecyclerView.Adapter<?> adapter, ItemCallback<T> itemCallback) {
+        this.adapter = adapter;
+        this.itemCallback = itemCallback;
+    }
+
+    // Показанные элементы (для getItemCount, привязки и стабильных ID)
+
+    int getDisplayedCount() {
+        return displayed.size();
+    }
+
+    T getDisplayed(int position) {
+        return displayed.get(position);
+    }
+
+    // Элементы с учётом ещё не показанных изменений (для Pager и экрана)
+
+    int size() {
+        return latest.size();
+    }
+
+    T get(int position) {
+        return latest.get(position);
+    }
+
+    List<T> getLatest() {
+        return latest;
+    }
+
+    /**
+     * Позиция строки с ID (с учётом ещё не показанных изменений) или -1
+     */
+    int positionOf(int id) {
+        if (!indexed) {
+            buildIndex();
+        }
+        Slot slot = positions.get(id);
+        if (slot == null) {
+            return -1;
+        }
+        int position = slot.position;
+        for (int i = slot.version; i < shiftCount && position >= 0; i++) {
+            if (position >= shiftAt[i]) {
+                // Строка внутри удалённого диапазона удалена вместе с ним
+                position = shiftBy[i] < 0 && position < shiftAt[i] - shiftBy[i] ? -1 : position + shiftBy[i];
+            }
+        }
+        if (position < 0 || position >= latest.size() || itemCallback.idOf(latest.get(position)) != id) {
+            positions.remove(id);
+            return -1;
+        }
+        slot.position = position;
+        slot.version = shiftCount;
+        return position;
+    }
+
+    /**
+     * Число строк, записанных в индекс позиций за всё время (для замеров)
+     */
+    long getIndexedRows() {
+        return indexedRows;
+    }
+
+    /**
+     * Замена всего списка; разница вычисляется в фоне
+     */
+    void submit(List<T> items) {
+        latest = items != null ? new ArrayList<>(items) : new ArrayList<T>();
+        dropIndex();
+        changedWhileDiffing = false;
+        startDiff();
+    }
+
+    void insert(int position, T item) {
+        shifted(position, 1, latest.size());
+        latest.add(position, item);
+        indexRange(position, 1);
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            adapter.notifyItemInserted(position);
+        }
+    }
+
+    void insertAll(int position, List<T> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        shifted(position, items.size(), latest.size());
+        latest.addAll(position, items);
+        indexRange(position, items.size());
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            adapter.notifyItemRangeInserted(position, items.size());
+        }
+    }
+
+    void replace(int position, T item) {
+        T previous = latest.set(position, item);
+        if (itemCallback.idOf(previous) != itemCallback.idOf(item)) {
+            positions.remove(itemCallback.idOf(previous));
+            indexRange(position, 1);
+        }
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            adapter.notifyItemChanged(position);
+        }
+    }
+
+    void remove(int position) {
+        removeRange(position, 1);
+    }
+
+    void removeRange(int position, int count) {
+        count = Math.min(count, latest.size() - position);
+        if (count <= 0) {
+            return;
+        }
+        shifted(position, -count, latest.size());
+        latest.subList(position, position + count).clear();
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            adapter.notifyItemRangeRemoved(position, count);
+        }
+    }
+
+    /**
+     * Удаление строк с перечисленными ID за один проход по списку; отсутствующие ID пропускаются.
+     * Подряд идущие удалённые строки сообщаются адаптеру одним диапазоном
+     */
+    int removeAll(Collection<Integer> ids) {
+        int[] removed = new int[ids.size()];
+        int count = 0;
+        for (Integer id : ids) {
+            int position = positionOf(id);
+            if (position >= 0) {
+                removed[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(removed, 0, count);
+        count = distinct(removed, count);
+
+        // Сдвиг оставшихся строк к началу и отрезание хвоста
+        int write = removed[0];
+        int next = 0;
+        for (int read = removed[0], size = latest.size(); read < size; read++) {
+            if (next < count && removed[next] == read) {
+                next++;
+            } else {
+                latest.set(write++, latest.get(read));
+            }
+        }
+        latest.subList(write, latest.size()).clear();
+        // Сдвиги по всем удалённым отрезкам дороже одного перестроения
+        dropIndex();
+
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            // С конца: удаление диапазона не сдвигает диапазоны перед ним
+            int end = count;
+            while (end > 0) {
+                int start = runStart(removed, end);
+                adapter.notifyItemRangeRemoved(removed[start], end - start);
+                end = start;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Замена строк с теми же ID; строки, которых нет в списке, пропускаются.
+     * Подряд идущие изменённые строки сообщаются адаптеру одним диапазоном
+     */
+    int replaceAll(List<T> items) {
+        int[] changed = new int[items.size()];
+        int count = 0;
+        for (T item : items) {
+            int position = positionOf(itemCallback.idOf(item));
+            if (position >= 0) {
+                latest.set(position, item);
+                changed[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(changed, 0, count);
+        count = distinct(changed, count);
+
+        if (diffing) {
+            changedWhileDiffing = true;
+        } else {
+            int end = count;
+            while (end > 0) {
+                int start = runStart(changed, end);
+                adapter.notifyItemRangeChanged(changed[start], end - start);
+                end = start;
+            }
+        }
+        return count;
+    }
+
+    private void buildIndex() {
+        positions.clear();
+        for (int i = 0, count = latest.size(); i < count; i++) {
+            positions.put(itemCallback.idOf(latest.get(i)), new Slot(i, 0));
+        }
+        indexedRows += latest.size();
+        shiftCount = 0;
+        indexed = true;
+    }
+
+    private void dropIndex() {
+        positions.clear();
+        shiftCount = 0;
+        indexed = false;
+    }
+
+    // Строки с позиции at сдвинуты на by (вставка или удаление); sizeBefore - размер до правки
+    private void shifted(int at, int by, int sizeBefore) {
+        if (!indexed || at >= sizeBefore) {
+            // Правка в конце списка не сдвигает проиндексированные строки
+            return;
+        }
+        if (at - by >= sizeBefore) {
+            // Удаление хвоста: записи удалённых строк не пройдут сверку по ID
+            return;
+        }
+        int limit = Math.max(MIN_SHIFTS, (int) Math.sqrt(sizeBefore));
+        if (shiftCount >= limit) {
+            dropIndex();
+            return;
+        }
+        if (shiftCount == shiftAt.length) {
+            shiftAt = Arrays.copyOf(shiftAt, shiftCount * 2);
+            shiftBy = Arrays.copyOf(shiftBy, shiftCount * 2);
+        }
+        shiftAt[shiftCount] = at;
+        shiftBy[shiftCount] = by;
+        shiftCount++;
+    }
+
+    // Запись новых строк [position, position + count) в индекс
+    private void indexRange(int position, int count) {
+        if (!indexed) {
+            return;
+        }
+        for (int i = position; i < position + count; i++) {
+            positions.put(itemCallback.idOf(latest.get(i)), new Slot(i, shiftCount));
+        }
+        indexedRows += count;
+    }
+
+    // Удаление повторов из отсортированного массива; возвращает новую длину
+    private static int distinct(int[] sorted, int count) {
+        int length = 1;
+        for (int i = 1; i < count; i++) {
+            if (sorted[i] != sorted[length - 1]) {
+                sorted[length++] = sorted[i];
+            }
+        }
+        return length;
+    }
+
+    // Начало последнего отрезка подряд идущих позиций в sorted[0, end)
+    private static int runStart(int[] sorted, int end) {
+        int start = end - 1;
+        while (start > 0 && sorted[start - 1] == sorted[start] - 1) {
+            start--;
+        }
+        return start;
+    }
+
+    private void startDiff() {
+        final int diffGeneration = ++generation;
+        if (displayed.isEmpty() || latest.isEmpty()) {
+            // Сравнивать не с чем: первый показ или очистка
+            int removed = displayed.size();
+            diffing = false;
+            displayed = latest;
+            if (removed > 0) {
+                adapter.notifyItemRangeRemoved(0, removed);
+            }
+            if (!latest.isEmpty()) {
+                adapter.notifyItemRangeInserted(0, latest.size());
+            }
+            return;
+        }
+
+        diffing = true;
+        final List<T> oldItems = displayed;
+        final List<T> newItems = new ArrayList<>(latest);
+        DIFF_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DiffUtil.DiffResult result;
+                try {
+                    result = DiffUtil.calculateDiff(new ListCallback<>(oldItems, newItems, itemCallback));
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Error calculating list diff: " + e.getMessage(), e);
+                    mainHandler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (diffGeneration == generation) {
+                                showWithoutDiff();
+                            }
+                        }
+                    });
+                    return;
+                }
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (diffGeneration != generation) {
+                            return;
+                        }
+                        displayed = newItems;
+                        diffing = false;
+                        result.dispatchUpdatesTo(adapter);
+                        if (changedWhileDiffing) {
+                            changedWhileDiffing = false;
+                            startDiff();
+                        } else {
+                            latest = displayed;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void showWithoutDiff() {
+        diffing = false;
+        changedWhileDiffing = false;
+        displayed = latest;
+        adapter.notifyDataSetChanged();
+    }
+
+    private static final class ListCallback<T> extends DiffUtil.Callback {
+        private final List<T> oldItems;
+        private final List<T> newItems;
+        private final ItemCallback<T> itemCallback;
+
+        ListCallback(List<T> oldItems, List<T> newItems, ItemCallback<T> itemCallback) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.itemCallback = itemCallback;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldItems.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newItems.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return itemCallback.areItemsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return itemCallback.areContentsTheSame(oldItems.get(oldPosition), newItems.get(newPosition));
+        }
+    }
+
+    /**
+     * Сравнение строковых полей с null
+     */
+    static boolean same(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -11,14 +11,35 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.hospital.management.R;
 import com.hospital.management.model.Doctor;
+import com.hospital.management.paging.Pager;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
-public class DoctorAdapter extends RecyclerView.Adapter<DoctorAdapter.DoctorViewHolder> {
+public class DoctorAdapter extends RecyclerView.Adapter<DoctorAdapter.DoctorViewHolder>
+        implements Pager.Target<DoctorRow> {
 
-    private List<Doctor> doctors = new ArrayList<>();
+    // Строки сопоставляются по ID, содержимое - по готовым подписям
+    private static final AsyncItemList.ItemCallback<DoctorRow> ITEM_CALLBACK = new AsyncItemList.ItemCallback<DoctorRow>() {
+        @Override
+        int idOf(DoctorRow item) {
+            return item.getDoctorId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull DoctorRow oldItem, @NonNull DoctorRow newItem) {
+            return oldItem.looksSame(newItem);
+        }
+    };
+
+    private final AsyncItemList<DoctorRow> doctors = new AsyncItemList<>(this, ITEM_CALLBACK);
     private OnDoctorClickListener onDoctorClickListener;
+    private Pager<DoctorRow> pager;
+
+    public DoctorAdapter() {
+        // ID строки (DoctorID) не меняется при перезагрузке: RecyclerView сохраняет её представление
+        setHasStableIds(true);
+    }
 
     public interface OnDoctorClickListener {
         void onDoctorClick(Doctor doctor);
@@ -28,73 +49,163 @@ public class DoctorAdapter extends RecyclerView.Adapter<DoctorAdapter.DoctorView
         this.onDoctorClickListener = listener;
     }
 
+    /**
+     * Подключение постраничной подгрузки: при прокрутке к краю списка адаптер запрашивает следующую страницу
+     */
+    public void setPager(Pager<DoctorRow> pager) {
+        this.pager = pager;
+    }
+
     @NonNull
     @Override
     public DoctorViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_doctor, parent, false);
-        return new DoctorViewHolder(view);
+        final DoctorViewHolder holder = new DoctorViewHolder(view);
+
+        // Обработчик клика - один на представление, строка берётся по текущей позиции
+        holder.cardView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onDoctorClickListener != null) {
+                onDoctorClickListener.onDoctorClick(doctors.getDisplayed(position).getDoctor());
+            }
+        });
+        return holder;
     }
 
+    /**
+     * Привязка без выделения памяти: подписи строки собраны заранее (DoctorRow)
+     */
     @Override
     public void onBindViewHolder(@NonNull DoctorViewHolder holder, int position) {
-        Doctor doctor = doctors.get(position);
-        holder.bind(doctor);
+        holder.bind(doctors.getDisplayed(position));
 
-        // Обработка клика на элемент
-        holder.cardView.setOnClickListener(v -> {
-            if (onDoctorClickListener != null) {
-                onDoctorClickListener.onDoctorClick(doctor);
-            }
-        });
+        if (pager != null) {
+            pager.onItemAccessed(position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return doctors.size();
+        return doctors.getDisplayedCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return doctors.getDisplayed(position).getDoctorId();
     }
 
+    /**
+     * Новый список; на экране меняются только отличающиеся строки (сравнение в фоне).
+     * Строки собираются в вызывающем потоке; Pager передаёт готовые строки через setItems
+     */
     public void setDoctors(List<Doctor> doctors) {
-        this.doctors = doctors != null ? doctors : new ArrayList<>();
-        notifyDataSetChanged();
+        this.doctors.submit(doctors != null ? DoctorRow.of(doctors) : null);
     }
 
     public void addDoctor(Doctor doctor) {
         if (doctor != null) {
-            doctors.add(doctor);
-            notifyItemInserted(doctors.size() - 1);
+            doctors.insert(doctors.size(), DoctorRow.of(doctor));
         }
     }
 
     public void updateDoctor(Doctor doctor) {
         if (doctor != null) {
-            for (int i = 0; i < doctors.size(); i++) {
-                if (doctors.get(i).getDoctorId() == doctor.getDoctorId()) {
-                    doctors.set(i, doctor);
-                    notifyItemChanged(i);
-                    break;
-                }
+            int position = doctors.positionOf(doctor.getDoctorId());
+            if (position >= 0) {
+                doctors.replace(position, DoctorRow.of(doctor));
             }
         }
     }
 
     public void removeDoctor(int doctorId) {
-        for (int i = 0; i < doctors.size(); i++) {
-            if (doctors.get(i).getDoctorId() == doctorId) {
-                doctors.remove(i);
-                notifyItemRemoved(i);
-                break;
-            }
+        int position = doctors.positionOf(doctorId);
+        if (position >= 0) {
+            doctors.remove(position);
         }
     }
 
-    public List<Doctor> getDoctors() {
-        return doctors;
+    /**
+     * Замена нескольких строк по ID; возвращает число заменённых
+     */
+    public int updateDoctors(List<Doctor> doctors) {
+        return this.doctors.replaceAll(DoctorRow.of(doctors));
+    }
+
+    /**
+     * Удаление нескольких строк по ID; возвращает число удалённых
+     */
+    public int removeDoctors(Collection<Integer> doctorIds) {
+        return doctors.removeAll(doctorIds);
+    }
+
+    /**
+     * Список с учётом изменений, которые ещё не показаны
+     */
+    public List<DoctorRow> getDoctors() {
+        return doctors.getLatest();
+    }
+
+    // Pager.Target
+
+    @Override
+    public int getLoadedCount() {
+        return doctors.size();
+    }
+
+    @Override
+    public DoctorRow getLoadedItem(int position) {
+        return doctors.get(position);
+    }
+
+    @Override
+    public int getLoadedPosition(int id) {
+        return doctors.positionOf(id);
+    }
+
+    @Override
+    public void setItems(List<DoctorRow> items) {
+        doctors.submit(items);
+    }
+
+    @Override
+    public void appendItems(List<DoctorRow> items) {
+        doctors.insertAll(doctors.size(), items);
+    }
+
+    @Override
+    public void prependItems(List<DoctorRow> items) {
+        doctors.insertAll(0, items);
+    }
+
+    @Override
+    public void removeFromStart(int count) {
+        doctors.removeRange(0, count);
+    }
+
+    @Override
+    public void removeFromEnd(int count) {
+        count = Math.min(count, doctors.size());
+        doctors.removeRange(doctors.size() - count, count);
+    }
+
+    @Override
+    public void insertItem(int position, DoctorRow item) {
+        doctors.insert(position, item);
+    }
+
+    @Override
+    public void replaceItem(int position, DoctorRow item) {
+        doctors.replace(position, item);
+    }
+
+    @Override
+    public void removeItem(int position) {
+        doctors.remove(position);
     }
 
     public void clear() {
-        doctors.clear();
-        notifyDataSetChanged();
+        doctors.submit(null);
     }
 
     static class DoctorViewHolder extends RecyclerView.ViewHolder {
@@ -115,12 +226,12 @@ public class DoctorAdapter extends RecyclerView.Adapter<DoctorAdapter.DoctorView
             tvEmail = itemView.findViewById(R.id.tvEmail);
         }
 
-        public void bind(Doctor doctor) {
-            tvDoctorName.setText(doctor.getFullName());
-            tvSpecialization.setText(doctor.getSpecialization());
-            tvRoom.setText(String.format("Каб. %s", doctor.getRoomNumber()));
-            tvSchedule.setText(doctor.getSchedule());
-            tvEmail.setText(doctor.getEmail());
+        public void bind(DoctorRow row) {
+            tvDoctorName.setText(row.getName());
+            tvSpecialization.setText(row.getSpecialization());
+            tvRoom.setText(row.getRoom());
+            tvSchedule.setText(row.getSchedule());
+            tvEmail.setText(row.getEmail());
         }
     }
 }
\ No newline at end of file
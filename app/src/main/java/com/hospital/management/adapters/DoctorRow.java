@@ -0,0 +1,85 @@
+package com.hospital.management.adapters;
+
+import android.database.Cursor;
+
+import com.hospital.management.dao.DoctorDao;
+import com.hospital.management.dao.PageKey;
+import com.hospital.management.dao.RowMapper;
+import com.hospital.management.model.Doctor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строка списка врачей, готовая к показу. Подписи собираются один раз при загрузке
+ * страницы (в фоновом потоке Pager), привязка к представлению только раздаёт готовые строки.
+ * Неизменяема
+ */
+public final class DoctorRow {
+    private final Doctor doctor;
+    private final PageKey key;
+    private final String name;
+    private final String room;
+
+    /**
+     * Строки прямо из курсора страницы: запись читается один раз и принадлежит строке
+     */
+    public static final RowMapper.Factory<DoctorRow> ROWS = new RowMapper.Factory<DoctorRow>() {
+        @Override
+        public RowMapper<DoctorRow> create(Cursor cursor) {
+            final RowMapper<Doctor> doctors = DoctorDao.DOCTOR_ROWS.create(cursor);
+            return new RowMapper<DoctorRow>() {
+                @Override
+                public DoctorRow map(Cursor cursor) {
+                    return new DoctorRow(doctors.map(cursor));
+                }
+            };
+        }
+    };
+
+    // doctor больше никому не доступен (копия или только что прочитан из курсора)
+    private DoctorRow(Doctor doctor) {
+        this.doctor = doctor;
+        this.key = DoctorDao.pageKeyOf(doctor);
+        this.name = doctor.getFullName();
+        this.room = "Каб. " + doctor.getRoomNumber();
+    }
+
+    public static DoctorRow of(Doctor doctor) {
+        // Своя копия: запись, переданная в строку, может меняться снаружи
+        return new DoctorRow(new Doctor(doctor));
+    }
+
+    public static List<DoctorRow> of(List<Doctor> doctors) {
+        List<DoctorRow> rows = new ArrayList<>(doctors.size());
+        for (Doctor doctor : doctors) {
+            rows.add(of(doctor));
+        }
+        return rows;
+    }
+
+    public int getDoctorId() { return doctor.getDoctorId(); }
+
+    /**
+     * Копия записи врача (например, для передачи в экран редактирования)
+     */
+    public Doctor getDoctor() { return new Doctor(doctor); }
+
+    public PageKey getKey() { return key; }
+    public String getName() { return name; }
+    public String getSpecialization() { return doctor.getSpecialization(); }
+    public String getRoom() { return room; }
+    public String getSchedule() { return doctor.getSchedule(); }
+    public String getEmail() { return doctor.getEmail(); }
+
+    /**
+     * Одинаково ли выглядят строки на экране
+     */
+    boolean looksSame(DoctorRow other) {
+        return AsyncItemList.same(name, other.name) &&
+                AsyncItemList.same(getSpecialization(), other.getSpecialization()) &&
+                AsyncItemList.same(room, other.room) &&
+                AsyncItemList.same(getSchedule(), other.getSchedule()) &&
+                AsyncItemList.same(getEmail(), other.getEmail());
+    }
+}
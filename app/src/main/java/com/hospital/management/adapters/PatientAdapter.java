@@ -11,14 +11,35 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.hospital.management.R;
 import com.hospital.management.model.Patient;
+import com.hospital.management.paging.Pager;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
-public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientViewHolder> {
+public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientViewHolder>
+        implements Pager.Target<PatientRow> {
 
-    private List<Patient> patients = new ArrayList<>();
+    // Строки сопоставляются по ID, содержимое - по готовым подписям
+    private static final AsyncItemList.ItemCallback<PatientRow> ITEM_CALLBACK = new AsyncItemList.ItemCallback<PatientRow>() {
+        @Override
+        int idOf(PatientRow item) {
+            return item.getPatientId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull PatientRow oldItem, @NonNull PatientRow newItem) {
+            return oldItem.looksSame(newItem);
+        }
+    };
+
+    private final AsyncItemList<PatientRow> patients = new AsyncItemList<>(this, ITEM_CALLBACK);
     private OnPatientClickListener onPatientClickListener;
+    private Pager<PatientRow> pager;
+
+    public PatientAdapter() {
+        // ID строки (PatientID) не меняется при перезагрузке: RecyclerView сохраняет её представление
+        setHasStableIds(true);
+    }
 
     public interface OnPatientClickListener {
         void onPatientClick(Patient patient);
@@ -28,73 +49,163 @@ public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientV
         this.onPatientClickListener = listener;
     }
 
+    /**
+     * Подключение постраничной подгрузки: при прокрутке к краю списка адаптер запрашивает следующую страницу
+     */
+    public void setPager(Pager<PatientRow> pager) {
+        this.pager = pager;
+    }
+
     @NonNull
     @Override
     public PatientViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(parent.getContext())
                 .inflate(R.layout.item_patient, parent, false);
-        return new PatientViewHolder(view);
+        final PatientViewHolder holder = new PatientViewHolder(view);
+
+        // Обработчик клика - один на представление, строка берётся по текущей позиции
+        holder.cardView.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION && onPatientClickListener != null) {
+                onPatientClickListener.onPatientClick(patients.getDisplayed(position).getPatient());
+            }
+        });
+        return holder;
     }
 
+    /**
+     * Привязка без выделения памяти: подписи строки собраны заранее (PatientRow)
+     */
     @Override
     public void onBindViewHolder(@NonNull PatientViewHolder holder, int position) {
-        Patient patient = patients.get(position);
-        holder.bind(patient);
+        holder.bind(patients.getDisplayed(position));
 
-        // Обработка клика на элемент
-        holder.cardView.setOnClickListener(v -> {
-            if (onPatientClickListener != null) {
-                onPatientClickListener.onPatientClick(patient);
-            }
-        });
+        if (pager != null) {
+            pager.onItemAccessed(position);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return patients.size();
+        return patients.getDisplayedCount();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return patients.getDisplayed(position).getPatientId();
     }
 
+    /**
+     * Новый список; на экране меняются только отличающиеся строки (сравнение в фоне).
+     * Строки собираются в вызывающем потоке; Pager передаёт готовые строки через setItems
+     */
     public void setPatients(List<Patient> patients) {
-        this.patients = patients != null ? patients : new ArrayList<>();
-        notifyDataSetChanged();
+        this.patients.submit(patients != null ? PatientRow.of(patients) : null);
     }
 
     public void addPatient(Patient patient) {
         if (patient != null) {
-            patients.add(patient);
-            notifyItemInserted(patients.size() - 1);
+            patients.insert(patients.size(), PatientRow.of(patient));
         }
     }
 
     public void updatePatient(Patient patient) {
         if (patient != null) {
-            for (int i = 0; i < patients.size(); i++) {
-                if (patients.get(i).getPatientId() == patient.getPatientId()) {
-                    patients.set(i, patient);
-                    notifyItemChanged(i);
-                    break;
-                }
+            int position = patients.positionOf(patient.getPatientId());
+            if (position >= 0) {
+                patients.replace(position, PatientRow.of(patient));
             }
         }
     }
 
     public void removePatient(int patientId) {
-        for (int i = 0; i < patients.size(); i++) {
-            if (patients.get(i).getPatientId() == patientId) {
-                patients.remove(i);
-                notifyItemRemoved(i);
-                break;
-            }
+        int position = patients.positionOf(patientId);
+        if (position >= 0) {
+            patients.remove(position);
         }
     }
 
-    public List<Patient> getPatients() {
-        return patients;
+    /**
+     * Замена нескольких строк по ID; возвращает число заменённых
+     */
+    public int updatePatients(List<Patient> patients) {
+        return this.patients.replaceAll(PatientRow.of(patients));
+    }
+
+    /**
+     * Удаление нескольких строк по ID; возвращает число удалённых
+     */
+    public int removePatients(Collection<Integer> patientIds) {
+        return patients.removeAll(patientIds);
+    }
+
+    /**
+     * Список с учётом изменений, которые ещё не показаны
+     */
+    public List<PatientRow> getPatients() {
+        return patients.getLatest();
+    }
+
+    // Pager.Target
+
+    @Override
+    public int getLoadedCount() {
+        return patients.size();
+    }
+
+    @Override
+    public PatientRow getLoadedItem(int position) {
+        return patients.get(position);
+    }
+
+    @Override
+    public int getLoadedPosition(int id) {
+        return patients.positionOf(id);
+    }
+
+    @Override
+    public void setItems(List<PatientRow> items) {
+        patients.submit(items);
+    }
+
+    @Override
+    public void appendItems(List<PatientRow> items) {
+        patients.insertAll(patients.size(), items);
+    }
+
+    @Override
+    public void prependItems(List<PatientRow> items) {
+        patients.insertAll(0, items);
+    }
+
+    @Override
+    public void removeFromStart(int count) {
+        patients.removeRange(0, count);
+    }
+
+    @Override
+    public void removeFromEnd(int count) {
+        count = Math.min(count, patients.size());
+        patients.removeRange(patients.size() - count, count);
+    }
+
+    @Override
+    public void insertItem(int position, PatientRow item) {
+        patients.insert(position, item);
+    }
+
+    @Override
+    public void replaceItem(int position, PatientRow item) {
+        patients.replace(position, item);
+    }
+
+    @Override
+    public void removeItem(int position) {
+        patients.remove(position);
     }
 
     public void clear() {
-        patients.clear();
-        notifyDataSetChanged();
+        patients.submit(null);
     }
 
     static class PatientViewHolder extends RecyclerView.ViewHolder {
@@ -121,60 +232,26 @@ public class PatientAdapter extends RecyclerView.Adapter<PatientAdapter.PatientV
             tvAddress = itemView.findViewById(R.id.tvAddress);
         }
 
-        public void bind(Patient patient) {
-            tvPatientName.setText(patient.getFullName());
-
-            // Обработка опциональных полей
-            if (patient.getBirthDate() != null && !patient.getBirthDate().isEmpty()) {
-                tvBirthDate.setText(String.format("Дата рождения: %s", patient.getBirthDate()));
-                tvBirthDate.setVisibility(View.VISIBLE);
-            } else {
-                tvBirthDate.setVisibility(View.GONE);
-            }
-
-            if (patient.getPhoneNumber() != null && !patient.getPhoneNumber().isEmpty()) {
-                tvPhone.setText(String.format("Тел: %s", patient.getPhoneNumber()));
-                tvPhone.setVisibility(View.VISIBLE);
-            } else {
-                tvPhone.setVisibility(View.GONE);
-            }
-
-            // Email может быть обязательным полем, поэтому всегда показываем
-            if (patient.getEmail() != null && !patient.getEmail().isEmpty()) {
-                tvEmail.setText(patient.getEmail());
-                tvEmail.setVisibility(View.VISIBLE);
-            } else {
-                tvEmail.setVisibility(View.GONE);
-            }
+        public void bind(PatientRow row) {
+            tvPatientName.setText(row.getName());
 
-            if (patient.getSnils() != null && !patient.getSnils().isEmpty()) {
-                tvSnils.setText(String.format("СНИЛС: %s", patient.getSnils()));
-                tvSnils.setVisibility(View.VISIBLE);
-            } else {
-                tvSnils.setVisibility(View.GONE);
-            }
-
-            if (patient.getPolicyOMS() != null && !patient.getPolicyOMS().isEmpty()) {
-                tvPolicy.setText(String.format("Полис: %s", patient.getPolicyOMS()));
-                tvPolicy.setVisibility(View.VISIBLE);
-            } else {
-                tvPolicy.setVisibility(View.GONE);
-            }
-
-            // District - это int, проверяем на значение по умолчанию (0)
-            if (patient.getDistrict() != 0) {
-                tvDistrict.setText(String.format("Участок: %d", patient.getDistrict()));
-                tvDistrict.setVisibility(View.VISIBLE);
-            } else {
-                tvDistrict.setVisibility(View.GONE);
-            }
+            // Опциональные поля: null в строке - поле скрыто
+            show(tvBirthDate, row.getBirthDate());
+            show(tvPhone, row.getPhone());
+            show(tvEmail, row.getEmail());
+            show(tvSnils, row.getSnils());
+            show(tvPolicy, row.getPolicy());
+            show(tvDistrict, row.getDistrict());
+            show(tvAddress, row.getAddress());
+        }
 
-            if (patient.getAddress() != null && !patient.getAddress().isEmpty()) {
-                tvAddress.setText(String.format("Адрес: %s", patient.getAddress()));
-                tvAddress.setVisibility(View.VISIBLE);
+        private static void show(TextView view, String text) {
+            if (text != null) {
+                view.setText(text);
+                view.setVisibility(View.VISIBLE);
             } else {
-                tvAddress.setVisibility(View.GONE);
+                view.setVisibility(View.GONE);
             }
         }
     }
-}
\ No newline at end of file
+}
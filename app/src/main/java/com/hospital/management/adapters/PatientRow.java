@@ -0,0 +1,108 @@
+package com.hospital.management.adapters;
+
+import android.database.Cursor;
+
+import com.hospital.management.dao.PageKey;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.RowMapper;
+import com.hospital.management.model.Patient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Строка списка пациентов, готовая к показу. Подписи собираются один раз при загрузке
+ * страницы (в фоновом потоке Pager), привязка к представлению только раздаёт готовые строки.
+ * Неизменяема; null - поле не показывается
+ */
+public final class PatientRow {
+    private final Patient patient;
+    private final PageKey key;
+    private final String name;
+    private final String birthDate;
+    private final String phone;
+    private final String email;
+    private final String snils;
+    private final String policy;
+    private final String district;
+    private final String address;
+
+    /**
+     * Строки прямо из курсора страницы: запись читается один раз и принадлежит строке
+     */
+    public static final RowMapper.Factory<PatientRow> ROWS = new RowMapper.Factory<PatientRow>() {
+        @Override
+        public RowMapper<PatientRow> create(Cursor cursor) {
+            final RowMapper<Patient> patients = PatientDao.PATIENT_ROWS.create(cursor);
+            return new RowMapper<PatientRow>() {
+                @Override
+                public PatientRow map(Cursor cursor) {
+                    return new PatientRow(patients.map(cursor));
+                }
+            };
+        }
+    };
+
+    // patient больше никому не доступен (копия или только что прочитан из курсора)
+    private PatientRow(Patient patient) {
+        this.patient = patient;
+        this.key = PatientDao.pageKeyOf(patient);
+        this.name = patient.getFullName();
+        this.birthDate = label("Дата рождения: ", patient.getBirthDate());
+        this.phone = label("Тел: ", patient.getPhoneNumber());
+        this.email = label("", patient.getEmail());
+        this.snils = label("СНИЛС: ", patient.getSnils());
+        this.policy = label("Полис: ", patient.getPolicyOMS());
+        // District - это int, 0 - не задан
+        this.district = patient.getDistrict() != 0 ? "Участок: " + patient.getDistrict() : null;
+        this.address = label("Адрес: ", patient.getAddress());
+    }
+
+    public static PatientRow of(Patient patient) {
+        // Своя копия: запись, переданная в строку, может меняться снаружи
+        return new PatientRow(new Patient(patient));
+    }
+
+    public static List<PatientRow> of(List<Patient> patients) {
+        List<PatientRow> rows = new ArrayList<>(patients.size());
+        for (Patient patient : patients) {
+            rows.add(of(patient));
+        }
+        return rows;
+    }
+
+    public int getPatientId() { return patient.getPatientId(); }
+
+    /**
+     * Копия записи пациента (например, для передачи в экран редактирования)
+     */
+    public Patient getPatient() { return new Patient(patient); }
+
+    public PageKey getKey() { return key; }
+    public String getName() { return name; }
+    public String getBirthDate() { return birthDate; }
+    public String getPhone() { return phone; }
+    public String getEmail() { return email; }
+    public String getSnils() { return snils; }
+    public String getPolicy() { return policy; }
+    public String getDistrict() { return district; }
+    public String getAddress() { return address; }
+
+    /**
+     * Одинаково ли выглядят строки на экране
+     */
+    boolean looksSame(PatientRow other) {
+        return AsyncItemList.same(name, other.name) &&
+                AsyncItemList.same(birthDate, other.birthDate) &&
+                AsyncItemList.same(phone, other.phone) &&
+                AsyncItemList.same(email, other.email) &&
+                AsyncItemList.same(snils, other.snils) &&
+                AsyncItemList.same(policy, other.policy) &&
+                AsyncItemList.same(district, other.district) &&
+                AsyncItemList.same(address, other.address);
+    }
+
+    private static String label(String prefix, String value) {
+        return value != null && !value.isEmpty() ? prefix + value : null;
+    }
+}
@@ -0,0 +1,129 @@
+package com.hospital.management.concurrent;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+/**
+ * Общие потоки работы с базой на весь процесс, по классам приоритета:
+ * <ul>
+ * <li>INTERACTIVE - чтения, результата которых ждёт интерфейс: небольшой пул,
+ * в режиме WAL чтения идут параллельно друг с другом и с записью;</li>
+ * <li>WRITE - записи по одной в порядке отправки (одна очередь записи, как и у SQLite);</li>
+ * <li>BACKGROUND - долгие задачи (импорт, экспорт, миграции, сверка счётчиков):
+ * один поток с фоновым приоритетом.</li>
+ * </ul>
+ * У каждого класса своя очередь, поэтому чтение для экрана никогда не ждёт за фоновой задачей.
+ * Фоновые задачи между транзакциями вызывают yieldToForeground() и уступают базу,
+ * пока есть интерактивная работа.
+ * Задачи экранов отправляются через TaskScope, который отменяет их при закрытии экрана
+ */
+public final class DatabaseExecutor {
+    private static final String TAG = "DatabaseExecutor";
+
+    public enum Priority {
+        INTERACTIVE,
+        WRITE,
+        BACKGROUND
+    }
+
+    private static final int INTERACTIVE_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final int FOREGROUND_THREAD_PRIORITY =
+            Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_MORE_FAVORABLE;
+
+    // Уступка фоновой задачи: опрос очередей и предел ожидания, чтобы фон не встал навсегда
+    private static final long YIELD_POLL_MS = 5;
+    private static final long MAX_YIELD_MS = 500;
+
+    private static DatabaseExecutor instance;
+
+    private final Lane interactive;
+    private final Lane writer;
+    private final Lane background;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private DatabaseExecutor() {
+        interactive = new Lane("db-reader", INTERACTIVE_THREADS, FOREGROUND_THREAD_PRIORITY);
+        writer = new Lane("db-writer", 1, FOREGROUND_THREAD_PRIORITY);
+        background = new Lane("db-background", 1, Process.THREAD_PRIORITY_BACKGROUND);
+        Log.d(TAG, "Executor created, interactive readers: " + INTERACTIVE_THREADS);
+    }
+
+    public static synchronized DatabaseExecutor getInstance() {
+        if (instance == null) {
+            instance = new DatabaseExecutor();
+        }
+        return instance;
+    }
+
+    public void execute(Priority priority, Runnable task) {
+        lane(priority).execute(task);
+    }
+
+    /**
+     * Постановка задачи в очередь через delayMs (например, работа, которая не должна
+     * мешать запуску приложения)
+     */
+    public void executeDelayed(final Priority priority, final Runnable task, long delayMs) {
+        mainHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                execute(priority, task);
+            }
+        }, delayMs);
+    }
+
+    /**
+     * Вызывается фоновой задачей между транзакциями (не внутри транзакции):
+     * ждёт, пока опустеют очереди чтения и записи, но не дольше MAX_YIELD_MS.
+     * В других очередях ничего не делает
+     */
+    public void yieldToForeground() throws InterruptedException {
+        if (!background.ownsCurrentThread()) {
+            return;
+        }
+        long deadline = SystemClock.uptimeMillis() + MAX_YIELD_MS;
+        while ((interactive.isBusy() || writer.isBusy()) && SystemClock.uptimeMillis() < deadline) {
+            Thread.sleep(YIELD_POLL_MS);
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Глубина очереди и время ожидания задач класса
+     */
+    public LaneStats getStats(Priority priority) {
+        return lane(priority).getStats();
+    }
+
+    /**
+     * Удаление отменённых задач из очередей
+     */
+    void purge() {
+        interactive.purge();
+        writer.purge();
+        background.purge();
+    }
+
+    private Lane lane(Priority priority) {
+        switch (priority) {
+            case INTERACTIVE:
+                return interactive;
+            case WRITE:
+                return writer;
+            default:
+                return background;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseExecutor{" + interactive.getStats() + ", " + writer.getStats() + ", " +
+                background.getStats() + "}";
+    }
+}
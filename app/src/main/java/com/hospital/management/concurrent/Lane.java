@@ -0,0 +1,149 @@
+package com.hospital.management.concurrent;
+
+import android.os.Process;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь задач одного класса приоритета со своими потоками.
+ * Замеряет ожидание задач в очереди: последние WAIT_SAMPLES значений для p95
+ */
+final class Lane extends ThreadPoolExecutor {
+    private static final int WAIT_SAMPLES = 512;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // Очередь, которой принадлежит текущий поток
+    private static final ThreadLocal<Lane> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+
+    // Под монитором samples
+    private final long[] samples = new long[WAIT_SAMPLES];
+    private int sampleCount;
+    private long started;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    Lane(String name, int threads, int threadPriority) {
+        super(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new LaneThreadFactory(name, threadPriority));
+        this.name = name;
+        ((LaneThreadFactory) getThreadFactory()).lane = this;
+        // Простаивающая очередь не держит потоки
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedTask(command));
+    }
+
+    @Override
+    protected void beforeExecute(Thread thread, Runnable runnable) {
+        super.beforeExecute(thread, runnable);
+        long wait = System.nanoTime() - ((TimedTask) runnable).enqueuedAt;
+        synchronized (samples) {
+            samples[(int) (started % WAIT_SAMPLES)] = wait;
+            sampleCount = Math.min(WAIT_SAMPLES, sampleCount + 1);
+            started++;
+            totalWaitNanos += wait;
+            maxWaitNanos = Math.max(maxWaitNanos, wait);
+        }
+    }
+
+    /**
+     * Удаление из очереди отменённых задач: они не выполняются и не считаются в глубине очереди
+     */
+    @Override
+    public void purge() {
+        for (Iterator<Runnable> it = getQueue().iterator(); it.hasNext(); ) {
+            Runnable command = ((TimedTask) it.next()).command;
+            if (command instanceof Future && ((Future<?>) command).isCancelled()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Есть задачи в очереди или в работе
+     */
+    boolean isBusy() {
+        return getActiveCount() > 0 || !getQueue().isEmpty();
+    }
+
+    /**
+     * Текущий поток - поток этой очереди
+     */
+    boolean ownsCurrentThread() {
+        return CURRENT.get() == this;
+    }
+
+    LaneStats getStats() {
+        long[] waits;
+        long count;
+        long total;
+        long max;
+        synchronized (samples) {
+            waits = Arrays.copyOf(samples, sampleCount);
+            count = started;
+            total = totalWaitNanos;
+            max = maxWaitNanos;
+        }
+        long p95 = 0;
+        if (waits.length > 0) {
+            Arrays.sort(waits);
+            p95 = waits[Math.min(waits.length - 1, (int) Math.ceil(waits.length * 0.95) - 1)];
+        }
+        return new LaneStats(name, getQueue().size(), getActiveCount(), count,
+                count > 0 ? total / count : 0, p95, max);
+    }
+
+    /**
+     * Задача с моментом постановки в очередь
+     */
+    private static final class TimedTask implements Runnable {
+        final Runnable command;
+        final long enqueuedAt = System.nanoTime();
+
+        TimedTask(Runnable command) {
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            command.run();
+        }
+    }
+
+    private static final class LaneThreadFactory implements ThreadFactory {
+        private final String name;
+        private final int threadPriority;
+        private final AtomicInteger count = new AtomicInteger();
+        // Задаётся в конструкторе Lane до создания первого потока
+        Lane lane;
+
+        LaneThreadFactory(String name, int threadPriority) {
+            this.name = name;
+            this.threadPriority = threadPriority;
+        }
+
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            return new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(threadPriority);
+                    CURRENT.set(lane);
+                    runnable.run();
+                }
+            }, name + "-" + count.incrementAndGet());
+        }
+    }
+}
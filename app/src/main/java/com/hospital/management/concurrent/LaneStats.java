@@ -0,0 +1,65 @@
+package com.hospital.management.concurrent;
+
+import java.util.Locale;
+
+/**
+ * Снимок метрик очереди: глубина, задачи в работе и время ожидания в очереди
+ * (среднее за всё время, p95 по последним задачам, максимум)
+ */
+public final class LaneStats {
+    private final String name;
+    private final int queueDepth;
+    private final int active;
+    private final long started;
+    private final long meanWaitNanos;
+    private final long p95WaitNanos;
+    private final long maxWaitNanos;
+
+    LaneStats(String name, int queueDepth, int active, long started,
+              long meanWaitNanos, long p95WaitNanos, long maxWaitNanos) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.active = active;
+        this.started = started;
+        this.meanWaitNanos = meanWaitNanos;
+        this.p95WaitNanos = p95WaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * Число задач, начатых с момента создания очереди
+     */
+    public long getStarted() {
+        return started;
+    }
+
+    public double getMeanWaitMs() {
+        return meanWaitNanos / 1_000_000.0;
+    }
+
+    public double getP95WaitMs() {
+        return p95WaitNanos / 1_000_000.0;
+    }
+
+    public double getMaxWaitMs() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s{queue=%d, active=%d, started=%d, wait mean=%.2f ms, p95=%.2f ms, max=%.2f ms}",
+                name, queueDepth, active, started, getMeanWaitMs(), getP95WaitMs(), getMaxWaitMs());
+    }
+}
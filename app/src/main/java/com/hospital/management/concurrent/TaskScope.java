@@ -0,0 +1,230 @@
+package com.hospital.management.concurrent;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Задачи к базе одного экрана. Результат доставляется в главный поток, пока экран жив.
+ * При ON_DESTROY чтения, ещё не начатые, отменяются; начатые дорабатывают, но их результат
+ * отбрасывается. Записи всегда выполняются до конца - экран лишь не получает ответ.
+ * Фоновые задачи прерываются (interrupt) и должны сами остановиться в согласованном состоянии.
+ * После закрытия экрана очереди и главный поток не держат ссылок на его обработчики.
+ * Чтение с ключом заменяет предыдущее чтение с тем же ключом: повторные загрузки
+ * одного и того же списка не копятся в очереди.
+ * Методы вызываются из главного потока
+ */
+public final class TaskScope implements LifecycleEventObserver {
+    private static final String TAG = "TaskScope";
+
+    /**
+     * Работа в фоновом потоке
+     */
+    public interface Task<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Результат в главном потоке
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /**
+     * Ошибка задачи в главном потоке
+     */
+    public interface ErrorCallback {
+        void onError(Exception e);
+    }
+
+    private final DatabaseExecutor executor = DatabaseExecutor.getInstance();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final String name;
+
+    // Под монитором this: задачи в работе и последняя задача для каждого ключа
+    private final Map<Object, Pending> pending = new HashMap<>();
+    private final Map<String, Object> latestByKey = new HashMap<>();
+    private boolean destroyed;
+
+    private final Executor readExecutor = new Executor() {
+        @Override
+        public void execute(final Runnable command) {
+            submit(DatabaseExecutor.Priority.INTERACTIVE, null, new Task<Void>() {
+                @Override
+                public Void run() {
+                    command.run();
+                    return null;
+                }
+            }, null, null);
+        }
+    };
+
+    public TaskScope(LifecycleOwner owner) {
+        this.name = owner.getClass().getSimpleName();
+        owner.getLifecycle().addObserver(this);
+    }
+
+    @Override
+    public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+        if (event == Lifecycle.Event.ON_DESTROY) {
+            source.getLifecycle().removeObserver(this);
+            cancel();
+        }
+    }
+
+    /**
+     * Чтение в пуле чтения. Если key не null, ранее отправленное чтение с этим ключом
+     * отменяется (или его результат отбрасывается, если оно уже выполняется)
+     */
+    public <T> void read(String key, Task<T> task, Callback<T> onResult, ErrorCallback onError) {
+        submit(DatabaseExecutor.Priority.INTERACTIVE, key, task, onResult, onError);
+    }
+
+    /**
+     * Запись в очереди записи. Порядок записей сохраняется, отменить запись нельзя
+     */
+    public <T> void write(Task<T> task, Callback<T> onResult, ErrorCallback onError) {
+        submit(DatabaseExecutor.Priority.WRITE, null, task, onResult, onError);
+    }
+
+    /**
+     * Долгая задача (импорт, экспорт, отчёт) в фоновой очереди. Между транзакциями
+     * она должна вызывать DatabaseExecutor.yieldToForeground()
+     */
+    public <T> void background(Task<T> task, Callback<T> onResult, ErrorCallback onError) {
+        submit(DatabaseExecutor.Priority.BACKGROUND, null, task, onResult, onError);
+    }
+
+    /**
+     * Executor для чтений без обратного вызова (например, загрузка страниц в Pager)
+     */
+    public Executor readExecutor() {
+        return readExecutor;
+    }
+
+    /**
+     * Отмена ожидающих чтений, прерывание фоновых задач и отказ от доставки всех результатов
+     */
+    public void cancel() {
+        int cancelled = 0;
+        synchronized (this) {
+            if (destroyed) {
+                return;
+            }
+            destroyed = true;
+            for (Iterator<Pending> it = pending.values().iterator(); it.hasNext(); ) {
+                Pending task = it.next();
+                if (task.priority != DatabaseExecutor.Priority.WRITE &&
+                        task.future.cancel(task.priority == DatabaseExecutor.Priority.BACKGROUND)) {
+                    cancelled++;
+                }
+                it.remove();
+            }
+            latestByKey.clear();
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        executor.purge();
+        Log.d(TAG, name + " scope cancelled, dropped tasks: " + cancelled);
+    }
+
+    private <T> void submit(DatabaseExecutor.Priority priority, final String key, final Task<T> task,
+                            final Callback<T> onResult, final ErrorCallback onError) {
+        final Object token = new Object();
+        final FutureTask<Void> future = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() {
+                T result = null;
+                Exception error = null;
+                try {
+                    result = task.run();
+                } catch (Exception e) {
+                    error = e;
+                }
+                finish(key, token, result, error, onResult, onError);
+                return null;
+            }
+        });
+
+        synchronized (this) {
+            if (destroyed) {
+                if (priority != DatabaseExecutor.Priority.WRITE) {
+                    return;
+                }
+            } else {
+                pending.put(token, new Pending(future, priority));
+                if (key != null) {
+                    Object previous = latestByKey.put(key, token);
+                    Pending replaced = previous != null ? pending.remove(previous) : null;
+                    if (replaced != null) {
+                        replaced.future.cancel(false);
+                    }
+                }
+            }
+        }
+        executor.execute(priority, future);
+    }
+
+    private <T> void finish(final String key, final Object token, final T result, final Exception error,
+                            final Callback<T> onResult, final ErrorCallback onError) {
+        synchronized (this) {
+            if (pending.remove(token) == null) {
+                // Экран закрыт или задачу заменила более новая с тем же ключом
+                if (error != null) {
+                    Log.w(TAG, name + ": dropped failed task: " + error.getMessage());
+                }
+                return;
+            }
+        }
+        if (error != null && onError == null) {
+            Log.e(TAG, name + ": task failed: " + error.getMessage(), error);
+        }
+        if (onResult == null && onError == null) {
+            return;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (TaskScope.this) {
+                    if (destroyed) {
+                        return;
+                    }
+                    if (key != null) {
+                        if (latestByKey.get(key) != token) {
+                            return;
+                        }
+                        latestByKey.remove(key);
+                    }
+                }
+                if (error == null) {
+                    if (onResult != null) {
+                        onResult.onResult(result);
+                    }
+                } else if (onError != null) {
+                    onError.onError(error);
+                }
+            }
+        });
+    }
+
+    private static final class Pending {
+        final FutureTask<Void> future;
+        final DatabaseExecutor.Priority priority;
+
+        Pending(FutureTask<Void> future, DatabaseExecutor.Priority priority) {
+            this.future = future;
+            this.priority = priority;
+        }
+    }
+}
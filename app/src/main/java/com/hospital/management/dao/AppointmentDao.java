@@ -0,0 +1,319 @@
+package com.hospital.management.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.hospital.management.model.Appointment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись пациентов на приём к врачам.
+ * Пересечения с приёмами врача проверяются по индексу интервалов в памяти
+ * (AppointmentIntervals), проверка и запись идут под одним монитором.
+ * Методы записи не вызываются внутри внешней транзакции: после отката
+ * индекс разошёлся бы с таблицей
+ */
+public class AppointmentDao {
+    private static final String TAG = "AppointmentDao";
+
+    private final DatabaseManager databaseManager;
+    private final AppointmentIntervals intervals;
+    private SQLiteDatabase database;
+
+    // Названия таблицы и колонок
+    public static final String TABLE_APPOINTMENTS = RelatedRecords.TABLE_APPOINTMENTS;
+    public static final String COLUMN_APPOINTMENT_ID = "AppointmentID";
+    public static final String COLUMN_PATIENT_ID = RelatedRecords.COLUMN_PATIENT_ID;
+    public static final String COLUMN_DOCTOR_ID = RelatedRecords.COLUMN_DOCTOR_ID;
+    public static final String COLUMN_START_TIME = "StartTime";
+    public static final String COLUMN_END_TIME = "EndTime";
+    public static final String COLUMN_STATUS = "Status";
+    public static final String COLUMN_NOTES = "Notes";
+
+    /**
+     * Результат записи или переноса: интервал пересекается с другим приёмом врача
+     */
+    public static final long CONFLICT = -2;
+
+    private static final String ACTIVE = "(" + COLUMN_STATUS + " IS NULL OR " +
+            COLUMN_STATUS + " <> '" + Appointment.STATUS_CANCELLED + "')";
+
+    private static final String SQL_SELECT_APPOINTMENT_BY_ID =
+            "SELECT * FROM " + TABLE_APPOINTMENTS + " WHERE " + COLUMN_APPOINTMENT_ID + " = ?";
+
+    // День врача: диапазон по индексу (DoctorID, StartTime), порядок - из индекса
+    private static final String SQL_SELECT_DOCTOR_RANGE =
+            "SELECT * FROM " + TABLE_APPOINTMENTS +
+                    " WHERE " + COLUMN_DOCTOR_ID + " = ? AND " +
+                    COLUMN_START_TIME + " >= ? AND " + COLUMN_START_TIME + " < ?" +
+                    " ORDER BY " + COLUMN_START_TIME;
+
+    // Ближайшие приёмы пациента: индекс (PatientID, StartTime), чтение останавливается на LIMIT
+    private static final String SQL_SELECT_PATIENT_UPCOMING =
+            "SELECT * FROM " + TABLE_APPOINTMENTS +
+                    " WHERE " + COLUMN_PATIENT_ID + " = ? AND " + COLUMN_START_TIME + " >= ? AND " + ACTIVE +
+                    " ORDER BY " + COLUMN_START_TIME + " LIMIT ?";
+
+    public AppointmentDao(Context context) {
+        databaseManager = DatabaseManager.getInstance(context);
+        intervals = databaseManager.getAppointmentIntervals();
+    }
+
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
+        try {
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
+            Log.d(TAG, "Database opened successfully");
+        } catch (SQLException e) {
+            Log.e(TAG, "Error opening database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Запись на приём. Возвращает ID приёма, CONFLICT, если врач в это время занят,
+     * или -1 при ошибке (в том числе если пациента или врача нет)
+     */
+    public long bookAppointment(Appointment appointment) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            synchronized (intervals) {
+                int conflict = intervals.findConflict(database, appointment.getDoctorId(),
+                        appointment.getStartTime(), appointment.getEndTime(), 0);
+                if (conflict != -1) {
+                    Log.d(TAG, "Booking conflicts with appointment " + conflict);
+                    return CONFLICT;
+                }
+
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_PATIENT_ID, appointment.getPatientId());
+                values.put(COLUMN_DOCTOR_ID, appointment.getDoctorId());
+                values.put(COLUMN_START_TIME, appointment.getStartTime());
+                values.put(COLUMN_END_TIME, appointment.getEndTime());
+                values.put(COLUMN_STATUS, appointment.getStatus());
+                values.put(COLUMN_NOTES, appointment.getNotes());
+
+                long result = database.insert(TABLE_APPOINTMENTS, null, values);
+                Log.d(TAG, "Appointment booked with ID: " + result);
+                if (result != -1 && !appointment.isCancelled()) {
+                    intervals.add(appointment.getDoctorId(), (int) result,
+                            appointment.getStartTime(), appointment.getEndTime());
+                }
+                return result;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error booking appointment: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Перенос приёма на другой интервал (и, возможно, к другому врачу).
+     * Возвращает ID приёма, CONFLICT или -1, если приёма нет или произошла ошибка
+     */
+    public long rescheduleAppointment(int appointmentId, int doctorId, long startTime, long endTime) {
+        if (endTime <= startTime) {
+            Log.e(TAG, "Invalid appointment interval: " + startTime + " - " + endTime);
+            return -1;
+        }
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            synchronized (intervals) {
+                Appointment current = queryById(appointmentId);
+                if (current == null) {
+                    return -1;
+                }
+                int conflict = intervals.findConflict(database, doctorId, startTime, endTime, appointmentId);
+                if (conflict != -1) {
+                    Log.d(TAG, "Reschedule conflicts with appointment " + conflict);
+                    return CONFLICT;
+                }
+
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_DOCTOR_ID, doctorId);
+                values.put(COLUMN_START_TIME, startTime);
+                values.put(COLUMN_END_TIME, endTime);
+                // Отменённый приём после переноса снова назначен
+                values.put(COLUMN_STATUS, Appointment.STATUS_SCHEDULED);
+
+                int rowsAffected = database.update(TABLE_APPOINTMENTS, values,
+                        COLUMN_APPOINTMENT_ID + " = ?", new String[]{String.valueOf(appointmentId)});
+                Log.d(TAG, "Appointment rescheduled, rows affected: " + rowsAffected);
+                if (rowsAffected == 0) {
+                    return -1;
+                }
+                intervals.remove(current.getDoctorId(), appointmentId, current.getStartTime());
+                intervals.add(doctorId, appointmentId, startTime, endTime);
+                return appointmentId;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error rescheduling appointment: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Отмена приёма: строка остаётся в истории, время врача освобождается
+     */
+    public boolean cancelAppointment(int appointmentId) {
+        return setStatus(appointmentId, Appointment.STATUS_CANCELLED);
+    }
+
+    /**
+     * Отметка о проведённом приёме; время остаётся занятым
+     */
+    public boolean completeAppointment(int appointmentId) {
+        return setStatus(appointmentId, Appointment.STATUS_COMPLETED);
+    }
+
+    public boolean deleteAppointment(int appointmentId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            synchronized (intervals) {
+                Appointment current = queryById(appointmentId);
+                if (current == null) {
+                    return false;
+                }
+                int rowsAffected = database.delete(TABLE_APPOINTMENTS,
+                        COLUMN_APPOINTMENT_ID + " = ?", new String[]{String.valueOf(appointmentId)});
+                Log.d(TAG, "Appointment deleted, rows affected: " + rowsAffected);
+                if (rowsAffected > 0) {
+                    intervals.remove(current.getDoctorId(), appointmentId, current.getStartTime());
+                }
+                return rowsAffected > 0;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting appointment: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public Appointment getAppointmentById(int appointmentId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return queryById(appointmentId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting appointment by ID: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Приёмы врача, начинающиеся в [from, to), по времени начала (включая отменённые)
+     */
+    public List<Appointment> getDoctorAppointments(int doctorId, long from, long to) {
+        return queryList(SQL_SELECT_DOCTOR_RANGE,
+                String.valueOf(doctorId), String.valueOf(from), String.valueOf(to));
+    }
+
+    /**
+     * Не более limit ближайших неотменённых приёмов пациента, начиная с from
+     */
+    public List<Appointment> getUpcomingAppointments(int patientId, long from, int limit) {
+        return queryList(SQL_SELECT_PATIENT_UPCOMING,
+                String.valueOf(patientId), String.valueOf(from), String.valueOf(limit));
+    }
+
+    /**
+     * ID приёма врача, пересекающегося с интервалом, или -1 (для подсказки до записи)
+     */
+    public int findConflictingAppointment(int doctorId, long startTime, long endTime, int ignoreId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return intervals.findConflict(database, doctorId, startTime, endTime, ignoreId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking appointment conflict: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    private boolean setStatus(int appointmentId, String status) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            synchronized (intervals) {
+                Appointment current = queryById(appointmentId);
+                if (current == null) {
+                    return false;
+                }
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_STATUS, status);
+                int rowsAffected = database.update(TABLE_APPOINTMENTS, values,
+                        COLUMN_APPOINTMENT_ID + " = ?", new String[]{String.valueOf(appointmentId)});
+                Log.d(TAG, "Appointment status set to " + status + ", rows affected: " + rowsAffected);
+                if (rowsAffected > 0 && Appointment.STATUS_CANCELLED.equals(status)) {
+                    intervals.remove(current.getDoctorId(), appointmentId, current.getStartTime());
+                }
+                return rowsAffected > 0;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating appointment status: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private Appointment queryById(int appointmentId) {
+        Cursor cursor = database.rawQuery(SQL_SELECT_APPOINTMENT_BY_ID, new String[]{String.valueOf(appointmentId)});
+        try {
+            return cursor.moveToFirst() ? new AppointmentRowMapper(cursor).map(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private List<Appointment> queryList(String sql, String... args) {
+        List<Appointment> appointments = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            Cursor cursor = database.rawQuery(sql, args);
+            try {
+                RowMapper<Appointment> mapper = new AppointmentRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    appointments.add(mapper.map(cursor));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting appointments: " + e.getMessage(), e);
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,210 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.model.Appointment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Занятые интервалы врачей в памяти для проверки пересечений при записи на приём.
+ * Интервалы одного врача не пересекаются (пересекающуюся запись индекс не пропускает),
+ * поэтому они упорядочены и по началу, и по концу: из приёмов, начавшихся раньше конца
+ * нового интервала, пересечь его может только последний. Проверка - один поиск
+ * в TreeMap, O(log n) при любом заполнении календаря.
+ * Интервалы врача загружаются из базы при первой проверке, начиная с горизонта
+ * (сутки до загрузки): более ранние приёмы новым записям не мешают, а запись
+ * в прошлое до горизонта проверяется запросом к базе.
+ * Отменённые приёмы в индекс не входят
+ */
+final class AppointmentIntervals {
+    private static final String TAG = "AppointmentIntervals";
+
+    private static final long HORIZON_MS = 24L * 60 * 60 * 1000;
+
+    private static final String ACTIVE = "(" + AppointmentDao.COLUMN_STATUS + " IS NULL OR " +
+            AppointmentDao.COLUMN_STATUS + " <> '" + Appointment.STATUS_CANCELLED + "')";
+
+    private static final String SQL_LOAD_DOCTOR =
+            "SELECT " + AppointmentDao.COLUMN_APPOINTMENT_ID + ", " + AppointmentDao.COLUMN_START_TIME + ", " +
+                    AppointmentDao.COLUMN_END_TIME + " FROM " + AppointmentDao.TABLE_APPOINTMENTS +
+                    " WHERE " + AppointmentDao.COLUMN_DOCTOR_ID + " = ? AND " +
+                    AppointmentDao.COLUMN_END_TIME + " > ? AND " + ACTIVE;
+
+    // Пересечение в прошлом до горизонта: диапазон по индексу (DoctorID, StartTime)
+    private static final String SQL_FIND_CONFLICT =
+            "SELECT " + AppointmentDao.COLUMN_APPOINTMENT_ID + " FROM " + AppointmentDao.TABLE_APPOINTMENTS +
+                    " WHERE " + AppointmentDao.COLUMN_DOCTOR_ID + " = ? AND " +
+                    AppointmentDao.COLUMN_START_TIME + " < ? AND " + AppointmentDao.COLUMN_END_TIME + " > ? AND " +
+                    AppointmentDao.COLUMN_APPOINTMENT_ID + " <> ? AND " + ACTIVE + " LIMIT 1";
+
+    // Занятость врача в прошлом до горизонта; тот же диапазон по индексу, что и SQL_FIND_CONFLICT
+    private static final String SQL_SELECT_BUSY =
+            "SELECT " + AppointmentDao.COLUMN_START_TIME + ", " + AppointmentDao.COLUMN_END_TIME +
+                    " FROM " + AppointmentDao.TABLE_APPOINTMENTS +
+                    " WHERE " + AppointmentDao.COLUMN_DOCTOR_ID + " = ? AND " +
+                    AppointmentDao.COLUMN_START_TIME + " < ? AND " + AppointmentDao.COLUMN_END_TIME + " > ? AND " +
+                    ACTIVE + " ORDER BY " + AppointmentDao.COLUMN_START_TIME;
+
+    // Под монитором this
+    private final Map<Integer, DoctorIntervals> doctors = new HashMap<>();
+    private long lookups;
+    private long loads;
+
+    /**
+     * ID приёма врача, пересекающегося с [start, end), или -1.
+     * ignoreId - переносимый приём, который не мешает сам себе
+     */
+    synchronized int findConflict(SQLiteDatabase db, int doctorId, long start, long end, int ignoreId) {
+        lookups++;
+        DoctorIntervals intervals = intervalsOf(db, doctorId);
+        if (start < intervals.horizon) {
+            return queryConflict(db, doctorId, start, end, ignoreId);
+        }
+        Map.Entry<Long, Interval> entry = intervals.byStart.lowerEntry(end);
+        // Второй шаг нужен, только если последним оказался сам переносимый приём
+        while (entry != null && entry.getValue().end > start) {
+            if (entry.getValue().id != ignoreId) {
+                return entry.getValue().id;
+            }
+            entry = intervals.byStart.lowerEntry(entry.getKey());
+        }
+        return -1;
+    }
+
+    /**
+     * Занятые интервалы врача, пересекающие [from, to), по возрастанию начала:
+     * массив пар start, end. Интервалы не пересекаются, поэтому из начавшихся
+     * раньше from в результат может попасть только последний
+     */
+    synchronized long[] busyBetween(SQLiteDatabase db, int doctorId, long from, long to) {
+        DoctorIntervals intervals = intervalsOf(db, doctorId);
+        if (from < intervals.horizon) {
+            return queryBusy(db, doctorId, from, to);
+        }
+        Map.Entry<Long, Interval> before = intervals.byStart.lowerEntry(from);
+        Map<Long, Interval> inRange = intervals.byStart.subMap(from, to);
+        boolean includeBefore = before != null && before.getValue().end > from;
+        long[] busy = new long[2 * (inRange.size() + (includeBefore ? 1 : 0))];
+        int i = 0;
+        if (includeBefore) {
+            busy[i++] = before.getKey();
+            busy[i++] = before.getValue().end;
+        }
+        for (Map.Entry<Long, Interval> entry : inRange.entrySet()) {
+            busy[i++] = entry.getKey();
+            busy[i++] = entry.getValue().end;
+        }
+        return busy;
+    }
+
+    /**
+     * Приём записан; вызывается под тем же монитором, что и проверка (см. AppointmentDao)
+     */
+    synchronized void add(int doctorId, int id, long start, long end) {
+        DoctorIntervals intervals = doctors.get(doctorId);
+        if (intervals != null && end > intervals.horizon) {
+            intervals.byStart.put(start, new Interval(id, end));
+        }
+    }
+
+    /**
+     * Приём отменён, удалён или перенесён со старого интервала
+     */
+    synchronized void remove(int doctorId, int id, long start) {
+        DoctorIntervals intervals = doctors.get(doctorId);
+        if (intervals == null) {
+            return;
+        }
+        Interval interval = intervals.byStart.get(start);
+        if (interval != null && interval.id == id) {
+            intervals.byStart.remove(start);
+        }
+    }
+
+    /**
+     * Сброс после изменений мимо DAO приёмов: интервалы перечитаются при следующей проверке
+     */
+    synchronized void clear() {
+        doctors.clear();
+    }
+
+    private DoctorIntervals intervalsOf(SQLiteDatabase db, int doctorId) {
+        DoctorIntervals intervals = doctors.get(doctorId);
+        if (intervals != null) {
+            return intervals;
+        }
+        long started = SystemClock.elapsedRealtime();
+        intervals = new DoctorIntervals(System.currentTimeMillis() - HORIZON_MS);
+        Cursor cursor = db.rawQuery(SQL_LOAD_DOCTOR,
+                new String[]{String.valueOf(doctorId), String.valueOf(intervals.horizon)});
+        try {
+            while (cursor.moveToNext()) {
+                intervals.byStart.put(cursor.getLong(1), new Interval(cursor.getInt(0), cursor.getLong(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        doctors.put(doctorId, intervals);
+        loads++;
+        Log.d(TAG, "Doctor " + doctorId + " intervals loaded: " + intervals.byStart.size() +
+                " in " + (SystemClock.elapsedRealtime() - started) + " ms");
+        return intervals;
+    }
+
+    private static int queryConflict(SQLiteDatabase db, int doctorId, long start, long end, int ignoreId) {
+        Cursor cursor = db.rawQuery(SQL_FIND_CONFLICT, new String[]{
+                String.valueOf(doctorId), String.valueOf(end), String.valueOf(start), String.valueOf(ignoreId)});
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long[] queryBusy(SQLiteDatabase db, int doctorId, long from, long to) {
+        Cursor cursor = db.rawQuery(SQL_SELECT_BUSY, new String[]{
+                String.valueOf(doctorId), String.valueOf(to), String.valueOf(from)});
+        try {
+            long[] busy = new long[2 * cursor.getCount()];
+            int i = 0;
+            while (cursor.moveToNext()) {
+                busy[i++] = cursor.getLong(0);
+                busy[i++] = cursor.getLong(1);
+            }
+            return busy;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "AppointmentIntervals{doctors=" + doctors.size() + ", lookups=" + lookups +
+                ", loads=" + loads + "}";
+    }
+
+    private static final class DoctorIntervals {
+        final long horizon;
+        final TreeMap<Long, Interval> byStart = new TreeMap<>();
+
+        DoctorIntervals(long horizon) {
+            this.horizon = horizon;
+        }
+    }
+
+    private static final class Interval {
+        final int id;
+        final long end;
+
+        Interval(int id, long end) {
+            this.id = id;
+            this.end = end;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+import com.hospital.management.model.Appointment;
+
+/**
+ * Строка Appointments -> Appointment
+ */
+final class AppointmentRowMapper implements RowMapper<Appointment> {
+    private final int appointmentId;
+    private final int patientId;
+    private final int doctorId;
+    private final int startTime;
+    private final int endTime;
+    private final int status;
+    private final int notes;
+
+    AppointmentRowMapper(Cursor cursor) {
+        appointmentId = cursor.getColumnIndex(AppointmentDao.COLUMN_APPOINTMENT_ID);
+        patientId = cursor.getColumnIndex(AppointmentDao.COLUMN_PATIENT_ID);
+        doctorId = cursor.getColumnIndex(AppointmentDao.COLUMN_DOCTOR_ID);
+        startTime = cursor.getColumnIndex(AppointmentDao.COLUMN_START_TIME);
+        endTime = cursor.getColumnIndex(AppointmentDao.COLUMN_END_TIME);
+        status = cursor.getColumnIndex(AppointmentDao.COLUMN_STATUS);
+        notes = cursor.getColumnIndex(AppointmentDao.COLUMN_NOTES);
+    }
+
+    @Override
+    public Appointment map(Cursor cursor) {
+        Appointment appointment = new Appointment();
+        if (appointmentId >= 0) appointment.setAppointmentId(cursor.getInt(appointmentId));
+        if (patientId >= 0) appointment.setPatientId(cursor.getInt(patientId));
+        if (doctorId >= 0) appointment.setDoctorId(cursor.getInt(doctorId));
+        if (startTime >= 0 && endTime >= 0) {
+            appointment.setInterval(cursor.getLong(startTime), cursor.getLong(endTime));
+        }
+        if (status >= 0) appointment.setStatus(cursor.getString(status));
+        if (notes >= 0) appointment.setNotes(cursor.getString(notes));
+        return appointment;
+    }
+}
@@ -0,0 +1,86 @@
+package com.hospital.management.dao;
+
+/**
+ * Фильтр Блума по строковым ключам. Ложных отрицательных ответов нет,
+ * ложные положительные - с вероятностью около falsePositiveRate при заполнении
+ * до expectedKeys. Удаление не поддерживается. Не потокобезопасен
+ */
+final class BloomFilter {
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final int expectedKeys;
+    private int keyCount;
+
+    BloomFilter(int expectedKeys, double falsePositiveRate) {
+        int keys = Math.max(1, expectedKeys);
+        // m = -n ln p / (ln 2)^2, k = m / n * ln 2
+        long m = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64, (m + 63) / 64 * 64);
+        this.bits = new long[(int) (m / 64)];
+        this.bitCount = m;
+        this.hashCount = Math.max(1, (int) Math.round((double) m / keys * Math.log(2)));
+        this.expectedKeys = keys;
+    }
+
+    void add(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        keyCount++;
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = index(h1 + i * h2);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Добавлено больше ключей, чем рассчитано: доля ложных срабатываний растёт
+     */
+    boolean isSaturated() {
+        return keyCount > expectedKeys;
+    }
+
+    int getKeyCount() {
+        return keyCount;
+    }
+
+    int getSizeBytes() {
+        return bits.length * 8;
+    }
+
+    private long index(int combinedHash) {
+        // Двойное хеширование (Kirsch-Mitzenmacher); отрицательные значения - через инверсию
+        return (combinedHash < 0 ? ~combinedHash : combinedHash) % bitCount;
+    }
+
+    /**
+     * FNV-1a по символам и финальное перемешивание из MurmurHash3
+     */
+    static long hash64(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,89 @@
+package com.hospital.management.dao;
+
+/**
+ * Результат пакетной записи: исход по каждой строке и пропускная способность.
+ * Индексы совпадают с индексами входного списка
+ */
+public class BulkWriteResult {
+    private final long[] rowIds;
+    private final String[] errors;
+    private int successCount;
+    private long durationNanos;
+
+    BulkWriteResult(int size) {
+        rowIds = new long[size];
+        errors = new String[size];
+    }
+
+    void setSuccess(int index, long rowId) {
+        rowIds[index] = rowId;
+        successCount++;
+    }
+
+    void setFailure(int index, String error) {
+        rowIds[index] = -1;
+        errors[index] = error;
+    }
+
+    /**
+     * Транзакция откатилась целиком: ни одна строка не сохранена
+     */
+    void failAll(String error) {
+        for (int i = 0; i < rowIds.length; i++) {
+            rowIds[i] = -1;
+            errors[i] = error;
+        }
+        successCount = 0;
+    }
+
+    void setDurationNanos(long durationNanos) {
+        this.durationNanos = durationNanos;
+    }
+
+    public int size() {
+        return rowIds.length;
+    }
+
+    public boolean isSuccess(int index) {
+        return errors[index] == null && rowIds[index] != -1;
+    }
+
+    /**
+     * ID вставленной строки (для обновления - ID обновлённой строки) или -1 при ошибке
+     */
+    public long getRowId(int index) {
+        return rowIds[index];
+    }
+
+    /**
+     * Текст ошибки для строки или null
+     */
+    public String getError(int index) {
+        return errors[index];
+    }
+
+    public int getSuccessCount() {
+        return successCount;
+    }
+
+    public int getFailureCount() {
+        return rowIds.length - successCount;
+    }
+
+    public long getDurationMillis() {
+        return durationNanos / 1_000_000;
+    }
+
+    /**
+     * Строк в секунду
+     */
+    public double getRowsPerSecond() {
+        return durationNanos > 0 ? rowIds.length * 1_000_000_000.0 / durationNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkWriteResult{rows=%d, ok=%d, failed=%d, %d ms, %.0f rows/s}",
+                size(), successCount, getFailureCount(), getDurationMillis(), getRowsPerSecond());
+    }
+}
@@ -6,9 +6,17 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
 
+import com.hospital.management.dao.migration.BackgroundStep;
+import com.hospital.management.dao.migration.Migration;
+import com.hospital.management.dao.migration.MigrationRunner;
+import com.hospital.management.dao.migration.SqlStep;
+import com.hospital.management.dao.migration.UniqueIndexStep;
+
+import java.util.Arrays;
+
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String TAG = "DatabaseHelper";
-    private static final int DATABASE_VERSION = 3;
+    private static final int DATABASE_VERSION = 12;
     private static final String DATABASE_NAME = "HospitalManagement.db";
 
     // SQL для создания таблицы Users
@@ -36,6 +44,11 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     PatientDao.COLUMN_DISTRICT + " INTEGER DEFAULT 0" +
                     ")";
 
+    // Ссылка врача на справочник специализаций (версия 12); та же колонка добавляется миграцией
+    private static final String SQL_DOCTORS_SPECIALIZATION_ID_DEFINITION =
+            "INTEGER REFERENCES " + SpecializationDao.TABLE_SPECIALIZATIONS +
+                    " (" + SpecializationDao.COLUMN_SPECIALIZATION_ID + ")";
+
     // SQL для создания таблицы Doctors
     private static final String SQL_CREATE_DOCTORS_TABLE =
             "CREATE TABLE " + DoctorDao.TABLE_DOCTORS + " (" +
@@ -45,7 +58,173 @@ public class DatabaseHelper extends SQLiteOpenHelper {
                     DoctorDao.COLUMN_SPECIALIZATION + " TEXT," +
                     DoctorDao.COLUMN_ROOM_NUMBER + " TEXT," +
                     DoctorDao.COLUMN_SCHEDULE + " TEXT," +
-                    DoctorDao.COLUMN_EMAIL + " TEXT" +
+                    DoctorDao.COLUMN_EMAIL + " TEXT," +
+                    DoctorDao.COLUMN_SPECIALIZATION_ID + " " + SQL_DOCTORS_SPECIALIZATION_ID_DEFINITION +
+                    ")";
+
+    // Индексы для keyset-пагинации списков (версия 4)
+    private static final String SQL_CREATE_PATIENTS_NAME_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_patients_name ON " + PatientDao.TABLE_PATIENTS + " (" +
+                    PatientDao.COLUMN_LAST_NAME + ", " +
+                    PatientDao.COLUMN_FIRST_NAME + ", " +
+                    PatientDao.COLUMN_PATIENT_ID + ")";
+
+    private static final String SQL_CREATE_DOCTORS_NAME_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_doctors_name ON " + DoctorDao.TABLE_DOCTORS + " (" +
+                    DoctorDao.COLUMN_LAST_NAME + ", " +
+                    DoctorDao.COLUMN_FIRST_NAME + ", " +
+                    DoctorDao.COLUMN_DOCTOR_ID + ")";
+
+    // Полнотекстовый индекс пациентов (версия 5). Внешнее содержимое: текст хранится
+    // только в Patients, индекс синхронизируется триггерами
+    private static final String FTS_COLUMNS =
+            PatientDao.COLUMN_LAST_NAME + ", " +
+                    PatientDao.COLUMN_FIRST_NAME + ", " +
+                    PatientDao.COLUMN_ADDRESS + ", " +
+                    PatientDao.COLUMN_PHONE_NUMBER + ", " +
+                    PatientDao.COLUMN_POLICY_OMS + ", " +
+                    PatientDao.COLUMN_SNILS;
+
+    private static final String FTS_NEW_VALUES =
+            "new." + PatientDao.COLUMN_LAST_NAME + ", " +
+                    "new." + PatientDao.COLUMN_FIRST_NAME + ", " +
+                    "new." + PatientDao.COLUMN_ADDRESS + ", " +
+                    "new." + PatientDao.COLUMN_PHONE_NUMBER + ", " +
+                    "new." + PatientDao.COLUMN_POLICY_OMS + ", " +
+                    "new." + PatientDao.COLUMN_SNILS;
+
+    private static final String[] SQL_CREATE_PATIENTS_FTS = {
+            "CREATE VIRTUAL TABLE IF NOT EXISTS " + PatientDao.TABLE_PATIENTS_FTS + " USING fts4(" +
+                    "content=\"" + PatientDao.TABLE_PATIENTS + "\", " +
+                    FTS_COLUMNS + ", " +
+                    "tokenize=unicode61)",
+            "CREATE TRIGGER IF NOT EXISTS patients_fts_before_update BEFORE UPDATE ON " +
+                    PatientDao.TABLE_PATIENTS + " BEGIN " +
+                    "DELETE FROM " + PatientDao.TABLE_PATIENTS_FTS + " WHERE docid = old.rowid; END",
+            "CREATE TRIGGER IF NOT EXISTS patients_fts_before_delete BEFORE DELETE ON " +
+                    PatientDao.TABLE_PATIENTS + " BEGIN " +
+                    "DELETE FROM " + PatientDao.TABLE_PATIENTS_FTS + " WHERE docid = old.rowid; END",
+            "CREATE TRIGGER IF NOT EXISTS patients_fts_after_update AFTER UPDATE ON " +
+                    PatientDao.TABLE_PATIENTS + " BEGIN " +
+                    "INSERT INTO " + PatientDao.TABLE_PATIENTS_FTS + " (docid, " + FTS_COLUMNS + ") " +
+                    "VALUES (new.rowid, " + FTS_NEW_VALUES + "); END",
+            "CREATE TRIGGER IF NOT EXISTS patients_fts_after_insert AFTER INSERT ON " +
+                    PatientDao.TABLE_PATIENTS + " BEGIN " +
+                    "INSERT INTO " + PatientDao.TABLE_PATIENTS_FTS + " (docid, " + FTS_COLUMNS + ") " +
+                    "VALUES (new.rowid, " + FTS_NEW_VALUES + "); END"
+    };
+
+    private static final String SQL_REBUILD_PATIENTS_FTS =
+            "INSERT INTO " + PatientDao.TABLE_PATIENTS_FTS + " (" + PatientDao.TABLE_PATIENTS_FTS + ") " +
+                    "VALUES ('rebuild')";
+
+    // Поиск дубликатов полисов при импорте (версия 6)
+    private static final String SQL_CREATE_PATIENTS_POLICY_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_patients_policy ON " + PatientDao.TABLE_PATIENTS + " (" +
+                    PatientDao.COLUMN_POLICY_OMS + ")";
+
+    // Уникальность полиса ОМС и email врача (версия 7). Частичные индексы: пустые значения
+    // не уникальны; условие WHERE должно дословно входить в запросы DAO
+    private static final String SQL_CREATE_PATIENTS_POLICY_UNIQUE_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_patients_policy_unique ON " + PatientDao.TABLE_PATIENTS + " (" +
+                    PatientDao.COLUMN_POLICY_OMS + ") WHERE " + PatientDao.NON_EMPTY_POLICY;
+
+    private static final String SQL_CREATE_DOCTORS_EMAIL_UNIQUE_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS idx_doctors_email_unique ON " + DoctorDao.TABLE_DOCTORS + " (" +
+                    DoctorDao.COLUMN_EMAIL + ") WHERE " + DoctorDao.NON_EMPTY_EMAIL;
+
+    // Запасной индекс, если среди врачей уже есть повторяющиеся email
+    private static final String SQL_CREATE_DOCTORS_EMAIL_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_doctors_email ON " + DoctorDao.TABLE_DOCTORS + " (" +
+                    DoctorDao.COLUMN_EMAIL + ")";
+
+    private static final String SQL_DROP_PATIENTS_POLICY_INDEX =
+            "DROP INDEX IF EXISTS idx_patients_policy";
+
+    // Справочник специализаций (версия 12). Уникальные ключи - поиск названия или псевдонима по индексу
+    private static final String[] SQL_CREATE_SPECIALIZATIONS = {
+            "CREATE TABLE IF NOT EXISTS " + SpecializationDao.TABLE_SPECIALIZATIONS + " (" +
+                    SpecializationDao.COLUMN_SPECIALIZATION_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    SpecializationDao.COLUMN_NAME + " TEXT NOT NULL," +
+                    SpecializationDao.COLUMN_NORMALIZED_KEY + " TEXT NOT NULL UNIQUE" +
+                    ")",
+            "CREATE TABLE IF NOT EXISTS " + SpecializationDao.TABLE_SPECIALIZATION_ALIASES + " (" +
+                    SpecializationDao.COLUMN_ALIAS_KEY + " TEXT PRIMARY KEY," +
+                    SpecializationDao.COLUMN_SPECIALIZATION_ID + " INTEGER NOT NULL REFERENCES " +
+                    SpecializationDao.TABLE_SPECIALIZATIONS + " (" + SpecializationDao.COLUMN_SPECIALIZATION_ID +
+                    ") ON DELETE CASCADE" +
+                    ")"
+    };
+
+    // Фильтр врачей по специализации: равенство по ссылке, порядок списка - из индекса.
+    // Префикс индекса обслуживает и внешний ключ
+    private static final String SQL_CREATE_DOCTORS_SPECIALIZATION_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_doctors_specialization ON " + DoctorDao.TABLE_DOCTORS + " (" +
+                    DoctorDao.COLUMN_SPECIALIZATION_ID + ", " +
+                    DoctorDao.COLUMN_LAST_NAME + ", " +
+                    DoctorDao.COLUMN_FIRST_NAME + ", " +
+                    DoctorDao.COLUMN_DOCTOR_ID + ")";
+
+    // Счётчики для главного экрана (версия 8), поддерживаются триггерами
+    private static final String SQL_CREATE_STATISTICS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + StatisticsDao.TABLE_STATISTICS + " (" +
+                    StatisticsDao.COLUMN_CATEGORY + " TEXT NOT NULL," +
+                    StatisticsDao.COLUMN_ITEM + " TEXT NOT NULL," +
+                    StatisticsDao.COLUMN_TOTAL + " INTEGER NOT NULL DEFAULT 0," +
+                    "PRIMARY KEY (" + StatisticsDao.COLUMN_CATEGORY + ", " + StatisticsDao.COLUMN_ITEM + ")" +
+                    ")";
+
+    // Врачи считаются по ссылке на справочник (версия 12): написания одной специализации - одна группа
+    private static final String[] SQL_CREATE_DOCTOR_STATISTICS_TRIGGERS =
+            statisticsTriggers("doctors", DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_SPECIALIZATION_ID,
+                    StatisticsDao.CATEGORY_DOCTORS, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION);
+
+    private static final String[] SQL_DROP_DOCTOR_STATISTICS_TRIGGERS = {
+            "DROP TRIGGER IF EXISTS stats_doctors_after_insert",
+            "DROP TRIGGER IF EXISTS stats_doctors_after_delete",
+            "DROP TRIGGER IF EXISTS stats_doctors_after_update"
+    };
+
+    private static final String[] SQL_CREATE_STATISTICS = concat(
+            new String[]{SQL_CREATE_STATISTICS_TABLE},
+            statisticsTriggers("patients", PatientDao.TABLE_PATIENTS, PatientDao.COLUMN_DISTRICT,
+                    StatisticsDao.CATEGORY_PATIENTS, StatisticsDao.CATEGORY_PATIENTS_BY_DISTRICT),
+            SQL_CREATE_DOCTOR_STATISTICS_TRIGGERS,
+            statisticsTriggers("users", UserDao.TABLE_USERS, UserDao.COLUMN_ROLE,
+                    StatisticsDao.CATEGORY_USERS, StatisticsDao.CATEGORY_USERS_BY_ROLE));
+
+    // Версия 8: колонки SpecializationID ещё нет, врачи считаются по тексту специализации
+    private static final String[] SQL_CREATE_STATISTICS_V8 = concat(
+            new String[]{SQL_CREATE_STATISTICS_TABLE},
+            statisticsTriggers("patients", PatientDao.TABLE_PATIENTS, PatientDao.COLUMN_DISTRICT,
+                    StatisticsDao.CATEGORY_PATIENTS, StatisticsDao.CATEGORY_PATIENTS_BY_DISTRICT),
+            statisticsTriggers("doctors", DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_SPECIALIZATION,
+                    StatisticsDao.CATEGORY_DOCTORS, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION),
+            statisticsTriggers("users", UserDao.TABLE_USERS, UserDao.COLUMN_ROLE,
+                    StatisticsDao.CATEGORY_USERS, StatisticsDao.CATEGORY_USERS_BY_ROLE));
+
+    // Первичный подсчёт после создания триггеров; он же создаёт строки "всего"
+    private static final BackgroundStep RECOUNT_STATISTICS = new BackgroundStep() {
+        @Override
+        public String getName() {
+            return "recount_statistics";
+        }
+
+        @Override
+        public int runChunk(SQLiteDatabase db, int chunkSize) {
+            StatisticsDao.reconcile(db);
+            return 0;
+        }
+    };
+
+    // Контрольные точки импорта реестров (версия 6)
+    private static final String SQL_CREATE_IMPORT_CHECKPOINTS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + ImportCheckpointDao.TABLE_IMPORT_CHECKPOINTS + " (" +
+                    ImportCheckpointDao.COLUMN_IMPORT_ID + " TEXT PRIMARY KEY," +
+                    ImportCheckpointDao.COLUMN_RECORDS_DONE + " INTEGER NOT NULL DEFAULT 0," +
+                    ImportCheckpointDao.COLUMN_IMPORTED + " INTEGER NOT NULL DEFAULT 0," +
+                    ImportCheckpointDao.COLUMN_REJECTED + " INTEGER NOT NULL DEFAULT 0," +
+                    ImportCheckpointDao.COLUMN_UPDATED_AT + " INTEGER" +
                     ")";
 
     // SQL для удаления таблиц
@@ -58,8 +237,96 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String SQL_DELETE_DOCTORS_TABLE =
             "DROP TABLE IF EXISTS " + DoctorDao.TABLE_DOCTORS;
 
+    private static final String SQL_DELETE_PATIENTS_FTS_TABLE =
+            "DROP TABLE IF EXISTS " + PatientDao.TABLE_PATIENTS_FTS;
+
+    private static final String SQL_DELETE_STATISTICS_TABLE =
+            "DROP TABLE IF EXISTS " + StatisticsDao.TABLE_STATISTICS;
+
+    private static final String SQL_DELETE_SPECIALIZATION_ALIASES_TABLE =
+            "DROP TABLE IF EXISTS " + SpecializationDao.TABLE_SPECIALIZATION_ALIASES;
+
+    private static final String SQL_DELETE_SPECIALIZATIONS_TABLE =
+            "DROP TABLE IF EXISTS " + SpecializationDao.TABLE_SPECIALIZATIONS;
+
+    private static final String SQL_DELETE_IMPORT_CHECKPOINTS_TABLE =
+            "DROP TABLE IF EXISTS " + ImportCheckpointDao.TABLE_IMPORT_CHECKPOINTS;
+
+    // Миграции схемы по версиям. Изменения схемы выполняются в onUpgrade,
+    // построение индексов и перестроение FTS - в фоне после открытия базы
+    private static final MigrationRunner MIGRATION_RUNNER = new MigrationRunner(Arrays.asList(
+            new Migration(4, "keyset_name_indexes", null,
+                    new SqlStep("idx_patients_name", SQL_CREATE_PATIENTS_NAME_INDEX),
+                    new SqlStep("idx_doctors_name", SQL_CREATE_DOCTORS_NAME_INDEX)),
+            new Migration(5, "patients_fts", SQL_CREATE_PATIENTS_FTS,
+                    new SqlStep("rebuild_patients_fts", SQL_REBUILD_PATIENTS_FTS)),
+            new Migration(6, "patient_import", new String[]{SQL_CREATE_IMPORT_CHECKPOINTS_TABLE},
+                    new SqlStep("idx_patients_policy", SQL_CREATE_PATIENTS_POLICY_INDEX)),
+            new Migration(7, "unique_lookups", null,
+                    new UniqueIndexStep("idx_patients_policy_unique", SQL_CREATE_PATIENTS_POLICY_UNIQUE_INDEX,
+                            SQL_CREATE_PATIENTS_POLICY_INDEX, SQL_DROP_PATIENTS_POLICY_INDEX),
+                    new UniqueIndexStep("idx_doctors_email_unique", SQL_CREATE_DOCTORS_EMAIL_UNIQUE_INDEX,
+                            SQL_CREATE_DOCTORS_EMAIL_INDEX)),
+            new Migration(8, "statistics", SQL_CREATE_STATISTICS_V8, RECOUNT_STATISTICS),
+            // Новые таблицы пусты, индексы по ссылкам строятся сразу
+            new Migration(9, "related_records", RelatedRecords.createStatements()),
+            // Таблица приёмов ещё мала: составные индексы строятся сразу
+            new Migration(10, "appointment_indexes", RelatedRecords.appointmentIndexStatements()),
+            // Графики выводятся из текста: таблица пересоздаётся, строки заполняются в фоне
+            new Migration(11, "doctor_schedules", RelatedRecords.doctorScheduleStatements(),
+                    new ScheduleBackfillStep()),
+            // Колонка ссылки и триггеры счётчиков по ней - сразу; индекс, перенос текстовых
+            // значений и пересчёт счётчиков по новым группам - в фоне
+            new Migration(12, "specializations", SQL_CREATE_SPECIALIZATIONS,
+                    new SqlStep("idx_doctors_specialization", SQL_CREATE_DOCTORS_SPECIALIZATION_INDEX),
+                    new SpecializationBackfillStep(), RECOUNT_STATISTICS) {
+                @Override
+                public void migrateSchema(SQLiteDatabase db) {
+                    super.migrateSchema(db);
+                    addColumnIfMissing(db, DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_SPECIALIZATION_ID,
+                            SQL_DOCTORS_SPECIALIZATION_ID_DEFINITION);
+                    for (String statement : SQL_DROP_DOCTOR_STATISTICS_TRIGGERS) {
+                        db.execSQL(statement);
+                    }
+                    for (String statement : SQL_CREATE_DOCTOR_STATISTICS_TRIGGERS) {
+                        db.execSQL(statement);
+                    }
+                }
+            }
+    ));
+
+    // Настройки соединения
+    private static final int PAGE_CACHE_KIB = 8 * 1024;
+    private static final int SQL_STATEMENT_CACHE_SIZE = 50;
+
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    // Отдельный файл базы (тесты миграций)
+    DatabaseHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Настройка соединения перед созданием/обновлением схемы
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+
+        // WAL: чтение не блокируется записью и наоборот
+        db.enableWriteAheadLogging();
+        // В режиме WAL NORMAL безопасен и избавляет от fsync на каждую транзакцию
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        // Отрицательное значение - размер кэша страниц в КиБ
+        db.execSQL("PRAGMA cache_size = -" + PAGE_CACHE_KIB);
+        db.execSQL("PRAGMA temp_store = MEMORY");
+        // Внешние ключи таблиц связей (политики удаления - RelatedRecords)
+        db.setForeignKeyConstraintsEnabled(true);
+        db.setMaxSqlCacheSize(SQL_STATEMENT_CACHE_SIZE);
+
+        Log.d(TAG, "Database connection configured");
     }
 
     @Override
@@ -70,9 +337,29 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         db.execSQL(SQL_CREATE_USERS_TABLE);
         db.execSQL(SQL_CREATE_PATIENTS_TABLE);
         db.execSQL(SQL_CREATE_DOCTORS_TABLE);
+        db.execSQL(SQL_CREATE_PATIENTS_NAME_INDEX);
+        db.execSQL(SQL_CREATE_DOCTORS_NAME_INDEX);
+        db.execSQL(SQL_CREATE_PATIENTS_POLICY_UNIQUE_INDEX);
+        db.execSQL(SQL_CREATE_DOCTORS_EMAIL_UNIQUE_INDEX);
+        for (String statement : SQL_CREATE_SPECIALIZATIONS) {
+            db.execSQL(statement);
+        }
+        db.execSQL(SQL_CREATE_DOCTORS_SPECIALIZATION_INDEX);
+        for (String statement : SQL_CREATE_PATIENTS_FTS) {
+            db.execSQL(statement);
+        }
+        db.execSQL(SQL_CREATE_IMPORT_CHECKPOINTS_TABLE);
+        for (String statement : SQL_CREATE_STATISTICS) {
+            db.execSQL(statement);
+        }
+        for (String statement : RelatedRecords.createStatements()) {
+            db.execSQL(statement);
+        }
+        MIGRATION_RUNNER.createJournal(db);
 
         // Добавляем начальные данные
         insertInitialData(db);
+        StatisticsDao.reconcile(db);
 
         Log.d(TAG, "Database tables created successfully");
     }
@@ -81,18 +368,104 @@ public class DatabaseHelper extends SQLiteOpenHelper {
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
 
-        // При обновлении удаляем старые таблицы и создаем новые
+        if (oldVersion < 3) {
+            // Для схем до версии 3 миграций нет
+            recreateTables(db);
+            return;
+        }
+
+        MIGRATION_RUNNER.upgrade(db, oldVersion, newVersion);
+
+        Log.d(TAG, "Database upgrade completed");
+    }
+
+    @Override
+    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Миграции только добавляют объекты схемы, поэтому старая версия приложения
+        // работает с новой схемой; данные не удаляем. При повторном обновлении
+        // идемпотентные миграции применятся заново
+        Log.w(TAG, "Downgrading database from version " + oldVersion + " to " + newVersion +
+                ", keeping schema and data");
+    }
+
+    public MigrationRunner getMigrationRunner() {
+        return MIGRATION_RUNNER;
+    }
+
+    /**
+     * Удаление старых таблиц и создание новых
+     */
+    private void recreateTables(SQLiteDatabase db) {
+        for (String statement : RelatedRecords.dropStatements()) {
+            db.execSQL(statement);
+        }
+        db.execSQL(SQL_DELETE_PATIENTS_FTS_TABLE);
         db.execSQL(SQL_DELETE_USERS_TABLE);
         db.execSQL(SQL_DELETE_PATIENTS_TABLE);
         db.execSQL(SQL_DELETE_DOCTORS_TABLE);
+        db.execSQL(SQL_DELETE_SPECIALIZATION_ALIASES_TABLE);
+        db.execSQL(SQL_DELETE_SPECIALIZATIONS_TABLE);
+        db.execSQL(SQL_DELETE_IMPORT_CHECKPOINTS_TABLE);
+        db.execSQL(SQL_DELETE_STATISTICS_TABLE);
+        MIGRATION_RUNNER.deleteJournal(db);
         onCreate(db);
+    }
 
-        Log.d(TAG, "Database upgrade completed");
+    /**
+     * Триггеры счётчиков таблицы: строка "всего" только обновляется (её создаёт пересчёт),
+     * строка группы создаётся при первом появлении значения
+     */
+    private static String[] statisticsTriggers(String prefix, String table, String groupColumn,
+                                               String totalCategory, String groupCategory) {
+        String newKey = StatisticsDao.groupKey("new." + groupColumn);
+        String oldKey = StatisticsDao.groupKey("old." + groupColumn);
+        return new String[]{
+                "CREATE TRIGGER IF NOT EXISTS stats_" + prefix + "_after_insert AFTER INSERT ON " + table +
+                        " BEGIN " +
+                        changeCounter(totalCategory, "'" + StatisticsDao.ITEM_ALL + "'", "+ 1") +
+                        createGroup(groupCategory, newKey) +
+                        changeCounter(groupCategory, newKey, "+ 1") +
+                        "END",
+                "CREATE TRIGGER IF NOT EXISTS stats_" + prefix + "_after_delete AFTER DELETE ON " + table +
+                        " BEGIN " +
+                        changeCounter(totalCategory, "'" + StatisticsDao.ITEM_ALL + "'", "- 1") +
+                        changeCounter(groupCategory, oldKey, "- 1") +
+                        "END",
+                "CREATE TRIGGER IF NOT EXISTS stats_" + prefix + "_after_update AFTER UPDATE OF " + groupColumn +
+                        " ON " + table + " WHEN " + oldKey + " <> " + newKey +
+                        " BEGIN " +
+                        changeCounter(groupCategory, oldKey, "- 1") +
+                        createGroup(groupCategory, newKey) +
+                        changeCounter(groupCategory, newKey, "+ 1") +
+                        "END"
+        };
     }
 
-    @Override
-    public void onDowngrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        onUpgrade(db, oldVersion, newVersion);
+    private static String changeCounter(String category, String itemExpression, String delta) {
+        return "UPDATE " + StatisticsDao.TABLE_STATISTICS + " SET " +
+                StatisticsDao.COLUMN_TOTAL + " = " + StatisticsDao.COLUMN_TOTAL + " " + delta +
+                " WHERE " + StatisticsDao.COLUMN_CATEGORY + " = '" + category + "'" +
+                " AND " + StatisticsDao.COLUMN_ITEM + " = " + itemExpression + "; ";
+    }
+
+    private static String createGroup(String category, String itemExpression) {
+        return "INSERT OR IGNORE INTO " + StatisticsDao.TABLE_STATISTICS + " (" +
+                StatisticsDao.COLUMN_CATEGORY + ", " + StatisticsDao.COLUMN_ITEM + ", " +
+                StatisticsDao.COLUMN_TOTAL + ") VALUES ('" + category + "', " + itemExpression + ", 0); ";
+    }
+
+    private static String[] concat(String[]... parts) {
+        int length = 0;
+        for (String[] part : parts) {
+            length += part.length;
+        }
+        String[] result = new String[length];
+        int offset = 0;
+        for (String[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
     }
 
     /**
@@ -121,8 +494,12 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             doctor.put(DoctorDao.COLUMN_SCHEDULE, "Пн-Пт 9:00-18:00");
             doctor.put(DoctorDao.COLUMN_EMAIL, "i.petrov@hospital.ru");
 
+            doctor.put(DoctorDao.COLUMN_SPECIALIZATION_ID,
+                    SpecializationDao.resolveId(db, doctor.getAsString(DoctorDao.COLUMN_SPECIALIZATION)));
+
             long doctorId = db.insert(DoctorDao.TABLE_DOCTORS, null, doctor);
             Log.d(TAG, "Test doctor inserted with ID: " + doctorId);
+            ScheduleDao.writeRules(db, (int) doctorId, doctor.getAsString(DoctorDao.COLUMN_SCHEDULE));
 
             // Добавляем пользователя для врача
             ContentValues doctorUser = new ContentValues();
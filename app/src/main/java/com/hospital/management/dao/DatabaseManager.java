@@ -0,0 +1,248 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.concurrent.DatabaseExecutor;
+import com.hospital.management.dao.migration.MigrationRunner;
+import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Patient;
+import com.hospital.management.model.User;
+
+/**
+ * Единый на процесс движок базы данных.
+ * Владеет одним DatabaseHelper и одним SQLiteDatabase; DAO берут соединение
+ * в аренду через acquire() и возвращают через release(). База закрывается,
+ * только когда последний арендатор вернул соединение.
+ */
+public final class DatabaseManager {
+    private static final String TAG = "DatabaseManager";
+
+    private static volatile DatabaseManager instance;
+
+    // Объём кэшей сущностей (оценка в байтах): несколько сотен карточек за смену
+    private static final int PATIENT_CACHE_BYTES = 512 * 1024;
+    private static final int DOCTOR_CACHE_BYTES = 128 * 1024;
+    private static final int USER_CACHE_BYTES = 64 * 1024;
+
+    // Сверка счётчиков откладывается, чтобы не мешать запуску приложения
+    private static final long RECONCILE_DELAY_MS = 15_000;
+
+    private final DatabaseHelper dbHelper;
+    private final StatementCache statementCache = new StatementCache();
+    private final EntityCache<Patient> patientCache =
+            new EntityCache<>("Patient", PATIENT_CACHE_BYTES, PatientDao.CACHE_ADAPTER);
+    private final EntityCache<Doctor> doctorCache =
+            new EntityCache<>("Doctor", DOCTOR_CACHE_BYTES, DoctorDao.CACHE_ADAPTER);
+    private final EntityCache<User> userCache =
+            new EntityCache<>("User", USER_CACHE_BYTES, UserDao.CACHE_ADAPTER);
+    private final UniqueKeyFilter policyFilter = new UniqueKeyFilter(this, "PolicyOMS",
+            PatientDao.TABLE_PATIENTS, PatientDao.COLUMN_PATIENT_ID, PatientDao.COLUMN_POLICY_OMS);
+    private final UniqueKeyFilter doctorEmailFilter = new UniqueKeyFilter(this, "DoctorEmail",
+            DoctorDao.TABLE_DOCTORS, DoctorDao.COLUMN_DOCTOR_ID, DoctorDao.COLUMN_EMAIL);
+    private final UniqueKeyFilter usernameFilter = new UniqueKeyFilter(this, "Username",
+            UserDao.TABLE_USERS, UserDao.COLUMN_USER_ID, UserDao.COLUMN_USERNAME);
+    private final AppointmentIntervals appointmentIntervals = new AppointmentIntervals();
+    private final DoctorAvailabilities doctorAvailabilities = new DoctorAvailabilities();
+    private final SpecializationDictionary specializationDictionary = new SpecializationDictionary();
+    private SQLiteDatabase database;
+    private int leaseCount;
+    private boolean backgroundMigrationsStarted;
+    private boolean statisticsReconcileStarted;
+
+    private DatabaseManager(Context context) {
+        dbHelper = new DatabaseHelper(context.getApplicationContext());
+    }
+
+    /**
+     * Инициализация движка (вызывается из Application.onCreate)
+     */
+    public static DatabaseManager init(Context context) {
+        return getInstance(context);
+    }
+
+    public static DatabaseManager getInstance(Context context) {
+        DatabaseManager local = instance;
+        if (local == null) {
+            synchronized (DatabaseManager.class) {
+                local = instance;
+                if (local == null) {
+                    local = new DatabaseManager(context);
+                    instance = local;
+                    Log.d(TAG, "Database manager created");
+                }
+            }
+        }
+        return local;
+    }
+
+    /**
+     * Получение соединения в аренду. Каждому вызову должен соответствовать release()
+     */
+    public synchronized SQLiteDatabase acquire() throws SQLException {
+        if (database == null || !database.isOpen()) {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                database = dbHelper.getWritableDatabase();
+            } catch (SQLException e) {
+                Log.e(TAG, "Error opening database: " + e.getMessage());
+                throw e;
+            }
+            Log.d(TAG, "Database opened in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        }
+        leaseCount++;
+        Log.d(TAG, "Lease acquired, active leases: " + leaseCount);
+
+        if (!backgroundMigrationsStarted) {
+            backgroundMigrationsStarted = true;
+            startBackgroundMigrations();
+        }
+        if (!statisticsReconcileStarted) {
+            statisticsReconcileStarted = true;
+            startStatisticsReconcile();
+        }
+        return database;
+    }
+
+    /**
+     * Запуск отложенных шагов миграций (индексы, заполнение колонок) в фоновой очереди.
+     * Задача держит свою аренду, чтобы база не закрылась посреди шага
+     */
+    private void startBackgroundMigrations() {
+        final MigrationRunner runner = dbHelper.getMigrationRunner();
+        if (!runner.hasPendingSteps(database)) {
+            return;
+        }
+
+        DatabaseExecutor.getInstance().execute(DatabaseExecutor.Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = acquire();
+                try {
+                    runner.runPendingSteps(db);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error running background migrations: " + e.getMessage(), e);
+                } finally {
+                    // Шаги могли заполнить графики и справочник специализаций в обход DAO
+                    doctorAvailabilities.clear();
+                    specializationDictionary.clear();
+                    release();
+                }
+            }
+        });
+        Log.d(TAG, "Background migrations started");
+    }
+
+    /**
+     * Сверка счётчиков Statistics с таблицами, раз за запуск процесса.
+     * Исправляет расхождения, если триггеры когда-либо пропустили изменение
+     */
+    private void startStatisticsReconcile() {
+        DatabaseExecutor.getInstance().executeDelayed(DatabaseExecutor.Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                SQLiteDatabase db = acquire();
+                try {
+                    StatisticsDao.reconcile(db);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error reconciling statistics: " + e.getMessage(), e);
+                } finally {
+                    release();
+                }
+            }
+        }, RECONCILE_DELAY_MS);
+    }
+
+    /**
+     * Возврат соединения. Последний release() закрывает базу
+     */
+    public synchronized void release() {
+        if (leaseCount == 0) {
+            Log.w(TAG, "release() called without matching acquire()");
+            return;
+        }
+
+        leaseCount--;
+        Log.d(TAG, "Lease released, active leases: " + leaseCount);
+
+        if (leaseCount == 0) {
+            statementCache.close();
+            dbHelper.close();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Однозначный запрос через кэш скомпилированных запросов соединения.
+     * Вызывающий должен держать аренду
+     */
+    long queryForLong(String sql, long defaultValue, String... args) {
+        SQLiteDatabase db;
+        synchronized (this) {
+            if (database == null || !database.isOpen()) {
+                throw new IllegalStateException("Database is not acquired");
+            }
+            db = database;
+        }
+        return statementCache.queryForLong(db, sql, defaultValue, args);
+    }
+
+    /**
+     * Кэши сущностей по ID; счётчики попаданий доступны во время работы
+     */
+    public EntityCache<Patient> getPatientCache() {
+        return patientCache;
+    }
+
+    public EntityCache<Doctor> getDoctorCache() {
+        return doctorCache;
+    }
+
+    public EntityCache<User> getUserCache() {
+        return userCache;
+    }
+
+    /**
+     * Фильтры быстрых отрицательных ответов для проверок уникальности
+     */
+    UniqueKeyFilter getPolicyFilter() {
+        return policyFilter;
+    }
+
+    UniqueKeyFilter getDoctorEmailFilter() {
+        return doctorEmailFilter;
+    }
+
+    UniqueKeyFilter getUsernameFilter() {
+        return usernameFilter;
+    }
+
+    /**
+     * Занятые интервалы врачей для проверки пересечений приёмов
+     */
+    AppointmentIntervals getAppointmentIntervals() {
+        return appointmentIntervals;
+    }
+
+    /**
+     * Недельные карты доступности врачей
+     */
+    DoctorAvailabilities getDoctorAvailabilities() {
+        return doctorAvailabilities;
+    }
+
+    /**
+     * Справочник специализаций врачей
+     */
+    SpecializationDictionary getSpecializationDictionary() {
+        return specializationDictionary;
+    }
+
+    public synchronized int getLeaseCount() {
+        return leaseCount;
+    }
+}
@@ -0,0 +1,130 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.hospital.management.schedule.ScheduleRule;
+import com.hospital.management.schedule.WeeklyAvailability;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Недельные карты доступности врачей в памяти. Строятся из таблицы DoctorSchedules
+ * одним проходом при первом обращении; после записи графика врача его карта
+ * помечается устаревшей и перестраивается из его строк при следующем обращении.
+ * Одна карта - 256 байт, так что в памяти держатся все врачи
+ */
+final class DoctorAvailabilities {
+    private static final String TAG = "DoctorAvailabilities";
+
+    private static final String SQL_LOAD_ALL =
+            "SELECT " + ScheduleDao.COLUMN_DOCTOR_ID + ", " + ScheduleDao.COLUMN_WEEKDAYS + ", " +
+                    ScheduleDao.COLUMN_START_MINUTE + ", " + ScheduleDao.COLUMN_END_MINUTE + ", " +
+                    ScheduleDao.COLUMN_KIND + " FROM " + ScheduleDao.TABLE_DOCTOR_SCHEDULES +
+                    " ORDER BY " + ScheduleDao.COLUMN_DOCTOR_ID;
+
+    private static final String SQL_LOAD_DOCTOR =
+            "SELECT " + ScheduleDao.COLUMN_DOCTOR_ID + ", " + ScheduleDao.COLUMN_WEEKDAYS + ", " +
+                    ScheduleDao.COLUMN_START_MINUTE + ", " + ScheduleDao.COLUMN_END_MINUTE + ", " +
+                    ScheduleDao.COLUMN_KIND + " FROM " + ScheduleDao.TABLE_DOCTOR_SCHEDULES +
+                    " WHERE " + ScheduleDao.COLUMN_DOCTOR_ID + " = ?";
+
+    // Под монитором this; null - ещё не загружено. Врачей без графика в карте нет
+    private Map<Integer, WeeklyAvailability> byDoctor;
+    private final Set<Integer> stale = new HashSet<>();
+
+    /**
+     * Карта врача; пустая, если графика нет или он не распознан
+     */
+    synchronized WeeklyAvailability get(SQLiteDatabase db, int doctorId) {
+        refresh(db);
+        WeeklyAvailability availability = byDoctor.get(doctorId);
+        return availability != null ? availability : WeeklyAvailability.EMPTY;
+    }
+
+    /**
+     * Копия всех карт (ID врача -> карта) для перебора без монитора
+     */
+    synchronized Map<Integer, WeeklyAvailability> snapshot(SQLiteDatabase db) {
+        refresh(db);
+        return new HashMap<>(byDoctor);
+    }
+
+    /**
+     * График врача изменён или удалён
+     */
+    synchronized void invalidate(int doctorId) {
+        if (byDoctor != null) {
+            stale.add(doctorId);
+        }
+    }
+
+    /**
+     * Строки графиков изменены в обход DAO (миграция)
+     */
+    synchronized void clear() {
+        byDoctor = null;
+        stale.clear();
+    }
+
+    private void refresh(SQLiteDatabase db) {
+        if (byDoctor == null) {
+            byDoctor = load(db, SQL_LOAD_ALL, null);
+            stale.clear();
+            Log.d(TAG, "Loaded availability of " + byDoctor.size() + " doctors");
+            return;
+        }
+        for (Integer doctorId : stale) {
+            Map<Integer, WeeklyAvailability> loaded =
+                    load(db, SQL_LOAD_DOCTOR, new String[]{String.valueOf(doctorId)});
+            WeeklyAvailability availability = loaded.get(doctorId);
+            if (availability != null) {
+                byDoctor.put(doctorId, availability);
+            } else {
+                byDoctor.remove(doctorId);
+            }
+        }
+        stale.clear();
+    }
+
+    // Строки одного врача идут подряд
+    private static Map<Integer, WeeklyAvailability> load(SQLiteDatabase db, String sql, String[] args) {
+        Map<Integer, WeeklyAvailability> result = new HashMap<>();
+        Cursor cursor = db.rawQuery(sql, args);
+        try {
+            int doctorId = -1;
+            List<ScheduleRule> rules = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                int id = cursor.getInt(0);
+                if (id != doctorId && !rules.isEmpty()) {
+                    result.put(doctorId, WeeklyAvailability.compile(rules));
+                    rules.clear();
+                }
+                doctorId = id;
+                try {
+                    rules.add(ScheduleDao.ruleOf(cursor, 1));
+                } catch (IllegalArgumentException e) {
+                    Log.w(TAG, "Skipping invalid schedule row of doctor " + id + ": " + e.getMessage());
+                }
+            }
+            if (!rules.isEmpty()) {
+                result.put(doctorId, WeeklyAvailability.compile(rules));
+            }
+        } finally {
+            cursor.close();
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DoctorAvailabilities{doctors=" + (byDoctor != null ? byDoctor.size() : 0) +
+                ", stale=" + stale.size() + "}";
+    }
+}
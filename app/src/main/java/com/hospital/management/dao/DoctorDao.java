@@ -5,17 +5,30 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Specialization;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DoctorDao {
     private static final String TAG = "DoctorDao";
 
-    private DatabaseHelper dbHelper;
+    private final DatabaseManager databaseManager;
+    private final EntityCache<Doctor> cache;
+    private final UniqueKeyFilter emailFilter;
+    private final DoctorAvailabilities availabilities;
+    private final SpecializationDictionary specializations;
     private SQLiteDatabase database;
 
     // Название таблицы и колонки
@@ -27,15 +40,97 @@ public class DoctorDao {
     public static final String COLUMN_ROOM_NUMBER = "RoomNumber";
     public static final String COLUMN_SCHEDULE = "Schedule";
     public static final String COLUMN_EMAIL = "Email";
+    public static final String COLUMN_SPECIALIZATION_ID = SpecializationDao.COLUMN_SPECIALIZATION_ID;
+
+    // Строки выборки -> Doctor (позиции колонок определяются по курсору)
+    public static final RowMapper.Factory<Doctor> DOCTOR_ROWS = new RowMapper.Factory<Doctor>() {
+        @Override
+        public RowMapper<Doctor> create(Cursor cursor) {
+            return new DoctorRowMapper(cursor);
+        }
+    };
+
+    // Порядок параметров совпадает с bindDoctor()
+    private static final String SQL_INSERT_DOCTOR =
+            "INSERT INTO " + TABLE_DOCTORS + " (" +
+                    COLUMN_FIRST_NAME + ", " + COLUMN_LAST_NAME + ", " + COLUMN_SPECIALIZATION + ", " +
+                    COLUMN_ROOM_NUMBER + ", " + COLUMN_SCHEDULE + ", " + COLUMN_EMAIL + ", " +
+                    COLUMN_SPECIALIZATION_ID + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_UPDATE_DOCTOR =
+            "UPDATE " + TABLE_DOCTORS + " SET " +
+                    COLUMN_FIRST_NAME + " = ?, " + COLUMN_LAST_NAME + " = ?, " + COLUMN_SPECIALIZATION + " = ?, " +
+                    COLUMN_ROOM_NUMBER + " = ?, " + COLUMN_SCHEDULE + " = ?, " + COLUMN_EMAIL + " = ?, " +
+                    COLUMN_SPECIALIZATION_ID + " = ?" +
+                    " WHERE " + COLUMN_DOCTOR_ID + " = ?";
+    private static final int SPECIALIZATION_ID_INDEX = 7;
+    private static final int UPDATE_ID_INDEX = 8;
+
+    // Строка пакета: врач и его график записываются или откатываются вместе.
+    // ';' перед ROLLBACK TO - иначе Android до API 28 принимает его за откат всей транзакции
+    private static final String SQL_SAVEPOINT_ROW = "SAVEPOINT doctor_row";
+    private static final String SQL_ROLLBACK_ROW = ";ROLLBACK TO doctor_row";
+    private static final String SQL_RELEASE_ROW = "RELEASE doctor_row";
+
+    private static final String SQL_SELECT_DOCTOR_BY_ID =
+            "SELECT " + COLUMN_DOCTOR_ID + ", " + COLUMN_FIRST_NAME + ", " + COLUMN_LAST_NAME + ", " +
+                    COLUMN_SPECIALIZATION + ", " + COLUMN_ROOM_NUMBER + ", " + COLUMN_SCHEDULE + ", " + COLUMN_EMAIL +
+                    " FROM " + TABLE_DOCTORS + " WHERE " + COLUMN_DOCTOR_ID + " = ? LIMIT 1";
+
+    // Условие частичного уникального индекса, см. PatientDao.NON_EMPTY_POLICY
+    static final String NON_EMPTY_EMAIL = COLUMN_EMAIL + " <> ''";
+
+    private static final String SQL_FIND_ID_BY_EMAIL =
+            "SELECT " + COLUMN_DOCTOR_ID + " FROM " + TABLE_DOCTORS +
+                    " WHERE " + COLUMN_EMAIL + " = ? AND " + NON_EMPTY_EMAIL + " LIMIT 1";
+
+    private static final String SQL_HAS_RESTRICTING_RECORDS =
+            RelatedRecords.restrictingRecordsQuery(RelatedRecords.DOCTOR_RELATIONS);
+
+    private static final int STREAM_CHUNK_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 500;
+
+    private static final String SQL_SELECT_FOR_SEARCH =
+            "SELECT " + COLUMN_DOCTOR_ID + ", " + COLUMN_FIRST_NAME + ", " + COLUMN_LAST_NAME + ", " +
+                    COLUMN_SPECIALIZATION + ", " + COLUMN_ROOM_NUMBER + ", " + COLUMN_SCHEDULE + ", " +
+                    COLUMN_EMAIL + ", " + COLUMN_SPECIALIZATION_ID + " FROM " + TABLE_DOCTORS +
+                    " ORDER BY " + COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME + ", " + COLUMN_DOCTOR_ID;
+
+    // Копирование и оценка размера для кэша сущностей
+    static final EntityCache.Adapter<Doctor> CACHE_ADAPTER = new EntityCache.Adapter<Doctor>() {
+        @Override
+        public Doctor copy(Doctor doctor) {
+            return new Doctor(doctor);
+        }
+
+        @Override
+        public int sizeOf(Doctor doctor) {
+            return EntityCache.OBJECT_OVERHEAD +
+                    EntityCache.sizeOf(doctor.getFirstName()) +
+                    EntityCache.sizeOf(doctor.getLastName()) +
+                    EntityCache.sizeOf(doctor.getSpecialization()) +
+                    EntityCache.sizeOf(doctor.getRoomNumber()) +
+                    EntityCache.sizeOf(doctor.getSchedule()) +
+                    EntityCache.sizeOf(doctor.getEmail());
+        }
+    };
 
     public DoctorDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        databaseManager = DatabaseManager.getInstance(context);
+        cache = databaseManager.getDoctorCache();
+        emailFilter = databaseManager.getDoctorEmailFilter();
+        availabilities = databaseManager.getDoctorAvailabilities();
+        specializations = databaseManager.getSpecializationDictionary();
     }
 
-    // Открытие базы данных для записи
-    public void open() throws SQLException {
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
         try {
-            database = dbHelper.getWritableDatabase();
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
             Log.d(TAG, "Database opened successfully");
         } catch (SQLException e) {
             Log.e(TAG, "Error opening database: " + e.getMessage());
@@ -43,16 +138,17 @@ public class DoctorDao {
         }
     }
 
-    // Закрытие базы данных
-    public void close() {
-        if (dbHelper != null) {
-            dbHelper.close();
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
             Log.d(TAG, "Database closed");
         }
     }
 
     /**
-     * Добавление нового врача
+     * Добавление нового врача; график из текста записывается в DoctorSchedules той же транзакцией
      */
     public long addDoctor(Doctor doctor) {
         try {
@@ -68,8 +164,27 @@ public class DoctorDao {
             values.put(COLUMN_SCHEDULE, doctor.getSchedule());
             values.put(COLUMN_EMAIL, doctor.getEmail());
 
-            long result = database.insert(TABLE_DOCTORS, null, values);
+            long result;
+            int specializationId;
+            database.beginTransactionNonExclusive();
+            try {
+                specializationId = SpecializationDao.resolveId(database, doctor.getSpecialization());
+                putSpecializationId(values, specializationId);
+                result = database.insert(TABLE_DOCTORS, null, values);
+                if (result != -1) {
+                    ScheduleDao.writeRules(database, (int) result, doctor.getSchedule());
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
             Log.d(TAG, "Doctor added with ID: " + result);
+            specializations.written(specializationId);
+            if (result != -1) {
+                emailFilter.add(doctor.getEmail());
+                availabilities.invalidate((int) result);
+                cacheWritten((int) result, doctor);
+            }
             return result;
         } catch (Exception e) {
             Log.e(TAG, "Error adding doctor: " + e.getMessage(), e);
@@ -77,16 +192,101 @@ public class DoctorDao {
         }
     }
 
+    /**
+     * Пакетное добавление врачей одной транзакцией с одним скомпилированным INSERT.
+     * Ошибка в строке не прерывает пакет: строка откатывается до точки сохранения и попадает
+     * в результат, остальные строки сохраняются
+     */
+    public BulkWriteResult addDoctors(List<Doctor> doctors) {
+        BulkWriteResult result = new BulkWriteResult(doctors.size());
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            SQLiteStatement statement = database.compileStatement(SQL_INSERT_DOCTOR);
+            database.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < doctors.size(); i++) {
+                    database.execSQL(SQL_SAVEPOINT_ROW);
+                    try {
+                        statement.clearBindings();
+                        bindDoctor(statement, doctors.get(i));
+                        bindSpecializationId(statement, doctors.get(i));
+                        long doctorId = statement.executeInsert();
+                        ScheduleDao.writeRules(database, (int) doctorId, doctors.get(i).getSchedule());
+                        database.execSQL(SQL_RELEASE_ROW);
+                        result.setSuccess(i, doctorId);
+                        emailFilter.add(doctors.get(i).getEmail());
+                    } catch (RuntimeException e) {
+                        rollbackRow();
+                        result.setFailure(i, e.getMessage());
+                    }
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                statement.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding doctors: " + e.getMessage(), e);
+            result.failAll(e.getMessage());
+        }
+        for (int i = 0; i < result.size(); i++) {
+            if (result.isSuccess(i)) {
+                availabilities.invalidate((int) result.getRowId(i));
+            }
+        }
+        // Пакет мог добавить специализации в справочник
+        specializations.clear();
+        result.setDurationNanos(SystemClock.elapsedRealtimeNanos() - start);
+        Log.d(TAG, "Bulk insert: " + result);
+        return result;
+    }
+
     /**
      * Получение врача по ID
      */
     public Doctor getDoctorById(int doctorId) {
+        Doctor cached = cache.get(doctorId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.loadStamp();
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
 
             Doctor doctor = null;
+            Cursor cursor = database.rawQuery(SQL_SELECT_DOCTOR_BY_ID, new String[]{String.valueOf(doctorId)});
+            try {
+                if (cursor.moveToFirst()) {
+                    doctor = new DoctorRowMapper(cursor).map(cursor);
+                }
+            } finally {
+                cursor.close();
+            }
+            if (doctor != null) {
+                cache.putLoaded(doctorId, doctor, stamp);
+            }
+            return doctor;
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting doctor by ID: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Получение всех врачей
+     */
+    public List<Doctor> getAllDoctors() {
+        List<Doctor> doctors = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
 
             String[] columns = {
                     COLUMN_DOCTOR_ID,
@@ -98,33 +298,126 @@ public class DoctorDao {
                     COLUMN_EMAIL
             };
 
-            String selection = COLUMN_DOCTOR_ID + " = ?";
-            String[] selectionArgs = {String.valueOf(doctorId)};
-
             Cursor cursor = database.query(
                     TABLE_DOCTORS,
                     columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
+                    null, null, null, null,
+                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
             );
 
-            if (cursor != null && cursor.moveToFirst()) {
-                doctor = cursorToDoctor(cursor);
+            if (cursor != null) {
+                RowMapper<Doctor> mapper = new DoctorRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    Doctor doctor = mapper.map(cursor);
+                    doctors.add(doctor);
+                }
                 cursor.close();
             }
-            return doctor;
+            Log.d(TAG, "Retrieved " + doctors.size() + " doctors");
         } catch (Exception e) {
-            Log.e(TAG, "Error getting doctor by ID: " + e.getMessage(), e);
-            return null;
+            Log.e(TAG, "Error getting all doctors: " + e.getMessage(), e);
         }
+        return doctors;
     }
 
     /**
-     * Получение всех врачей
+     * Обход всех врачей по возрастанию DoctorID без загрузки списка в память.
+     * Строки, не проходящие проверку модели Doctor, пропускаются с записью в лог.
+     * Возвращает число переданных строк
      */
-    public List<Doctor> getAllDoctors() {
-        List<Doctor> doctors = new ArrayList<>();
+    public long forEachDoctor(RowConsumer<Doctor> consumer) throws IOException {
+        if (database == null || !database.isOpen()) {
+            open();
+        }
+
+        String[] columns = {
+                COLUMN_DOCTOR_ID,
+                COLUMN_FIRST_NAME,
+                COLUMN_LAST_NAME,
+                COLUMN_SPECIALIZATION,
+                COLUMN_ROOM_NUMBER,
+                COLUMN_SCHEDULE,
+                COLUMN_EMAIL
+        };
+
+        long count = 0;
+        int lastId = 0;
+        while (true) {
+            Cursor cursor = database.query(
+                    TABLE_DOCTORS,
+                    columns,
+                    COLUMN_DOCTOR_ID + " > ?",
+                    new String[]{String.valueOf(lastId)},
+                    null, null,
+                    COLUMN_DOCTOR_ID,
+                    String.valueOf(STREAM_CHUNK_SIZE)
+            );
+            int rows = 0;
+            try {
+                RowMapper<Doctor> mapper = new DoctorRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    rows++;
+                    lastId = cursor.getInt(0);
+                    Doctor doctor;
+                    try {
+                        doctor = mapper.map(cursor);
+                    } catch (IllegalArgumentException e) {
+                        Log.w(TAG, "Skipping invalid doctor " + lastId + ": " + e.getMessage());
+                        continue;
+                    }
+                    consumer.accept(doctor);
+                    count++;
+                }
+            } finally {
+                cursor.close();
+            }
+            if (rows < STREAM_CHUNK_SIZE) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Страница врачей после ключа (key == null - первая страница).
+     * Порядок: LastName, FirstName, DoctorID
+     */
+    public List<Doctor> getDoctorsPageAfter(PageKey key, int limit) {
+        return getDoctorsPage(key, limit, true, DOCTOR_ROWS);
+    }
+
+    /**
+     * Страница после ключа, строки которой строятся прямо из курсора (например, строки списка
+     * без промежуточного списка Doctor)
+     */
+    public <T> List<T> getDoctorsPageAfter(PageKey key, int limit, RowMapper.Factory<T> rows) {
+        return getDoctorsPage(key, limit, true, rows);
+    }
+
+    /**
+     * Страница врачей перед ключом, в прямом порядке сортировки
+     */
+    public List<Doctor> getDoctorsPageBefore(PageKey key, int limit) {
+        return getDoctorsPageBefore(key, limit, DOCTOR_ROWS);
+    }
+
+    /**
+     * Страница перед ключом из строк, построенных прямо из курсора
+     */
+    public <T> List<T> getDoctorsPageBefore(PageKey key, int limit, RowMapper.Factory<T> rows) {
+        List<T> page = getDoctorsPage(key, limit, false, rows);
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Ключ страницы для врача
+     */
+    public static PageKey pageKeyOf(Doctor doctor) {
+        return new PageKey(doctor.getLastName(), doctor.getFirstName(), doctor.getDoctorId());
+    }
+
+    private <T> List<T> getDoctorsPage(PageKey key, int limit, boolean after, RowMapper.Factory<T> rows) {
+        List<T> page = new ArrayList<>(limit);
         try {
             if (database == null || !database.isOpen()) {
                 open();
@@ -140,29 +433,39 @@ public class DoctorDao {
                     COLUMN_EMAIL
             };
 
+            String selection = null;
+            String[] selectionArgs = null;
+            if (key != null) {
+                selection = PageKey.selection(COLUMN_LAST_NAME, COLUMN_FIRST_NAME, COLUMN_DOCTOR_ID, after);
+                selectionArgs = key.selectionArgs();
+            }
+
             Cursor cursor = database.query(
                     TABLE_DOCTORS,
                     columns,
-                    null, null, null, null,
-                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
+                    selection,
+                    selectionArgs,
+                    null, null,
+                    PageKey.orderBy(COLUMN_LAST_NAME, COLUMN_FIRST_NAME, COLUMN_DOCTOR_ID, after),
+                    String.valueOf(limit)
             );
 
             if (cursor != null) {
+                RowMapper<T> mapper = rows.create(cursor);
                 while (cursor.moveToNext()) {
-                    Doctor doctor = cursorToDoctor(cursor);
-                    doctors.add(doctor);
+                    page.add(mapper.map(cursor));
                 }
                 cursor.close();
             }
-            Log.d(TAG, "Retrieved " + doctors.size() + " doctors");
+            Log.d(TAG, "Retrieved page of " + page.size() + " doctors " + (after ? "after " : "before ") + key);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting all doctors: " + e.getMessage(), e);
+            Log.e(TAG, "Error getting doctors page: " + e.getMessage(), e);
         }
-        return doctors;
+        return page;
     }
 
     /**
-     * Обновление данных врача
+     * Обновление данных врача вместе со строками графика
      */
     public boolean updateDoctor(Doctor doctor) {
         try {
@@ -181,8 +484,27 @@ public class DoctorDao {
             String whereClause = COLUMN_DOCTOR_ID + " = ?";
             String[] whereArgs = {String.valueOf(doctor.getDoctorId())};
 
-            int rowsAffected = database.update(TABLE_DOCTORS, values, whereClause, whereArgs);
+            int rowsAffected;
+            int specializationId;
+            database.beginTransactionNonExclusive();
+            try {
+                specializationId = SpecializationDao.resolveId(database, doctor.getSpecialization());
+                putSpecializationId(values, specializationId);
+                rowsAffected = database.update(TABLE_DOCTORS, values, whereClause, whereArgs);
+                if (rowsAffected > 0) {
+                    ScheduleDao.writeRules(database, doctor.getDoctorId(), doctor.getSchedule());
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+            }
             Log.d(TAG, "Doctor updated, rows affected: " + rowsAffected);
+            specializations.written(specializationId);
+            if (rowsAffected > 0) {
+                emailFilter.add(doctor.getEmail());
+                availabilities.invalidate(doctor.getDoctorId());
+                cacheWritten(doctor.getDoctorId(), doctor);
+            }
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error updating doctor: " + e.getMessage(), e);
@@ -190,6 +512,64 @@ public class DoctorDao {
         }
     }
 
+    /**
+     * Пакетное обновление врачей одной транзакцией с одним скомпилированным UPDATE.
+     * Строка без совпадения по DoctorID считается ошибкой
+     */
+    public BulkWriteResult updateDoctors(List<Doctor> doctors) {
+        BulkWriteResult result = new BulkWriteResult(doctors.size());
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            SQLiteStatement statement = database.compileStatement(SQL_UPDATE_DOCTOR);
+            database.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < doctors.size(); i++) {
+                    Doctor doctor = doctors.get(i);
+                    database.execSQL(SQL_SAVEPOINT_ROW);
+                    try {
+                        statement.clearBindings();
+                        bindDoctor(statement, doctor);
+                        bindSpecializationId(statement, doctor);
+                        statement.bindLong(UPDATE_ID_INDEX, doctor.getDoctorId());
+                        if (statement.executeUpdateDelete() > 0) {
+                            ScheduleDao.writeRules(database, doctor.getDoctorId(), doctor.getSchedule());
+                            database.execSQL(SQL_RELEASE_ROW);
+                            result.setSuccess(i, doctor.getDoctorId());
+                            emailFilter.add(doctor.getEmail());
+                        } else {
+                            // Специализация могла попасть в справочник - откатывается вместе со строкой
+                            rollbackRow();
+                            result.setFailure(i, "Doctor not found: " + doctor.getDoctorId());
+                        }
+                    } catch (RuntimeException e) {
+                        rollbackRow();
+                        result.setFailure(i, e.getMessage());
+                    }
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                statement.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating doctors: " + e.getMessage(), e);
+            result.failAll(e.getMessage());
+        }
+        // Пакет мог откатиться целиком, поэтому закэшированные строки только сбрасываются
+        for (Doctor doctor : doctors) {
+            cache.invalidate(doctor.getDoctorId());
+            availabilities.invalidate(doctor.getDoctorId());
+        }
+        specializations.clear();
+        result.setDurationNanos(SystemClock.elapsedRealtimeNanos() - start);
+        Log.d(TAG, "Bulk update: " + result);
+        return result;
+    }
+
     /**
      * Удаление врача
      */
@@ -202,8 +582,12 @@ public class DoctorDao {
             String whereClause = COLUMN_DOCTOR_ID + " = ?";
             String[] whereArgs = {String.valueOf(doctorId)};
 
+            // При ссылках из связей RESTRICT SQLite отклонит удаление исключением,
+            // связи CASCADE (расписание) удаляются вместе с врачом
             int rowsAffected = database.delete(TABLE_DOCTORS, whereClause, whereArgs);
             Log.d(TAG, "Doctor deleted, rows affected: " + rowsAffected);
+            cache.invalidate(doctorId);
+            availabilities.invalidate(doctorId);
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting doctor: " + e.getMessage(), e);
@@ -212,62 +596,96 @@ public class DoctorDao {
     }
 
     /**
-     * Проверка наличия связанных записей
+     * Проверка наличия связанных записей, запрещающих удаление (одним запросом по индексам)
      */
     public boolean hasRelatedRecords(int doctorId) {
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
+            return databaseManager.queryForLong(SQL_HAS_RESTRICTING_RECORDS, 0, String.valueOf(doctorId)) != 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking related records: " + e.getMessage(), e);
+            return false;
+        }
+    }
 
-            // Проверяем наличие связанных записей в таблице Appointments (если существует)
-            String[] tablesToCheck = {"Appointments", "DoctorSchedules", "MedicalRecords"};
-
-            for (String table : tablesToCheck) {
-                if (isTableExists(table)) {
-                    String query = "SELECT COUNT(*) FROM " + table + " WHERE DoctorID = ?";
-                    Cursor cursor = database.rawQuery(query, new String[]{String.valueOf(doctorId)});
-
-                    if (cursor != null && cursor.moveToFirst()) {
-                        int count = cursor.getInt(0);
-                        cursor.close();
-                        if (count > 0) {
-                            Log.d(TAG, "Found " + count + " related records in table " + table);
-                            return true;
-                        }
-                    }
-                }
+    /**
+     * Врачи специализации в любом написании ("терапевт ", "Терапевт") или по её псевдониму.
+     * Текст сводится к записи справочника, дальше - выборка по индексу idx_doctors_specialization
+     */
+    public List<Doctor> getDoctorsBySpecialization(String specialization) {
+        String key = SpecializationDao.normalize(specialization);
+        if (key.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
             }
 
-            return false;
+            int specializationId = specializations.findId(database, key);
+            if (specializationId == -1) {
+                return new ArrayList<>();
+            }
+            return getDoctorsBySpecializationId(specializationId);
         } catch (Exception e) {
-            Log.e(TAG, "Error checking related records: " + e.getMessage(), e);
-            return false;
+            Log.e(TAG, "Error getting doctors by specialization: " + e.getMessage(), e);
+            return new ArrayList<>();
         }
     }
 
     /**
-     * Проверка существования таблицы
+     * Поиск врачей по фрагменту имени или специализации без учёта регистра, а также по названию
+     * или псевдониму специализации из справочника. Порядок - как в списке (фамилия, имя, ID).
+     * Врачей немного, поэтому строки отбираются при обходе курсора: LIKE в SQLite
+     * не сравнивает кириллицу без учёта регистра.
+     * Отмена через signal прерывает поиск исключением OperationCanceledException
      */
-    private boolean isTableExists(String tableName) {
+    public List<Doctor> searchDoctors(String query, int limit, CancellationSignal signal) {
+        List<Doctor> doctors = new ArrayList<>();
+        String needle = SpecializationDao.normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return doctors;
+        }
+        limit = Math.min(limit, MAX_SEARCH_RESULTS);
         try {
-            Cursor cursor = database.rawQuery(
-                    "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
-                    new String[]{tableName}
-            );
-            boolean exists = cursor.getCount() > 0;
-            cursor.close();
-            return exists;
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            int specializationId = specializations.findId(database, needle);
+            Cursor cursor = database.rawQuery(SQL_SELECT_FOR_SEARCH, null, signal);
+            try {
+                RowMapper<Doctor> mapper = new DoctorRowMapper(cursor);
+                int specializationColumn = cursor.getColumnIndexOrThrow(COLUMN_SPECIALIZATION_ID);
+                while (doctors.size() < limit && cursor.moveToNext()) {
+                    Doctor doctor = mapper.map(cursor);
+                    if (contains(doctor.getFullName(), needle) || contains(doctor.getSpecialization(), needle) ||
+                            (specializationId != -1 && cursor.getInt(specializationColumn) == specializationId)) {
+                        doctors.add(doctor);
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+            Log.d(TAG, "Search '" + needle + "' found " + doctors.size() + " doctors");
+        } catch (OperationCanceledException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error checking table existence: " + e.getMessage(), e);
-            return false;
+            Log.e(TAG, "Error searching doctors: " + e.getMessage(), e);
         }
+        return doctors;
+    }
+
+    private static boolean contains(String value, String needle) {
+        return value != null && SpecializationDao.normalize(value).contains(needle);
     }
 
     /**
-     * Поиск врачей по специализации
+     * Врачи специализации из справочника, по фамилии и имени
      */
-    public List<Doctor> getDoctorsBySpecialization(String specialization) {
+    public List<Doctor> getDoctorsBySpecializationId(int specializationId) {
         List<Doctor> doctors = new ArrayList<>();
         try {
             if (database == null || !database.isOpen()) {
@@ -284,8 +702,8 @@ public class DoctorDao {
                     COLUMN_EMAIL
             };
 
-            String selection = COLUMN_SPECIALIZATION + " LIKE ?";
-            String[] selectionArgs = {"%" + specialization + "%"};
+            String selection = COLUMN_SPECIALIZATION_ID + " = ?";
+            String[] selectionArgs = {String.valueOf(specializationId)};
 
             Cursor cursor = database.query(
                     TABLE_DOCTORS,
@@ -293,12 +711,13 @@ public class DoctorDao {
                     selection,
                     selectionArgs,
                     null, null,
-                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
+                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME + ", " + COLUMN_DOCTOR_ID
             );
 
             if (cursor != null) {
+                RowMapper<Doctor> mapper = new DoctorRowMapper(cursor);
                 while (cursor.moveToNext()) {
-                    Doctor doctor = cursorToDoctor(cursor);
+                    Doctor doctor = mapper.map(cursor);
                     doctors.add(doctor);
                 }
                 cursor.close();
@@ -313,31 +732,31 @@ public class DoctorDao {
      * Проверка существования email
      */
     public boolean isEmailExists(String email) {
+        return findDoctorIdByEmail(email) != -1;
+    }
+
+    /**
+     * ID врача с указанным email или -1. Проба уникального индекса idx_doctors_email_unique
+     */
+    public int findDoctorIdByEmail(String email) {
+        if (email == null || email.isEmpty()) {
+            return -1;
+        }
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
-
-            String[] columns = {COLUMN_DOCTOR_ID};
-            String selection = COLUMN_EMAIL + " = ?";
-            String[] selectionArgs = {email};
-
-            Cursor cursor = database.query(
-                    TABLE_DOCTORS,
-                    columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
-            );
-
-            boolean exists = cursor != null && cursor.getCount() > 0;
-            if (cursor != null) {
-                cursor.close();
+            if (!emailFilter.mightContain(email)) {
+                return -1;
             }
-            return exists;
+            int doctorId = (int) databaseManager.queryForLong(SQL_FIND_ID_BY_EMAIL, -1, email);
+            if (doctorId == -1) {
+                emailFilter.recordFalsePositive();
+            }
+            return doctorId;
         } catch (Exception e) {
             Log.e(TAG, "Error checking email existence: " + e.getMessage(), e);
-            return false;
+            return -1;
         }
     }
 
@@ -351,6 +770,12 @@ public class DoctorDao {
                 open();
             }
 
+            // Счётчик из Statistics; пока первый пересчёт не выполнен - COUNT(*) по таблице
+            long stored = StatisticsDao.readCount(databaseManager, StatisticsDao.CATEGORY_DOCTORS, StatisticsDao.ITEM_ALL);
+            if (stored >= 0) {
+                return (int) stored;
+            }
+
             String query = "SELECT COUNT(*) FROM " + TABLE_DOCTORS;
             Cursor cursor = database.rawQuery(query, null);
 
@@ -365,17 +790,97 @@ public class DoctorDao {
     }
 
     /**
-     * Преобразование Cursor в объект Doctor
+     * Количество врачей по специализациям (название из справочника -> количество), по алфавиту;
+     * врачи без специализации - под пустым названием в начале
      */
-    private Doctor cursorToDoctor(Cursor cursor) {
-        Doctor doctor = new Doctor();
-        doctor.setDoctorId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_DOCTOR_ID)));
-        doctor.setFirstName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FIRST_NAME)));
-        doctor.setLastName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_NAME)));
-        doctor.setSpecialization(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SPECIALIZATION)));
-        doctor.setRoomNumber(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ROOM_NUMBER)));
-        doctor.setSchedule(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SCHEDULE)));
-        doctor.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EMAIL)));
-        return doctor;
+    public Map<String, Integer> getDoctorsCountBySpecialization() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            // Счётчики сгруппированы по SpecializationID
+            Map<String, Integer> byId = StatisticsDao.readGroupCounts(databaseManager, database,
+                    StatisticsDao.CATEGORY_DOCTORS, StatisticsDao.CATEGORY_DOCTORS_BY_SPECIALIZATION);
+            Integer unspecified = byId.remove("");
+            if (unspecified != null) {
+                counts.put("", unspecified);
+            }
+            for (Specialization specialization : specializations.all(database)) {
+                Integer count = byId.remove(String.valueOf(specialization.getSpecializationId()));
+                if (count != null) {
+                    counts.put(specialization.getName(), count);
+                }
+            }
+            if (!byId.isEmpty()) {
+                Log.w(TAG, "Doctor counters reference unknown specializations: " + byId.keySet());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting doctors count by specialization: " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    /**
+     * Отмена записей текущей строки пакета; транзакция пакета продолжается
+     */
+    private void rollbackRow() {
+        database.execSQL(SQL_ROLLBACK_ROW);
+        database.execSQL(SQL_RELEASE_ROW);
+    }
+
+    /**
+     * Поля врача -> параметры 1-6 запроса вставки или обновления (ссылку ставит bindSpecializationId)
+     */
+    private static void bindDoctor(SQLiteStatement statement, Doctor doctor) {
+        bindText(statement, 1, doctor.getFirstName());
+        bindText(statement, 2, doctor.getLastName());
+        bindText(statement, 3, doctor.getSpecialization());
+        bindText(statement, 4, doctor.getRoomNumber());
+        bindText(statement, 5, doctor.getSchedule());
+        bindText(statement, 6, doctor.getEmail());
+    }
+
+    /**
+     * Ссылка на справочник; вызывается в транзакции пакета, новые специализации добавляются в неё же
+     */
+    private void bindSpecializationId(SQLiteStatement statement, Doctor doctor) {
+        int specializationId = SpecializationDao.resolveId(database, doctor.getSpecialization());
+        if (specializationId == -1) {
+            statement.bindNull(SPECIALIZATION_ID_INDEX);
+        } else {
+            statement.bindLong(SPECIALIZATION_ID_INDEX, specializationId);
+        }
+    }
+
+    private static void putSpecializationId(ContentValues values, int specializationId) {
+        if (specializationId == -1) {
+            values.putNull(COLUMN_SPECIALIZATION_ID);
+        } else {
+            values.put(COLUMN_SPECIALIZATION_ID, specializationId);
+        }
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Сквозная запись в кэш. Внутри внешней транзакции запись может откатиться,
+     * поэтому значение только сбрасывается
+     */
+    private void cacheWritten(int doctorId, Doctor doctor) {
+        if (database.inTransaction()) {
+            cache.invalidate(doctorId);
+            return;
+        }
+        Doctor cached = new Doctor(doctor);
+        cached.setDoctorId(doctorId);
+        cache.put(doctorId, cached);
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+import com.hospital.management.model.Doctor;
+
+/**
+ * Строка Doctors -> Doctor. Сеттеры Doctor проверяют значения,
+ * поэтому некорректная строка даёт IllegalArgumentException
+ */
+final class DoctorRowMapper implements RowMapper<Doctor> {
+    private final int doctorId;
+    private final int firstName;
+    private final int lastName;
+    private final int specialization;
+    private final int roomNumber;
+    private final int schedule;
+    private final int email;
+
+    DoctorRowMapper(Cursor cursor) {
+        doctorId = cursor.getColumnIndex(DoctorDao.COLUMN_DOCTOR_ID);
+        firstName = cursor.getColumnIndex(DoctorDao.COLUMN_FIRST_NAME);
+        lastName = cursor.getColumnIndex(DoctorDao.COLUMN_LAST_NAME);
+        specialization = cursor.getColumnIndex(DoctorDao.COLUMN_SPECIALIZATION);
+        roomNumber = cursor.getColumnIndex(DoctorDao.COLUMN_ROOM_NUMBER);
+        schedule = cursor.getColumnIndex(DoctorDao.COLUMN_SCHEDULE);
+        email = cursor.getColumnIndex(DoctorDao.COLUMN_EMAIL);
+    }
+
+    @Override
+    public Doctor map(Cursor cursor) {
+        Doctor doctor = new Doctor();
+        if (doctorId >= 0) doctor.setDoctorId(cursor.getInt(doctorId));
+        if (firstName >= 0) doctor.setFirstName(cursor.getString(firstName));
+        if (lastName >= 0) doctor.setLastName(cursor.getString(lastName));
+        if (specialization >= 0) doctor.setSpecialization(cursor.getString(specialization));
+        if (roomNumber >= 0) doctor.setRoomNumber(cursor.getString(roomNumber));
+        if (schedule >= 0) doctor.setSchedule(cursor.getString(schedule));
+        if (email >= 0) doctor.setEmail(cursor.getString(email));
+        return doctor;
+    }
+}
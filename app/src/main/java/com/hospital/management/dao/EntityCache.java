@@ -0,0 +1,126 @@
+package com.hospital.management.dao;
+
+import android.util.LruCache;
+
+/**
+ * Ограниченный по объёму LRU-кэш сущностей по ID перед DAO.
+ * Общий на процесс (принадлежит DatabaseManager), читается из любых потоков.
+ * Хранит копии: изменение объекта, полученного из кэша или переданного в кэш,
+ * не меняет закэшированное значение.
+ * Значение, прочитанное из базы, попадает в кэш только если с начала чтения
+ * не было записей (см. loadStamp), иначе старая строка могла бы затереть новую
+ */
+public final class EntityCache<T> {
+
+    /**
+     * Копирование сущности и оценка занимаемой ею памяти в байтах
+     */
+    interface Adapter<T> {
+        T copy(T entity);
+
+        int sizeOf(T entity);
+    }
+
+    // Грубая оценка для sizeOf: заголовок объекта и строки (заголовок + массив char)
+    static final int OBJECT_OVERHEAD = 16;
+    private static final int STRING_OVERHEAD = 40;
+
+    private final String name;
+    private final Adapter<T> adapter;
+    private final LruCache<Integer, T> cache;
+    // Число записей через кэш; меняется под монитором this
+    private long writeCount;
+
+    EntityCache(String name, int maxBytes, final Adapter<T> adapter) {
+        this.name = name;
+        this.adapter = adapter;
+        this.cache = new LruCache<Integer, T>(maxBytes) {
+            @Override
+            protected int sizeOf(Integer key, T value) {
+                return adapter.sizeOf(value);
+            }
+        };
+    }
+
+    /**
+     * Копия сущности из кэша или null
+     */
+    T get(int id) {
+        T entity = cache.get(id);
+        return entity != null ? adapter.copy(entity) : null;
+    }
+
+    /**
+     * Отметка перед чтением из базы при промахе; передаётся в putLoaded
+     */
+    synchronized long loadStamp() {
+        return writeCount;
+    }
+
+    /**
+     * Сущность, прочитанная из базы. Не кэшируется, если после loadStamp была запись
+     */
+    synchronized void putLoaded(int id, T entity, long stamp) {
+        if (stamp == writeCount) {
+            cache.put(id, adapter.copy(entity));
+        }
+    }
+
+    /**
+     * Запись: сущность добавлена или изменена в базе
+     */
+    synchronized void put(int id, T entity) {
+        writeCount++;
+        cache.put(id, adapter.copy(entity));
+    }
+
+    /**
+     * Запись: сущность удалена или её состояние в базе неизвестно
+     */
+    synchronized void invalidate(int id) {
+        writeCount++;
+        cache.remove(id);
+    }
+
+    synchronized void clear() {
+        writeCount++;
+        cache.evictAll();
+    }
+
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    public int missCount() {
+        return cache.missCount();
+    }
+
+    public int evictionCount() {
+        return cache.evictionCount();
+    }
+
+    /**
+     * Текущий объём в байтах (оценка)
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    public int maxSize() {
+        return cache.maxSize();
+    }
+
+    static int sizeOf(String value) {
+        return value != null ? STRING_OVERHEAD + 2 * value.length() : 0;
+    }
+
+    @Override
+    public String toString() {
+        int hits = hitCount();
+        int requests = hits + missCount();
+        return name + " cache{hits=" + hits + ", misses=" + missCount() +
+                ", evictions=" + evictionCount() +
+                ", hitRate=" + (requests > 0 ? (100 * hits / requests) + "%" : "-") +
+                ", size=" + size() + "/" + maxSize() + " bytes}";
+    }
+}
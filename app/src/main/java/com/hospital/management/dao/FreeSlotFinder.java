@@ -0,0 +1,138 @@
+package com.hospital.management.dao;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.schedule.FreeSlot;
+import com.hospital.management.schedule.WeeklyAvailability;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TimeZone;
+
+/**
+ * Поиск ближайших свободных слотов у нескольких врачей.
+ * Для каждого врача свободные слоты идут по возрастанию времени: недельная карта
+ * доступности (пропуски ищутся по словам карты) минус занятые приёмы из AppointmentIntervals.
+ * Потоки врачей сливаются через очередь с приоритетом по времени следующего слота (k-way merge),
+ * поэтому работа пропорциональна числу врачей и найденных слотов, а не длине горизонта.
+ * Слоты начинаются на границах пятиминуток; следующий слот того же врача - не раньше
+ * конца предыдущего
+ */
+final class FreeSlotFinder {
+    private static final String TAG = "FreeSlotFinder";
+
+    private static final long SLOT_MS = WeeklyAvailability.SLOT_MINUTES * 60 * 1000L;
+
+    private final SQLiteDatabase db;
+    private final DoctorAvailabilities availabilities;
+    private final AppointmentIntervals intervals;
+
+    FreeSlotFinder(SQLiteDatabase db, DoctorAvailabilities availabilities, AppointmentIntervals intervals) {
+        this.db = db;
+        this.availabilities = availabilities;
+        this.intervals = intervals;
+    }
+
+    /**
+     * Не более limit ближайших слотов длительностью durationMinutes в [from, to) по всем врачам,
+     * по возрастанию начала (при равенстве - по ID врача)
+     */
+    List<FreeSlot> find(List<Integer> doctorIds, long from, long to, int durationMinutes, int limit) {
+        long started = SystemClock.elapsedRealtime();
+        List<FreeSlot> slots = new ArrayList<>(limit);
+        long durationMs = durationMinutes * 60 * 1000L;
+        int count = (durationMinutes + WeeklyAvailability.SLOT_MINUTES - 1) / WeeklyAvailability.SLOT_MINUTES;
+        Calendar calendar = Calendar.getInstance(TimeZone.getDefault());
+
+        PriorityQueue<DoctorSlots> queue = new PriorityQueue<>(Math.max(1, doctorIds.size()),
+                new Comparator<DoctorSlots>() {
+                    @Override
+                    public int compare(DoctorSlots a, DoctorSlots b) {
+                        if (a.next != b.next) {
+                            return a.next < b.next ? -1 : 1;
+                        }
+                        return Integer.compare(a.doctorId, b.doctorId);
+                    }
+                });
+        for (Integer doctorId : doctorIds) {
+            WeeklyAvailability availability = availabilities.get(db, doctorId);
+            if (availability.isEmpty()) {
+                continue;
+            }
+            DoctorSlots doctor = new DoctorSlots(doctorId, availability,
+                    intervals.busyBetween(db, doctorId, from, to));
+            if (doctor.advance(from, to, durationMs, count, calendar)) {
+                queue.add(doctor);
+            }
+        }
+
+        while (slots.size() < limit && !queue.isEmpty()) {
+            DoctorSlots doctor = queue.poll();
+            long start = doctor.next;
+            slots.add(new FreeSlot(doctor.doctorId, start, start + durationMs));
+            if (doctor.advance(start + durationMs, to, durationMs, count, calendar)) {
+                queue.add(doctor);
+            }
+        }
+        Log.d(TAG, "Found " + slots.size() + " slots among " + doctorIds.size() + " doctors in " +
+                (SystemClock.elapsedRealtime() - started) + " ms");
+        return slots;
+    }
+
+    /**
+     * Поток свободных слотов одного врача; next - начало текущего слота
+     */
+    private static final class DoctorSlots {
+        final int doctorId;
+        final WeeklyAvailability availability;
+        // Пары start, end по возрастанию; busyIndex - первый интервал, ещё не закончившийся к next
+        final long[] busy;
+        int busyIndex;
+        long next;
+
+        DoctorSlots(int doctorId, WeeklyAvailability availability, long[] busy) {
+            this.doctorId = doctorId;
+            this.availability = availability;
+            this.busy = busy;
+        }
+
+        /**
+         * Первый свободный слот, начинающийся не раньше from и заканчивающийся не позже to.
+         * Возвращает false, если такого нет
+         */
+        boolean advance(long from, long to, long durationMs, int count, Calendar calendar) {
+            long time = align(from);
+            while (time + durationMs <= to) {
+                int skip = availability.nextRun(WeeklyAvailability.slotOf(calendar, time), count);
+                if (skip < 0) {
+                    return false;
+                }
+                if (skip > 0) {
+                    // После перехода на летнее/зимнее время слот проверяется заново
+                    time += skip * SLOT_MS;
+                    continue;
+                }
+                while (busyIndex < busy.length && busy[busyIndex + 1] <= time) {
+                    busyIndex += 2;
+                }
+                if (busyIndex < busy.length && busy[busyIndex] < time + durationMs) {
+                    time = align(busy[busyIndex + 1]);
+                    continue;
+                }
+                next = time;
+                return true;
+            }
+            return false;
+        }
+
+        private static long align(long time) {
+            long remainder = time % SLOT_MS;
+            return remainder == 0 ? time : time + SLOT_MS - remainder;
+        }
+    }
+}
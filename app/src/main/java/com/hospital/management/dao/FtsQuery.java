@@ -0,0 +1,80 @@
+package com.hospital.management.dao;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Построение запросов MATCH для FTS4 и ранжирование результатов по matchinfo()
+ */
+final class FtsQuery {
+    // Буквы любого алфавита и цифры - то же, что выделяет токенизатор unicode61
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    // Формат matchinfo: p (фраз), c (колонок), n (строк в индексе), x (3 числа на фразу и колонку)
+    static final String MATCHINFO_FORMAT = "pcnx";
+
+    private FtsQuery() {}
+
+    /**
+     * Превращение пользовательского ввода в префиксный запрос: "сид мар" -> "сид* мар*".
+     * Служебный синтаксис FTS из ввода отбрасывается. column != null ограничивает поиск колонкой.
+     * Возвращает null, если во вводе нет ни одного слова
+     */
+    static String build(String input, String column) {
+        if (input == null) {
+            return null;
+        }
+
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN_PATTERN.matcher(input);
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder match = new StringBuilder();
+        for (String token : tokens) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(token).append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Релевантность строки: для каждой фразы и колонки - число совпадений в строке,
+     * умноженное на вес колонки и на редкость фразы (IDF)
+     */
+    static double rank(byte[] matchinfo, double[] columnWeights) {
+        ByteBuffer buffer = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder());
+        int phrases = buffer.getInt(0);
+        int columns = buffer.getInt(4);
+        long rows = buffer.getInt(8) & 0xFFFFFFFFL;
+
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int offset = 12 + 12 * (phrase * columns + column);
+                int hitsInRow = buffer.getInt(offset);
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                int rowsWithHits = buffer.getInt(offset + 8);
+                double idf = Math.log(1.0 + (double) rows / Math.max(1, rowsWithHits));
+                double weight = column < columnWeights.length ? columnWeights[column] : 1.0;
+                score += weight * hitsInRow * idf;
+            }
+        }
+        return score;
+    }
+}
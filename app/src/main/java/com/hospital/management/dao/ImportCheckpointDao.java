@@ -0,0 +1,151 @@
+package com.hospital.management.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+/**
+ * Контрольные точки импорта: сколько записей файла уже обработано.
+ * Точка сохраняется в той же транзакции, что и порция данных, поэтому
+ * прерванный импорт продолжается ровно с первой незафиксированной записи
+ */
+public class ImportCheckpointDao {
+    private static final String TAG = "ImportCheckpointDao";
+
+    private final DatabaseManager databaseManager;
+    private SQLiteDatabase database;
+
+    // Название таблицы и колонки
+    public static final String TABLE_IMPORT_CHECKPOINTS = "ImportCheckpoints";
+    public static final String COLUMN_IMPORT_ID = "ImportID";
+    public static final String COLUMN_RECORDS_DONE = "RecordsDone";
+    public static final String COLUMN_IMPORTED = "Imported";
+    public static final String COLUMN_REJECTED = "Rejected";
+    public static final String COLUMN_UPDATED_AT = "UpdatedAt";
+
+    /**
+     * Состояние импорта на момент последней зафиксированной порции
+     */
+    public static class Checkpoint {
+        private final long recordsDone;
+        private final long imported;
+        private final long rejected;
+
+        public Checkpoint(long recordsDone, long imported, long rejected) {
+            this.recordsDone = recordsDone;
+            this.imported = imported;
+            this.rejected = rejected;
+        }
+
+        public long getRecordsDone() {
+            return recordsDone;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+    }
+
+    public ImportCheckpointDao(Context context) {
+        databaseManager = DatabaseManager.getInstance(context);
+    }
+
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
+        try {
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
+            Log.d(TAG, "Database opened successfully");
+        } catch (SQLException e) {
+            Log.e(TAG, "Error opening database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Контрольная точка импорта или null, если импорт не начинался
+     */
+    public Checkpoint getCheckpoint(String importId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            Cursor cursor = database.query(
+                    TABLE_IMPORT_CHECKPOINTS,
+                    new String[]{COLUMN_RECORDS_DONE, COLUMN_IMPORTED, COLUMN_REJECTED},
+                    COLUMN_IMPORT_ID + " = ?",
+                    new String[]{importId},
+                    null, null, null
+            );
+            try {
+                if (cursor.moveToFirst()) {
+                    return new Checkpoint(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2));
+                }
+                return null;
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting import checkpoint: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Сохранение контрольной точки. Ошибка пробрасывается, чтобы откатить
+     * транзакцию порции вместе с точкой
+     */
+    public void saveCheckpoint(String importId, Checkpoint checkpoint) {
+        if (database == null || !database.isOpen()) {
+            open();
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_IMPORT_ID, importId);
+        values.put(COLUMN_RECORDS_DONE, checkpoint.getRecordsDone());
+        values.put(COLUMN_IMPORTED, checkpoint.getImported());
+        values.put(COLUMN_REJECTED, checkpoint.getRejected());
+        values.put(COLUMN_UPDATED_AT, System.currentTimeMillis());
+
+        database.insertWithOnConflict(TABLE_IMPORT_CHECKPOINTS, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Удаление контрольной точки после завершения импорта
+     */
+    public boolean deleteCheckpoint(String importId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            int rowsAffected = database.delete(TABLE_IMPORT_CHECKPOINTS,
+                    COLUMN_IMPORT_ID + " = ?", new String[]{importId});
+            return rowsAffected > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting import checkpoint: " + e.getMessage(), e);
+            return false;
+        }
+    }
+}
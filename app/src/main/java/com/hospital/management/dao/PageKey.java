@@ -0,0 +1,64 @@
+package com.hospital.management.dao;
+
+/**
+ * Ключ страницы для keyset-пагинации по (LastName, FirstName, ID).
+ * Указывает на строку, после (или до) которой начинается следующая страница.
+ */
+public final class PageKey implements Comparable<PageKey> {
+    private final String lastName;
+    private final String firstName;
+    private final int id;
+
+    public PageKey(String lastName, String firstName, int id) {
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.id = id;
+    }
+
+    public String getLastName() { return lastName; }
+    public String getFirstName() { return firstName; }
+    public int getId() { return id; }
+
+    /**
+     * Условие WHERE для строк строго после (after = true) или до ключа.
+     * Первое сравнение по LastName позволяет SQLite идти по индексу диапазоном.
+     */
+    static String selection(String lastNameColumn, String firstNameColumn, String idColumn, boolean after) {
+        String op = after ? ">" : "<";
+        return lastNameColumn + " " + op + "= ? AND (" +
+                lastNameColumn + " " + op + " ? OR (" +
+                lastNameColumn + " = ? AND (" +
+                firstNameColumn + " " + op + " ? OR (" +
+                firstNameColumn + " = ? AND " + idColumn + " " + op + " ?))))";
+    }
+
+    static String orderBy(String lastNameColumn, String firstNameColumn, String idColumn, boolean ascending) {
+        String direction = ascending ? "" : " DESC";
+        return lastNameColumn + direction + ", " + firstNameColumn + direction + ", " + idColumn + direction;
+    }
+
+    String[] selectionArgs() {
+        return new String[]{lastName, lastName, lastName, firstName, firstName, String.valueOf(id)};
+    }
+
+    /**
+     * Порядок строк в списке, как ORDER BY в SQLite (сравнение строк BINARY).
+     * Для текста без суррогатных пар String.compareTo даёт тот же порядок
+     */
+    @Override
+    public int compareTo(PageKey other) {
+        int result = lastName.compareTo(other.lastName);
+        if (result == 0) {
+            result = firstName.compareTo(other.firstName);
+        }
+        if (result == 0) {
+            result = Integer.compare(id, other.id);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PageKey{" + lastName + ", " + firstName + ", " + id + "}";
+    }
+}
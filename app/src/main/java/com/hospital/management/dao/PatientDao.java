@@ -5,17 +5,33 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.hospital.management.model.Patient;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
 
 public class PatientDao {
     private static final String TAG = "PatientDao";
 
-    private DatabaseHelper dbHelper;
+    private final DatabaseManager databaseManager;
+    private final EntityCache<Patient> cache;
+    private final UniqueKeyFilter policyFilter;
     private SQLiteDatabase database;
 
     // Название таблицы и колонки
@@ -31,14 +47,90 @@ public class PatientDao {
     public static final String COLUMN_SNILS = "SNILS";
     public static final String COLUMN_DISTRICT = "District";
 
+    // Строки выборки -> Patient (позиции колонок определяются по курсору)
+    public static final RowMapper.Factory<Patient> PATIENT_ROWS = new RowMapper.Factory<Patient>() {
+        @Override
+        public RowMapper<Patient> create(Cursor cursor) {
+            return new PatientRowMapper(cursor);
+        }
+    };
+
+    // Полнотекстовый индекс: LastName, FirstName, Address, PhoneNumber, PolicyOMS, SNILS
+    public static final String TABLE_PATIENTS_FTS = "PatientsFts";
+    private static final double[] FTS_COLUMN_WEIGHTS = {10.0, 5.0, 1.0, 4.0, 8.0, 8.0};
+    private static final int MAX_SEARCH_RESULTS = 500;
+    // Ограничение SQLite на число параметров в запросе - 999
+    private static final int MAX_QUERY_ARGS = 500;
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    // Порядок параметров совпадает с bindPatient()
+    private static final String SQL_INSERT_PATIENT =
+            "INSERT INTO " + TABLE_PATIENTS + " (" +
+                    COLUMN_FIRST_NAME + ", " + COLUMN_LAST_NAME + ", " + COLUMN_BIRTH_DATE + ", " +
+                    COLUMN_PHONE_NUMBER + ", " + COLUMN_EMAIL + ", " + COLUMN_ADDRESS + ", " +
+                    COLUMN_POLICY_OMS + ", " + COLUMN_SNILS + ", " + COLUMN_DISTRICT +
+                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_UPDATE_PATIENT =
+            "UPDATE " + TABLE_PATIENTS + " SET " +
+                    COLUMN_FIRST_NAME + " = ?, " + COLUMN_LAST_NAME + " = ?, " + COLUMN_BIRTH_DATE + " = ?, " +
+                    COLUMN_PHONE_NUMBER + " = ?, " + COLUMN_EMAIL + " = ?, " + COLUMN_ADDRESS + " = ?, " +
+                    COLUMN_POLICY_OMS + " = ?, " + COLUMN_SNILS + " = ?, " + COLUMN_DISTRICT + " = ?" +
+                    " WHERE " + COLUMN_PATIENT_ID + " = ?";
+    private static final int UPDATE_ID_INDEX = 10;
+
+    private static final String SQL_SELECT_PATIENT_BY_ID =
+            "SELECT " + COLUMN_PATIENT_ID + ", " + COLUMN_FIRST_NAME + ", " + COLUMN_LAST_NAME + ", " +
+                    COLUMN_BIRTH_DATE + ", " + COLUMN_PHONE_NUMBER + ", " + COLUMN_EMAIL + ", " +
+                    COLUMN_ADDRESS + ", " + COLUMN_POLICY_OMS + ", " + COLUMN_SNILS + ", " + COLUMN_DISTRICT +
+                    " FROM " + TABLE_PATIENTS + " WHERE " + COLUMN_PATIENT_ID + " = ? LIMIT 1";
+
+    // Условие частичного уникального индекса; должно дословно входить в запрос,
+    // чтобы планировщик мог использовать индекс
+    static final String NON_EMPTY_POLICY = COLUMN_POLICY_OMS + " <> ''";
+
+    static final String SQL_FIND_ID_BY_POLICY =
+            "SELECT " + COLUMN_PATIENT_ID + " FROM " + TABLE_PATIENTS +
+                    " WHERE " + COLUMN_POLICY_OMS + " = ? AND " + NON_EMPTY_POLICY + " LIMIT 1";
+
+    private static final String SQL_HAS_RESTRICTING_RECORDS =
+            RelatedRecords.restrictingRecordsQuery(RelatedRecords.PATIENT_RELATIONS);
+
+    // Копирование и оценка размера для кэша сущностей
+    static final EntityCache.Adapter<Patient> CACHE_ADAPTER = new EntityCache.Adapter<Patient>() {
+        @Override
+        public Patient copy(Patient patient) {
+            return new Patient(patient);
+        }
+
+        @Override
+        public int sizeOf(Patient patient) {
+            return EntityCache.OBJECT_OVERHEAD +
+                    EntityCache.sizeOf(patient.getFirstName()) +
+                    EntityCache.sizeOf(patient.getLastName()) +
+                    EntityCache.sizeOf(patient.getBirthDate()) +
+                    EntityCache.sizeOf(patient.getPhoneNumber()) +
+                    EntityCache.sizeOf(patient.getEmail()) +
+                    EntityCache.sizeOf(patient.getAddress()) +
+                    EntityCache.sizeOf(patient.getPolicyOMS()) +
+                    EntityCache.sizeOf(patient.getSnils());
+        }
+    };
+
     public PatientDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        databaseManager = DatabaseManager.getInstance(context);
+        cache = databaseManager.getPatientCache();
+        policyFilter = databaseManager.getPolicyFilter();
     }
 
-    // Открытие базы данных для записи
-    public void open() throws SQLException {
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
         try {
-            database = dbHelper.getWritableDatabase();
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
             Log.d(TAG, "Database opened successfully");
         } catch (SQLException e) {
             Log.e(TAG, "Error opening database: " + e.getMessage());
@@ -46,10 +138,11 @@ public class PatientDao {
         }
     }
 
-    // Закрытие базы данных
-    public void close() {
-        if (dbHelper != null) {
-            dbHelper.close();
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
             Log.d(TAG, "Database closed");
         }
     }
@@ -76,6 +169,10 @@ public class PatientDao {
 
             long result = database.insert(TABLE_PATIENTS, null, values);
             Log.d(TAG, "Patient added with ID: " + result);
+            if (result != -1) {
+                policyFilter.add(patient.getPolicyOMS());
+                cacheWritten((int) result, patient);
+            }
             return result;
         } catch (Exception e) {
             Log.e(TAG, "Error adding patient: " + e.getMessage(), e);
@@ -83,16 +180,87 @@ public class PatientDao {
         }
     }
 
+    /**
+     * Пакетное добавление пациентов одной транзакцией с одним скомпилированным INSERT.
+     * Ошибка в строке не прерывает пакет: она попадает в результат, остальные строки сохраняются
+     */
+    public BulkWriteResult addPatients(List<Patient> patients) {
+        BulkWriteResult result = new BulkWriteResult(patients.size());
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            SQLiteStatement statement = database.compileStatement(SQL_INSERT_PATIENT);
+            database.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < patients.size(); i++) {
+                    try {
+                        statement.clearBindings();
+                        bindPatient(statement, patients.get(i));
+                        result.setSuccess(i, statement.executeInsert());
+                        policyFilter.add(patients.get(i).getPolicyOMS());
+                    } catch (SQLException e) {
+                        result.setFailure(i, e.getMessage());
+                    }
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                statement.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding patients: " + e.getMessage(), e);
+            result.failAll(e.getMessage());
+        }
+        result.setDurationNanos(SystemClock.elapsedRealtimeNanos() - start);
+        Log.d(TAG, "Bulk insert: " + result);
+        return result;
+    }
+
     /**
      * Получение пациента по ID
      */
     public Patient getPatientById(int patientId) {
+        Patient cached = cache.get(patientId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.loadStamp();
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
 
             Patient patient = null;
+            Cursor cursor = database.rawQuery(SQL_SELECT_PATIENT_BY_ID, new String[]{String.valueOf(patientId)});
+            try {
+                if (cursor.moveToFirst()) {
+                    patient = new PatientRowMapper(cursor).map(cursor);
+                }
+            } finally {
+                cursor.close();
+            }
+            if (patient != null) {
+                cache.putLoaded(patientId, patient, stamp);
+            }
+            return patient;
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting patient by ID: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Получение всех пациентов
+     */
+    public List<Patient> getAllPatients() {
+        List<Patient> patients = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
 
             String[] columns = {
                     COLUMN_PATIENT_ID,
@@ -107,33 +275,124 @@ public class PatientDao {
                     COLUMN_DISTRICT
             };
 
-            String selection = COLUMN_PATIENT_ID + " = ?";
-            String[] selectionArgs = {String.valueOf(patientId)};
-
             Cursor cursor = database.query(
                     TABLE_PATIENTS,
                     columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
+                    null, null, null, null,
+                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
             );
 
-            if (cursor != null && cursor.moveToFirst()) {
-                patient = cursorToPatient(cursor);
+            if (cursor != null) {
+                RowMapper<Patient> mapper = new PatientRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    Patient patient = mapper.map(cursor);
+                    patients.add(patient);
+                }
                 cursor.close();
             }
-            return patient;
+            Log.d(TAG, "Retrieved " + patients.size() + " patients");
         } catch (Exception e) {
-            Log.e(TAG, "Error getting patient by ID: " + e.getMessage(), e);
-            return null;
+            Log.e(TAG, "Error getting all patients: " + e.getMessage(), e);
         }
+        return patients;
     }
 
     /**
-     * Получение всех пациентов
+     * Обход всех пациентов по возрастанию PatientID без загрузки списка в память.
+     * Строки читаются курсорами по STREAM_CHUNK_SIZE (keyset по PatientID), так что
+     * окно курсора не перечитывается с начала таблицы. Ошибки пробрасываются вызывающему.
+     * Возвращает число переданных строк
      */
-    public List<Patient> getAllPatients() {
-        List<Patient> patients = new ArrayList<>();
+    public long forEachPatient(RowConsumer<Patient> consumer) throws IOException {
+        if (database == null || !database.isOpen()) {
+            open();
+        }
+
+        String[] columns = {
+                COLUMN_PATIENT_ID,
+                COLUMN_FIRST_NAME,
+                COLUMN_LAST_NAME,
+                COLUMN_BIRTH_DATE,
+                COLUMN_PHONE_NUMBER,
+                COLUMN_EMAIL,
+                COLUMN_ADDRESS,
+                COLUMN_POLICY_OMS,
+                COLUMN_SNILS,
+                COLUMN_DISTRICT
+        };
+
+        long count = 0;
+        int lastId = 0;
+        while (true) {
+            Cursor cursor = database.query(
+                    TABLE_PATIENTS,
+                    columns,
+                    COLUMN_PATIENT_ID + " > ?",
+                    new String[]{String.valueOf(lastId)},
+                    null, null,
+                    COLUMN_PATIENT_ID,
+                    String.valueOf(STREAM_CHUNK_SIZE)
+            );
+            int rows = 0;
+            try {
+                RowMapper<Patient> mapper = new PatientRowMapper(cursor);
+                while (cursor.moveToNext()) {
+                    Patient patient = mapper.map(cursor);
+                    lastId = patient.getPatientId();
+                    consumer.accept(patient);
+                    rows++;
+                }
+            } finally {
+                cursor.close();
+            }
+            count += rows;
+            if (rows < STREAM_CHUNK_SIZE) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Страница пациентов после ключа (key == null - первая страница).
+     * Порядок: LastName, FirstName, PatientID
+     */
+    public List<Patient> getPatientsPageAfter(PageKey key, int limit) {
+        return getPatientsPage(key, limit, true, PATIENT_ROWS);
+    }
+
+    /**
+     * Страница после ключа, строки которой строятся прямо из курсора (например, строки списка
+     * без промежуточного списка Patient)
+     */
+    public <T> List<T> getPatientsPageAfter(PageKey key, int limit, RowMapper.Factory<T> rows) {
+        return getPatientsPage(key, limit, true, rows);
+    }
+
+    /**
+     * Страница пациентов перед ключом, в прямом порядке сортировки
+     */
+    public List<Patient> getPatientsPageBefore(PageKey key, int limit) {
+        return getPatientsPageBefore(key, limit, PATIENT_ROWS);
+    }
+
+    /**
+     * Страница перед ключом из строк, построенных прямо из курсора
+     */
+    public <T> List<T> getPatientsPageBefore(PageKey key, int limit, RowMapper.Factory<T> rows) {
+        List<T> page = getPatientsPage(key, limit, false, rows);
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Ключ страницы для пациента
+     */
+    public static PageKey pageKeyOf(Patient patient) {
+        return new PageKey(patient.getLastName(), patient.getFirstName(), patient.getPatientId());
+    }
+
+    private <T> List<T> getPatientsPage(PageKey key, int limit, boolean after, RowMapper.Factory<T> rows) {
+        List<T> page = new ArrayList<>(limit);
         try {
             if (database == null || !database.isOpen()) {
                 open();
@@ -152,25 +411,35 @@ public class PatientDao {
                     COLUMN_DISTRICT
             };
 
+            String selection = null;
+            String[] selectionArgs = null;
+            if (key != null) {
+                selection = PageKey.selection(COLUMN_LAST_NAME, COLUMN_FIRST_NAME, COLUMN_PATIENT_ID, after);
+                selectionArgs = key.selectionArgs();
+            }
+
             Cursor cursor = database.query(
                     TABLE_PATIENTS,
                     columns,
-                    null, null, null, null,
-                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
+                    selection,
+                    selectionArgs,
+                    null, null,
+                    PageKey.orderBy(COLUMN_LAST_NAME, COLUMN_FIRST_NAME, COLUMN_PATIENT_ID, after),
+                    String.valueOf(limit)
             );
 
             if (cursor != null) {
+                RowMapper<T> mapper = rows.create(cursor);
                 while (cursor.moveToNext()) {
-                    Patient patient = cursorToPatient(cursor);
-                    patients.add(patient);
+                    page.add(mapper.map(cursor));
                 }
                 cursor.close();
             }
-            Log.d(TAG, "Retrieved " + patients.size() + " patients");
+            Log.d(TAG, "Retrieved page of " + page.size() + " patients " + (after ? "after " : "before ") + key);
         } catch (Exception e) {
-            Log.e(TAG, "Error getting all patients: " + e.getMessage(), e);
+            Log.e(TAG, "Error getting patients page: " + e.getMessage(), e);
         }
-        return patients;
+        return page;
     }
 
     /**
@@ -198,6 +467,10 @@ public class PatientDao {
 
             int rowsAffected = database.update(TABLE_PATIENTS, values, whereClause, whereArgs);
             Log.d(TAG, "Patient updated, rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                policyFilter.add(patient.getPolicyOMS());
+                cacheWritten(patient.getPatientId(), patient);
+            }
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error updating patient: " + e.getMessage(), e);
@@ -205,6 +478,55 @@ public class PatientDao {
         }
     }
 
+    /**
+     * Пакетное обновление пациентов одной транзакцией с одним скомпилированным UPDATE.
+     * Строка без совпадения по PatientID считается ошибкой
+     */
+    public BulkWriteResult updatePatients(List<Patient> patients) {
+        BulkWriteResult result = new BulkWriteResult(patients.size());
+        long start = SystemClock.elapsedRealtimeNanos();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            SQLiteStatement statement = database.compileStatement(SQL_UPDATE_PATIENT);
+            database.beginTransactionNonExclusive();
+            try {
+                for (int i = 0; i < patients.size(); i++) {
+                    Patient patient = patients.get(i);
+                    try {
+                        statement.clearBindings();
+                        bindPatient(statement, patient);
+                        statement.bindLong(UPDATE_ID_INDEX, patient.getPatientId());
+                        if (statement.executeUpdateDelete() > 0) {
+                            result.setSuccess(i, patient.getPatientId());
+                            policyFilter.add(patient.getPolicyOMS());
+                        } else {
+                            result.setFailure(i, "Patient not found: " + patient.getPatientId());
+                        }
+                    } catch (SQLException e) {
+                        result.setFailure(i, e.getMessage());
+                    }
+                }
+                database.setTransactionSuccessful();
+            } finally {
+                database.endTransaction();
+                statement.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating patients: " + e.getMessage(), e);
+            result.failAll(e.getMessage());
+        }
+        // Пакет мог откатиться целиком, поэтому закэшированные строки только сбрасываются
+        for (Patient patient : patients) {
+            cache.invalidate(patient.getPatientId());
+        }
+        result.setDurationNanos(SystemClock.elapsedRealtimeNanos() - start);
+        Log.d(TAG, "Bulk update: " + result);
+        return result;
+    }
+
     /**
      * Удаление пациента
      */
@@ -217,8 +539,10 @@ public class PatientDao {
             String whereClause = COLUMN_PATIENT_ID + " = ?";
             String[] whereArgs = {String.valueOf(patientId)};
 
+            // При ссылках из связей RESTRICT SQLite отклонит удаление исключением
             int rowsAffected = database.delete(TABLE_PATIENTS, whereClause, whereArgs);
             Log.d(TAG, "Patient deleted, rows affected: " + rowsAffected);
+            cache.invalidate(patientId);
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting patient: " + e.getMessage(), e);
@@ -227,63 +551,117 @@ public class PatientDao {
     }
 
     /**
-     * Проверка наличия связанных записей
+     * Проверка наличия связанных записей, запрещающих удаление (одним запросом по индексам)
      */
     public boolean hasRelatedRecords(int patientId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return databaseManager.queryForLong(SQL_HAS_RESTRICTING_RECORDS, 0, String.valueOf(patientId)) != 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking related records: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Поиск пациентов по фамилии (префиксы слов, без учёта регистра)
+     */
+    public List<Patient> getPatientsByLastName(String lastName) {
+        return getPatientsByIds(searchIds(FtsQuery.build(lastName, COLUMN_LAST_NAME), MAX_SEARCH_RESULTS, null));
+    }
+
+    /**
+     * Полнотекстовый поиск по фрагментам фамилии, имени, адреса, телефона, полиса ОМС и СНИЛС.
+     * Возвращает ID пациентов в порядке убывания релевантности
+     */
+    public List<Integer> searchPatientIds(String query, int limit) {
+        return searchIds(FtsQuery.build(query, null), Math.min(limit, MAX_SEARCH_RESULTS), null);
+    }
+
+    /**
+     * Полнотекстовый поиск пациентов, результаты упорядочены по релевантности
+     */
+    public List<Patient> searchPatients(String query, int limit) {
+        return getPatientsByIds(searchPatientIds(query, limit));
+    }
+
+    /**
+     * То же с отменой: signal прерывает поиск исключением OperationCanceledException
+     * (поиск по мере ввода отменяет запрос устаревшего текста)
+     */
+    public List<Patient> searchPatients(String query, int limit, CancellationSignal signal) {
+        List<Integer> ids = searchIds(FtsQuery.build(query, null), Math.min(limit, MAX_SEARCH_RESULTS), signal);
+        if (signal != null) {
+            signal.throwIfCanceled();
+        }
+        return getPatientsByIds(ids);
+    }
+
+    private List<Integer> searchIds(String match, int limit, CancellationSignal signal) {
+        List<Integer> ids = new ArrayList<>();
+        if (match == null || limit <= 0) {
+            return ids;
+        }
+
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
 
-            // Проверяем наличие связанных записей в таблице Appointments (если существует)
-            String[] tablesToCheck = {"Appointments", "MedicalRecords", "Prescriptions"};
+            String query = "SELECT docid, matchinfo(" + TABLE_PATIENTS_FTS + ", '" + FtsQuery.MATCHINFO_FORMAT + "')" +
+                    " FROM " + TABLE_PATIENTS_FTS +
+                    " WHERE " + TABLE_PATIENTS_FTS + " MATCH ?";
+            Cursor cursor = database.rawQuery(query, new String[]{match}, signal);
 
-            for (String table : tablesToCheck) {
-                if (isTableExists(table)) {
-                    String query = "SELECT COUNT(*) FROM " + table + " WHERE PatientID = ?";
-                    Cursor cursor = database.rawQuery(query, new String[]{String.valueOf(patientId)});
+            // Держим только limit лучших результатов: минимальный по релевантности - в вершине кучи
+            PriorityQueue<double[]> top = new PriorityQueue<>(limit, new Comparator<double[]>() {
+                @Override
+                public int compare(double[] a, double[] b) {
+                    return Double.compare(a[1], b[1]);
+                }
+            });
 
-                    if (cursor != null && cursor.moveToFirst()) {
-                        int count = cursor.getInt(0);
-                        cursor.close();
-                        if (count > 0) {
-                            Log.d(TAG, "Found " + count + " related records in table " + table);
-                            return true;
+            if (cursor != null) {
+                try {
+                    while (cursor.moveToNext()) {
+                        double score = FtsQuery.rank(cursor.getBlob(1), FTS_COLUMN_WEIGHTS);
+                        if (top.size() < limit) {
+                            top.add(new double[]{cursor.getInt(0), score});
+                        } else if (score > top.peek()[1]) {
+                            top.poll();
+                            top.add(new double[]{cursor.getInt(0), score});
                         }
                     }
+                } finally {
+                    // Отмена поиска бросает исключение посреди чтения - курсор закрывается и тогда
+                    cursor.close();
                 }
             }
 
-            return false;
+            while (!top.isEmpty()) {
+                ids.add((int) top.poll()[0]);
+            }
+            Collections.reverse(ids);
+            Log.d(TAG, "Search '" + match + "' found " + ids.size() + " patients");
+        } catch (OperationCanceledException e) {
+            throw e;
         } catch (Exception e) {
-            Log.e(TAG, "Error checking related records: " + e.getMessage(), e);
-            return false;
+            Log.e(TAG, "Error searching patients: " + e.getMessage(), e);
         }
+        return ids;
     }
 
     /**
-     * Проверка существования таблицы
+     * Получение пациентов по списку ID с сохранением порядка списка
      */
-    private boolean isTableExists(String tableName) {
-        try {
-            Cursor cursor = database.rawQuery(
-                    "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
-                    new String[]{tableName}
-            );
-            boolean exists = cursor.getCount() > 0;
-            cursor.close();
-            return exists;
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking table existence: " + e.getMessage(), e);
-            return false;
+    public List<Patient> getPatientsByIds(List<Integer> ids) {
+        List<Patient> patients = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return patients;
         }
-    }
 
-    /**
-     * Поиск пациентов по фамилии
-     */
-    public List<Patient> getPatientsByLastName(String lastName) {
-        List<Patient> patients = new ArrayList<>();
         try {
             if (database == null || !database.isOpen()) {
                 open();
@@ -302,27 +680,39 @@ public class PatientDao {
                     COLUMN_DISTRICT
             };
 
-            String selection = COLUMN_LAST_NAME + " LIKE ?";
-            String[] selectionArgs = {"%" + lastName + "%"};
+            StringBuilder placeholders = new StringBuilder();
+            String[] selectionArgs = new String[ids.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                placeholders.append(i == 0 ? "?" : ", ?");
+                selectionArgs[i] = String.valueOf(ids.get(i));
+            }
 
             Cursor cursor = database.query(
                     TABLE_PATIENTS,
                     columns,
-                    selection,
+                    COLUMN_PATIENT_ID + " IN (" + placeholders + ")",
                     selectionArgs,
-                    null, null,
-                    COLUMN_LAST_NAME + ", " + COLUMN_FIRST_NAME
+                    null, null, null
             );
 
+            Map<Integer, Patient> byId = new HashMap<>();
             if (cursor != null) {
+                RowMapper<Patient> mapper = new PatientRowMapper(cursor);
                 while (cursor.moveToNext()) {
-                    Patient patient = cursorToPatient(cursor);
-                    patients.add(patient);
+                    Patient patient = mapper.map(cursor);
+                    byId.put(patient.getPatientId(), patient);
                 }
                 cursor.close();
             }
+
+            for (Integer id : ids) {
+                Patient patient = byId.get(id);
+                if (patient != null) {
+                    patients.add(patient);
+                }
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Error getting patients by last name: " + e.getMessage(), e);
+            Log.e(TAG, "Error getting patients by IDs: " + e.getMessage(), e);
         }
         return patients;
     }
@@ -331,31 +721,86 @@ public class PatientDao {
      * Проверка существования полиса ОМС
      */
     public boolean isPolicyOMSExists(String policyOMS) {
+        return findPatientIdByPolicyOMS(policyOMS) != -1;
+    }
+
+    /**
+     * ID пациента с указанным полисом ОМС или -1. Проба уникального индекса idx_patients_policy_unique
+     */
+    public int findPatientIdByPolicyOMS(String policyOMS) {
+        if (policyOMS == null || policyOMS.isEmpty()) {
+            return -1;
+        }
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
+            // Почти все проверки при регистрации отрицательные: отвечает фильтр, без запроса
+            if (!policyFilter.mightContain(policyOMS)) {
+                return -1;
+            }
+            int patientId = (int) databaseManager.queryForLong(SQL_FIND_ID_BY_POLICY, -1, policyOMS);
+            if (patientId == -1) {
+                policyFilter.recordFalsePositive();
+            }
+            return patientId;
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking policy OMS existence: " + e.getMessage(), e);
+            return -1;
+        }
+    }
 
-            String[] columns = {COLUMN_PATIENT_ID};
-            String selection = COLUMN_POLICY_OMS + " = ?";
-            String[] selectionArgs = {policyOMS};
-
-            Cursor cursor = database.query(
-                    TABLE_PATIENTS,
-                    columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
-            );
+    /**
+     * Пакетная проверка полисов ОМС: какие из переданных уже есть в базе.
+     * В базу идут только полисы, прошедшие фильтр, - один запрос IN (...)
+     * на каждые MAX_QUERY_ARGS значений
+     */
+    public Set<String> findExistingPolicies(Collection<String> policies) {
+        Set<String> existing = new HashSet<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
 
-            boolean exists = cursor != null && cursor.getCount() > 0;
-            if (cursor != null) {
-                cursor.close();
+            List<String> batch = new ArrayList<>(Math.min(policies.size(), MAX_QUERY_ARGS));
+            for (String policy : policies) {
+                if (policy == null || policy.isEmpty() || !policyFilter.mightContain(policy)) {
+                    continue;
+                }
+                batch.add(policy);
+                if (batch.size() == MAX_QUERY_ARGS) {
+                    queryExistingPolicies(batch, existing);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                queryExistingPolicies(batch, existing);
             }
-            return exists;
         } catch (Exception e) {
-            Log.e(TAG, "Error checking policy OMS existence: " + e.getMessage(), e);
-            return false;
+            Log.e(TAG, "Error checking policies OMS existence: " + e.getMessage(), e);
+        }
+        return existing;
+    }
+
+    private void queryExistingPolicies(List<String> batch, Set<String> existing) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < batch.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+
+        Cursor cursor = database.query(
+                TABLE_PATIENTS,
+                new String[]{COLUMN_POLICY_OMS},
+                COLUMN_POLICY_OMS + " IN (" + placeholders + ") AND " + NON_EMPTY_POLICY,
+                batch.toArray(new String[0]),
+                null, null, null
+        );
+        try {
+            while (cursor.moveToNext()) {
+                existing.add(cursor.getString(0));
+            }
+        } finally {
+            cursor.close();
         }
     }
 
@@ -369,6 +814,12 @@ public class PatientDao {
                 open();
             }
 
+            // Счётчик из Statistics; пока первый пересчёт не выполнен - COUNT(*) по таблице
+            long stored = StatisticsDao.readCount(databaseManager, StatisticsDao.CATEGORY_PATIENTS, StatisticsDao.ITEM_ALL);
+            if (stored >= 0) {
+                return (int) stored;
+            }
+
             String query = "SELECT COUNT(*) FROM " + TABLE_PATIENTS;
             Cursor cursor = database.rawQuery(query, null);
 
@@ -383,20 +834,62 @@ public class PatientDao {
     }
 
     /**
-     * Преобразование Cursor в объект Patient
+     * Количество пациентов по участкам (участок -> количество), по возрастанию номера участка
+     */
+    public Map<Integer, Integer> getPatientsCountByDistrict() {
+        Map<Integer, Integer> counts = new TreeMap<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            Map<String, Integer> groups = StatisticsDao.readGroupCounts(databaseManager, database,
+                    StatisticsDao.CATEGORY_PATIENTS, StatisticsDao.CATEGORY_PATIENTS_BY_DISTRICT);
+            for (Map.Entry<String, Integer> entry : groups.entrySet()) {
+                int district = entry.getKey().isEmpty() ? 0 : Integer.parseInt(entry.getKey());
+                Integer previous = counts.get(district);
+                counts.put(district, entry.getValue() + (previous != null ? previous : 0));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting patients count by district: " + e.getMessage(), e);
+        }
+        return counts;
+    }
+
+    /**
+     * Поля пациента -> параметры 1-9 запроса вставки или обновления
      */
-    private Patient cursorToPatient(Cursor cursor) {
-        Patient patient = new Patient();
-        patient.setPatientId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_PATIENT_ID)));
-        patient.setFirstName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_FIRST_NAME)));
-        patient.setLastName(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_LAST_NAME)));
-        patient.setBirthDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_BIRTH_DATE)));
-        patient.setPhoneNumber(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PHONE_NUMBER)));
-        patient.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_EMAIL)));
-        patient.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ADDRESS)));
-        patient.setPolicyOMS(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_POLICY_OMS)));
-        patient.setSnils(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SNILS)));
-        patient.setDistrict(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_DISTRICT)));
-        return patient;
+    private static void bindPatient(SQLiteStatement statement, Patient patient) {
+        bindText(statement, 1, patient.getFirstName());
+        bindText(statement, 2, patient.getLastName());
+        bindText(statement, 3, patient.getBirthDate());
+        bindText(statement, 4, patient.getPhoneNumber());
+        bindText(statement, 5, patient.getEmail());
+        bindText(statement, 6, patient.getAddress());
+        bindText(statement, 7, patient.getPolicyOMS());
+        bindText(statement, 8, patient.getSnils());
+        statement.bindLong(9, patient.getDistrict());
+    }
+
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Сквозная запись в кэш. Внутри внешней транзакции запись может откатиться,
+     * поэтому значение только сбрасывается
+     */
+    private void cacheWritten(int patientId, Patient patient) {
+        if (database.inTransaction()) {
+            cache.invalidate(patientId);
+            return;
+        }
+        Patient cached = new Patient(patient);
+        cached.setPatientId(patientId);
+        cache.put(patientId, cached);
     }
 }
\ No newline at end of file
@@ -0,0 +1,50 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+import com.hospital.management.model.Patient;
+
+/**
+ * Строка Patients -> Patient
+ */
+final class PatientRowMapper implements RowMapper<Patient> {
+    private final int patientId;
+    private final int firstName;
+    private final int lastName;
+    private final int birthDate;
+    private final int phoneNumber;
+    private final int email;
+    private final int address;
+    private final int policyOMS;
+    private final int snils;
+    private final int district;
+
+    PatientRowMapper(Cursor cursor) {
+        patientId = cursor.getColumnIndex(PatientDao.COLUMN_PATIENT_ID);
+        firstName = cursor.getColumnIndex(PatientDao.COLUMN_FIRST_NAME);
+        lastName = cursor.getColumnIndex(PatientDao.COLUMN_LAST_NAME);
+        birthDate = cursor.getColumnIndex(PatientDao.COLUMN_BIRTH_DATE);
+        phoneNumber = cursor.getColumnIndex(PatientDao.COLUMN_PHONE_NUMBER);
+        email = cursor.getColumnIndex(PatientDao.COLUMN_EMAIL);
+        address = cursor.getColumnIndex(PatientDao.COLUMN_ADDRESS);
+        policyOMS = cursor.getColumnIndex(PatientDao.COLUMN_POLICY_OMS);
+        snils = cursor.getColumnIndex(PatientDao.COLUMN_SNILS);
+        district = cursor.getColumnIndex(PatientDao.COLUMN_DISTRICT);
+    }
+
+    @Override
+    public Patient map(Cursor cursor) {
+        Patient patient = new Patient();
+        if (patientId >= 0) patient.setPatientId(cursor.getInt(patientId));
+        if (firstName >= 0) patient.setFirstName(cursor.getString(firstName));
+        if (lastName >= 0) patient.setLastName(cursor.getString(lastName));
+        if (birthDate >= 0) patient.setBirthDate(cursor.getString(birthDate));
+        if (phoneNumber >= 0) patient.setPhoneNumber(cursor.getString(phoneNumber));
+        if (email >= 0) patient.setEmail(cursor.getString(email));
+        if (address >= 0) patient.setAddress(cursor.getString(address));
+        if (policyOMS >= 0) patient.setPolicyOMS(cursor.getString(policyOMS));
+        if (snils >= 0) patient.setSnils(cursor.getString(snils));
+        if (district >= 0) patient.setDistrict(cursor.getInt(district));
+        return patient;
+    }
+}
@@ -0,0 +1,262 @@
+package com.hospital.management.dao;
+
+import com.hospital.management.schedule.ScheduleRule;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Таблицы, ссылающиеся на пациентов и врачей (приёмы, медкарты, назначения, расписания),
+ * и политика удаления для каждой связи.
+ * Внешние ключи и индексы по PatientID/DoctorID строятся из этого описания.
+ * Политика задаётся здесь, но SQLite фиксирует её в схеме таблицы: изменение
+ * политики существующей связи требует миграции с пересозданием таблицы
+ */
+public final class RelatedRecords {
+
+    /**
+     * RESTRICT - запись нельзя удалить, пока на неё есть ссылки;
+     * CASCADE - ссылающиеся строки удаляются вместе с записью
+     */
+    public enum DeletePolicy {
+        RESTRICT,
+        CASCADE
+    }
+
+    /**
+     * Ссылка table.column на первичный ключ родительской таблицы
+     */
+    public static final class Relation {
+        private final String table;
+        private final String column;
+        private final String parentTable;
+        private final DeletePolicy deletePolicy;
+
+        Relation(String table, String column, String parentTable, DeletePolicy deletePolicy) {
+            this.table = table;
+            this.column = column;
+            this.parentTable = parentTable;
+            this.deletePolicy = deletePolicy;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        public DeletePolicy getDeletePolicy() {
+            return deletePolicy;
+        }
+
+        String foreignKeyClause() {
+            return "FOREIGN KEY (" + column + ") REFERENCES " + parentTable + " (" + column + ")" +
+                    " ON DELETE " + deletePolicy.name();
+        }
+
+        String indexName() {
+            return "idx_" + table.toLowerCase() + "_" + column.toLowerCase();
+        }
+
+        String createIndexSql() {
+            return "CREATE INDEX IF NOT EXISTS " + indexName() + " ON " + table + " (" + column + ")";
+        }
+    }
+
+    // Названия таблиц
+    public static final String TABLE_APPOINTMENTS = "Appointments";
+    public static final String TABLE_MEDICAL_RECORDS = "MedicalRecords";
+    public static final String TABLE_PRESCRIPTIONS = "Prescriptions";
+    public static final String TABLE_DOCTOR_SCHEDULES = "DoctorSchedules";
+
+    // Ссылки совпадают по имени с первичными ключами родительских таблиц
+    public static final String COLUMN_PATIENT_ID = PatientDao.COLUMN_PATIENT_ID;
+    public static final String COLUMN_DOCTOR_ID = DoctorDao.COLUMN_DOCTOR_ID;
+
+    // Связи пациента
+    public static final Relation[] PATIENT_RELATIONS = {
+            patientRelation(TABLE_APPOINTMENTS, DeletePolicy.RESTRICT),
+            patientRelation(TABLE_MEDICAL_RECORDS, DeletePolicy.RESTRICT),
+            patientRelation(TABLE_PRESCRIPTIONS, DeletePolicy.RESTRICT)
+    };
+
+    // Связи врача; расписание без врача смысла не имеет и удаляется вместе с ним
+    public static final Relation[] DOCTOR_RELATIONS = {
+            doctorRelation(TABLE_APPOINTMENTS, DeletePolicy.RESTRICT),
+            doctorRelation(TABLE_DOCTOR_SCHEDULES, DeletePolicy.CASCADE),
+            doctorRelation(TABLE_MEDICAL_RECORDS, DeletePolicy.RESTRICT),
+            doctorRelation(TABLE_PRESCRIPTIONS, DeletePolicy.RESTRICT)
+    };
+
+    // SQL для создания таблиц связей (версия 9)
+    private static final String SQL_CREATE_APPOINTMENTS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + TABLE_APPOINTMENTS + " (" +
+                    AppointmentDao.COLUMN_APPOINTMENT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    COLUMN_PATIENT_ID + " INTEGER NOT NULL," +
+                    COLUMN_DOCTOR_ID + " INTEGER NOT NULL," +
+                    AppointmentDao.COLUMN_START_TIME + " INTEGER NOT NULL," +
+                    AppointmentDao.COLUMN_END_TIME + " INTEGER NOT NULL," +
+                    AppointmentDao.COLUMN_STATUS + " TEXT," +
+                    AppointmentDao.COLUMN_NOTES + " TEXT" +
+                    foreignKeys(TABLE_APPOINTMENTS) +
+                    ")";
+
+    private static final String SQL_CREATE_MEDICAL_RECORDS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + TABLE_MEDICAL_RECORDS + " (" +
+                    "RecordID INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    COLUMN_PATIENT_ID + " INTEGER NOT NULL," +
+                    COLUMN_DOCTOR_ID + " INTEGER," +
+                    "RecordDate TEXT," +
+                    "Diagnosis TEXT," +
+                    "Notes TEXT" +
+                    foreignKeys(TABLE_MEDICAL_RECORDS) +
+                    ")";
+
+    private static final String SQL_CREATE_PRESCRIPTIONS_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + TABLE_PRESCRIPTIONS + " (" +
+                    "PrescriptionID INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    COLUMN_PATIENT_ID + " INTEGER NOT NULL," +
+                    COLUMN_DOCTOR_ID + " INTEGER," +
+                    "Medication TEXT NOT NULL," +
+                    "Dosage TEXT," +
+                    "IssueDate TEXT" +
+                    foreignKeys(TABLE_PRESCRIPTIONS) +
+                    ")";
+
+    private static final String SQL_CREATE_DOCTOR_SCHEDULES_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + TABLE_DOCTOR_SCHEDULES + " (" +
+                    ScheduleDao.COLUMN_SCHEDULE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    COLUMN_DOCTOR_ID + " INTEGER NOT NULL," +
+                    ScheduleDao.COLUMN_WEEKDAYS + " INTEGER NOT NULL," +
+                    ScheduleDao.COLUMN_START_MINUTE + " INTEGER NOT NULL," +
+                    ScheduleDao.COLUMN_END_MINUTE + " INTEGER NOT NULL," +
+                    ScheduleDao.COLUMN_KIND + " INTEGER NOT NULL DEFAULT " + ScheduleRule.KIND_WORK +
+                    foreignKeys(TABLE_DOCTOR_SCHEDULES) +
+                    ")";
+
+    // Составные индексы приёмов (версия 10): "день врача" и "ближайшие приёмы пациента".
+    // Их префикс обслуживает и внешние ключи, поэтому отдельные индексы по ссылкам не нужны
+    private static final String SQL_CREATE_APPOINTMENTS_DOCTOR_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_appointments_doctor_start ON " + TABLE_APPOINTMENTS +
+                    " (" + COLUMN_DOCTOR_ID + ", " + AppointmentDao.COLUMN_START_TIME + ")";
+
+    private static final String SQL_CREATE_APPOINTMENTS_PATIENT_INDEX =
+            "CREATE INDEX IF NOT EXISTS idx_appointments_patient_start ON " + TABLE_APPOINTMENTS +
+                    " (" + COLUMN_PATIENT_ID + ", " + AppointmentDao.COLUMN_START_TIME + ")";
+
+    // Ссылающиеся таблицы удаляются раньше родительских
+    private static final String[] RELATED_TABLES = {
+            TABLE_APPOINTMENTS, TABLE_MEDICAL_RECORDS, TABLE_PRESCRIPTIONS, TABLE_DOCTOR_SCHEDULES
+    };
+
+    private RelatedRecords() {
+    }
+
+    /**
+     * Таблицы связей и индексы по ссылкам: без индекса каждое удаление
+     * родительской записи просматривало бы всю дочернюю таблицу
+     */
+    static String[] createStatements() {
+        List<String> statements = new ArrayList<>();
+        statements.add(SQL_CREATE_APPOINTMENTS_TABLE);
+        statements.add(SQL_CREATE_MEDICAL_RECORDS_TABLE);
+        statements.add(SQL_CREATE_PRESCRIPTIONS_TABLE);
+        statements.add(SQL_CREATE_DOCTOR_SCHEDULES_TABLE);
+        for (Relation relation : PATIENT_RELATIONS) {
+            if (!TABLE_APPOINTMENTS.equals(relation.getTable())) {
+                statements.add(relation.createIndexSql());
+            }
+        }
+        for (Relation relation : DOCTOR_RELATIONS) {
+            if (!TABLE_APPOINTMENTS.equals(relation.getTable())) {
+                statements.add(relation.createIndexSql());
+            }
+        }
+        statements.add(SQL_CREATE_APPOINTMENTS_DOCTOR_INDEX);
+        statements.add(SQL_CREATE_APPOINTMENTS_PATIENT_INDEX);
+        return statements.toArray(new String[0]);
+    }
+
+    /**
+     * Переход с одиночных индексов по ссылкам приёмов (версия 9) на составные
+     */
+    static String[] appointmentIndexStatements() {
+        return new String[]{
+                SQL_CREATE_APPOINTMENTS_DOCTOR_INDEX,
+                SQL_CREATE_APPOINTMENTS_PATIENT_INDEX,
+                "DROP INDEX IF EXISTS " + doctorRelation(TABLE_APPOINTMENTS, DeletePolicy.RESTRICT).indexName(),
+                "DROP INDEX IF EXISTS " + patientRelation(TABLE_APPOINTMENTS, DeletePolicy.RESTRICT).indexName()
+        };
+    }
+
+    /**
+     * Пересоздание таблицы графиков с колонкой Kind (версия 11). Строки графиков выводятся
+     * из Doctors.Schedule и заполняются заново фоновым шагом, поэтому таблица не переносится
+     */
+    static String[] doctorScheduleStatements() {
+        return new String[]{
+                "DROP TABLE IF EXISTS " + TABLE_DOCTOR_SCHEDULES,
+                SQL_CREATE_DOCTOR_SCHEDULES_TABLE,
+                doctorRelation(TABLE_DOCTOR_SCHEDULES, DeletePolicy.CASCADE).createIndexSql()
+        };
+    }
+
+    static String[] dropStatements() {
+        String[] statements = new String[RELATED_TABLES.length];
+        for (int i = 0; i < RELATED_TABLES.length; i++) {
+            statements[i] = "DROP TABLE IF EXISTS " + RELATED_TABLES[i];
+        }
+        return statements;
+    }
+
+    /**
+     * Один запрос: есть ли строки, запрещающие удаление (связи RESTRICT).
+     * Каждый EXISTS - проба индекса по ссылке; параметр ?1 - ID родительской записи.
+     * Связи CASCADE удалению не мешают и не проверяются
+     */
+    static String restrictingRecordsQuery(Relation[] relations) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        boolean first = true;
+        for (Relation relation : relations) {
+            if (relation.getDeletePolicy() != DeletePolicy.RESTRICT) {
+                continue;
+            }
+            if (!first) {
+                sql.append(" OR ");
+            }
+            sql.append("EXISTS (SELECT 1 FROM ").append(relation.getTable())
+                    .append(" WHERE ").append(relation.getColumn()).append(" = ?1)");
+            first = false;
+        }
+        if (first) {
+            // Ограничивающих связей нет; параметр всё равно должен быть в запросе
+            sql.append("0 AND ?1");
+        }
+        return sql.toString();
+    }
+
+    private static Relation patientRelation(String table, DeletePolicy deletePolicy) {
+        return new Relation(table, COLUMN_PATIENT_ID, PatientDao.TABLE_PATIENTS, deletePolicy);
+    }
+
+    private static Relation doctorRelation(String table, DeletePolicy deletePolicy) {
+        return new Relation(table, COLUMN_DOCTOR_ID, DoctorDao.TABLE_DOCTORS, deletePolicy);
+    }
+
+    private static String foreignKeys(String table) {
+        StringBuilder clauses = new StringBuilder();
+        for (Relation relation : PATIENT_RELATIONS) {
+            if (relation.getTable().equals(table)) {
+                clauses.append(", ").append(relation.foreignKeyClause());
+            }
+        }
+        for (Relation relation : DOCTOR_RELATIONS) {
+            if (relation.getTable().equals(table)) {
+                clauses.append(", ").append(relation.foreignKeyClause());
+            }
+        }
+        return clauses.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.hospital.management.dao;
+
+import java.io.IOException;
+
+/**
+ * Получатель строк при потоковом обходе таблицы
+ */
+public interface RowConsumer<T> {
+    void accept(T row) throws IOException;
+}
@@ -0,0 +1,20 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+/**
+ * Преобразование текущей строки курсора в объект модели.
+ * Реализация создаётся на каждый курсор: позиции колонок определяются один раз
+ * в конструкторе, а не getColumnIndexOrThrow() на каждое поле каждой строки.
+ * Колонки, которых нет в выборке, пропускаются - поле объекта остаётся по умолчанию
+ */
+public interface RowMapper<T> {
+    T map(Cursor cursor);
+
+    /**
+     * Создание преобразователя для открытого курсора
+     */
+    interface Factory<T> {
+        RowMapper<T> create(Cursor cursor);
+    }
+}
@@ -0,0 +1,46 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.hospital.management.dao.migration.BackgroundStep;
+
+/**
+ * Заполнение DoctorSchedules из текстовых графиков уже существующих врачей, по возрастанию DoctorID.
+ * Позиция хранится только в памяти: после перезапуска шаг начнёт сначала,
+ * что безопасно - строки врача каждый раз заменяются целиком (ScheduleDao.writeRules)
+ */
+final class ScheduleBackfillStep implements BackgroundStep {
+
+    private static final String SQL_SELECT_DOCTORS =
+            "SELECT " + DoctorDao.COLUMN_DOCTOR_ID + ", " + DoctorDao.COLUMN_SCHEDULE +
+                    " FROM " + DoctorDao.TABLE_DOCTORS + " WHERE " + DoctorDao.COLUMN_DOCTOR_ID + " > ?" +
+                    " ORDER BY " + DoctorDao.COLUMN_DOCTOR_ID + " LIMIT ?";
+
+    private int lastDoctorId;
+
+    @Override
+    public String getName() {
+        return "backfill_doctor_schedules";
+    }
+
+    @Override
+    public int runChunk(SQLiteDatabase db, int chunkSize) {
+        int processed = 0;
+        int doctorId = lastDoctorId;
+        Cursor cursor = db.rawQuery(SQL_SELECT_DOCTORS,
+                new String[]{String.valueOf(doctorId), String.valueOf(chunkSize)});
+        try {
+            while (cursor.moveToNext()) {
+                doctorId = cursor.getInt(0);
+                ScheduleDao.writeRules(db, doctorId, cursor.getString(1));
+                processed++;
+            }
+        } finally {
+            cursor.close();
+        }
+        // Порция выполняется в транзакции: позиция сдвигается, только если дошли до конца без ошибки
+        lastDoctorId = doctorId;
+        return processed;
+    }
+}
@@ -0,0 +1,269 @@
+package com.hospital.management.dao;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.hospital.management.schedule.FreeSlot;
+import com.hospital.management.schedule.ScheduleParser;
+import com.hospital.management.schedule.ScheduleRule;
+import com.hospital.management.schedule.WeeklyAvailability;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Структурированные графики врачей (таблица DoctorSchedules).
+ * Строки выводятся из текстового поля Doctors.Schedule при каждой записи врача
+ * (см. DoctorDao); текст остаётся формой для отображения.
+ * Вопросы "работает ли врач в момент T" и "когда работают оба врача" решаются
+ * по недельным битовым картам из DoctorAvailabilities, без запросов к базе.
+ * Поиск свободного времени учитывает и график, и записанные приёмы (FreeSlotFinder)
+ */
+public class ScheduleDao {
+    private static final String TAG = "ScheduleDao";
+
+    private final DatabaseManager databaseManager;
+    private final DoctorAvailabilities availabilities;
+    private final AppointmentIntervals intervals;
+    private final SpecializationDictionary specializations;
+    private SQLiteDatabase database;
+
+    // Названия таблицы и колонок
+    public static final String TABLE_DOCTOR_SCHEDULES = RelatedRecords.TABLE_DOCTOR_SCHEDULES;
+    public static final String COLUMN_SCHEDULE_ID = "ScheduleID";
+    public static final String COLUMN_DOCTOR_ID = RelatedRecords.COLUMN_DOCTOR_ID;
+    public static final String COLUMN_WEEKDAYS = "Weekdays";
+    public static final String COLUMN_START_MINUTE = "StartMinute";
+    public static final String COLUMN_END_MINUTE = "EndMinute";
+    public static final String COLUMN_KIND = "Kind";
+
+    private static final String SQL_DELETE_DOCTOR_RULES =
+            "DELETE FROM " + TABLE_DOCTOR_SCHEDULES + " WHERE " + COLUMN_DOCTOR_ID + " = ?";
+
+    private static final String SQL_INSERT_RULE =
+            "INSERT INTO " + TABLE_DOCTOR_SCHEDULES + " (" +
+                    COLUMN_DOCTOR_ID + ", " + COLUMN_WEEKDAYS + ", " + COLUMN_START_MINUTE + ", " +
+                    COLUMN_END_MINUTE + ", " + COLUMN_KIND + ") VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_SELECT_DOCTOR_RULES =
+            "SELECT " + COLUMN_WEEKDAYS + ", " + COLUMN_START_MINUTE + ", " + COLUMN_END_MINUTE + ", " +
+                    COLUMN_KIND + " FROM " + TABLE_DOCTOR_SCHEDULES +
+                    " WHERE " + COLUMN_DOCTOR_ID + " = ? ORDER BY " + COLUMN_SCHEDULE_ID;
+
+    // Горизонт поиска свободных слотов
+    public static final int SEARCH_HORIZON_DAYS = 90;
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private static final String SQL_SELECT_DOCTOR_IDS_BY_SPECIALIZATION =
+            "SELECT " + DoctorDao.COLUMN_DOCTOR_ID + " FROM " + DoctorDao.TABLE_DOCTORS +
+                    " WHERE " + DoctorDao.COLUMN_SPECIALIZATION_ID + " = ?";
+
+    public ScheduleDao(Context context) {
+        databaseManager = DatabaseManager.getInstance(context);
+        availabilities = databaseManager.getDoctorAvailabilities();
+        intervals = databaseManager.getAppointmentIntervals();
+        specializations = databaseManager.getSpecializationDictionary();
+    }
+
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
+        try {
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
+            Log.d(TAG, "Database opened successfully");
+        } catch (SQLException e) {
+            Log.e(TAG, "Error opening database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Правила графика врача в порядке записи; пустой список, если график не распознан
+     */
+    public List<ScheduleRule> getRules(int doctorId) {
+        List<ScheduleRule> rules = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            Cursor cursor = database.rawQuery(SQL_SELECT_DOCTOR_RULES, new String[]{String.valueOf(doctorId)});
+            try {
+                while (cursor.moveToNext()) {
+                    rules.add(ruleOf(cursor, 0));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting schedule rules: " + e.getMessage(), e);
+        }
+        return rules;
+    }
+
+    /**
+     * Недельная карта доступности врача
+     */
+    public WeeklyAvailability getAvailability(int doctorId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return availabilities.get(database, doctorId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting doctor availability: " + e.getMessage(), e);
+            return WeeklyAvailability.EMPTY;
+        }
+    }
+
+    /**
+     * Работает ли врач в момент времени (по часовому поясу устройства)
+     */
+    public boolean isDoctorAvailableAt(int doctorId, long timeMillis) {
+        return getAvailability(doctorId).isAvailableAt(timeMillis, TimeZone.getDefault());
+    }
+
+    /**
+     * ID врачей, работающих в момент времени, по возрастанию: проверка одного бита на врача
+     */
+    public List<Integer> getDoctorsAvailableAt(long timeMillis) {
+        List<Integer> doctorIds = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            int slot = WeeklyAvailability.slotOf(timeMillis, TimeZone.getDefault());
+            for (Map.Entry<Integer, WeeklyAvailability> entry : availabilities.snapshot(database).entrySet()) {
+                if (entry.getValue().isAvailable(slot)) {
+                    doctorIds.add(entry.getKey());
+                }
+            }
+            Collections.sort(doctorIds);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting available doctors: " + e.getMessage(), e);
+        }
+        return doctorIds;
+    }
+
+    /**
+     * Время недели, когда работают оба врача (например, для совместного приёма)
+     */
+    public WeeklyAvailability getCommonAvailability(int doctorId, int otherDoctorId) {
+        return getAvailability(doctorId).and(getAvailability(otherDoctorId));
+    }
+
+    /**
+     * Ближайшие свободные слоты у всех врачей специализации ("ближайший кардиолог",
+     * название или псевдоним в любом написании):
+     * не более limit слотов длительностью durationMinutes, начиная с from (но не в прошлом),
+     * в пределах SEARCH_HORIZON_DAYS, по возрастанию времени
+     */
+    public List<FreeSlot> findFreeSlots(String specialization, long from, int durationMinutes, int limit) {
+        List<Integer> doctorIds = new ArrayList<>();
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            int specializationId = specializations.findId(database, SpecializationDao.normalize(specialization));
+            if (specializationId == -1) {
+                return new ArrayList<>();
+            }
+            Cursor cursor = database.rawQuery(SQL_SELECT_DOCTOR_IDS_BY_SPECIALIZATION,
+                    new String[]{String.valueOf(specializationId)});
+            try {
+                while (cursor.moveToNext()) {
+                    doctorIds.add(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting doctors of specialization: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+        return findFreeSlots(doctorIds, from, durationMinutes, limit);
+    }
+
+    /**
+     * Ближайшие свободные слоты у перечисленных врачей (условия - как у поиска по специализации)
+     */
+    public List<FreeSlot> findFreeSlots(List<Integer> doctorIds, long from, int durationMinutes, int limit) {
+        if (durationMinutes <= 0 || limit <= 0) {
+            return new ArrayList<>();
+        }
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            long start = Math.max(from, System.currentTimeMillis());
+            return new FreeSlotFinder(database, availabilities, intervals)
+                    .find(doctorIds, start, start + SEARCH_HORIZON_DAYS * DAY_MS, durationMinutes, limit);
+        } catch (Exception e) {
+            Log.e(TAG, "Error finding free slots: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Замена строк графика врача правилами из текста. Вызывается в транзакции записи врача;
+     * карта в памяти сбрасывается вызывающим после фиксации (DoctorDao)
+     */
+    static int writeRules(SQLiteDatabase db, int doctorId, String scheduleText) {
+        SQLiteStatement delete = db.compileStatement(SQL_DELETE_DOCTOR_RULES);
+        try {
+            delete.bindLong(1, doctorId);
+            delete.executeUpdateDelete();
+        } finally {
+            delete.close();
+        }
+
+        List<ScheduleRule> rules = ScheduleParser.parse(scheduleText);
+        if (rules.isEmpty()) {
+            return 0;
+        }
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT_RULE);
+        try {
+            for (ScheduleRule rule : rules) {
+                insert.bindLong(1, doctorId);
+                insert.bindLong(2, rule.getWeekdays());
+                insert.bindLong(3, rule.getStartMinute());
+                insert.bindLong(4, rule.getEndMinute());
+                insert.bindLong(5, rule.getKind());
+                insert.executeInsert();
+            }
+        } finally {
+            insert.close();
+        }
+        return rules.size();
+    }
+
+    /**
+     * Правило из колонок Weekdays, StartMinute, EndMinute, Kind, начиная с колонки first
+     */
+    static ScheduleRule ruleOf(Cursor cursor, int first) {
+        return new ScheduleRule(cursor.getInt(first), cursor.getInt(first + 1),
+                cursor.getInt(first + 2), cursor.getInt(first + 3));
+    }
+}
@@ -0,0 +1,61 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.hospital.management.dao.migration.BackgroundStep;
+
+/**
+ * Перенос текстовых специализаций существующих врачей в справочник: каждое написание
+ * сводится к записи Specializations по нормализованному ключу, врач получает SpecializationID.
+ * Обрабатываются только врачи без ссылки, так что после перезапуска шаг продолжает
+ * с оставшихся; позиция в памяти нужна, чтобы не перечитывать врачей с пустым текстом
+ */
+final class SpecializationBackfillStep implements BackgroundStep {
+
+    private static final String SQL_SELECT_PENDING =
+            "SELECT " + DoctorDao.COLUMN_DOCTOR_ID + ", " + DoctorDao.COLUMN_SPECIALIZATION +
+                    " FROM " + DoctorDao.TABLE_DOCTORS +
+                    " WHERE " + DoctorDao.COLUMN_DOCTOR_ID + " > ? AND " +
+                    DoctorDao.COLUMN_SPECIALIZATION_ID + " IS NULL" +
+                    " ORDER BY " + DoctorDao.COLUMN_DOCTOR_ID + " LIMIT ?";
+
+    private static final String SQL_SET_SPECIALIZATION_ID =
+            "UPDATE " + DoctorDao.TABLE_DOCTORS + " SET " + DoctorDao.COLUMN_SPECIALIZATION_ID + " = ?" +
+                    " WHERE " + DoctorDao.COLUMN_DOCTOR_ID + " = ?";
+
+    private int lastDoctorId;
+
+    @Override
+    public String getName() {
+        return "backfill_doctor_specializations";
+    }
+
+    @Override
+    public int runChunk(SQLiteDatabase db, int chunkSize) {
+        int processed = 0;
+        int doctorId = lastDoctorId;
+        SQLiteStatement update = db.compileStatement(SQL_SET_SPECIALIZATION_ID);
+        Cursor cursor = db.rawQuery(SQL_SELECT_PENDING,
+                new String[]{String.valueOf(doctorId), String.valueOf(chunkSize)});
+        try {
+            while (cursor.moveToNext()) {
+                doctorId = cursor.getInt(0);
+                int specializationId = SpecializationDao.resolveId(db, cursor.getString(1));
+                if (specializationId != -1) {
+                    update.bindLong(1, specializationId);
+                    update.bindLong(2, doctorId);
+                    update.executeUpdateDelete();
+                }
+                processed++;
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
+        // Порция выполняется в транзакции: позиция сдвигается, только если дошли до конца без ошибки
+        lastDoctorId = doctorId;
+        return processed;
+    }
+}
@@ -0,0 +1,190 @@
+package com.hospital.management.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.hospital.management.model.Specialization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Справочник специализаций врачей. Врач ссылается на запись по SpecializationID;
+ * текстовое поле Doctors.Specialization остаётся формой для отображения.
+ * Названия сравниваются по нормализованному ключу (регистр, ё, пробелы),
+ * дополнительные написания ("ЛОР") задаются псевдонимами
+ */
+public class SpecializationDao {
+    private static final String TAG = "SpecializationDao";
+
+    private final DatabaseManager databaseManager;
+    private final SpecializationDictionary dictionary;
+    private SQLiteDatabase database;
+
+    // Названия таблиц и колонок
+    public static final String TABLE_SPECIALIZATIONS = "Specializations";
+    public static final String COLUMN_SPECIALIZATION_ID = "SpecializationID";
+    public static final String COLUMN_NAME = "Name";
+    public static final String COLUMN_NORMALIZED_KEY = "NormalizedKey";
+
+    public static final String TABLE_SPECIALIZATION_ALIASES = "SpecializationAliases";
+    public static final String COLUMN_ALIAS_KEY = "AliasKey";
+
+    // Ключ ищется и среди названий, и среди псевдонимов; оба поиска - по уникальным индексам
+    private static final String SQL_FIND_ID_BY_KEY =
+            "SELECT " + COLUMN_SPECIALIZATION_ID + " FROM " + TABLE_SPECIALIZATIONS +
+                    " WHERE " + COLUMN_NORMALIZED_KEY + " = ?1" +
+                    " UNION ALL SELECT " + COLUMN_SPECIALIZATION_ID + " FROM " + TABLE_SPECIALIZATION_ALIASES +
+                    " WHERE " + COLUMN_ALIAS_KEY + " = ?1 LIMIT 1";
+
+    public SpecializationDao(Context context) {
+        databaseManager = DatabaseManager.getInstance(context);
+        dictionary = databaseManager.getSpecializationDictionary();
+    }
+
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
+        try {
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
+            Log.d(TAG, "Database opened successfully");
+        } catch (SQLException e) {
+            Log.e(TAG, "Error opening database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Все специализации по алфавиту (из кэша справочника)
+     */
+    public List<Specialization> getAllSpecializations() {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return dictionary.all(database);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting specializations: " + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+    }
+
+    public Specialization getSpecializationById(int specializationId) {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return dictionary.get(database, specializationId);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting specialization by ID: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * ID специализации по названию или псевдониму в любом написании, -1 - нет в справочнике
+     */
+    public int findSpecializationId(String text) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return -1;
+        }
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return dictionary.findId(database, key);
+        } catch (Exception e) {
+            Log.e(TAG, "Error finding specialization: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Дополнительное написание специализации. false - псевдоним пуст, уже занят или специализации нет
+     */
+    public boolean addAlias(String alias, int specializationId) {
+        String key = normalize(alias);
+        if (key.isEmpty()) {
+            return false;
+        }
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ALIAS_KEY, key);
+            values.put(COLUMN_SPECIALIZATION_ID, specializationId);
+            long result = database.insert(TABLE_SPECIALIZATION_ALIASES, null, values);
+            Log.d(TAG, "Alias " + key + " added: " + (result != -1));
+            dictionary.clear();
+            return result != -1;
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding specialization alias: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Ключ сравнения: нижний регистр, ё -> е, пробелы по краям убраны, внутри - одиночные
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return collapseSpaces(text).toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+    /**
+     * ID специализации для текста из карточки врача; новая специализация добавляется в справочник.
+     * Вызывается в транзакции записи врача; -1 - текст пуст (ссылка остаётся NULL).
+     * Кэш справочника вызывающий обновляет после фиксации (SpecializationDictionary.written)
+     */
+    static int resolveId(SQLiteDatabase db, String text) {
+        String key = normalize(text);
+        if (key.isEmpty()) {
+            return -1;
+        }
+        int id = findIdByKey(db, key);
+        if (id != -1) {
+            return id;
+        }
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_NAME, collapseSpaces(text));
+        values.put(COLUMN_NORMALIZED_KEY, key);
+        long inserted = db.insert(TABLE_SPECIALIZATIONS, null, values);
+        Log.d(TAG, "Specialization added with ID: " + inserted);
+        return (int) inserted;
+    }
+
+    private static int findIdByKey(SQLiteDatabase db, String key) {
+        Cursor cursor = db.rawQuery(SQL_FIND_ID_BY_KEY, new String[]{key});
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String collapseSpaces(String text) {
+        return text.trim().replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,113 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import com.hospital.management.model.Specialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Справочник специализаций в памяти: список для выбора и ключи поиска
+ * (нормализованные названия и псевдонимы) -> ID. Загружается целиком при первом
+ * обращении; справочник мал и меняется редко, поэтому после любого изменения
+ * просто сбрасывается
+ */
+final class SpecializationDictionary {
+    private static final String TAG = "SpecializationDictionary";
+
+    private static final String SQL_LOAD_SPECIALIZATIONS =
+            "SELECT " + SpecializationDao.COLUMN_SPECIALIZATION_ID + ", " + SpecializationDao.COLUMN_NAME + ", " +
+                    SpecializationDao.COLUMN_NORMALIZED_KEY + " FROM " + SpecializationDao.TABLE_SPECIALIZATIONS +
+                    " ORDER BY " + SpecializationDao.COLUMN_NORMALIZED_KEY;
+
+    private static final String SQL_LOAD_ALIASES =
+            "SELECT " + SpecializationDao.COLUMN_ALIAS_KEY + ", " + SpecializationDao.COLUMN_SPECIALIZATION_ID +
+                    " FROM " + SpecializationDao.TABLE_SPECIALIZATION_ALIASES;
+
+    // Под монитором this; null - ещё не загружено
+    private List<Specialization> specializations;
+    private Map<String, Integer> idsByKey;
+    private Map<Integer, Specialization> byId;
+
+    /**
+     * Все специализации по алфавиту (копия списка)
+     */
+    synchronized List<Specialization> all(SQLiteDatabase db) {
+        load(db);
+        return new ArrayList<>(specializations);
+    }
+
+    /**
+     * ID по нормализованному названию или псевдониму, -1 - нет в справочнике
+     */
+    synchronized int findId(SQLiteDatabase db, String normalizedKey) {
+        load(db);
+        Integer id = idsByKey.get(normalizedKey);
+        return id != null ? id : -1;
+    }
+
+    synchronized Specialization get(SQLiteDatabase db, int specializationId) {
+        load(db);
+        return byId.get(specializationId);
+    }
+
+    /**
+     * После записи со ссылкой на specializationId: новая запись справочника сбрасывает кэш
+     */
+    synchronized void written(int specializationId) {
+        if (byId != null && specializationId > 0 && !byId.containsKey(specializationId)) {
+            clear();
+        }
+    }
+
+    synchronized void clear() {
+        specializations = null;
+        idsByKey = null;
+        byId = null;
+    }
+
+    private void load(SQLiteDatabase db) {
+        if (specializations != null) {
+            return;
+        }
+        List<Specialization> loaded = new ArrayList<>();
+        Map<String, Integer> keys = new HashMap<>();
+        Map<Integer, Specialization> ids = new HashMap<>();
+        Cursor cursor = db.rawQuery(SQL_LOAD_SPECIALIZATIONS, null);
+        try {
+            while (cursor.moveToNext()) {
+                Specialization specialization = new Specialization(cursor.getInt(0), cursor.getString(1));
+                loaded.add(specialization);
+                keys.put(cursor.getString(2), specialization.getSpecializationId());
+                ids.put(specialization.getSpecializationId(), specialization);
+            }
+        } finally {
+            cursor.close();
+        }
+        cursor = db.rawQuery(SQL_LOAD_ALIASES, null);
+        try {
+            while (cursor.moveToNext()) {
+                // Название важнее псевдонима с тем же ключом
+                if (!keys.containsKey(cursor.getString(0))) {
+                    keys.put(cursor.getString(0), cursor.getInt(1));
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        specializations = loaded;
+        idsByKey = keys;
+        byId = ids;
+        Log.d(TAG, "Loaded " + loaded.size() + " specializations, " + keys.size() + " keys");
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SpecializationDictionary{" + (specializations != null ? specializations.size() : 0) + "}";
+    }
+}
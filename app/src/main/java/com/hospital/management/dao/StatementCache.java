@@ -0,0 +1,66 @@
+package com.hospital.management.dao;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Скомпилированные запросы для частых проверок существования и поиска ID.
+ * Живёт столько же, сколько соединение DatabaseManager, и закрывается вместе с ним.
+ * Запрос возвращает одно значение (simpleQueryForLong), без курсора и окна курсора.
+ * Параметры хранятся в самом SQLiteStatement, поэтому выполнение сериализуется
+ */
+final class StatementCache {
+    private static final String TAG = "StatementCache";
+
+    private static final int MAX_STATEMENTS = 32;
+
+    private final Map<String, SQLiteStatement> statements =
+            new LinkedHashMap<String, SQLiteStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SQLiteStatement> eldest) {
+                    if (size() > MAX_STATEMENTS) {
+                        eldest.getValue().close();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    /**
+     * Первая колонка первой строки запроса или defaultValue, если строк нет.
+     * Запрос должен сам ограничивать выборку (LIMIT 1)
+     */
+    synchronized long queryForLong(SQLiteDatabase db, String sql, long defaultValue, String... args) {
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+
+        statement.clearBindings();
+        for (int i = 0; i < args.length; i++) {
+            statement.bindString(i + 1, args[i]);
+        }
+        try {
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            // Пустой результат
+            return defaultValue;
+        }
+    }
+
+    synchronized void close() {
+        Iterator<SQLiteStatement> iterator = statements.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().close();
+            iterator.remove();
+        }
+        Log.d(TAG, "Statement cache cleared");
+    }
+}
@@ -0,0 +1,230 @@
+package com.hospital.management.dao;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Счётчики пациентов, врачей и пользователей (всего и по группам).
+ * Счётчики поддерживаются триггерами на INSERT/UPDATE/DELETE, поэтому чтение - проба
+ * первичного ключа вместо COUNT(*). Строки "всего" создаёт только пересчёт (reconcile):
+ * пока её нет, счётчики категории не готовы и DAO считают по таблице.
+ * Пересчёт сверяет счётчики с таблицами и исправляет расхождения
+ */
+public class StatisticsDao {
+    private static final String TAG = "StatisticsDao";
+
+    private final DatabaseManager databaseManager;
+    private SQLiteDatabase database;
+
+    // Название таблицы и колонки
+    public static final String TABLE_STATISTICS = "Statistics";
+    public static final String COLUMN_CATEGORY = "Category";
+    public static final String COLUMN_ITEM = "Item";
+    public static final String COLUMN_TOTAL = "Total";
+
+    // Категории счётчиков; ITEM_ALL - строка "всего" в категориях без группировки
+    public static final String CATEGORY_PATIENTS = "Patients";
+    public static final String CATEGORY_PATIENTS_BY_DISTRICT = "Patients.District";
+    public static final String CATEGORY_DOCTORS = "Doctors";
+    // Группа врачей - SpecializationID из справочника ('' - без специализации)
+    public static final String CATEGORY_DOCTORS_BY_SPECIALIZATION = "Doctors.Specialization";
+    public static final String CATEGORY_USERS = "Users";
+    public static final String CATEGORY_USERS_BY_ROLE = "Users.Role";
+    public static final String ITEM_ALL = "";
+
+    // Ключ группы в триггерах и при пересчёте должен вычисляться одинаково
+    static String groupKey(String column) {
+        return "CAST(IFNULL(" + column + ", '') AS TEXT)";
+    }
+
+    private static final String SQL_READ_COUNT =
+            "SELECT " + COLUMN_TOTAL + " FROM " + TABLE_STATISTICS +
+                    " WHERE " + COLUMN_CATEGORY + " = ? AND " + COLUMN_ITEM + " = ? LIMIT 1";
+
+    // Категория и запрос, возвращающий фактические значения (группа, количество)
+    private static final String[][] RECOUNT_QUERIES = {
+            {CATEGORY_PATIENTS,
+                    "SELECT '', COUNT(*) FROM " + PatientDao.TABLE_PATIENTS},
+            {CATEGORY_PATIENTS_BY_DISTRICT,
+                    "SELECT " + groupKey(PatientDao.COLUMN_DISTRICT) + " AS g, COUNT(*) FROM " +
+                            PatientDao.TABLE_PATIENTS + " GROUP BY g"},
+            {CATEGORY_DOCTORS,
+                    "SELECT '', COUNT(*) FROM " + DoctorDao.TABLE_DOCTORS},
+            {CATEGORY_DOCTORS_BY_SPECIALIZATION,
+                    "SELECT " + groupKey(DoctorDao.COLUMN_SPECIALIZATION_ID) + " AS g, COUNT(*) FROM " +
+                            DoctorDao.TABLE_DOCTORS + " GROUP BY g"},
+            {CATEGORY_USERS,
+                    "SELECT '', COUNT(*) FROM " + UserDao.TABLE_USERS},
+            {CATEGORY_USERS_BY_ROLE,
+                    "SELECT " + groupKey(UserDao.COLUMN_ROLE) + " AS g, COUNT(*) FROM " +
+                            UserDao.TABLE_USERS + " GROUP BY g"}
+    };
+
+    public StatisticsDao(Context context) {
+        databaseManager = DatabaseManager.getInstance(context);
+    }
+
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
+        try {
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
+            Log.d(TAG, "Database opened successfully");
+        } catch (SQLException e) {
+            Log.e(TAG, "Error opening database: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
+            Log.d(TAG, "Database closed");
+        }
+    }
+
+    /**
+     * Сверка счётчиков с таблицами. Возвращает число исправленных счётчиков или -1 при ошибке
+     */
+    public int reconcile() {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+            return reconcile(database);
+        } catch (Exception e) {
+            Log.e(TAG, "Error reconciling statistics: " + e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    /**
+     * Пересчёт всех категорий в одной транзакции записи: пока идёт подсчёт,
+     * триггеры других соединений не могут изменить счётчики
+     */
+    static int reconcile(SQLiteDatabase db) {
+        long start = SystemClock.elapsedRealtime();
+        int repaired = 0;
+        db.beginTransactionNonExclusive();
+        try {
+            for (String[] recount : RECOUNT_QUERIES) {
+                repaired += reconcileCategory(db, recount[0], recount[1]);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        if (repaired > 0) {
+            Log.w(TAG, "Statistics drift repaired: " + repaired + " counters");
+        }
+        Log.d(TAG, "Statistics reconciled in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return repaired;
+    }
+
+    private static int reconcileCategory(SQLiteDatabase db, String category, String countSql) {
+        Map<String, Long> actual = new HashMap<>();
+        Cursor cursor = db.rawQuery(countSql, null);
+        try {
+            while (cursor.moveToNext()) {
+                actual.put(cursor.getString(0), cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        Map<String, Long> stored = new HashMap<>();
+        cursor = db.query(TABLE_STATISTICS, new String[]{COLUMN_ITEM, COLUMN_TOTAL},
+                COLUMN_CATEGORY + " = ?", new String[]{category}, null, null, null);
+        try {
+            while (cursor.moveToNext()) {
+                stored.put(cursor.getString(0), cursor.getLong(1));
+            }
+        } finally {
+            cursor.close();
+        }
+
+        int repaired = 0;
+        for (Map.Entry<String, Long> entry : actual.entrySet()) {
+            Long current = stored.remove(entry.getKey());
+            if (current == null || current.longValue() != entry.getValue()) {
+                ContentValues values = new ContentValues();
+                values.put(COLUMN_CATEGORY, category);
+                values.put(COLUMN_ITEM, entry.getKey());
+                values.put(COLUMN_TOTAL, entry.getValue());
+                db.insertWithOnConflict(TABLE_STATISTICS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                // Отсутствующая строка "всего" - первый пересчёт, а не расхождение
+                if (current != null) {
+                    Log.w(TAG, "Counter " + category + "/" + entry.getKey() + ": " + current +
+                            " -> " + entry.getValue());
+                    repaired++;
+                }
+            }
+        }
+        // Группы, которых больше нет в таблице
+        for (Map.Entry<String, Long> entry : stored.entrySet()) {
+            db.delete(TABLE_STATISTICS, COLUMN_CATEGORY + " = ? AND " + COLUMN_ITEM + " = ?",
+                    new String[]{category, entry.getKey()});
+            if (entry.getValue() != 0) {
+                Log.w(TAG, "Counter " + category + "/" + entry.getKey() + ": " + entry.getValue() + " -> 0");
+                repaired++;
+            }
+        }
+        return repaired;
+    }
+
+    /**
+     * Значение счётчика или -1, если строки нет. Вызывающий держит аренду
+     */
+    static long readCount(DatabaseManager manager, String category, String item) {
+        return manager.queryForLong(SQL_READ_COUNT, -1, category, item);
+    }
+
+    /**
+     * Ненулевые счётчики группировки по группам, упорядоченные по группе.
+     * Пока категория totalCategory не пересчитана, считает по таблице (GROUP BY)
+     */
+    static Map<String, Integer> readGroupCounts(DatabaseManager manager, SQLiteDatabase db,
+                                                String totalCategory, String groupCategory) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        Cursor cursor;
+        if (readCount(manager, totalCategory, ITEM_ALL) >= 0) {
+            // Чтение диапазона первичного ключа (Category, Item)
+            cursor = db.query(TABLE_STATISTICS, new String[]{COLUMN_ITEM, COLUMN_TOTAL},
+                    COLUMN_CATEGORY + " = ? AND " + COLUMN_TOTAL + " > 0", new String[]{groupCategory},
+                    null, null, COLUMN_ITEM);
+        } else {
+            cursor = db.rawQuery(recountQuery(groupCategory) + " ORDER BY g", null);
+        }
+        try {
+            while (cursor.moveToNext()) {
+                counts.put(cursor.getString(0), cursor.getInt(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return counts;
+    }
+
+    private static String recountQuery(String category) {
+        for (String[] recount : RECOUNT_QUERIES) {
+            if (recount[0].equals(category)) {
+                return recount[1];
+            }
+        }
+        throw new IllegalArgumentException("Unknown statistics category: " + category);
+    }
+}
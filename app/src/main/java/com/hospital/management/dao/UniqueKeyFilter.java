@@ -0,0 +1,200 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.concurrent.DatabaseExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Быстрые отрицательные ответы для проверок уникальности (полис ОМС, email, имя пользователя).
+ * Фильтр Блума строится из таблицы задачей фоновой очереди и пополняется путями записи DAO;
+ * в SQLite идут только вероятные совпадения, а пока фильтра нет - все проверки.
+ * Удалённые и изменённые значения остаются в фильтре и дают лишь лишний запрос к базе.
+ * Таблица читается обычными запросами, без транзакции записи. Ключи, добавленные после
+ * постановки построения в очередь, откладываются; записи, начатые раньше, построение
+ * пропускает вперёд пустой транзакцией, так что к началу чтения они уже закоммичены
+ */
+final class UniqueKeyFilter {
+    private static final String TAG = "UniqueKeyFilter";
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    // Запас ёмкости на рост таблицы до перестроения
+    private static final int MIN_CAPACITY = 1024;
+    private static final int SCAN_CHUNK_SIZE = 5000;
+
+    private final DatabaseManager manager;
+    private final String name;
+    private final String scanSql;
+
+    private BloomFilter filter;
+    private List<String> pendingKeys;
+    private boolean building;
+
+    private long checks;
+    private long negatives;
+    private long falsePositives;
+
+    /**
+     * Ключи читаются порциями по возрастанию idColumn, пустые значения пропускаются
+     */
+    UniqueKeyFilter(DatabaseManager manager, String name, String table, String idColumn, String keyColumn) {
+        this.manager = manager;
+        this.name = name;
+        this.scanSql = "SELECT " + idColumn + ", " + keyColumn + " FROM " + table +
+                " WHERE " + idColumn + " > ? AND " + keyColumn + " <> ''" +
+                " ORDER BY " + idColumn + " LIMIT " + SCAN_CHUNK_SIZE;
+    }
+
+    /**
+     * false - ключа в таблице точно нет; true - нужно проверить в базе.
+     * Пока фильтр не построен, всегда отвечает true и ставит построение в фоновую очередь
+     */
+    synchronized boolean mightContain(String key) {
+        checks++;
+        if (filter == null) {
+            scheduleBuild();
+            return true;
+        }
+        if (!filter.mightContain(key)) {
+            negatives++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ключ записан в таблицу (в том числе внутри ещё не закоммиченной транзакции)
+     */
+    synchronized void add(String key) {
+        if (key == null || key.isEmpty()) {
+            return;
+        }
+        if (building) {
+            pendingKeys.add(key);
+        } else if (filter != null) {
+            filter.add(key);
+            if (filter.isSaturated()) {
+                // Следующая проверка перестроит фильтр под новый размер таблицы
+                Log.d(TAG, name + " filter saturated at " + filter.getKeyCount() + " keys, will rebuild");
+                filter = null;
+            }
+        }
+    }
+
+    /**
+     * Вероятное совпадение не подтвердилось в базе
+     */
+    synchronized void recordFalsePositive() {
+        falsePositives++;
+    }
+
+    /**
+     * Строки удалены мимо DAO (тесты): фильтр перестроится при следующей проверке
+     */
+    synchronized void clear() {
+        filter = null;
+    }
+
+    /**
+     * Ожидание построения, поставленного в очередь (для тестов). true - фильтр готов
+     */
+    synchronized boolean awaitBuild(long timeoutMs) throws InterruptedException {
+        long deadline = SystemClock.uptimeMillis() + timeoutMs;
+        while (filter == null && building) {
+            long left = deadline - SystemClock.uptimeMillis();
+            if (left <= 0) {
+                break;
+            }
+            wait(left);
+        }
+        return filter != null;
+    }
+
+    // Вызывается под монитором
+    private void scheduleBuild() {
+        if (building) {
+            return;
+        }
+        building = true;
+        pendingKeys = new ArrayList<>();
+        DatabaseExecutor.getInstance().execute(DatabaseExecutor.Priority.BACKGROUND, new Runnable() {
+            @Override
+            public void run() {
+                build();
+            }
+        });
+    }
+
+    private void build() {
+        long start = SystemClock.elapsedRealtime();
+        SQLiteDatabase db = manager.acquire();
+        try {
+            // Транзакции записи, начатые до постановки в очередь, завершаются раньше этой;
+            // всё, что записано позже, попадает в pendingKeys
+            db.beginTransactionNonExclusive();
+            db.endTransaction();
+
+            List<String> keys = scanKeys(db);
+            BloomFilter built = new BloomFilter(Math.max(MIN_CAPACITY, keys.size() * 2), FALSE_POSITIVE_RATE);
+            for (String key : keys) {
+                built.add(key);
+            }
+            synchronized (this) {
+                for (String key : pendingKeys) {
+                    built.add(key);
+                }
+                filter = built;
+            }
+            Log.d(TAG, name + " filter built: " + built.getKeyCount() + " keys, " +
+                    built.getSizeBytes() / 1024 + " KiB in " + (SystemClock.elapsedRealtime() - start) + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.d(TAG, name + " filter build interrupted");
+        } catch (Exception e) {
+            Log.e(TAG, "Error building " + name + " filter: " + e.getMessage(), e);
+        } finally {
+            synchronized (this) {
+                building = false;
+                pendingKeys = null;
+                notifyAll();
+            }
+            manager.release();
+        }
+    }
+
+    // Между порциями фоновая задача уступает базу интерактивным чтениям и записям
+    private List<String> scanKeys(SQLiteDatabase db) throws InterruptedException {
+        List<String> keys = new ArrayList<>();
+        long lastId = 0;
+        while (true) {
+            DatabaseExecutor.getInstance().yieldToForeground();
+            Cursor cursor = db.rawQuery(scanSql, new String[]{String.valueOf(lastId)});
+            int rows;
+            try {
+                rows = cursor.getCount();
+                while (cursor.moveToNext()) {
+                    lastId = cursor.getLong(0);
+                    keys.add(cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+            if (rows < SCAN_CHUNK_SIZE) {
+                return keys;
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + " filter{checks=" + checks + ", negatives=" + negatives +
+                ", falsePositives=" + falsePositives +
+                (filter != null ? ", keys=" + filter.getKeyCount() + ", bytes=" + filter.getSizeBytes() : ", not built") +
+                "}";
+    }
+}
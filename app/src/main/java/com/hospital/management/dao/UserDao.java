@@ -10,12 +10,16 @@ import android.util.Log;
 import com.hospital.management.model.User;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class UserDao {
     private static final String TAG = "UserDao";
 
-    private DatabaseHelper dbHelper;
+    private final DatabaseManager databaseManager;
+    private final EntityCache<User> cache;
+    private final UniqueKeyFilter usernameFilter;
     private SQLiteDatabase database;
 
     // Название таблицы и колонки
@@ -26,14 +30,46 @@ public class UserDao {
     public static final String COLUMN_ROLE = "Role";
     public static final String COLUMN_ROLE_ID = "RoleID";
 
+    private static final String SQL_SELECT_USER =
+            "SELECT " + COLUMN_USER_ID + ", " + COLUMN_USERNAME + ", " + COLUMN_PASSWORD + ", " +
+                    COLUMN_ROLE + ", " + COLUMN_ROLE_ID + " FROM " + TABLE_USERS;
+    private static final String SQL_SELECT_USER_BY_ID =
+            SQL_SELECT_USER + " WHERE " + COLUMN_USER_ID + " = ? LIMIT 1";
+    private static final String SQL_SELECT_USER_BY_USERNAME =
+            SQL_SELECT_USER + " WHERE " + COLUMN_USERNAME + " = ? LIMIT 1";
+    private static final String SQL_USERNAME_EXISTS =
+            "SELECT 1 FROM " + TABLE_USERS + " WHERE " + COLUMN_USERNAME + " = ? LIMIT 1";
+
+    // Копирование и оценка размера для кэша сущностей
+    static final EntityCache.Adapter<User> CACHE_ADAPTER = new EntityCache.Adapter<User>() {
+        @Override
+        public User copy(User user) {
+            return new User(user);
+        }
+
+        @Override
+        public int sizeOf(User user) {
+            return EntityCache.OBJECT_OVERHEAD +
+                    EntityCache.sizeOf(user.getUsername()) +
+                    EntityCache.sizeOf(user.getPassword()) +
+                    EntityCache.sizeOf(user.getRole());
+        }
+    };
+
     public UserDao(Context context) {
-        dbHelper = new DatabaseHelper(context);
+        databaseManager = DatabaseManager.getInstance(context);
+        cache = databaseManager.getUserCache();
+        usernameFilter = databaseManager.getUsernameFilter();
     }
 
-    // Открытие базы данных для записи
-    public void open() throws SQLException {
+    // Открытие базы данных: берём соединение в аренду у общего движка
+    public synchronized void open() throws SQLException {
         try {
-            database = dbHelper.getWritableDatabase();
+            if (database != null) {
+                databaseManager.release();
+                database = null;
+            }
+            database = databaseManager.acquire();
             Log.d(TAG, "Database opened successfully");
         } catch (SQLException e) {
             Log.e(TAG, "Error opening database: " + e.getMessage());
@@ -41,10 +77,11 @@ public class UserDao {
         }
     }
 
-    // Закрытие базы данных
-    public void close() {
-        if (dbHelper != null) {
-            dbHelper.close();
+    // Возврат соединения; база закрывается, когда её вернули все DAO
+    public synchronized void close() {
+        if (database != null) {
+            databaseManager.release();
+            database = null;
             Log.d(TAG, "Database closed");
         }
     }
@@ -83,7 +120,7 @@ public class UserDao {
 
             if (cursor != null) {
                 if (cursor.moveToFirst()) {
-                    user = cursorToUser(cursor);
+                    user = new UserRowMapper(cursor).map(cursor);
                     Log.d(TAG, "User found: " + user.getUsername() + ", role: " + user.getRole());
                 } else {
                     Log.d(TAG, "No user found with credentials: " + username);
@@ -117,6 +154,10 @@ public class UserDao {
 
             long result = database.insert(TABLE_USERS, null, values);
             Log.d(TAG, "User added with ID: " + result);
+            if (result != -1) {
+                usernameFilter.add(user.getUsername());
+                cacheWritten((int) result, user);
+            }
             return result;
         } catch (Exception e) {
             Log.e(TAG, "Error adding user: " + e.getMessage(), e);
@@ -128,36 +169,28 @@ public class UserDao {
      * Получение пользователя по ID
      */
     public User getUserById(int userId) {
+        User cached = cache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = cache.loadStamp();
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
 
             User user = null;
-
-            String[] columns = {
-                    COLUMN_USER_ID,
-                    COLUMN_USERNAME,
-                    COLUMN_PASSWORD,
-                    COLUMN_ROLE,
-                    COLUMN_ROLE_ID
-            };
-
-            String selection = COLUMN_USER_ID + " = ?";
-            String[] selectionArgs = {String.valueOf(userId)};
-
-            Cursor cursor = database.query(
-                    TABLE_USERS,
-                    columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
-            );
-
-            if (cursor != null && cursor.moveToFirst()) {
-                user = cursorToUser(cursor);
+            Cursor cursor = database.rawQuery(SQL_SELECT_USER_BY_ID, new String[]{String.valueOf(userId)});
+            try {
+                if (cursor.moveToFirst()) {
+                    user = new UserRowMapper(cursor).map(cursor);
+                }
+            } finally {
                 cursor.close();
             }
+            if (user != null) {
+                cache.putLoaded(userId, user, stamp);
+            }
             return user;
         } catch (Exception e) {
             Log.e(TAG, "Error getting user by ID: " + e.getMessage(), e);
@@ -175,28 +208,12 @@ public class UserDao {
             }
 
             User user = null;
-
-            String[] columns = {
-                    COLUMN_USER_ID,
-                    COLUMN_USERNAME,
-                    COLUMN_PASSWORD,
-                    COLUMN_ROLE,
-                    COLUMN_ROLE_ID
-            };
-
-            String selection = COLUMN_USERNAME + " = ?";
-            String[] selectionArgs = {username};
-
-            Cursor cursor = database.query(
-                    TABLE_USERS,
-                    columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
-            );
-
-            if (cursor != null && cursor.moveToFirst()) {
-                user = cursorToUser(cursor);
+            Cursor cursor = database.rawQuery(SQL_SELECT_USER_BY_USERNAME, new String[]{username});
+            try {
+                if (cursor.moveToFirst()) {
+                    user = new UserRowMapper(cursor).map(cursor);
+                }
+            } finally {
                 cursor.close();
             }
             return user;
@@ -232,8 +249,9 @@ public class UserDao {
             );
 
             if (cursor != null) {
+                RowMapper<User> mapper = new UserRowMapper(cursor);
                 while (cursor.moveToNext()) {
-                    User user = cursorToUser(cursor);
+                    User user = mapper.map(cursor);
                     users.add(user);
                 }
                 cursor.close();
@@ -276,8 +294,9 @@ public class UserDao {
             );
 
             if (cursor != null) {
+                RowMapper<User> mapper = new UserRowMapper(cursor);
                 while (cursor.moveToNext()) {
-                    User user = cursorToUser(cursor);
+                    User user = mapper.map(cursor);
                     users.add(user);
                 }
                 cursor.close();
@@ -308,6 +327,10 @@ public class UserDao {
 
             int rowsAffected = database.update(TABLE_USERS, values, whereClause, whereArgs);
             Log.d(TAG, "User updated, rows affected: " + rowsAffected);
+            if (rowsAffected > 0) {
+                usernameFilter.add(user.getUsername());
+                cacheWritten(user.getUserId(), user);
+            }
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error updating user: " + e.getMessage(), e);
@@ -332,6 +355,7 @@ public class UserDao {
 
             int rowsAffected = database.update(TABLE_USERS, values, whereClause, whereArgs);
             Log.d(TAG, "Password updated, rows affected: " + rowsAffected);
+            cache.invalidate(userId);
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error updating password: " + e.getMessage(), e);
@@ -353,6 +377,7 @@ public class UserDao {
 
             int rowsAffected = database.delete(TABLE_USERS, whereClause, whereArgs);
             Log.d(TAG, "User deleted, rows affected: " + rowsAffected);
+            cache.invalidate(userId);
             return rowsAffected > 0;
         } catch (Exception e) {
             Log.e(TAG, "Error deleting user: " + e.getMessage(), e);
@@ -361,29 +386,23 @@ public class UserDao {
     }
 
     /**
-     * Проверка существования имени пользователя
+     * Проверка существования имени пользователя. Username объявлен UNIQUE,
+     * поэтому проверка - проба индекса sqlite_autoindex_Users
      */
     public boolean isUsernameExists(String username) {
+        if (username == null) {
+            return false;
+        }
         try {
             if (database == null || !database.isOpen()) {
                 open();
             }
-
-            String[] columns = {COLUMN_USER_ID};
-            String selection = COLUMN_USERNAME + " = ?";
-            String[] selectionArgs = {username};
-
-            Cursor cursor = database.query(
-                    TABLE_USERS,
-                    columns,
-                    selection,
-                    selectionArgs,
-                    null, null, null
-            );
-
-            boolean exists = cursor != null && cursor.getCount() > 0;
-            if (cursor != null) {
-                cursor.close();
+            if (!usernameFilter.mightContain(username)) {
+                return false;
+            }
+            boolean exists = databaseManager.queryForLong(SQL_USERNAME_EXISTS, 0, username) != 0;
+            if (!exists) {
+                usernameFilter.recordFalsePositive();
             }
             return exists;
         } catch (Exception e) {
@@ -402,6 +421,12 @@ public class UserDao {
                 open();
             }
 
+            // Счётчик из Statistics; пока первый пересчёт не выполнен - COUNT(*) по таблице
+            long stored = StatisticsDao.readCount(databaseManager, StatisticsDao.CATEGORY_USERS, StatisticsDao.ITEM_ALL);
+            if (stored >= 0) {
+                return (int) stored;
+            }
+
             String query = "SELECT COUNT(*) FROM " + TABLE_USERS;
             Cursor cursor = database.rawQuery(query, null);
 
@@ -425,6 +450,11 @@ public class UserDao {
                 open();
             }
 
+            if (StatisticsDao.readCount(databaseManager, StatisticsDao.CATEGORY_USERS, StatisticsDao.ITEM_ALL) >= 0) {
+                long stored = StatisticsDao.readCount(databaseManager, StatisticsDao.CATEGORY_USERS_BY_ROLE, role);
+                return stored > 0 ? (int) stored : 0;
+            }
+
             String query = "SELECT COUNT(*) FROM " + TABLE_USERS + " WHERE " + COLUMN_ROLE + " = ?";
             Cursor cursor = database.rawQuery(query, new String[]{role});
 
@@ -438,6 +468,23 @@ public class UserDao {
         return count;
     }
 
+    /**
+     * Количество пользователей по ролям (роль -> количество)
+     */
+    public Map<String, Integer> getUsersCountByRoles() {
+        try {
+            if (database == null || !database.isOpen()) {
+                open();
+            }
+
+            return StatisticsDao.readGroupCounts(databaseManager, database,
+                    StatisticsDao.CATEGORY_USERS, StatisticsDao.CATEGORY_USERS_BY_ROLE);
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting users count by roles: " + e.getMessage(), e);
+            return new LinkedHashMap<>();
+        }
+    }
+
     /**
      * Создание пользователя для врача
      */
@@ -475,15 +522,16 @@ public class UserDao {
     }
 
     /**
-     * Преобразование Cursor в объект User
+     * Сквозная запись в кэш. Внутри внешней транзакции запись может откатиться,
+     * поэтому значение только сбрасывается
      */
-    private User cursorToUser(Cursor cursor) {
-        User user = new User();
-        user.setUserId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_USER_ID)));
-        user.setUsername(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_USERNAME)));
-        user.setPassword(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PASSWORD)));
-        user.setRole(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ROLE)));
-        user.setRoleId(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ROLE_ID)));
-        return user;
+    private void cacheWritten(int userId, User user) {
+        if (database.inTransaction()) {
+            cache.invalidate(userId);
+            return;
+        }
+        User cached = new User(user);
+        cached.setUserId(userId);
+        cache.put(userId, cached);
     }
 }
\ No newline at end of file
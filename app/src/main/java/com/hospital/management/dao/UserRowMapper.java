@@ -0,0 +1,35 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+import com.hospital.management.model.User;
+
+/**
+ * Строка Users -> User
+ */
+final class UserRowMapper implements RowMapper<User> {
+    private final int userId;
+    private final int username;
+    private final int password;
+    private final int role;
+    private final int roleId;
+
+    UserRowMapper(Cursor cursor) {
+        userId = cursor.getColumnIndex(UserDao.COLUMN_USER_ID);
+        username = cursor.getColumnIndex(UserDao.COLUMN_USERNAME);
+        password = cursor.getColumnIndex(UserDao.COLUMN_PASSWORD);
+        role = cursor.getColumnIndex(UserDao.COLUMN_ROLE);
+        roleId = cursor.getColumnIndex(UserDao.COLUMN_ROLE_ID);
+    }
+
+    @Override
+    public User map(Cursor cursor) {
+        User user = new User();
+        if (userId >= 0) user.setUserId(cursor.getInt(userId));
+        if (username >= 0) user.setUsername(cursor.getString(username));
+        if (password >= 0) user.setPassword(cursor.getString(password));
+        if (role >= 0) user.setRole(cursor.getString(role));
+        if (roleId >= 0) user.setRoleId(cursor.getInt(roleId));
+        return user;
+    }
+}
@@ -0,0 +1,37 @@
+package com.hospital.management.dao.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Заполнение колонок порциями: UPDATE table SET assignments для строк, удовлетворяющих pendingCondition.
+ * Условие должно перестать выполняться для обновлённой строки (например, "NewColumn IS NULL"),
+ * тогда шаг сам продолжит с места остановки
+ */
+public class BackfillStep implements BackgroundStep {
+    private final String name;
+    private final String sql;
+
+    public BackfillStep(String name, String table, String assignments, String pendingCondition) {
+        this.name = name;
+        this.sql = "UPDATE " + table + " SET " + assignments +
+                " WHERE rowid IN (SELECT rowid FROM " + table +
+                " WHERE " + pendingCondition + " LIMIT ?)";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int runChunk(SQLiteDatabase db, int chunkSize) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        try {
+            statement.bindLong(1, chunkSize);
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+}
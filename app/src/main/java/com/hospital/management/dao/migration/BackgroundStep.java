@@ -0,0 +1,21 @@
+package com.hospital.management.dao.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Фоновый шаг миграции. Выполняется порциями, каждая порция - в отдельной короткой транзакции,
+ * поэтому шаг должен уметь продолжить работу с места остановки (в том числе после перезапуска приложения)
+ */
+public interface BackgroundStep {
+
+    /**
+     * Имя шага, уникальное в пределах миграции
+     */
+    String getName();
+
+    /**
+     * Выполнение одной порции не больше чем из chunkSize строк.
+     * Возвращает число обработанных строк; неполная порция означает, что шаг завершён
+     */
+    int runChunk(SQLiteDatabase db, int chunkSize);
+}
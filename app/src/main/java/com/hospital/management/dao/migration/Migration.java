@@ -0,0 +1,77 @@
+package com.hospital.management.dao.migration;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Шаг миграции схемы до версии version.
+ * Изменения схемы (migrateSchema) выполняются внутри транзакции onUpgrade и должны быть быстрыми:
+ * только DDL, без перебора строк. Тяжёлая работа - построение индексов и заполнение колонок -
+ * описывается фоновыми шагами, которые выполняются порциями после открытия базы.
+ * Все операторы должны быть идемпотентными (IF NOT EXISTS): миграция может быть применена повторно
+ * после понижения версии приложения.
+ */
+public class Migration {
+    private final int version;
+    private final String name;
+    private final String[] schemaStatements;
+    private final List<BackgroundStep> backgroundSteps;
+
+    public Migration(int version, String name, String[] schemaStatements, BackgroundStep... backgroundSteps) {
+        this.version = version;
+        this.name = name;
+        this.schemaStatements = schemaStatements != null ? schemaStatements : new String[0];
+        this.backgroundSteps = Collections.unmodifiableList(Arrays.asList(backgroundSteps));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Быстрые изменения схемы
+     */
+    public void migrateSchema(SQLiteDatabase db) {
+        for (String statement : schemaStatements) {
+            db.execSQL(statement);
+        }
+    }
+
+    /**
+     * Фоновые шаги, выполняемые после открытия базы
+     */
+    public List<BackgroundStep> getBackgroundSteps() {
+        return backgroundSteps;
+    }
+
+    /**
+     * ALTER TABLE ADD COLUMN не поддерживает IF NOT EXISTS: колонка добавляется,
+     * только если её ещё нет (для миграций, переопределяющих migrateSchema)
+     */
+    protected static void addColumnIfMissing(SQLiteDatabase db, String table, String column, String definition) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            while (cursor.moveToNext()) {
+                if (column.equalsIgnoreCase(cursor.getString(cursor.getColumnIndexOrThrow("name")))) {
+                    return;
+                }
+            }
+        } finally {
+            cursor.close();
+        }
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    @Override
+    public String toString() {
+        return "Migration{" + version + ", " + name + "}";
+    }
+}
@@ -0,0 +1,243 @@
+package com.hospital.management.dao.migration;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.concurrent.DatabaseExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Применение миграций по порядку версий и журнал их выполнения.
+ * Журнал SchemaMigrations хранит по строке на изменение схемы и на каждый фоновый шаг:
+ * статус, число порций и строк, суммарное время выполнения.
+ */
+public class MigrationRunner {
+    private static final String TAG = "MigrationRunner";
+
+    public static final String TABLE_SCHEMA_MIGRATIONS = "SchemaMigrations";
+    public static final String COLUMN_VERSION = "Version";
+    public static final String COLUMN_STEP = "Step";
+    public static final String COLUMN_STATUS = "Status";
+    public static final String COLUMN_CHUNKS = "Chunks";
+    public static final String COLUMN_ROWS = "Rows";
+    public static final String COLUMN_DURATION_MS = "DurationMs";
+    public static final String COLUMN_FINISHED_AT = "FinishedAt";
+
+    public static final String STEP_SCHEMA = "schema";
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_DONE = "DONE";
+
+    // Размер порции подстраивается так, чтобы транзакция занимала около TARGET_CHUNK_MS
+    private static final int INITIAL_CHUNK_SIZE = 500;
+    private static final int MIN_CHUNK_SIZE = 50;
+    private static final int MAX_CHUNK_SIZE = 5000;
+    private static final long TARGET_CHUNK_MS = 50;
+    // Пауза между порциями, чтобы запись из интерфейса не ждала фоновую миграцию
+    private static final long PAUSE_BETWEEN_CHUNKS_MS = 10;
+
+    private static final String SQL_CREATE_JOURNAL_TABLE =
+            "CREATE TABLE IF NOT EXISTS " + TABLE_SCHEMA_MIGRATIONS + " (" +
+                    COLUMN_VERSION + " INTEGER NOT NULL," +
+                    COLUMN_STEP + " TEXT NOT NULL," +
+                    COLUMN_STATUS + " TEXT NOT NULL," +
+                    COLUMN_CHUNKS + " INTEGER DEFAULT 0," +
+                    COLUMN_ROWS + " INTEGER DEFAULT 0," +
+                    COLUMN_DURATION_MS + " INTEGER DEFAULT 0," +
+                    COLUMN_FINISHED_AT + " INTEGER," +
+                    "PRIMARY KEY (" + COLUMN_VERSION + ", " + COLUMN_STEP + ")" +
+                    ")";
+
+    private static final String SQL_DELETE_JOURNAL_TABLE =
+            "DROP TABLE IF EXISTS " + TABLE_SCHEMA_MIGRATIONS;
+
+    private final List<Migration> migrations;
+
+    public MigrationRunner(List<Migration> migrations) {
+        List<Migration> sorted = new ArrayList<>(migrations);
+        Collections.sort(sorted, new Comparator<Migration>() {
+            @Override
+            public int compare(Migration a, Migration b) {
+                return Integer.compare(a.getVersion(), b.getVersion());
+            }
+        });
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).getVersion() == sorted.get(i - 1).getVersion()) {
+                throw new IllegalArgumentException("Две миграции для версии " + sorted.get(i).getVersion());
+            }
+        }
+        this.migrations = Collections.unmodifiableList(sorted);
+    }
+
+    public void createJournal(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_JOURNAL_TABLE);
+    }
+
+    public void deleteJournal(SQLiteDatabase db) {
+        db.execSQL(SQL_DELETE_JOURNAL_TABLE);
+    }
+
+    /**
+     * Применение изменений схемы для версий (oldVersion, newVersion].
+     * Вызывается из onUpgrade; фоновые шаги только ставятся в очередь
+     */
+    public void upgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        createJournal(db);
+
+        for (Migration migration : migrations) {
+            if (migration.getVersion() <= oldVersion || migration.getVersion() > newVersion) {
+                continue;
+            }
+
+            long start = SystemClock.elapsedRealtime();
+            migration.migrateSchema(db);
+            long duration = SystemClock.elapsedRealtime() - start;
+
+            writeJournal(db, migration.getVersion(), STEP_SCHEMA, STATUS_DONE, duration);
+            for (BackgroundStep step : migration.getBackgroundSteps()) {
+                writeJournal(db, migration.getVersion(), step.getName(), STATUS_PENDING, 0);
+            }
+            Log.d(TAG, migration + " schema applied in " + duration + " ms, background steps queued: " +
+                    migration.getBackgroundSteps().size());
+        }
+    }
+
+    /**
+     * Есть ли невыполненные фоновые шаги
+     */
+    public boolean hasPendingSteps(SQLiteDatabase db) {
+        try {
+            Cursor cursor = db.rawQuery(
+                    "SELECT 1 FROM " + TABLE_SCHEMA_MIGRATIONS +
+                            " WHERE " + COLUMN_STATUS + " = ? LIMIT 1",
+                    new String[]{STATUS_PENDING});
+            boolean pending = cursor.moveToFirst();
+            cursor.close();
+            return pending;
+        } catch (SQLiteException e) {
+            // Журнала ещё нет - значит, и шагов нет
+            return false;
+        }
+    }
+
+    /**
+     * Выполнение отложенных фоновых шагов. Вызывается в фоновом потоке;
+     * каждая порция - отдельная короткая транзакция
+     */
+    public void runPendingSteps(SQLiteDatabase db) {
+        List<String[]> pending = new ArrayList<>();
+        Cursor cursor = db.query(
+                TABLE_SCHEMA_MIGRATIONS,
+                new String[]{COLUMN_VERSION, COLUMN_STEP},
+                COLUMN_STATUS + " = ?",
+                new String[]{STATUS_PENDING},
+                null, null,
+                COLUMN_VERSION + ", rowid"
+        );
+        while (cursor.moveToNext()) {
+            pending.add(new String[]{cursor.getString(0), cursor.getString(1)});
+        }
+        cursor.close();
+
+        for (String[] entry : pending) {
+            int version = Integer.parseInt(entry[0]);
+            BackgroundStep step = findStep(version, entry[1]);
+            if (step == null) {
+                Log.w(TAG, "Unknown migration step " + version + "/" + entry[1] + ", marking as done");
+                writeJournal(db, version, entry[1], STATUS_DONE, 0);
+                continue;
+            }
+            if (!runStep(db, version, step)) {
+                Log.d(TAG, "Background migration interrupted, will resume on next start");
+                return;
+            }
+        }
+    }
+
+    private boolean runStep(SQLiteDatabase db, int version, BackgroundStep step) {
+        int chunkSize = INITIAL_CHUNK_SIZE;
+        long stepStart = SystemClock.elapsedRealtime();
+
+        while (true) {
+            long chunkStart = SystemClock.elapsedRealtime();
+            int processed;
+
+            db.beginTransactionNonExclusive();
+            try {
+                processed = step.runChunk(db, chunkSize);
+                long chunkDuration = SystemClock.elapsedRealtime() - chunkStart;
+                addProgress(db, version, step.getName(), processed, chunkDuration, processed < chunkSize);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            if (processed < chunkSize) {
+                Log.d(TAG, "Migration step " + version + "/" + step.getName() + " finished in " +
+                        (SystemClock.elapsedRealtime() - stepStart) + " ms");
+                return true;
+            }
+
+            long chunkDuration = SystemClock.elapsedRealtime() - chunkStart;
+            if (chunkDuration > 2 * TARGET_CHUNK_MS) {
+                chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+            } else if (chunkDuration < TARGET_CHUNK_MS / 2) {
+                chunkSize = Math.min(MAX_CHUNK_SIZE, chunkSize * 2);
+            }
+
+            try {
+                Thread.sleep(PAUSE_BETWEEN_CHUNKS_MS);
+                // Пока экраны читают или пишут, следующая порция ждёт
+                DatabaseExecutor.getInstance().yieldToForeground();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private BackgroundStep findStep(int version, String name) {
+        for (Migration migration : migrations) {
+            if (migration.getVersion() != version) {
+                continue;
+            }
+            for (BackgroundStep step : migration.getBackgroundSteps()) {
+                if (step.getName().equals(name)) {
+                    return step;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void writeJournal(SQLiteDatabase db, int version, String step, String status, long durationMs) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_VERSION, version);
+        values.put(COLUMN_STEP, step);
+        values.put(COLUMN_STATUS, status);
+        values.put(COLUMN_DURATION_MS, durationMs);
+        if (STATUS_DONE.equals(status)) {
+            values.put(COLUMN_FINISHED_AT, System.currentTimeMillis());
+        }
+        db.insertWithOnConflict(TABLE_SCHEMA_MIGRATIONS, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private void addProgress(SQLiteDatabase db, int version, String step, int rows, long durationMs, boolean done) {
+        db.execSQL("UPDATE " + TABLE_SCHEMA_MIGRATIONS + " SET " +
+                        COLUMN_CHUNKS + " = " + COLUMN_CHUNKS + " + 1, " +
+                        COLUMN_ROWS + " = " + COLUMN_ROWS + " + ?, " +
+                        COLUMN_DURATION_MS + " = " + COLUMN_DURATION_MS + " + ?, " +
+                        COLUMN_STATUS + " = ?, " +
+                        COLUMN_FINISHED_AT + " = ?" +
+                        " WHERE " + COLUMN_VERSION + " = ? AND " + COLUMN_STEP + " = ?",
+                new Object[]{rows, durationMs, done ? STATUS_DONE : STATUS_PENDING,
+                        done ? System.currentTimeMillis() : null, version, step});
+    }
+}
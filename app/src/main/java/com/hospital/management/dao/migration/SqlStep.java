@@ -0,0 +1,28 @@
+package com.hospital.management.dao.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Шаг из одного оператора, который нельзя разбить на порции (CREATE INDEX, перестроение FTS).
+ * Выполняется в фоне, вне транзакции onUpgrade
+ */
+public class SqlStep implements BackgroundStep {
+    private final String name;
+    private final String sql;
+
+    public SqlStep(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int runChunk(SQLiteDatabase db, int chunkSize) {
+        db.execSQL(sql);
+        return 0;
+    }
+}
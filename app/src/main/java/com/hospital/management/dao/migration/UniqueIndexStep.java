@@ -0,0 +1,50 @@
+package com.hospital.management.dao.migration;
+
+import android.database.sqlite.SQLiteConstraintException;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+/**
+ * Построение уникального индекса по уже заполненной таблице.
+ * Если в данных есть дубликаты, уникальный индекс не создаётся: строится обычный
+ * (fallbackSql), чтобы проверки всё равно шли по индексу, а дубликаты остаются
+ * на разбор администратору. После успешного построения выполняются afterSuccessSql
+ * (например, удаление заменённого неуникального индекса)
+ */
+public class UniqueIndexStep implements BackgroundStep {
+    private static final String TAG = "UniqueIndexStep";
+
+    private final String name;
+    private final String uniqueIndexSql;
+    private final String fallbackSql;
+    private final String[] afterSuccessSql;
+
+    public UniqueIndexStep(String name, String uniqueIndexSql, String fallbackSql, String... afterSuccessSql) {
+        this.name = name;
+        this.uniqueIndexSql = uniqueIndexSql;
+        this.fallbackSql = fallbackSql;
+        this.afterSuccessSql = afterSuccessSql;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int runChunk(SQLiteDatabase db, int chunkSize) {
+        try {
+            db.execSQL(uniqueIndexSql);
+        } catch (SQLiteConstraintException e) {
+            Log.w(TAG, "Duplicates found, unique index " + name + " not created: " + e.getMessage());
+            if (fallbackSql != null) {
+                db.execSQL(fallbackSql);
+            }
+            return 0;
+        }
+        for (String statement : afterSuccessSql) {
+            db.execSQL(statement);
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.hospital.management.exporter;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.concurrent.DatabaseExecutor;
+import com.hospital.management.dao.DoctorDao;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.dao.RowConsumer;
+import com.hospital.management.model.Doctor;
+import com.hospital.management.model.Patient;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Выгрузка справочников пациентов и врачей для региональной системы в виде
+ * ресурсов FHIR Patient/Practitioner: NDJSON (ресурс на строку, как в FHIR Bulk Data)
+ * или один Bundle типа collection. Строки читаются из базы по одной и сразу пишутся
+ * в канал через буфер фиксированного размера, так что расход памяти не зависит
+ * от размера базы. Канал вызывающий открывает и закрывает сам.
+ */
+public class DirectoryExporter {
+    private static final String TAG = "DirectoryExporter";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Каждые YIELD_EVERY_ROWS строк экспорт в фоновой очереди уступает базу экранам
+    private static final int YIELD_EVERY_ROWS = 1000;
+
+    // Системы идентификаторов: СНИЛС - OID ПФР; полис ОМС и участок - локальные
+    static final String SYSTEM_SNILS = "urn:oid:1.2.643.100.3";
+    static final String SYSTEM_POLICY_OMS = "urn:hospital-management:policy-oms";
+    static final String EXTENSION_DISTRICT = "urn:hospital-management:district";
+
+    public enum Format {
+        NDJSON,
+        FHIR_BUNDLE
+    }
+
+    private final PatientDao patientDao;
+    private final DoctorDao doctorDao;
+
+    public DirectoryExporter(Context context) {
+        patientDao = new PatientDao(context);
+        doctorDao = new DoctorDao(context);
+    }
+
+    public long exportPatients(WritableByteChannel channel, Format format, boolean gzip) throws IOException {
+        return export(channel, format, gzip, true, false);
+    }
+
+    public long exportDoctors(WritableByteChannel channel, Format format, boolean gzip) throws IOException {
+        return export(channel, format, gzip, false, true);
+    }
+
+    /**
+     * Пациенты и врачи в одном потоке. Возвращает число выгруженных ресурсов
+     */
+    public long exportAll(WritableByteChannel channel, Format format, boolean gzip) throws IOException {
+        return export(channel, format, gzip, true, true);
+    }
+
+    private long export(WritableByteChannel channel, final Format format, boolean gzip,
+                        boolean patients, boolean doctors) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+
+        GZIPOutputStream gzipStream = gzip
+                ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)
+                : null;
+        WritableByteChannel target = gzipStream != null ? Channels.newChannel(gzipStream) : channel;
+        Writer writer = new BufferedWriter(
+                Channels.newWriter(target, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        final JsonStreamWriter json = new JsonStreamWriter(writer);
+
+        long count = 0;
+        try {
+            if (format == Format.FHIR_BUNDLE) {
+                json.beginObject()
+                        .name("resourceType").value("Bundle")
+                        .name("type").value("collection")
+                        .name("entry").beginArray();
+            }
+
+            if (patients) {
+                count += patientDao.forEachPatient(new RowConsumer<Patient>() {
+                    private long rows;
+
+                    @Override
+                    public void accept(Patient patient) throws IOException {
+                        yieldIfDue(++rows);
+                        beginEntry(json, format, "Patient", patient.getPatientId());
+                        writePatient(json, patient);
+                        endEntry(json, format);
+                    }
+                });
+            }
+            if (doctors) {
+                count += doctorDao.forEachDoctor(new RowConsumer<Doctor>() {
+                    private long rows;
+
+                    @Override
+                    public void accept(Doctor doctor) throws IOException {
+                        yieldIfDue(++rows);
+                        beginEntry(json, format, "Practitioner", doctor.getDoctorId());
+                        writePractitioner(json, doctor);
+                        endEntry(json, format);
+                    }
+                });
+            }
+
+            if (format == Format.FHIR_BUNDLE) {
+                json.endArray().endObject();
+            }
+
+            // Канал не закрываем: сбрасываем буферы и дописываем хвост gzip
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+                gzipStream.flush();
+            }
+        } finally {
+            patientDao.close();
+            doctorDao.close();
+        }
+
+        Log.d(TAG, "Exported " + count + " resources (" + format + (gzip ? ", gzip" : "") + ") in " +
+                (SystemClock.elapsedRealtime() - start) + " ms");
+        return count;
+    }
+
+    private static void yieldIfDue(long rows) throws IOException {
+        if (rows % YIELD_EVERY_ROWS != 0) {
+            return;
+        }
+        try {
+            DatabaseExecutor.getInstance().yieldToForeground();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Экспорт прерван");
+        }
+    }
+
+    private static void beginEntry(JsonStreamWriter json, Format format, String type, int id) throws IOException {
+        if (format == Format.FHIR_BUNDLE) {
+            json.beginObject()
+                    .name("fullUrl").value(type + "/" + id)
+                    .name("resource");
+        }
+        json.beginObject()
+                .name("resourceType").value(type)
+                .name("id").value(String.valueOf(id));
+    }
+
+    private static void endEntry(JsonStreamWriter json, Format format) throws IOException {
+        json.endObject();
+        if (format == Format.FHIR_BUNDLE) {
+            json.endObject();
+        } else {
+            json.newLine();
+        }
+    }
+
+    private static void writePatient(JsonStreamWriter json, Patient patient) throws IOException {
+        if (patient.getDistrict() > 0) {
+            json.name("extension").beginArray()
+                    .beginObject()
+                    .name("url").value(EXTENSION_DISTRICT)
+                    .name("valueInteger").value(patient.getDistrict())
+                    .endObject()
+                    .endArray();
+        }
+
+        boolean hasSnils = !isEmpty(patient.getSnils());
+        boolean hasPolicy = !isEmpty(patient.getPolicyOMS());
+        if (hasSnils || hasPolicy) {
+            json.name("identifier").beginArray();
+            if (hasSnils) {
+                writeIdentifier(json, SYSTEM_SNILS, patient.getSnils());
+            }
+            if (hasPolicy) {
+                writeIdentifier(json, SYSTEM_POLICY_OMS, patient.getPolicyOMS());
+            }
+            json.endArray();
+        }
+
+        writeName(json, patient.getLastName(), patient.getFirstName());
+        writeTelecom(json, patient.getPhoneNumber(), patient.getEmail());
+        json.field("birthDate", patient.getBirthDate());
+
+        if (!isEmpty(patient.getAddress())) {
+            json.name("address").beginArray()
+                    .beginObject().name("text").value(patient.getAddress()).endObject()
+                    .endArray();
+        }
+    }
+
+    private static void writePractitioner(JsonStreamWriter json, Doctor doctor) throws IOException {
+        writeName(json, doctor.getLastName(), doctor.getFirstName());
+        writeTelecom(json, null, doctor.getEmail());
+
+        // Кабинет и график относятся к PractitionerRole и в справочник не входят
+        if (!isEmpty(doctor.getSpecialization())) {
+            json.name("qualification").beginArray()
+                    .beginObject()
+                    .name("code").beginObject().name("text").value(doctor.getSpecialization()).endObject()
+                    .endObject()
+                    .endArray();
+        }
+    }
+
+    private static void writeIdentifier(JsonStreamWriter json, String system, String value) throws IOException {
+        json.beginObject()
+                .name("system").value(system)
+                .name("value").value(value)
+                .endObject();
+    }
+
+    private static void writeName(JsonStreamWriter json, String family, String given) throws IOException {
+        json.name("name").beginArray().beginObject();
+        json.field("family", family);
+        if (!isEmpty(given)) {
+            json.name("given").beginArray().value(given).endArray();
+        }
+        json.endObject().endArray();
+    }
+
+    private static void writeTelecom(JsonStreamWriter json, String phone, String email) throws IOException {
+        if (isEmpty(phone) && isEmpty(email)) {
+            return;
+        }
+        json.name("telecom").beginArray();
+        if (!isEmpty(phone)) {
+            json.beginObject().name("system").value("phone").name("value").value(phone).endObject();
+        }
+        if (!isEmpty(email)) {
+            json.beginObject().name("system").value("email").name("value").value(email).endObject();
+        }
+        json.endArray();
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+}
@@ -0,0 +1,153 @@
+package com.hospital.management.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Минимальная потоковая запись JSON без промежуточных объектов.
+ * В отличие от android.util.JsonWriter допускает несколько значений верхнего уровня (NDJSON)
+ */
+final class JsonStreamWriter {
+    private static final int MAX_DEPTH = 32;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    // Были ли уже значения на каждом уровне вложенности - для расстановки запятых
+    private final boolean[] hasValue = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    JsonStreamWriter(Writer out) {
+        this.out = out;
+    }
+
+    JsonStreamWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    JsonStreamWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    JsonStreamWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    JsonStreamWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    JsonStreamWriter name(String name) throws IOException {
+        separate();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    JsonStreamWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    JsonStreamWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Поле-строка; пустые значения не записываются
+     */
+    JsonStreamWriter field(String name, String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            name(name).value(value);
+        }
+        return this;
+    }
+
+    /**
+     * Конец записи NDJSON: перевод строки на верхнем уровне
+     */
+    void newLine() throws IOException {
+        if (depth != 0) {
+            throw new IllegalStateException("Незакрытый объект JSON");
+        }
+        out.write('\n');
+        hasValue[0] = false;
+    }
+
+    private JsonStreamWriter open(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        depth++;
+        if (depth >= MAX_DEPTH) {
+            throw new IllegalStateException("Слишком глубокая вложенность JSON");
+        }
+        hasValue[depth] = false;
+        return this;
+    }
+
+    private JsonStreamWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Лишняя закрывающая скобка JSON");
+        }
+        out.write(bracket);
+        depth--;
+        return this;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasValue[depth] && depth > 0) {
+            out.write(',');
+        }
+        hasValue[depth] = true;
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch >= 0x20 && ch != '"' && ch != '\\' && ch != '\u2028' && ch != '\u2029') {
+                continue;
+            }
+            out.write(value, start, i - start);
+            switch (ch) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u");
+                    out.write(HEX[(ch >> 12) & 0xF]);
+                    out.write(HEX[(ch >> 8) & 0xF]);
+                    out.write(HEX[(ch >> 4) & 0xF]);
+                    out.write(HEX[ch & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,141 @@
+package com.hospital.management.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый разбор CSV (RFC 4180): поля в кавычках, удвоенные кавычки,
+ * переводы строк внутри кавычек. В памяти держится только текущая запись
+ */
+final class CsvParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char separator;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    CsvParser(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Следующая запись или null в конце файла
+     */
+    String[] readRecord() throws IOException {
+        fields.clear();
+        field.setLength(0);
+        boolean inQuotes = false;
+        boolean any = false;
+
+        int c;
+        while ((c = read()) != -1) {
+            any = true;
+            char ch = (char) c;
+            if (inQuotes) {
+                if (ch == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                inQuotes = true;
+            } else if (ch == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                break;
+            } else if (ch == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else {
+                field.append(ch);
+            }
+        }
+
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Определение разделителя по строке заголовка: ';' (выгрузки Excel) или ','
+     */
+    static char detectSeparator(String headerLine) {
+        int commas = 0;
+        int semicolons = 0;
+        boolean inQuotes = false;
+        for (int i = 0; i < headerLine.length(); i++) {
+            char ch = headerLine.charAt(i);
+            if (ch == '"') {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && ch == ',') {
+                commas++;
+            } else if (!inQuotes && ch == ';') {
+                semicolons++;
+            }
+        }
+        return semicolons > commas ? ';' : ',';
+    }
+
+    /**
+     * Запись в формате CSV; поля с разделителем, кавычками или переводом строки берутся в кавычки
+     */
+    static String format(List<String> values, char separator) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(separator);
+            }
+            String value = values.get(i) != null ? values.get(i) : "";
+            boolean quote = value.indexOf(separator) >= 0 || value.indexOf('"') >= 0 ||
+                    value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (quote) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(value);
+            }
+        }
+        return line.toString();
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int count = reader.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = count;
+        return true;
+    }
+}
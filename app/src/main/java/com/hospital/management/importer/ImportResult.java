@@ -0,0 +1,69 @@
+package com.hospital.management.importer;
+
+/**
+ * Состояние импорта: промежуточное (в onProgress) или итоговое
+ */
+public class ImportResult {
+    private final long recordsDone;
+    private final long imported;
+    private final long rejected;
+    private final long resumedFrom;
+    private final long elapsedMillis;
+    private final boolean finished;
+
+    ImportResult(long recordsDone, long imported, long rejected, long resumedFrom,
+                 long elapsedMillis, boolean finished) {
+        this.recordsDone = recordsDone;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.resumedFrom = resumedFrom;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+    }
+
+    /**
+     * Обработано записей файла (с учётом предыдущих запусков)
+     */
+    public long getRecordsDone() {
+        return recordsDone;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * С какой записи продолжен импорт (0 - с начала файла)
+     */
+    public long getResumedFrom() {
+        return resumedFrom;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * false - импорт прерван; повторный запуск продолжит с контрольной точки
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Записей в секунду за текущий запуск
+     */
+    public double getRecordsPerSecond() {
+        return elapsedMillis > 0 ? (recordsDone - resumedFrom) * 1000.0 / elapsedMillis : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportResult{done=%d, imported=%d, rejected=%d, resumedFrom=%d, %d ms, finished=%b}",
+                recordsDone, imported, rejected, resumedFrom, elapsedMillis, finished);
+    }
+}
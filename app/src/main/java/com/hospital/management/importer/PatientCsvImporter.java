@@ -0,0 +1,504 @@
+package com.hospital.management.importer;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.hospital.management.concurrent.DatabaseExecutor;
+import com.hospital.management.dao.BulkWriteResult;
+import com.hospital.management.dao.DatabaseManager;
+import com.hospital.management.dao.ImportCheckpointDao;
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.model.Patient;
+import com.hospital.management.repository.PatientRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Импорт реестра пациентов из CSV.
+ * Конвейер: поток чтения режет файл на порции по batchSize записей, пул потоков
+ * разбирает и проверяет порции (Patient.validate), единственный писатель в вызывающем
+ * потоке фиксирует порции по порядку - каждая в своей транзакции вместе с контрольной точкой.
+ * Очередь порций ограничена, поэтому в памяти не больше ~3 * workerCount порций
+ * независимо от размера файла. Прерванный импорт (interrupt вызывающего потока,
+ * ошибка, закрытие приложения) при повторном запуске с тем же importId продолжается
+ * с первой незафиксированной записи.
+ *
+ * Колонки определяются по заголовку (имена как в таблице Patients, регистр не важен),
+ * разделитель - ',' или ';'. Отклонённые записи с причиной пишутся в отчёт CSV.
+ */
+public class PatientCsvImporter {
+    private static final String TAG = "PatientCsvImporter";
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private static final int HEADER_PEEK_CHARS = 64 * 1024;
+    private static final String REASON_DUPLICATE_POLICY = "Полис ОМС уже зарегистрирован";
+    private static final String REASON_BAD_DISTRICT = "Участок должен быть числом";
+
+    // Колонки файла в порядке индексов FIELD_*
+    private static final String[] FIELDS = {
+            PatientDao.COLUMN_FIRST_NAME,
+            PatientDao.COLUMN_LAST_NAME,
+            PatientDao.COLUMN_BIRTH_DATE,
+            PatientDao.COLUMN_PHONE_NUMBER,
+            PatientDao.COLUMN_EMAIL,
+            PatientDao.COLUMN_ADDRESS,
+            PatientDao.COLUMN_POLICY_OMS,
+            PatientDao.COLUMN_SNILS,
+            PatientDao.COLUMN_DISTRICT
+    };
+    private static final int FIELD_FIRST_NAME = 0;
+    private static final int FIELD_LAST_NAME = 1;
+    private static final int FIELD_BIRTH_DATE = 2;
+    private static final int FIELD_PHONE_NUMBER = 3;
+    private static final int FIELD_EMAIL = 4;
+    private static final int FIELD_ADDRESS = 5;
+    private static final int FIELD_POLICY_OMS = 6;
+    private static final int FIELD_SNILS = 7;
+    private static final int FIELD_DISTRICT = 8;
+
+    /**
+     * Прогресс импорта; вызывается в потоке писателя после фиксации каждой порции
+     */
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    private final DatabaseManager databaseManager;
+    private final PatientDao patientDao;
+    private final ImportCheckpointDao checkpointDao;
+    private final int batchSize;
+    private final int workerCount;
+
+    public PatientCsvImporter(Context context) {
+        this(context, DEFAULT_BATCH_SIZE, Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+    }
+
+    public PatientCsvImporter(Context context, int batchSize, int workerCount) {
+        if (batchSize <= 0 || workerCount <= 0) {
+            throw new IllegalArgumentException("Некорректные параметры импорта");
+        }
+        this.databaseManager = DatabaseManager.getInstance(context);
+        this.patientDao = new PatientDao(context);
+        this.checkpointDao = new ImportCheckpointDao(context);
+        this.batchSize = batchSize;
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Импорт файла. Блокирующий вызов - выполнять в фоновом потоке.
+     *
+     * @param importId       идентификатор файла для контрольных точок (например, URI и размер)
+     * @param rejectedReport файл отчёта об отклонённых записях или null; при продолжении импорта дописывается
+     * @param listener       получатель прогресса или null
+     */
+    public ImportResult importPatients(Reader source, String importId, File rejectedReport,
+                                       ProgressListener listener) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+
+        BufferedReader reader = new BufferedReader(source, HEADER_PEEK_CHARS);
+        reader.mark(HEADER_PEEK_CHARS);
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IOException("Файл пуст");
+        }
+        reader.reset();
+
+        char separator = CsvParser.detectSeparator(headerLine);
+        final CsvParser parser = new CsvParser(reader, separator);
+        String[] header = parser.readRecord();
+        final int[] columns = mapColumns(header);
+
+        ImportCheckpointDao.Checkpoint checkpoint = checkpointDao.getCheckpoint(importId);
+        final long resumedFrom = checkpoint != null ? checkpoint.getRecordsDone() : 0;
+        long imported = checkpoint != null ? checkpoint.getImported() : 0;
+        final long importedAtStart = imported;
+        long rejected = checkpoint != null ? checkpoint.getRejected() : 0;
+        long done = resumedFrom;
+        if (checkpoint != null) {
+            Log.d(TAG, "Resuming import " + importId + " after record " + resumedFrom);
+        }
+
+        Writer report = rejectedReport != null
+                ? openReport(rejectedReport, header, separator, checkpoint != null)
+                : null;
+
+        final ExecutorService workers = Executors.newFixedThreadPool(workerCount);
+        final BlockingQueue<Future<Chunk>> pending = new ArrayBlockingQueue<>(workerCount * 2);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produce(parser, columns, resumedFrom, workers, pending);
+            }
+        }, "csv-import-reader");
+
+        SQLiteDatabase db = databaseManager.acquire();
+        boolean finished = false;
+        try {
+            producer.start();
+            while (!Thread.currentThread().isInterrupted()) {
+                Chunk chunk = takeChunk(pending);
+                if (chunk == Chunk.END) {
+                    finished = true;
+                    break;
+                }
+
+                imported += writeChunk(db, importId, chunk, report, separator, imported, rejected);
+                rejected += chunk.rejected.size();
+                done = chunk.lastRecord;
+
+                if (listener != null) {
+                    listener.onProgress(new ImportResult(done, imported, rejected, resumedFrom,
+                            SystemClock.elapsedRealtime() - start, false));
+                }
+                // Порция зафиксирована; в фоновой очереди уступаем базу экранам
+                DatabaseExecutor.getInstance().yieldToForeground();
+            }
+            if (finished) {
+                checkpointDao.deleteCheckpoint(importId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            producer.interrupt();
+            workers.shutdownNow();
+            if (report != null) {
+                report.close();
+            }
+            databaseManager.release();
+            patientDao.close();
+            checkpointDao.close();
+        }
+        if (imported > importedAtStart) {
+            // Пакетная запись мимо репозитория: открытые списки перечитываются целиком
+            PatientRepository.invalidate();
+        }
+
+        ImportResult result = new ImportResult(done, imported, rejected, resumedFrom,
+                SystemClock.elapsedRealtime() - start, finished);
+        Log.d(TAG, (finished ? "Import finished: " : "Import interrupted: ") + result);
+        return result;
+    }
+
+    /**
+     * Поток чтения: пропуск уже зафиксированных записей, нарезка на порции, отправка в пул.
+     * Последним в очередь кладётся END или ошибка чтения
+     */
+    private void produce(CsvParser parser, final int[] columns, long resumedFrom,
+                         ExecutorService workers, BlockingQueue<Future<Chunk>> pending) {
+        Callable<Chunk> last;
+        try {
+            long record = 0;
+            while (record < resumedFrom && parser.readRecord() != null) {
+                record++;
+            }
+
+            List<String[]> batch = new ArrayList<>(batchSize);
+            while (true) {
+                String[] fields = parser.readRecord();
+                if (fields != null) {
+                    batch.add(fields);
+                    record++;
+                }
+                if (batch.size() == batchSize || (fields == null && !batch.isEmpty())) {
+                    final List<String[]> records = batch;
+                    final long firstRecord = record - records.size() + 1;
+                    pending.put(workers.submit(new Callable<Chunk>() {
+                        @Override
+                        public Chunk call() {
+                            return parse(records, firstRecord, columns);
+                        }
+                    }));
+                    batch = new ArrayList<>(batchSize);
+                }
+                if (fields == null) {
+                    break;
+                }
+            }
+            last = new Callable<Chunk>() {
+                @Override
+                public Chunk call() {
+                    return Chunk.END;
+                }
+            };
+        } catch (InterruptedException e) {
+            // Писатель остановился - дочитывать незачем
+            return;
+        } catch (final Exception e) {
+            Log.e(TAG, "Error reading import file: " + e.getMessage(), e);
+            last = new Callable<Chunk>() {
+                @Override
+                public Chunk call() throws Exception {
+                    throw e;
+                }
+            };
+        }
+
+        FutureTask<Chunk> task = new FutureTask<>(last);
+        task.run();
+        try {
+            pending.put(task);
+        } catch (InterruptedException ignored) {
+            // Писатель уже остановился
+        }
+    }
+
+    /**
+     * Разбор и проверка порции (в пуле потоков)
+     */
+    private static Chunk parse(List<String[]> records, long firstRecord, int[] columns) {
+        Chunk chunk = new Chunk(firstRecord + records.size() - 1);
+        for (int i = 0; i < records.size(); i++) {
+            String[] fields = records.get(i);
+            long recordNumber = firstRecord + i;
+            if (isBlankRecord(fields)) {
+                continue;
+            }
+
+            Patient patient = new Patient();
+            patient.setFirstName(field(fields, columns, FIELD_FIRST_NAME));
+            patient.setLastName(field(fields, columns, FIELD_LAST_NAME));
+            patient.setBirthDate(field(fields, columns, FIELD_BIRTH_DATE));
+            patient.setPhoneNumber(field(fields, columns, FIELD_PHONE_NUMBER));
+            patient.setEmail(field(fields, columns, FIELD_EMAIL));
+            patient.setAddress(field(fields, columns, FIELD_ADDRESS));
+            patient.setPolicyOMS(field(fields, columns, FIELD_POLICY_OMS));
+            patient.setSnils(field(fields, columns, FIELD_SNILS));
+
+            List<String> errors = patient.validate();
+            String district = field(fields, columns, FIELD_DISTRICT);
+            if (district != null) {
+                try {
+                    patient.setDistrict(Integer.parseInt(district));
+                } catch (NumberFormatException e) {
+                    errors.add(REASON_BAD_DISTRICT);
+                }
+            }
+
+            if (errors.isEmpty()) {
+                chunk.patients.add(patient);
+                chunk.patientRows.add(new Row(recordNumber, null, fields));
+            } else {
+                chunk.rejected.add(new Row(recordNumber, join(errors), fields));
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Фиксация порции одной транзакцией: проверка дубликатов полисов одним пакетным запросом,
+     * пакетная вставка, запись отклонённых в отчёт и контрольная точка.
+     * Возвращает число добавленных пациентов; отклонённые дописываются в chunk.rejected
+     */
+    private int writeChunk(SQLiteDatabase db, String importId, Chunk chunk, Writer report,
+                           char separator, long importedBefore, long rejectedBefore) throws IOException {
+        Set<String> policies = new HashSet<>();
+        for (Patient patient : chunk.patients) {
+            if (!isEmpty(patient.getPolicyOMS())) {
+                policies.add(patient.getPolicyOMS());
+            }
+        }
+
+        int imported;
+        db.beginTransactionNonExclusive();
+        try {
+            // Проверка внутри транзакции видит все ранее зафиксированные порции,
+            // поэтому ловит и повторы внутри файла
+            Set<String> existing = patientDao.findExistingPolicies(policies);
+            Set<String> seen = new HashSet<>();
+            List<Patient> toInsert = new ArrayList<>(chunk.patients.size());
+            List<Row> toInsertRecords = new ArrayList<>(chunk.patients.size());
+            for (int i = 0; i < chunk.patients.size(); i++) {
+                Patient patient = chunk.patients.get(i);
+                Row record = chunk.patientRows.get(i);
+                String policy = patient.getPolicyOMS();
+                if (!isEmpty(policy) && (existing.contains(policy) || !seen.add(policy))) {
+                    chunk.rejected.add(new Row(record.recordNumber, REASON_DUPLICATE_POLICY, record.fields));
+                } else {
+                    toInsert.add(patient);
+                    toInsertRecords.add(record);
+                }
+            }
+
+            BulkWriteResult result = patientDao.addPatients(toInsert);
+            for (int i = 0; i < result.size(); i++) {
+                if (!result.isSuccess(i)) {
+                    Row record = toInsertRecords.get(i);
+                    chunk.rejected.add(new Row(record.recordNumber, result.getError(i), record.fields));
+                }
+            }
+            imported = result.getSuccessCount();
+
+            if (report != null && !chunk.rejected.isEmpty()) {
+                writeReport(report, chunk.rejected, separator);
+            }
+            checkpointDao.saveCheckpoint(importId, new ImportCheckpointDao.Checkpoint(
+                    chunk.lastRecord, importedBefore + imported, rejectedBefore + chunk.rejected.size()));
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        // Вложенная транзакция вставки могла откатить порцию целиком - сверяемся с точкой
+        ImportCheckpointDao.Checkpoint saved = checkpointDao.getCheckpoint(importId);
+        if (saved == null || saved.getRecordsDone() != chunk.lastRecord) {
+            throw new IOException("Не удалось сохранить записи до " + chunk.lastRecord);
+        }
+        return imported;
+    }
+
+    private static Chunk takeChunk(BlockingQueue<Future<Chunk>> pending) throws InterruptedException, IOException {
+        try {
+            return pending.take().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Ошибка разбора файла: " + cause.getMessage(), cause);
+        }
+    }
+
+    private static int[] mapColumns(String[] header) throws IOException {
+        if (header == null) {
+            throw new IOException("Файл пуст");
+        }
+        int[] columns = new int[FIELDS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.length; i++) {
+            String name = header[i].replace("\uFEFF", "").trim();
+            for (int f = 0; f < FIELDS.length; f++) {
+                if (FIELDS[f].equalsIgnoreCase(name)) {
+                    columns[f] = i;
+                }
+            }
+        }
+        if (columns[FIELD_FIRST_NAME] < 0 || columns[FIELD_LAST_NAME] < 0) {
+            throw new IOException("В заголовке нет колонок " + PatientDao.COLUMN_FIRST_NAME +
+                    " и " + PatientDao.COLUMN_LAST_NAME);
+        }
+        return columns;
+    }
+
+    private static Writer openReport(File file, String[] header, char separator, boolean resume) throws IOException {
+        boolean append = resume && file.length() > 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), "UTF-8"));
+        if (!append) {
+            List<String> columns = new ArrayList<>();
+            columns.add("Record");
+            columns.add("Reason");
+            Collections.addAll(columns, header);
+            writer.write(CsvParser.format(columns, separator));
+            writer.write('\n');
+        }
+        return writer;
+    }
+
+    private static void writeReport(Writer report, List<Row> rejected, char separator) throws IOException {
+        Collections.sort(rejected, new Comparator<Row>() {
+            @Override
+            public int compare(Row a, Row b) {
+                return Long.compare(a.recordNumber, b.recordNumber);
+            }
+        });
+        List<String> line = new ArrayList<>();
+        for (Row record : rejected) {
+            line.clear();
+            line.add(String.valueOf(record.recordNumber));
+            line.add(record.reason);
+            Collections.addAll(line, record.fields);
+            report.write(CsvParser.format(line, separator));
+            report.write('\n');
+        }
+        // Отчёт сбрасывается до фиксации порции: после сбоя строки могут повториться, но не потеряться
+        report.flush();
+    }
+
+    private static String field(String[] fields, int[] columns, int field) {
+        int index = columns[field];
+        if (index < 0 || index >= fields.length) {
+            return null;
+        }
+        String value = fields[index].trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean isBlankRecord(String[] fields) {
+        for (String value : fields) {
+            if (!value.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private static String join(List<String> errors) {
+        StringBuilder reason = new StringBuilder();
+        for (String error : errors) {
+            if (reason.length() > 0) {
+                reason.append("; ");
+            }
+            reason.append(error);
+        }
+        return reason.toString();
+    }
+
+    /**
+     * Разобранная порция: корректные пациенты (с исходными полями) и отклонённые записи
+     */
+    private static final class Chunk {
+        static final Chunk END = new Chunk(-1);
+
+        final long lastRecord;
+        final List<Patient> patients = new ArrayList<>();
+        final List<Row> patientRows = new ArrayList<>();
+        final List<Row> rejected = new ArrayList<>();
+
+        Chunk(long lastRecord) {
+            this.lastRecord = lastRecord;
+        }
+    }
+
+    /**
+     * Запись файла: номер, исходные поля и причина отклонения (null - запись корректна)
+     */
+    private static final class Row {
+        final long recordNumber;
+        final String reason;
+        final String[] fields;
+
+        Row(long recordNumber, String reason, String[] fields) {
+            this.recordNumber = recordNumber;
+            this.reason = reason;
+            this.fields = fields;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hospital.management.model;
+
+import java.io.Serializable;
+
+/**
+ * Приём пациента у врача на интервал [startTime, endTime) в миллисекундах эпохи
+ */
+public class Appointment implements Serializable {
+    // Статусы приёма; отменённый приём не занимает время врача
+    public static final String STATUS_SCHEDULED = "SCHEDULED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+
+    private int appointmentId;
+    private int patientId;
+    private int doctorId;
+    private long startTime;
+    private long endTime;
+    private String status = STATUS_SCHEDULED;
+    private String notes;
+
+    // Конструкторы
+    public Appointment() {}
+
+    public Appointment(int patientId, int doctorId, long startTime, long endTime, String notes) {
+        setPatientId(patientId);
+        setDoctorId(doctorId);
+        setInterval(startTime, endTime);
+        setNotes(notes);
+    }
+
+    // Копия без проверок
+    public Appointment(Appointment other) {
+        this.appointmentId = other.appointmentId;
+        this.patientId = other.patientId;
+        this.doctorId = other.doctorId;
+        this.startTime = other.startTime;
+        this.endTime = other.endTime;
+        this.status = other.status;
+        this.notes = other.notes;
+    }
+
+    // Геттеры
+    public int getAppointmentId() { return appointmentId; }
+    public int getPatientId() { return patientId; }
+    public int getDoctorId() { return doctorId; }
+    public long getStartTime() { return startTime; }
+    public long getEndTime() { return endTime; }
+    public String getStatus() { return status; }
+    public String getNotes() { return notes; }
+
+    // Сеттеры с валидацией
+    public void setAppointmentId(int appointmentId) {
+        if (appointmentId < 0) {
+            throw new IllegalArgumentException("ID приёма не может быть отрицательным");
+        }
+        this.appointmentId = appointmentId;
+    }
+
+    public void setPatientId(int patientId) {
+        if (patientId <= 0) {
+            throw new IllegalArgumentException("Не выбран пациент");
+        }
+        this.patientId = patientId;
+    }
+
+    public void setDoctorId(int doctorId) {
+        if (doctorId <= 0) {
+            throw new IllegalArgumentException("Не выбран врач");
+        }
+        this.doctorId = doctorId;
+    }
+
+    /**
+     * Начало и конец задаются вместе: конец должен быть позже начала
+     */
+    public void setInterval(long startTime, long endTime) {
+        if (endTime <= startTime) {
+            throw new IllegalArgumentException("Окончание приёма должно быть позже начала");
+        }
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public void setStatus(String status) {
+        this.status = status == null || status.trim().isEmpty() ? STATUS_SCHEDULED : status.trim();
+    }
+
+    public void setNotes(String notes) {
+        this.notes = notes != null ? notes.trim() : null;
+    }
+
+    // Вспомогательные методы
+    public boolean isCancelled() {
+        return STATUS_CANCELLED.equals(status);
+    }
+
+    /**
+     * Пересечение полуинтервалов: приём, закончившийся в 10:00, не мешает приёму с 10:00
+     */
+    public boolean overlaps(long otherStart, long otherEnd) {
+        return startTime < otherEnd && otherStart < endTime;
+    }
+
+    @Override
+    public String toString() {
+        return "Appointment{" +
+                "id=" + appointmentId +
+                ", patientId=" + patientId +
+                ", doctorId=" + doctorId +
+                ", start=" + startTime +
+                ", end=" + endTime +
+                ", status='" + status + '\'' +
+                '}';
+    }
+}
@@ -38,6 +38,17 @@ public class Doctor implements Serializable { // Добавлен implements Ser
         setEmail(email);
     }
 
+    // Копия без проверок (для кэша DAO)
+    public Doctor(Doctor other) {
+        this.doctorId = other.doctorId;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.specialization = other.specialization;
+        this.roomNumber = other.roomNumber;
+        this.schedule = other.schedule;
+        this.email = other.email;
+    }
+
     // Геттеры
     public int getDoctorId() {
         return doctorId;
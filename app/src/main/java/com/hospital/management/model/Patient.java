@@ -1,8 +1,20 @@
 package com.hospital.management.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 public class Patient implements Serializable {
+    // Правила проверки полей: общие для формы пациента и импорта реестров
+    // То же правило, что android.util.Patterns.EMAIL_ADDRESS: домен из меток через точку
+    public static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "[a-zA-Z0-9+._%\\-]{1,256}@[a-zA-Z0-9][a-zA-Z0-9\\-]{0,64}(\\.[a-zA-Z0-9][a-zA-Z0-9\\-]{0,25})+");
+    public static final Pattern PHONE_PATTERN = Pattern.compile("^\\+?[0-9\\-\\s()]{7,20}$");
+    public static final Pattern SNILS_PATTERN = Pattern.compile("^\\d{3}-\\d{3}-\\d{3} \\d{2}$");
+    public static final Pattern POLICY_OMS_PATTERN = Pattern.compile("^\\d{16}$");
+    public static final Pattern BIRTH_DATE_PATTERN = Pattern.compile("^\\d{4}-\\d{2}-\\d{2}$");
+
     private int patientId;
     private String firstName;
     private String lastName;
@@ -31,6 +43,20 @@ public class Patient implements Serializable {
         this.district = district;
     }
 
+    // Копия без проверок (для кэша DAO)
+    public Patient(Patient other) {
+        this.patientId = other.patientId;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.birthDate = other.birthDate;
+        this.phoneNumber = other.phoneNumber;
+        this.email = other.email;
+        this.address = other.address;
+        this.policyOMS = other.policyOMS;
+        this.snils = other.snils;
+        this.district = other.district;
+    }
+
     // Геттеры и сеттеры
     public int getPatientId() { return patientId; }
     public void setPatientId(int patientId) { this.patientId = patientId; }
@@ -63,4 +89,52 @@ public class Patient implements Serializable {
 
     public int getDistrict() { return district; }
     public void setDistrict(int district) { this.district = district; }
-}
\ No newline at end of file
+
+    // Вспомогательные методы
+    /**
+     * Проверка полей по тем же правилам, что и форма пациента.
+     * Возвращает список ошибок; пустой список - данные корректны
+     */
+    public List<String> validate() {
+        List<String> errors = new ArrayList<>();
+        if (isBlank(firstName)) {
+            errors.add("Введите имя");
+        }
+        if (isBlank(lastName)) {
+            errors.add("Введите фамилию");
+        }
+        if (isBlank(email)) {
+            errors.add("Введите email");
+        } else if (!isValidEmail(email)) {
+            errors.add("Неверный формат email");
+        }
+        if (!isBlank(phoneNumber) && !PHONE_PATTERN.matcher(phoneNumber).matches()) {
+            errors.add("Неверный формат телефона");
+        }
+        if (!isBlank(snils) && !SNILS_PATTERN.matcher(snils).matches()) {
+            errors.add("Формат СНИЛС: XXX-XXX-XXX XX");
+        }
+        if (!isBlank(policyOMS) && !POLICY_OMS_PATTERN.matcher(policyOMS).matches()) {
+            errors.add("Полис ОМС должен содержать 16 цифр");
+        }
+        if (!isBlank(birthDate) && !BIRTH_DATE_PATTERN.matcher(birthDate).matches()) {
+            errors.add("Формат даты рождения: ГГГГ-ММ-ДД");
+        }
+        return errors;
+    }
+
+    public boolean isValid() {
+        return validate().isEmpty();
+    }
+
+    /**
+     * Проверка формата email (пробелы по краям не учитываются)
+     */
+    public static boolean isValidEmail(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email.trim()).matches();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.hospital.management.model;
+
+import java.io.Serializable;
+
+/**
+ * Запись справочника специализаций: ID и название для отображения
+ */
+public class Specialization implements Serializable {
+    private final int specializationId;
+    private final String name;
+
+    public Specialization(int specializationId, String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Название специализации не может быть пустым");
+        }
+        this.specializationId = specializationId;
+        this.name = name;
+    }
+
+    public int getSpecializationId() { return specializationId; }
+    public String getName() { return name; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -19,6 +19,15 @@ public class User implements Serializable {
         setRoleId(roleId);
     }
 
+    // Копия без проверок (для кэша DAO)
+    public User(User other) {
+        this.userId = other.userId;
+        this.username = other.username;
+        this.password = other.password;
+        this.role = other.role;
+        this.roleId = other.roleId;
+    }
+
     // Геттеры и сеттеры
     public int getUserId() {
         return userId;
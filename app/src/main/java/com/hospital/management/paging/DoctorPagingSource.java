@@ -0,0 +1,30 @@
+package com.hospital.management.paging;
+
+import com.hospital.management.adapters.DoctorRow;
+import com.hospital.management.dao.DoctorDao;
+import com.hospital.management.dao.PageKey;
+
+import java.util.List;
+
+public class DoctorPagingSource implements PagingSource<DoctorRow> {
+    private final DoctorDao doctorDao;
+
+    public DoctorPagingSource(DoctorDao doctorDao) {
+        this.doctorDao = doctorDao;
+    }
+
+    @Override
+    public List<DoctorRow> loadAfter(PageKey key, int limit) {
+        return doctorDao.getDoctorsPageAfter(key, limit, DoctorRow.ROWS);
+    }
+
+    @Override
+    public List<DoctorRow> loadBefore(PageKey key, int limit) {
+        return doctorDao.getDoctorsPageBefore(key, limit, DoctorRow.ROWS);
+    }
+
+    @Override
+    public PageKey keyOf(DoctorRow row) {
+        return row.getKey();
+    }
+}
@@ -0,0 +1,314 @@
+package com.hospital.management.paging;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.hospital.management.dao.PageKey;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Подгрузка списка страницами по мере прокрутки.
+ * Страницы грузятся в фоне через PagingSource, результат применяется к Target
+ * в главном потоке. В памяти держится не больше maxSize элементов: при переполнении
+ * дальний от экрана край списка отбрасывается и при возврате загружается заново.
+ * Изменения отдельных строк (ChangeEvent репозитория) применяются к загруженному окну
+ * на месте, без перечитывания: строка вставляется по ключу сортировки, если попадает в окно.
+ * Все методы, кроме загрузки, вызываются из главного потока.
+ */
+public class Pager<T> {
+    private static final String TAG = "Pager";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 4;
+
+    /**
+     * Получатель страниц (адаптер списка).
+     * getLoadedCount/getLoadedItem/getLoadedPosition - окно с учётом всех применённых изменений,
+     * даже если адаптер ещё не показал их (сравнение списков в фоне)
+     */
+    public interface Target<T> {
+        int getLoadedCount();
+        T getLoadedItem(int position);
+        int getLoadedPosition(int id);
+        void setItems(List<T> items);
+        void appendItems(List<T> items);
+        void prependItems(List<T> items);
+        void removeFromStart(int count);
+        void removeFromEnd(int count);
+        void insertItem(int position, T item);
+        void replaceItem(int position, T item);
+        void removeItem(int position);
+    }
+
+    private final PagingSource<T> source;
+    private final Target<T> target;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxSize;
+
+    // Поколение загрузки: ответы от устаревших запросов после refresh() отбрасываются
+    private int generation;
+    private boolean appendInFlight;
+    private boolean prependInFlight;
+    private boolean endReached;
+    private boolean startReached = true;
+    // Счётчик применённых изменений: страница, прочитанная до изменения, устарела
+    private int changeCount;
+
+    public Pager(PagingSource<T> source, Target<T> target, Executor executor) {
+        this(source, target, executor, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    public Pager(PagingSource<T> source, Target<T> target, Executor executor,
+                 int pageSize, int maxPages) {
+        if (pageSize <= 0 || maxPages < 2) {
+            throw new IllegalArgumentException("Некорректные параметры страниц");
+        }
+        this.source = source;
+        this.target = target;
+        this.executor = executor;
+        this.pageSize = pageSize;
+        this.prefetchDistance = pageSize / 2;
+        this.maxSize = pageSize * maxPages;
+    }
+
+    /**
+     * Загрузка списка с начала. onLoaded вызывается в главном потоке после применения первой страницы
+     */
+    public void refresh(final Runnable onLoaded) {
+        final int requestGeneration = ++generation;
+        final int requestChanges = changeCount;
+        appendInFlight = false;
+        prependInFlight = false;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> page = load(null, true);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (page == null || requestGeneration != generation) {
+                            return;
+                        }
+                        if (requestChanges != changeCount) {
+                            // Строки изменились во время чтения: страница могла их не увидеть
+                            refresh(onLoaded);
+                            return;
+                        }
+                        startReached = true;
+                        endReached = page.size() < pageSize;
+                        target.setItems(page);
+                        if (onLoaded != null) {
+                            onLoaded.run();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Отказ от загружаемых страниц (список отключён от Pager, например на время поиска).
+     * Окно снова заполняется через refresh()
+     */
+    public void cancel() {
+        generation++;
+        appendInFlight = false;
+        prependInFlight = false;
+    }
+
+    /**
+     * Сообщение об обращении к элементу (из onBindViewHolder): при приближении
+     * к краю загруженного окна запускается подгрузка следующей страницы
+     */
+    public void onItemAccessed(int position) {
+        int count = target.getLoadedCount();
+        if (count == 0) {
+            return;
+        }
+        if (!endReached && !appendInFlight && position >= count - prefetchDistance) {
+            loadAppend(source.keyOf(target.getLoadedItem(count - 1)));
+        }
+        if (!startReached && !prependInFlight && position < prefetchDistance) {
+            loadPrepend(source.keyOf(target.getLoadedItem(0)));
+        }
+    }
+
+    private void loadAppend(final PageKey key) {
+        final int requestGeneration = generation;
+        final int requestChanges = changeCount;
+        appendInFlight = true;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> page = load(key, true);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (requestGeneration != generation) {
+                            return;
+                        }
+                        appendInFlight = false;
+                        if (page == null) {
+                            return;
+                        }
+                        if (requestChanges != changeCount) {
+                            retryAppend();
+                            return;
+                        }
+                        endReached = page.size() < pageSize;
+                        target.appendItems(page);
+
+                        int overflow = target.getLoadedCount() - maxSize;
+                        if (overflow > 0) {
+                            target.removeFromStart(overflow);
+                            startReached = false;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void loadPrepend(final PageKey key) {
+        final int requestGeneration = generation;
+        final int requestChanges = changeCount;
+        prependInFlight = true;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> page = load(key, false);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (requestGeneration != generation) {
+                            return;
+                        }
+                        prependInFlight = false;
+                        if (page == null) {
+                            return;
+                        }
+                        if (requestChanges != changeCount) {
+                            retryPrepend();
+                            return;
+                        }
+                        startReached = page.size() < pageSize;
+                        target.prependItems(page);
+
+                        int overflow = target.getLoadedCount() - maxSize;
+                        if (overflow > 0) {
+                            target.removeFromEnd(overflow);
+                            endReached = false;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void retryAppend() {
+        int count = target.getLoadedCount();
+        if (count > 0 && !endReached) {
+            loadAppend(source.keyOf(target.getLoadedItem(count - 1)));
+        }
+    }
+
+    private void retryPrepend() {
+        if (target.getLoadedCount() > 0 && !startReached) {
+            loadPrepend(source.keyOf(target.getLoadedItem(0)));
+        }
+    }
+
+    /**
+     * Новая строка: вставляется по ключу сортировки, если попадает в загруженное окно.
+     * Строка за краем окна появится при подгрузке этого края
+     */
+    public void onItemInserted(T item) {
+        changeCount++;
+        insert(item);
+    }
+
+    private void insert(T item) {
+        int position = insertionPoint(source.keyOf(item));
+        int count = target.getLoadedCount();
+        if ((position == 0 && !startReached) || (position == count && !endReached)) {
+            return;
+        }
+        target.insertItem(position, item);
+    }
+
+    /**
+     * Изменённая строка: заменяется на месте, а если изменился ключ сортировки -
+     * переносится на новую позицию (или уходит из окна)
+     */
+    public void onItemUpdated(T item) {
+        changeCount++;
+        PageKey key = source.keyOf(item);
+        int position = indexOf(key.getId());
+        if (position >= 0) {
+            boolean afterPrevious = position == 0 ||
+                    source.keyOf(target.getLoadedItem(position - 1)).compareTo(key) < 0;
+            boolean beforeNext = position == target.getLoadedCount() - 1 ||
+                    key.compareTo(source.keyOf(target.getLoadedItem(position + 1))) < 0;
+            if (afterPrevious && beforeNext) {
+                target.replaceItem(position, item);
+                return;
+            }
+            target.removeItem(position);
+        }
+        insert(item);
+    }
+
+    /**
+     * Удалённая строка убирается из окна, если загружена
+     */
+    public void onItemRemoved(int id) {
+        changeCount++;
+        int position = indexOf(id);
+        if (position >= 0) {
+            target.removeItem(position);
+        }
+    }
+
+    /**
+     * Позиция строки с ID в окне или -1
+     */
+    private int indexOf(int id) {
+        return target.getLoadedPosition(id);
+    }
+
+    /**
+     * Первая позиция окна с ключом не меньше key (окно отсортировано по ключу)
+     */
+    private int insertionPoint(PageKey key) {
+        int low = 0;
+        int high = target.getLoadedCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (source.keyOf(target.getLoadedItem(mid)).compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private List<T> load(PageKey key, boolean after) {
+        try {
+            return after ? source.loadAfter(key, pageSize) : source.loadBefore(key, pageSize);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading page: " + e.getMessage(), e);
+            return null;
+        }
+    }
+}
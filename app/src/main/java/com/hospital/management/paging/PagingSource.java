@@ -0,0 +1,23 @@
+package com.hospital.management.paging;
+
+import com.hospital.management.dao.PageKey;
+
+import java.util.List;
+
+/**
+ * Источник страниц для Pager. Методы загрузки вызываются в фоновом потоке
+ */
+public interface PagingSource<T> {
+
+    /**
+     * Страница после ключа; key == null - первая страница
+     */
+    List<T> loadAfter(PageKey key, int limit);
+
+    /**
+     * Страница перед ключом, в прямом порядке сортировки
+     */
+    List<T> loadBefore(PageKey key, int limit);
+
+    PageKey keyOf(T item);
+}
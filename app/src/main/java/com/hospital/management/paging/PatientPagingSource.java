@@ -0,0 +1,30 @@
+package com.hospital.management.paging;
+
+import com.hospital.management.adapters.PatientRow;
+import com.hospital.management.dao.PageKey;
+import com.hospital.management.dao.PatientDao;
+
+import java.util.List;
+
+public class PatientPagingSource implements PagingSource<PatientRow> {
+    private final PatientDao patientDao;
+
+    public PatientPagingSource(PatientDao patientDao) {
+        this.patientDao = patientDao;
+    }
+
+    @Override
+    public List<PatientRow> loadAfter(PageKey key, int limit) {
+        return patientDao.getPatientsPageAfter(key, limit, PatientRow.ROWS);
+    }
+
+    @Override
+    public List<PatientRow> loadBefore(PageKey key, int limit) {
+        return patientDao.getPatientsPageBefore(key, limit, PatientRow.ROWS);
+    }
+
+    @Override
+    public PageKey keyOf(PatientRow row) {
+        return row.getKey();
+    }
+}
@@ -0,0 +1,36 @@
+package com.hospital.management.repository;
+
+/**
+ * Изменение сущности после зафиксированной записи.
+ * Для INSERTED и UPDATED entity - копия записанной сущности с заполненным ID,
+ * для DELETED entity == null. INVALIDATED - пакетная запись (импорт):
+ * подписчик перечитывает данные целиком, id и entity не заданы
+ */
+public final class ChangeEvent<T> {
+
+    public enum Type {
+        INSERTED,
+        UPDATED,
+        DELETED,
+        INVALIDATED
+    }
+
+    private final Type type;
+    private final int id;
+    private final T entity;
+
+    ChangeEvent(Type type, int id, T entity) {
+        this.type = type;
+        this.id = id;
+        this.entity = entity;
+    }
+
+    public Type getType() { return type; }
+    public int getId() { return id; }
+    public T getEntity() { return entity; }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" + type + ", " + id + "}";
+    }
+}
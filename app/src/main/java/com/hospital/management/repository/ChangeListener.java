@@ -0,0 +1,8 @@
+package com.hospital.management.repository;
+
+/**
+ * Получатель изменений; вызывается в главном потоке
+ */
+public interface ChangeListener<T> {
+    void onChange(ChangeEvent<T> event);
+}
@@ -0,0 +1,66 @@
+package com.hospital.management.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Подписчики на изменения одного типа сущностей на весь процесс.
+ * События публикуются из потока записи и доставляются в главный поток в порядке записей.
+ * Подписка привязана к жизненному циклу экрана и снимается при ON_DESTROY
+ */
+final class ChangeObservers<T> {
+    private static final String TAG = "ChangeObservers";
+
+    private final String name;
+    private final CopyOnWriteArrayList<ChangeListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    ChangeObservers(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Подписка до закрытия экрана. Вызывается из главного потока
+     */
+    void observe(LifecycleOwner owner, final ChangeListener<T> listener) {
+        if (owner.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED) {
+            return;
+        }
+        listeners.add(listener);
+        owner.getLifecycle().addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(LifecycleOwner source, Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    listeners.remove(listener);
+                }
+            }
+        });
+    }
+
+    void publish(final ChangeEvent<T> event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        Log.d(TAG, name + ": " + event);
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (ChangeListener<T> listener : listeners) {
+                    try {
+                        listener.onChange(event);
+                    } catch (Exception e) {
+                        Log.e(TAG, name + ": listener failed on " + event + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.hospital.management.repository;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import com.hospital.management.dao.DoctorDao;
+import com.hospital.management.model.Doctor;
+
+/**
+ * Записи врачей с оповещением подписчиков.
+ * Событие публикуется только после успешной записи: DAO пишет в режиме autocommit,
+ * поэтому к моменту публикации строка уже зафиксирована. Методы записи не вызываются
+ * внутри внешней транзакции и выполняются в очереди записи (TaskScope.write).
+ * Чтения идут напрямую через DAO
+ */
+public class DoctorRepository {
+    private static final ChangeObservers<Doctor> OBSERVERS = new ChangeObservers<>("doctors");
+
+    private final DoctorDao doctorDao;
+
+    public DoctorRepository(DoctorDao doctorDao) {
+        this.doctorDao = doctorDao;
+    }
+
+    /**
+     * Подписка на изменения врачей до закрытия экрана owner
+     */
+    public static void observe(LifecycleOwner owner, ChangeListener<Doctor> listener) {
+        OBSERVERS.observe(owner, listener);
+    }
+
+    /**
+     * Добавление врача; возвращает ID или -1
+     */
+    public long addDoctor(Doctor doctor) {
+        long id = doctorDao.addDoctor(doctor);
+        if (id != -1) {
+            Doctor inserted = new Doctor(doctor);
+            inserted.setDoctorId((int) id);
+            OBSERVERS.publish(new ChangeEvent<>(ChangeEvent.Type.INSERTED, (int) id, inserted));
+        }
+        return id;
+    }
+
+    public boolean updateDoctor(Doctor doctor) {
+        boolean updated = doctorDao.updateDoctor(doctor);
+        if (updated) {
+            OBSERVERS.publish(new ChangeEvent<>(ChangeEvent.Type.UPDATED, doctor.getDoctorId(),
+                    new Doctor(doctor)));
+        }
+        return updated;
+    }
+
+    public boolean deleteDoctor(int doctorId) {
+        boolean deleted = doctorDao.deleteDoctor(doctorId);
+        if (deleted) {
+            OBSERVERS.publish(new ChangeEvent<Doctor>(ChangeEvent.Type.DELETED, doctorId, null));
+        }
+        return deleted;
+    }
+}
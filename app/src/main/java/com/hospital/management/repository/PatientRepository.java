@@ -0,0 +1,67 @@
+package com.hospital.management.repository;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import com.hospital.management.dao.PatientDao;
+import com.hospital.management.model.Patient;
+
+/**
+ * Записи пациентов с оповещением подписчиков.
+ * Событие публикуется только после успешной записи: DAO пишет в режиме autocommit,
+ * поэтому к моменту публикации строка уже зафиксирована. Методы записи не вызываются
+ * внутри внешней транзакции и выполняются в очереди записи (TaskScope.write).
+ * Чтения идут напрямую через DAO
+ */
+public class PatientRepository {
+    private static final ChangeObservers<Patient> OBSERVERS = new ChangeObservers<>("patients");
+
+    private final PatientDao patientDao;
+
+    public PatientRepository(PatientDao patientDao) {
+        this.patientDao = patientDao;
+    }
+
+    /**
+     * Подписка на изменения пациентов до закрытия экрана owner
+     */
+    public static void observe(LifecycleOwner owner, ChangeListener<Patient> listener) {
+        OBSERVERS.observe(owner, listener);
+    }
+
+    /**
+     * Оповещение о пакетной записи мимо репозитория (импорт): подписчики перечитывают список
+     */
+    public static void invalidate() {
+        OBSERVERS.publish(new ChangeEvent<Patient>(ChangeEvent.Type.INVALIDATED, 0, null));
+    }
+
+    /**
+     * Добавление пациента; возвращает ID или -1
+     */
+    public long addPatient(Patient patient) {
+        long id = patientDao.addPatient(patient);
+        if (id != -1) {
+            Patient inserted = new Patient(patient);
+            inserted.setPatientId((int) id);
+            OBSERVERS.publish(new ChangeEvent<>(ChangeEvent.Type.INSERTED, (int) id, inserted));
+        }
+        return id;
+    }
+
+    public boolean updatePatient(Patient patient) {
+        boolean updated = patientDao.updatePatient(patient);
+        if (updated) {
+            OBSERVERS.publish(new ChangeEvent<>(ChangeEvent.Type.UPDATED, patient.getPatientId(),
+                    new Patient(patient)));
+        }
+        return updated;
+    }
+
+    public boolean deletePatient(int patientId) {
+        boolean deleted = patientDao.deletePatient(patientId);
+        if (deleted) {
+            OBSERVERS.publish(new ChangeEvent<Patient>(ChangeEvent.Type.DELETED, patientId, null));
+        }
+        return deleted;
+    }
+}
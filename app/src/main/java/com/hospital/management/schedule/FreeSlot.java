@@ -0,0 +1,25 @@
+package com.hospital.management.schedule;
+
+/**
+ * Свободное время врача [startTime, endTime) в миллисекундах эпохи, найденное поиском слотов
+ */
+public final class FreeSlot {
+    private final int doctorId;
+    private final long startTime;
+    private final long endTime;
+
+    public FreeSlot(int doctorId, long startTime, long endTime) {
+        this.doctorId = doctorId;
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public int getDoctorId() { return doctorId; }
+    public long getStartTime() { return startTime; }
+    public long getEndTime() { return endTime; }
+
+    @Override
+    public String toString() {
+        return "FreeSlot{doctor=" + doctorId + ", " + startTime + "-" + endTime + "}";
+    }
+}
@@ -0,0 +1,194 @@
+package com.hospital.management.schedule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Разбор текстового графика врача ("Пн-Пт 9:00-18:00, перерыв 13-14; Сб 10-14") в правила.
+ * Понимает дни и диапазоны дней (сокращения и полные названия), "будни", "выходные",
+ * "ежедневно", интервалы "9-18", "9:00-18:00", "с 9 до 18", "круглосуточно",
+ * исключения "кроме Ср", "Вс - выходной" и перерывы ("перерыв"/"обед" перед интервалом).
+ * Дни, за которыми идут интервалы, образуют группу; интервалы без дней относятся ко всем дням.
+ * Нераспознанный текст пропускается; если интервалов не нашлось, правил нет
+ */
+public final class ScheduleParser {
+
+    private static final String DAY =
+            "(?<![а-яa-z])(понедельник|вторник|сред[аыу]?|четверг|пятниц[аыу]?|суббот[аыу]?|воскресень[еяю]" +
+                    "|пн|вт|ср|чт|пт|сб|вс)(?![а-яa-z])";
+    private static final String TIME = "(\\d{1,2})(?:[:.](\\d{2}))?";
+    private static final String DASH = "\\s*(?:-|–|—|до|по)\\s*";
+
+    private static final Pattern TOKEN = Pattern.compile(
+            "((?:с\\s*)?" + TIME + DASH + TIME + ")" +
+                    "|(" + DAY + "(?:" + DASH + DAY + ")?)" +
+                    "|(круглосуточно)" +
+                    "|(ежедневно|каждый\\s+день|без\\s+выходных)" +
+                    "|(будни\\S*|будние)" +
+                    "|(выходные)" +
+                    "|(выходной)" +
+                    "|(кроме)" +
+                    "|(перерыв|обед)");
+
+    // Номера групп TOKEN по порядку в шаблоне. Именованные группы и Matcher.group(String)
+    // появились только в API 26, поэтому ветки различаются по номерам
+    private static final int RANGE_START_HOUR = 2;
+    private static final int RANGE_START_MINUTE = 3;
+    private static final int RANGE_END_HOUR = 4;
+    private static final int RANGE_END_MINUTE = 5;
+    private static final int DAYS = 6;
+    private static final int DAYS_FROM = 7;
+    private static final int DAYS_TO = 8;
+    private static final int AROUND = 9;
+    private static final int DAILY = 10;
+    private static final int WORKDAYS_TOKEN = 11;
+    private static final int WEEKEND_TOKEN = 12;
+    private static final int DAY_OFF = 13;
+    private static final int EXCEPT = 14;
+    private static final int PAUSE = 15;
+
+    private static final int WORKDAYS = 0x1F;
+    private static final int WEEKEND = 0x60;
+
+    private ScheduleParser() {
+    }
+
+    public static List<ScheduleRule> parse(String text) {
+        List<ScheduleRule> rules = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) {
+            return rules;
+        }
+
+        Matcher matcher = TOKEN.matcher(text.toLowerCase(Locale.ROOT).replace('ё', 'е'));
+        Group group = new Group();
+        boolean except = false;
+        boolean pause = false;
+        while (matcher.find()) {
+            int days = 0;
+            if (matcher.start(DAYS) != -1) {
+                days = dayRange(matcher.group(DAYS_FROM), matcher.group(DAYS_TO));
+            } else if (matcher.start(DAILY) != -1) {
+                days = ScheduleRule.ALL_DAYS;
+            } else if (matcher.start(WORKDAYS_TOKEN) != -1) {
+                days = WORKDAYS;
+            } else if (matcher.start(WEEKEND_TOKEN) != -1) {
+                days = WEEKEND;
+            }
+
+            if (days != 0) {
+                if (except) {
+                    group.excluded |= days;
+                    continue;
+                }
+                if (!group.ranges.isEmpty() || group.dayOff) {
+                    group.emit(rules);
+                    group = new Group();
+                }
+                group.days |= days;
+                continue;
+            }
+
+            except = false;
+            if (matcher.start(EXCEPT) != -1) {
+                except = true;
+            } else if (matcher.start(PAUSE) != -1) {
+                pause = true;
+            } else if (matcher.start(DAY_OFF) != -1) {
+                group.dayOff = true;
+            } else {
+                int start;
+                int end;
+                if (matcher.start(AROUND) != -1) {
+                    start = 0;
+                    end = ScheduleRule.MINUTES_PER_DAY;
+                } else {
+                    start = minuteOf(matcher.group(RANGE_START_HOUR), matcher.group(RANGE_START_MINUTE));
+                    end = minuteOf(matcher.group(RANGE_END_HOUR), matcher.group(RANGE_END_MINUTE));
+                }
+                if (start >= 0 && start < ScheduleRule.MINUTES_PER_DAY && end >= 0 && start != end) {
+                    group.ranges.add(new int[]{start, end, pause ? ScheduleRule.KIND_BREAK : ScheduleRule.KIND_WORK});
+                }
+                pause = false;
+            }
+        }
+        group.emit(rules);
+        return rules;
+    }
+
+    /**
+     * Минута от полуночи или -1 для некорректного времени; 24:00 - конец суток
+     */
+    private static int minuteOf(String hours, String minutes) {
+        int h = Integer.parseInt(hours);
+        int m = minutes != null ? Integer.parseInt(minutes) : 0;
+        if (h > 24 || m > 59 || (h == 24 && m != 0)) {
+            return -1;
+        }
+        return h * 60 + m;
+    }
+
+    /**
+     * Маска дней от from до to включительно (Пт-Пн переходит через воскресенье)
+     */
+    private static int dayRange(String from, String to) {
+        int first = dayIndex(from);
+        if (to == null) {
+            return 1 << first;
+        }
+        int last = dayIndex(to);
+        int mask = 0;
+        for (int day = first; ; day = (day + 1) % 7) {
+            mask |= 1 << day;
+            if (day == last) {
+                return mask;
+            }
+        }
+    }
+
+    private static int dayIndex(String day) {
+        switch (day.substring(0, 2)) {
+            case "пн":
+            case "по":
+                return 0;
+            case "вт":
+                return 1;
+            case "ср":
+                return 2;
+            case "чт":
+            case "че":
+                return 3;
+            case "пт":
+            case "пя":
+                return 4;
+            case "сб":
+            case "су":
+                return 5;
+            default:
+                return 6;
+        }
+    }
+
+    /**
+     * Дни и интервалы, идущие за ними
+     */
+    private static final class Group {
+        int days;
+        int excluded;
+        boolean dayOff;
+        final List<int[]> ranges = new ArrayList<>();
+
+        void emit(List<ScheduleRule> rules) {
+            int effective = (days != 0 ? days : ScheduleRule.ALL_DAYS) & ~excluded;
+            if (dayOff || effective == 0) {
+                return;
+            }
+            for (int[] range : ranges) {
+                int end = range[1] == 0 ? ScheduleRule.MINUTES_PER_DAY : range[1];
+                rules.add(new ScheduleRule(effective, range[0], end, range[2]));
+            }
+        }
+    }
+}
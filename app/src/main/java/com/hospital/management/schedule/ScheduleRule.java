@@ -0,0 +1,70 @@
+package com.hospital.management.schedule;
+
+/**
+ * Правило недельного графика: дни недели (маска, бит 0 - понедельник) и интервал
+ * [startMinute, endMinute) в минутах от полуночи. Если конец не позже начала,
+ * интервал переходит через полночь на следующий день.
+ * Правило-исключение (перерыв) вычитается из рабочих интервалов тех же дней
+ */
+public final class ScheduleRule {
+    public static final int KIND_WORK = 0;
+    public static final int KIND_BREAK = 1;
+
+    public static final int ALL_DAYS = 0x7F;
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int weekdays;
+    private final int startMinute;
+    private final int endMinute;
+    private final int kind;
+
+    public ScheduleRule(int weekdays, int startMinute, int endMinute, int kind) {
+        if (weekdays <= 0 || weekdays > ALL_DAYS) {
+            throw new IllegalArgumentException("Некорректные дни недели: " + weekdays);
+        }
+        if (startMinute < 0 || startMinute >= MINUTES_PER_DAY ||
+                endMinute < 0 || endMinute > MINUTES_PER_DAY || startMinute == endMinute) {
+            throw new IllegalArgumentException("Некорректный интервал: " + startMinute + "-" + endMinute);
+        }
+        if (kind != KIND_WORK && kind != KIND_BREAK) {
+            throw new IllegalArgumentException("Некорректный тип правила: " + kind);
+        }
+        this.weekdays = weekdays;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.kind = kind;
+    }
+
+    public int getWeekdays() { return weekdays; }
+    public int getStartMinute() { return startMinute; }
+    public int getEndMinute() { return endMinute; }
+    public int getKind() { return kind; }
+
+    public boolean isBreak() {
+        return kind == KIND_BREAK;
+    }
+
+    public boolean includesDay(int dayIndex) {
+        return (weekdays & (1 << dayIndex)) != 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScheduleRule)) return false;
+        ScheduleRule other = (ScheduleRule) o;
+        return weekdays == other.weekdays && startMinute == other.startMinute &&
+                endMinute == other.endMinute && kind == other.kind;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((weekdays * 31 + startMinute) * 31 + endMinute) * 31 + kind;
+    }
+
+    @Override
+    public String toString() {
+        return "ScheduleRule{days=" + Integer.toBinaryString(weekdays) + ", " + startMinute + "-" + endMinute +
+                (isBreak() ? ", break" : "") + "}";
+    }
+}
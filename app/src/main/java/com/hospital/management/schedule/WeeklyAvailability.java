@@ -0,0 +1,230 @@
+package com.hospital.management.schedule;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Недельная доступность врача: битовая карта из 2016 пятиминутных слотов
+ * (слот 0 - понедельник 00:00-00:05), 32 слова long.
+ * "Работает ли в момент T" - проверка одного бита, "общее время двух врачей" - AND по словам.
+ * Рабочие интервалы округляются внутрь до границ слотов, перерывы - наружу
+ */
+public final class WeeklyAvailability {
+    public static final int SLOT_MINUTES = 5;
+    public static final int SLOTS_PER_DAY = ScheduleRule.MINUTES_PER_DAY / SLOT_MINUTES;
+    public static final int SLOTS = 7 * SLOTS_PER_DAY;
+
+    private static final int WORDS = (SLOTS + 63) / 64;
+
+    public static final WeeklyAvailability EMPTY = new WeeklyAvailability(new long[WORDS]);
+
+    private final long[] words;
+
+    private WeeklyAvailability(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Карта по правилам: сначала рабочие интервалы, затем вычитаются перерывы
+     */
+    public static WeeklyAvailability compile(List<ScheduleRule> rules) {
+        long[] words = new long[WORDS];
+        for (int pass = 0; pass < 2; pass++) {
+            boolean breaks = pass == 1;
+            for (ScheduleRule rule : rules) {
+                if (rule.isBreak() != breaks) {
+                    continue;
+                }
+                for (int day = 0; day < 7; day++) {
+                    if (!rule.includesDay(day)) {
+                        continue;
+                    }
+                    int start = day * ScheduleRule.MINUTES_PER_DAY + rule.getStartMinute();
+                    int end = day * ScheduleRule.MINUTES_PER_DAY + rule.getEndMinute();
+                    if (rule.getEndMinute() <= rule.getStartMinute()) {
+                        // Через полночь
+                        end += ScheduleRule.MINUTES_PER_DAY;
+                    }
+                    if (breaks) {
+                        setRange(words, start / SLOT_MINUTES, ceilDiv(end, SLOT_MINUTES), false);
+                    } else {
+                        setRange(words, ceilDiv(start, SLOT_MINUTES), end / SLOT_MINUTES, true);
+                    }
+                }
+            }
+        }
+        return new WeeklyAvailability(words);
+    }
+
+    /**
+     * Слот недели, в который попадает момент времени в часовом поясе zone
+     */
+    public static int slotOf(long timeMillis, TimeZone zone) {
+        return slotOf(Calendar.getInstance(zone), timeMillis);
+    }
+
+    /**
+     * То же с переиспользуемым календарём (его часовой пояс и определяет слот)
+     */
+    public static int slotOf(Calendar calendar, long timeMillis) {
+        calendar.setTimeInMillis(timeMillis);
+        // Calendar.SUNDAY == 1, неделя графика начинается с понедельника
+        int day = (calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+        int minute = calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+        return day * SLOTS_PER_DAY + minute / SLOT_MINUTES;
+    }
+
+    public boolean isAvailable(int slot) {
+        slot = wrap(slot);
+        return (words[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    public boolean isAvailableAt(long timeMillis, TimeZone zone) {
+        return isAvailable(slotOf(timeMillis, zone));
+    }
+
+    /**
+     * Свободны ли все count слотов подряд, начиная с fromSlot (с переходом через конец недели)
+     */
+    public boolean isAvailable(int fromSlot, int count) {
+        if (count <= 0) {
+            return true;
+        }
+        if (count > SLOTS) {
+            return false;
+        }
+        fromSlot = wrap(fromSlot);
+        return scan(fromSlot, fromSlot + count, false) == fromSlot + count;
+    }
+
+    /**
+     * Через сколько слотов от fromSlot начинается первый отрезок из count доступных слотов подряд
+     * (0 - с самого fromSlot), или -1, если такого отрезка нет во всей неделе.
+     * Пропуски ищутся по словам, а не по одному слоту
+     */
+    public int nextRun(int fromSlot, int count) {
+        if (count <= 0) {
+            return 0;
+        }
+        if (count > SLOTS) {
+            return -1;
+        }
+        fromSlot = wrap(fromSlot);
+        int limit = fromSlot + SLOTS;
+        int position = fromSlot;
+        while (position < limit) {
+            int start = scan(position, limit, true);
+            if (start == limit) {
+                return -1;
+            }
+            int end = scan(start, start + count, false);
+            if (end == start + count) {
+                return start - fromSlot;
+            }
+            position = end;
+        }
+        return -1;
+    }
+
+    /**
+     * Время, когда доступны оба врача
+     */
+    public WeeklyAvailability and(WeeklyAvailability other) {
+        long[] result = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            result[i] = words[i] & other.words[i];
+        }
+        return new WeeklyAvailability(result);
+    }
+
+    public boolean intersects(WeeklyAvailability other) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Рабочих минут в неделю
+     */
+    public int getWorkingMinutes() {
+        int slots = 0;
+        for (long word : words) {
+            slots += Long.bitCount(word);
+        }
+        return slots * SLOT_MINUTES;
+    }
+
+    /**
+     * Первая позиция в [from, limit) со значением бита set, или limit.
+     * Позиции могут выходить за конец недели и берутся по модулю SLOTS
+     */
+    private int scan(int from, int limit, boolean set) {
+        while (from < limit) {
+            int slot = from % SLOTS;
+            // Не дальше конца слова, конца недели и limit
+            int bits = Math.min(Math.min(64 - (slot & 63), SLOTS - slot), limit - from);
+            long word = words[slot >>> 6] >>> (slot & 63);
+            if (!set) {
+                word = ~word;
+            }
+            if (bits < 64) {
+                word &= (1L << bits) - 1;
+            }
+            if (word != 0) {
+                return from + Long.numberOfTrailingZeros(word);
+            }
+            from += bits;
+        }
+        return limit;
+    }
+
+    private static void setRange(long[] words, int from, int to, boolean value) {
+        for (int slot = from; slot < to; slot++) {
+            int wrapped = slot % SLOTS;
+            if (value) {
+                words[wrapped >>> 6] |= 1L << wrapped;
+            } else {
+                words[wrapped >>> 6] &= ~(1L << wrapped);
+            }
+        }
+    }
+
+    // Math.floorMod недоступен до API 24
+    private static int wrap(int slot) {
+        int wrapped = slot % SLOTS;
+        return wrapped < 0 ? wrapped + SLOTS : wrapped;
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return (value + divisor - 1) / divisor;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof WeeklyAvailability && Arrays.equals(words, ((WeeklyAvailability) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    @Override
+    public String toString() {
+        return "WeeklyAvailability{" + getWorkingMinutes() + " min/week}";
+    }
+}
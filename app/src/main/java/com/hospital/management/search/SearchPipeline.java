@@ -0,0 +1,218 @@
+package com.hospital.management.search;
+
+import android.os.CancellationSignal;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.OperationCanceledException;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Поиск по мере ввода.
+ * Запрос уходит после паузы в наборе (DEBOUNCE_MS); одновременно выполняется не больше
+ * одного запроса. Изменение текста отменяет выполняющийся запрос через CancellationSignal,
+ * а следующий стартует только после того, как отменённый вернул управление - при быстром
+ * наборе база не получает очередь из запросов к устаревшему тексту.
+ * Последние результаты хранятся в кэше по тексту: при стирании символов прежний
+ * результат показывается сразу, без паузы и запроса.
+ * Все методы вызываются из главного потока
+ */
+public final class SearchPipeline<T> {
+    private static final String TAG = "SearchPipeline";
+
+    public static final long DEBOUNCE_MS = 250;
+    private static final int CACHE_SIZE = 16;
+
+    /**
+     * Выполнение запроса в фоновом потоке. При отмене signal запрос должен бросить
+     * OperationCanceledException (его результат всё равно отбрасывается)
+     */
+    public interface Source<T> {
+        T search(String query, CancellationSignal signal) throws Exception;
+    }
+
+    /**
+     * Результаты в главном потоке
+     */
+    public interface Listener<T> {
+        void onResults(String query, T results);
+
+        // Текст стёрт: показывается обычный список
+        void onCleared();
+    }
+
+    private final Source<T> source;
+    private final Listener<T> listener;
+    private final Executor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final long debounceMs;
+
+    // Текущий текст (нормализованный)
+    private String query = "";
+    // Выполняющийся запрос; null - в работе ничего нет
+    private String runningQuery;
+    private CancellationSignal runningSignal;
+    // За время выполнения запроса текст сменился: по его завершении нужен новый запрос
+    private boolean pendingQuery;
+    // Изменения данных: результаты, прочитанные до invalidate(), в кэш не попадают
+    private int dataVersion;
+    private boolean closed;
+
+    // Кэш последних результатов: текст -> результат, в порядке обращения
+    private final LinkedHashMap<String, T> cache = new LinkedHashMap<String, T>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final Runnable debounced = new Runnable() {
+        @Override
+        public void run() {
+            startQuery();
+        }
+    };
+
+    public SearchPipeline(Source<T> source, Listener<T> listener, Executor executor) {
+        this(source, listener, executor, DEBOUNCE_MS);
+    }
+
+    public SearchPipeline(Source<T> source, Listener<T> listener, Executor executor, long debounceMs) {
+        this.source = source;
+        this.listener = listener;
+        this.executor = executor;
+        this.debounceMs = debounceMs;
+    }
+
+    /**
+     * Текст поля поиска (из TextWatcher)
+     */
+    public void setQuery(CharSequence text) {
+        String normalized = normalize(text);
+        if (closed || normalized.equals(query)) {
+            return;
+        }
+        query = normalized;
+        mainHandler.removeCallbacks(debounced);
+        if (runningSignal != null && !normalized.equals(runningQuery)) {
+            runningSignal.cancel();
+        }
+
+        if (normalized.isEmpty()) {
+            pendingQuery = false;
+            listener.onCleared();
+            return;
+        }
+        T cached = cache.get(normalized);
+        if (cached != null) {
+            pendingQuery = false;
+            listener.onResults(normalized, cached);
+            return;
+        }
+        if (normalized.equals(runningQuery) && !runningSignal.isCanceled()) {
+            // Вернулись к тексту, запрос по которому ещё выполняется
+            pendingQuery = false;
+            return;
+        }
+        mainHandler.postDelayed(debounced, debounceMs);
+    }
+
+    /**
+     * Данные изменились: кэш сбрасывается, текущий текст ищется заново
+     */
+    public void invalidate() {
+        if (closed) {
+            return;
+        }
+        dataVersion++;
+        cache.clear();
+        if (runningSignal != null) {
+            runningSignal.cancel();
+        }
+        if (!query.isEmpty()) {
+            mainHandler.removeCallbacks(debounced);
+            startQuery();
+        }
+    }
+
+    /**
+     * Закрытие экрана: запрос отменяется, результаты больше не доставляются
+     */
+    public void close() {
+        closed = true;
+        mainHandler.removeCallbacks(debounced);
+        if (runningSignal != null) {
+            runningSignal.cancel();
+        }
+        cache.clear();
+    }
+
+    private void startQuery() {
+        if (closed || query.isEmpty()) {
+            return;
+        }
+        if (runningSignal != null) {
+            // Отменённый запрос ещё не вернулся: следующий уйдёт после него
+            pendingQuery = true;
+            return;
+        }
+        pendingQuery = false;
+
+        final String requestQuery = query;
+        final int requestVersion = dataVersion;
+        final CancellationSignal signal = new CancellationSignal();
+        runningQuery = requestQuery;
+        runningSignal = signal;
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                T results = null;
+                try {
+                    if (!signal.isCanceled()) {
+                        results = source.search(requestQuery, signal);
+                    }
+                } catch (OperationCanceledException e) {
+                    Log.d(TAG, "Search cancelled: " + requestQuery);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error searching '" + requestQuery + "': " + e.getMessage(), e);
+                }
+                final T finalResults = results;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        finished(requestQuery, requestVersion, signal, finalResults);
+                    }
+                });
+            }
+        });
+    }
+
+    private void finished(String requestQuery, int requestVersion, CancellationSignal signal, T results) {
+        if (signal != runningSignal) {
+            return;
+        }
+        runningQuery = null;
+        runningSignal = null;
+        if (closed) {
+            return;
+        }
+
+        if (results != null && !signal.isCanceled() && requestVersion == dataVersion) {
+            cache.put(requestQuery, results);
+            if (requestQuery.equals(query)) {
+                listener.onResults(requestQuery, results);
+            }
+        }
+        if (pendingQuery) {
+            startQuery();
+        }
+    }
+
+    static String normalize(CharSequence text) {
+        return text == null ? "" : text.toString().trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
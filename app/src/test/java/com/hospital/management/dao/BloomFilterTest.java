@@ -0,0 +1,50 @@
+package com.hospital.management.dao;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BloomFilterTest {
+    private static final int KEYS = 100_000;
+
+    @Test
+    public void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.add(policy(i));
+        }
+        for (int i = 0; i < KEYS; i++) {
+            assertTrue(filter.mightContain(policy(i)));
+        }
+        assertFalse(filter.isSaturated());
+    }
+
+    @Test
+    public void falsePositiveRateNearConfigured() {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        for (int i = 0; i < KEYS; i++) {
+            filter.add(policy(i));
+        }
+        int falsePositives = 0;
+        for (int i = KEYS; i < 2 * KEYS; i++) {
+            if (filter.mightContain(policy(i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / KEYS;
+        assertTrue("false positive rate " + rate, rate < 0.02);
+    }
+
+    @Test
+    public void saturatesPastExpectedKeys() {
+        BloomFilter filter = new BloomFilter(10, 0.01);
+        for (int i = 0; i <= 10; i++) {
+            filter.add(policy(i));
+        }
+        assertTrue(filter.isSaturated());
+    }
+
+    private static String policy(int i) {
+        return String.format("%016d", i);
+    }
+}
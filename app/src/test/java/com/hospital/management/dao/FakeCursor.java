@@ -0,0 +1,288 @@
+package com.hospital.management.dao;
+
+import android.content.ContentResolver;
+import android.database.CharArrayBuffer;
+import android.database.ContentObserver;
+import android.database.Cursor;
+import android.database.DataSetObserver;
+import android.net.Uri;
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Курсор над строками в памяти для локальных тестов без устройства.
+ * getColumnIndex повторяет SQLiteCursor: отбрасывание префикса "таблица."
+ * и поиск в кэше имя -> позиция
+ */
+class FakeCursor implements Cursor {
+    private final String[] columns;
+    private final List<Object[]> rows;
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private int position = -1;
+    private boolean closed;
+
+    FakeCursor(String[] columns, List<Object[]> rows) {
+        this.columns = columns;
+        this.rows = rows;
+        for (int i = 0; i < columns.length; i++) {
+            columnIndex.put(columns[i], i);
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return moveToPosition(position + offset);
+    }
+
+    @Override
+    public boolean moveToPosition(int newPosition) {
+        if (newPosition < 0) {
+            position = -1;
+            return false;
+        }
+        if (newPosition >= rows.size()) {
+            position = rows.size();
+            return false;
+        }
+        position = newPosition;
+        return true;
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return moveToPosition(0);
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return moveToPosition(rows.size() - 1);
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return moveToPosition(position + 1);
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        return moveToPosition(position - 1);
+    }
+
+    @Override
+    public boolean isFirst() {
+        return position == 0 && !rows.isEmpty();
+    }
+
+    @Override
+    public boolean isLast() {
+        return position == rows.size() - 1 && !rows.isEmpty();
+    }
+
+    @Override
+    public boolean isBeforeFirst() {
+        return rows.isEmpty() || position == -1;
+    }
+
+    @Override
+    public boolean isAfterLast() {
+        return rows.isEmpty() || position == rows.size();
+    }
+
+    @Override
+    public int getColumnIndex(String columnName) {
+        int periodIndex = columnName.lastIndexOf('.');
+        if (periodIndex != -1) {
+            columnName = columnName.substring(periodIndex + 1);
+        }
+        Integer index = columnIndex.get(columnName);
+        if (index != null) {
+            return index;
+        }
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(columnName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int getColumnIndexOrThrow(String columnName) {
+        int index = getColumnIndex(columnName);
+        if (index < 0) {
+            throw new IllegalArgumentException("column '" + columnName + "' does not exist");
+        }
+        return index;
+    }
+
+    @Override
+    public String getColumnName(int columnIndex) {
+        return columns[columnIndex];
+    }
+
+    @Override
+    public String[] getColumnNames() {
+        return columns;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public byte[] getBlob(int column) {
+        return (byte[]) value(column);
+    }
+
+    @Override
+    public String getString(int column) {
+        Object value = value(column);
+        return value != null ? value.toString() : null;
+    }
+
+    @Override
+    public void copyStringToBuffer(int column, CharArrayBuffer buffer) {
+        String value = getString(column);
+        if (value == null) {
+            buffer.sizeCopied = 0;
+            return;
+        }
+        if (buffer.data == null || buffer.data.length < value.length()) {
+            buffer.data = value.toCharArray();
+        } else {
+            value.getChars(0, value.length(), buffer.data, 0);
+        }
+        buffer.sizeCopied = value.length();
+    }
+
+    @Override
+    public short getShort(int column) {
+        return (short) getLong(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return (int) getLong(column);
+    }
+
+    @Override
+    public long getLong(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    @Override
+    public float getFloat(int column) {
+        return (float) getDouble(column);
+    }
+
+    @Override
+    public double getDouble(int column) {
+        Object value = value(column);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+
+    @Override
+    public int getType(int column) {
+        Object value = value(column);
+        if (value == null) {
+            return FIELD_TYPE_NULL;
+        } else if (value instanceof Long || value instanceof Integer) {
+            return FIELD_TYPE_INTEGER;
+        } else if (value instanceof Number) {
+            return FIELD_TYPE_FLOAT;
+        } else if (value instanceof byte[]) {
+            return FIELD_TYPE_BLOB;
+        }
+        return FIELD_TYPE_STRING;
+    }
+
+    @Override
+    public boolean isNull(int column) {
+        return value(column) == null;
+    }
+
+    @Override
+    public void deactivate() {
+    }
+
+    @Override
+    public boolean requery() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public void registerContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void unregisterContentObserver(ContentObserver observer) {
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+    }
+
+    @Override
+    public void setNotificationUri(ContentResolver resolver, Uri uri) {
+    }
+
+    @Override
+    public Uri getNotificationUri() {
+        return null;
+    }
+
+    @Override
+    public boolean getWantsAllOnMoveCalls() {
+        return false;
+    }
+
+    @Override
+    public void setExtras(Bundle extras) {
+    }
+
+    @Override
+    public Bundle getExtras() {
+        return null;
+    }
+
+    @Override
+    public Bundle respond(Bundle extras) {
+        return null;
+    }
+
+    private Object value(int column) {
+        if (position < 0 || position >= rows.size()) {
+            throw new IllegalStateException("Cursor is not positioned on a row");
+        }
+        return rows.get(position)[column];
+    }
+}
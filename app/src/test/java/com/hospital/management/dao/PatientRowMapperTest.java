@@ -0,0 +1,95 @@
+package com.hospital.management.dao;
+
+import android.database.Cursor;
+
+import com.hospital.management.model.Patient;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * PatientRowMapper заполняет Patient так же, как прежний поиск колонки на каждое поле.
+ * Замер скорости - androidTest RowMapperBenchmark на настоящем SQLiteCursor
+ */
+public class PatientRowMapperTest {
+    private static final String[] ALL_COLUMNS = {
+            PatientDao.COLUMN_PATIENT_ID,
+            PatientDao.COLUMN_FIRST_NAME,
+            PatientDao.COLUMN_LAST_NAME,
+            PatientDao.COLUMN_BIRTH_DATE,
+            PatientDao.COLUMN_PHONE_NUMBER,
+            PatientDao.COLUMN_EMAIL,
+            PatientDao.COLUMN_ADDRESS,
+            PatientDao.COLUMN_POLICY_OMS,
+            PatientDao.COLUMN_SNILS,
+            PatientDao.COLUMN_DISTRICT
+    };
+
+    @Test
+    public void mapperMatchesLegacyMapping() {
+        FakeCursor cursor = new FakeCursor(ALL_COLUMNS, generateRows(10));
+        PatientRowMapper mapper = new PatientRowMapper(cursor);
+        while (cursor.moveToNext()) {
+            Patient expected = legacyCursorToPatient(cursor);
+            Patient actual = mapper.map(cursor);
+            assertEquals(expected.getPatientId(), actual.getPatientId());
+            assertEquals(expected.getFirstName(), actual.getFirstName());
+            assertEquals(expected.getLastName(), actual.getLastName());
+            assertEquals(expected.getBirthDate(), actual.getBirthDate());
+            assertEquals(expected.getPhoneNumber(), actual.getPhoneNumber());
+            assertEquals(expected.getEmail(), actual.getEmail());
+            assertEquals(expected.getAddress(), actual.getAddress());
+            assertEquals(expected.getPolicyOMS(), actual.getPolicyOMS());
+            assertEquals(expected.getSnils(), actual.getSnils());
+            assertEquals(expected.getDistrict(), actual.getDistrict());
+        }
+    }
+
+    @Test
+    public void mapperSkipsColumnsNotInProjection() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{7L, "Иванов"});
+        FakeCursor cursor = new FakeCursor(
+                new String[]{PatientDao.COLUMN_PATIENT_ID, PatientDao.COLUMN_LAST_NAME}, rows);
+
+        assertTrue(cursor.moveToFirst());
+        Patient patient = new PatientRowMapper(cursor).map(cursor);
+
+        assertEquals(7, patient.getPatientId());
+        assertEquals("Иванов", patient.getLastName());
+        assertNull(patient.getFirstName());
+        assertEquals(0, patient.getDistrict());
+    }
+
+    // Прежний PatientDao.cursorToPatient - для сравнения
+    private static Patient legacyCursorToPatient(Cursor cursor) {
+        Patient patient = new Patient();
+        patient.setPatientId(cursor.getInt(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_PATIENT_ID)));
+        patient.setFirstName(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_FIRST_NAME)));
+        patient.setLastName(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_LAST_NAME)));
+        patient.setBirthDate(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_BIRTH_DATE)));
+        patient.setPhoneNumber(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_PHONE_NUMBER)));
+        patient.setEmail(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_EMAIL)));
+        patient.setAddress(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_ADDRESS)));
+        patient.setPolicyOMS(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_POLICY_OMS)));
+        patient.setSnils(cursor.getString(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_SNILS)));
+        patient.setDistrict(cursor.getInt(cursor.getColumnIndexOrThrow(PatientDao.COLUMN_DISTRICT)));
+        return patient;
+    }
+
+    private static List<Object[]> generateRows(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{
+                    (long) i + 1, "Имя" + i, "Фамилия" + i, "1980-01-01", "+79000000000",
+                    "patient" + i + "@example.com", "Адрес " + i, String.format("%016d", i),
+                    "123-456-789 00", (long) (i % 10)
+            });
+        }
+        return rows;
+    }
+}
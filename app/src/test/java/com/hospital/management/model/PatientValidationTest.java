@@ -0,0 +1,41 @@
+package com.hospital.management.model;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PatientValidationTest {
+
+    @Test
+    public void acceptsRegularEmails() {
+        assertTrue(Patient.isValidEmail("ivanov@example.com"));
+        assertTrue(Patient.isValidEmail("a.b+tag_1%x-y@mail.clinic-12.ru"));
+        assertTrue(Patient.isValidEmail(" ivanov@example.com "));
+    }
+
+    @Test
+    public void rejectsMalformedEmails() {
+        assertFalse(Patient.isValidEmail(null));
+        assertFalse(Patient.isValidEmail(""));
+        assertFalse(Patient.isValidEmail("a@b"));
+        assertFalse(Patient.isValidEmail("a@."));
+        assertFalse(Patient.isValidEmail("a@ b.ru"));
+        assertFalse(Patient.isValidEmail("a@b..ru"));
+        assertFalse(Patient.isValidEmail("a@-b.ru"));
+        assertFalse(Patient.isValidEmail("@example.com"));
+        assertFalse(Patient.isValidEmail("иванов@example.com"));
+    }
+
+    @Test
+    public void validateReportsBadEmail() {
+        Patient patient = new Patient("Иван", "Иванов", "1980-01-01", null, "a@b", null, null, null, 1);
+        List<String> errors = patient.validate();
+        assertEquals(1, errors.size());
+        assertEquals("Неверный формат email", errors.get(0));
+
+        patient.setEmail("ivanov@example.com");
+        assertTrue(patient.isValid());
+    }
+}
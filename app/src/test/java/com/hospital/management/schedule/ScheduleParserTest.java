@@ -0,0 +1,154 @@
+package com.hospital.management.schedule;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class ScheduleParserTest {
+    private static final int MONDAY = 0;
+    private static final int SATURDAY = 5;
+    private static final int SUNDAY = 6;
+
+    @Test
+    public void parsesWeekdayRange() {
+        assertEquals(Collections.singletonList(new ScheduleRule(0x1F, 9 * 60, 18 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("Пн-Пт 9:00-18:00"));
+    }
+
+    @Test
+    public void parsesSeveralGroups() {
+        List<ScheduleRule> rules = ScheduleParser.parse("Пн, Ср 8-14; Сб с 10.30 до 15");
+        assertEquals(Arrays.asList(
+                new ScheduleRule(0x05, 8 * 60, 14 * 60, ScheduleRule.KIND_WORK),
+                new ScheduleRule(1 << SATURDAY, 10 * 60 + 30, 15 * 60, ScheduleRule.KIND_WORK)), rules);
+    }
+
+    @Test
+    public void parsesFullDayNamesAndKeywords() {
+        assertEquals(Collections.singletonList(new ScheduleRule(0x1E, 12 * 60, 20 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("вторник - пятница 12:00 - 20:00"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 0, 24 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Круглосуточно"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 8 * 60, 20 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Ежедневно 8-20"));
+        assertEquals(Collections.singletonList(new ScheduleRule(0x60, 10 * 60, 16 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("выходные 10-16"));
+    }
+
+    @Test
+    public void parsesExceptionsAndBreaks() {
+        assertEquals(Arrays.asList(
+                new ScheduleRule(0x1B, 9 * 60, 18 * 60, ScheduleRule.KIND_WORK),
+                new ScheduleRule(0x1B, 13 * 60, 14 * 60, ScheduleRule.KIND_BREAK)),
+                ScheduleParser.parse("Пн-Пт кроме Ср 9:00-18:00, обед 13-14"));
+        assertEquals(Collections.singletonList(new ScheduleRule(0x3F, 9 * 60, 15 * 60, ScheduleRule.KIND_WORK)),
+                ScheduleParser.parse("Пн-Сб 9-15, Вс - выходной"));
+    }
+
+    @Test
+    public void parsesOvernightRange() {
+        assertEquals(Collections.singletonList(new ScheduleRule(1 << SUNDAY, 20 * 60, 8 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("Вс 20:00-08:00"));
+        assertEquals(Collections.singletonList(new ScheduleRule(ScheduleRule.ALL_DAYS, 22 * 60, 24 * 60,
+                ScheduleRule.KIND_WORK)), ScheduleParser.parse("22-0"));
+    }
+
+    @Test
+    public void skipsUnrecognizedText() {
+        assertTrue(ScheduleParser.parse(null).isEmpty());
+        assertTrue(ScheduleParser.parse("по записи").isEmpty());
+        assertTrue(ScheduleParser.parse("Пн 25:00-26:00").isEmpty());
+    }
+
+    @Test
+    public void compilesWorkMinusBreaks() {
+        WeeklyAvailability availability = WeeklyAvailability.compile(
+                ScheduleParser.parse("Пн-Пт 9:00-18:00, перерыв 13:00-13:45"));
+
+        assertEquals(5 * (9 * 60 - 45), availability.getWorkingMinutes());
+        assertTrue(availability.isAvailable(slot(MONDAY, 9, 0)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 8, 55)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 13, 40)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 13, 45)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 18, 0)));
+        assertFalse(availability.isAvailable(slot(SATURDAY, 10, 0)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 9, 0), 4 * 60 / WeeklyAvailability.SLOT_MINUTES));
+        assertFalse(availability.isAvailable(slot(MONDAY, 9, 0), 5 * 60 / WeeklyAvailability.SLOT_MINUTES));
+    }
+
+    @Test
+    public void roundsWorkInwardAndBreaksOutward() {
+        WeeklyAvailability availability = WeeklyAvailability.compile(Arrays.asList(
+                new ScheduleRule(1, 9 * 60 + 2, 10 * 60 + 8, ScheduleRule.KIND_WORK),
+                new ScheduleRule(1, 9 * 60 + 31, 9 * 60 + 34, ScheduleRule.KIND_BREAK)));
+
+        assertFalse(availability.isAvailable(slot(MONDAY, 9, 0)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 9, 5)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 9, 30)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 10, 0)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 10, 5)));
+    }
+
+    @Test
+    public void overnightShiftWrapsIntoNextWeek() {
+        WeeklyAvailability availability = WeeklyAvailability.compile(ScheduleParser.parse("Вс 20-8"));
+
+        assertTrue(availability.isAvailable(slot(SUNDAY, 23, 55)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 0, 0)));
+        assertTrue(availability.isAvailable(slot(MONDAY, 7, 55)));
+        assertFalse(availability.isAvailable(slot(MONDAY, 8, 0)));
+        assertTrue(availability.isAvailable(slot(SUNDAY, 23, 0), 3 * 60 / WeeklyAvailability.SLOT_MINUTES));
+    }
+
+    @Test
+    public void intersectsTwoDoctors() {
+        WeeklyAvailability morning = WeeklyAvailability.compile(ScheduleParser.parse("Пн-Пт 8-14"));
+        WeeklyAvailability evening = WeeklyAvailability.compile(ScheduleParser.parse("Пн-Пт 12-20"));
+        WeeklyAvailability weekend = WeeklyAvailability.compile(ScheduleParser.parse("Сб-Вс 8-20"));
+
+        WeeklyAvailability common = morning.and(evening);
+        assertTrue(morning.intersects(evening));
+        assertEquals(WeeklyAvailability.compile(ScheduleParser.parse("Пн-Пт 12-14")), common);
+        assertFalse(morning.intersects(weekend));
+        assertTrue(morning.and(weekend).isEmpty());
+    }
+
+    @Test
+    public void nextRunSkipsGapsShorterThanRequested() {
+        WeeklyAvailability availability = WeeklyAvailability.compile(
+                ScheduleParser.parse("Пн 9:00-9:20, 10-12; Пт 22-2"));
+        int hour = 60 / WeeklyAvailability.SLOT_MINUTES;
+
+        assertEquals(0, availability.nextRun(slot(MONDAY, 9, 0), 4));
+        assertEquals(slot(MONDAY, 10, 0) - slot(MONDAY, 8, 0), availability.nextRun(slot(MONDAY, 8, 0), hour));
+        // Ночная смена пятницы - ближайший отрезок после понедельника 11:30
+        assertEquals(slot(4, 22, 0) - slot(MONDAY, 11, 30), availability.nextRun(slot(MONDAY, 11, 30), hour));
+        // С субботы 01:30 часа до конца смены нет - через конец недели к понедельнику
+        assertEquals(0, availability.nextRun(slot(SATURDAY, 1, 30), 6));
+        assertEquals(WeeklyAvailability.SLOTS - slot(SATURDAY, 1, 30) + slot(MONDAY, 10, 0),
+                availability.nextRun(slot(SATURDAY, 1, 30), hour));
+        assertEquals(-1, availability.nextRun(slot(MONDAY, 0, 0), 5 * hour));
+    }
+
+    @Test
+    public void slotOfUsesMondayAsFirstDay() {
+        TimeZone zone = TimeZone.getTimeZone("Europe/Moscow");
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.clear();
+        // 2026-10-18 - воскресенье
+        calendar.set(2026, Calendar.OCTOBER, 18, 23, 59);
+        assertEquals(slot(SUNDAY, 23, 55), WeeklyAvailability.slotOf(calendar.getTimeInMillis(), zone));
+        calendar.set(2026, Calendar.OCTOBER, 19, 9, 7);
+        assertEquals(slot(MONDAY, 9, 5), WeeklyAvailability.slotOf(calendar.getTimeInMillis(), zone));
+    }
+
+    private static int slot(int day, int hour, int minute) {
+        return day * WeeklyAvailability.SLOTS_PER_DAY + (hour * 60 + minute) / WeeklyAvailability.SLOT_MINUTES;
+    }
+}